@@ -0,0 +1,6 @@
+package com.microsoft.openai.samples.assistant.business.balance;
+
+/**
+ * Published when the available balance of a payment method of the account changes.
+ */
+public record BalanceChangedEvent(String accountId) {}
@@ -0,0 +1,327 @@
+package com.microsoft.openai.samples.assistant.business.balance;
+
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.Reservation;
+import com.microsoft.openai.samples.assistant.business.common.models.ReservationStatus;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Available balances of the payment methods, kept in memory as long minor units of the account currency (e.g. cents).
+ * Funds are reserved before a payment is executed, then the reservation is committed or released. The operations
+ * on the payment methods of an account are serialized by a lock striped on the account id, so the funds check and
+ * the debit are atomic under concurrent payments on the same account while different accounts don't contend.
+ * Reservations not committed nor released within the ttl are released by a sweeper. A payment method without a
+ * balance, e.g. a direct debit, is not balance tracked: its reservations don't hold any funds.
+ * <p>
+ * Balances are loaded from the account repository the first time a payment method is used; debits are not written
+ * back to the repository.
+ */
+@Component
+public class BalanceEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceEngine.class);
+    private static final int LOCK_STRIPES = 256;
+
+    private final AccountRepository accountRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration reservationTtl;
+    private final Duration sweepInterval;
+
+    private final Map<String, Balance> balances = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "balance-reservations-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BalanceEngine(AccountRepository accountRepository,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${account.balance.reservation-ttl:5m}") Duration reservationTtl,
+                         @Value("${account.balance.sweep-interval:1s}") Duration sweepInterval) {
+        this.accountRepository = accountRepository;
+        this.eventPublisher = eventPublisher;
+        this.reservationTtl = reservationTtl;
+        this.sweepInterval = sweepInterval;
+        for (int i = 0; i < LOCK_STRIPES; i++)
+            locks[i] = new Object();
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Reserves the amount on the payment method. Reserving again with the same reservation id returns the existing
+     * reservation while it's reserved or committed; a released or expired reservation id can't be reused.
+     */
+    public Reservation reserve(String reservationId, String accountId, String paymentMethodId, String amount) {
+        if (reservationId == null || reservationId.isBlank())
+            throw new IllegalArgumentException("ReservationId is empty or null");
+        if (accountId == null || accountId.isEmpty())
+            throw new IllegalArgumentException("AccountId is empty or null");
+        if (paymentMethodId == null || paymentMethodId.isEmpty())
+            throw new IllegalArgumentException("PaymentMethodId is empty or null");
+
+        Balance balance = balance(accountId, paymentMethodId);
+        long minorUnits = toMinorUnits(amount, balance.fractionDigits);
+        if (minorUnits <= 0)
+            throw new IllegalArgumentException("Amount must be greater than 0");
+
+        Reservation reservation;
+        synchronized (lock(accountId)) {
+            Hold existing = holds.get(reservationId);
+            if (existing != null) {
+                if (!existing.accountId.equals(accountId) || !existing.paymentMethodId.equals(paymentMethodId) || existing.amount != minorUnits)
+                    throw new ReservationStateException("Reservation %s already exists for a different payment".formatted(reservationId));
+                // the funds of a released or expired reservation are back in the balance: it can't be committed
+                if (existing.status == ReservationStatus.RELEASED || existing.status == ReservationStatus.EXPIRED)
+                    throw new ReservationStateException("Reservation %s can't be reused: it is %s".formatted(reservationId, existing.status));
+                return toReservation(existing, balance);
+            }
+            if (balance.tracked && balance.available < minorUnits)
+                throw new InsufficientFundsException("Insufficient funds on payment method %s: available %s, requested %s"
+                        .formatted(paymentMethodId, toAmount(balance.available, balance.fractionDigits), amount));
+
+            Hold hold = new Hold(reservationId, accountId, paymentMethodId, minorUnits, System.currentTimeMillis() + reservationTtl.toMillis());
+            // the same reservation id could be used at the same time on another account, guarded by another lock
+            if (holds.putIfAbsent(reservationId, hold) != null)
+                throw new ReservationStateException("Reservation %s already exists for a different payment".formatted(reservationId));
+            if (balance.tracked)
+                balance.available -= minorUnits;
+            reservation = toReservation(hold, balance);
+        }
+        eventPublisher.publishEvent(new BalanceChangedEvent(accountId));
+        return reservation;
+    }
+
+    /**
+     * Debits the reserved funds. Committing a committed reservation has no effect.
+     */
+    public Reservation commit(String reservationId) {
+        Hold hold = hold(reservationId);
+        Balance balance = balances.get(hold.paymentMethodId);
+        synchronized (lock(hold.accountId)) {
+            if (hold.status == ReservationStatus.RESERVED)
+                complete(hold, ReservationStatus.COMMITTED);
+            else if (hold.status != ReservationStatus.COMMITTED)
+                throw new ReservationStateException("Reservation %s can't be committed: it is %s".formatted(reservationId, hold.status));
+            return toReservation(hold, balance);
+        }
+    }
+
+    /**
+     * Returns the reserved funds to the available balance. Releasing a released or expired reservation has no effect.
+     */
+    public Reservation release(String reservationId) {
+        Hold hold = hold(reservationId);
+        Balance balance = balances.get(hold.paymentMethodId);
+        Reservation reservation;
+        boolean released = false;
+        synchronized (lock(hold.accountId)) {
+            if (hold.status == ReservationStatus.COMMITTED)
+                throw new ReservationStateException("Reservation %s can't be released: it is committed".formatted(reservationId));
+            if (hold.status == ReservationStatus.RESERVED) {
+                if (balance.tracked)
+                    balance.available += hold.amount;
+                complete(hold, ReservationStatus.RELEASED);
+                released = true;
+            }
+            reservation = toReservation(hold, balance);
+        }
+        if (released)
+            eventPublisher.publishEvent(new BalanceChangedEvent(hold.accountId));
+        return reservation;
+    }
+
+    public Reservation getReservation(String reservationId) {
+        Hold hold = hold(reservationId);
+        Balance balance = balances.get(hold.paymentMethodId);
+        synchronized (lock(hold.accountId)) {
+            return toReservation(hold, balance);
+        }
+    }
+
+    /**
+     * Returns the payment method with the available balance net of the reservations, when the engine tracks it.
+     */
+    public PaymentMethod withAvailableBalance(PaymentMethod paymentMethod) {
+        if (paymentMethod == null)
+            return null;
+        Balance balance = balances.get(paymentMethod.id());
+        if (balance == null || !balance.tracked)
+            return paymentMethod;
+        long available;
+        synchronized (lock(balance.accountId)) {
+            available = balance.available;
+        }
+        return new PaymentMethod(paymentMethod.id(), paymentMethod.type(), paymentMethod.activationDate(), paymentMethod.expirationDate(),
+                toAmount(available, balance.fractionDigits), paymentMethod.cardNumber());
+    }
+
+    /**
+     * Releases the expired reservations and forgets the completed ones once their ttl has elapsed, so a late retry
+     * of a commit or release still finds them.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        try {
+            for (Hold hold : holds.values()) {
+                if (hold.expiresAt > now)
+                    continue;
+                boolean expired = false;
+                synchronized (lock(hold.accountId)) {
+                    if (hold.status == ReservationStatus.RESERVED) {
+                        Balance balance = balances.get(hold.paymentMethodId);
+                        if (balance.tracked)
+                            balance.available += hold.amount;
+                        complete(hold, ReservationStatus.EXPIRED);
+                        expired = true;
+                    } else if (hold.completedAt + reservationTtl.toMillis() <= now) {
+                        holds.remove(hold.id);
+                    }
+                }
+                if (expired) {
+                    logger.warn("Reservation [{}] on payment method {} expired", hold.id, hold.paymentMethodId);
+                    eventPublisher.publishEvent(new BalanceChangedEvent(hold.accountId));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Reservations sweep failed", e);
+        }
+    }
+
+    private Balance balance(String accountId, String paymentMethodId) {
+        Balance balance = balances.computeIfAbsent(paymentMethodId, id -> load(accountId, id));
+        if (balance == null || !balance.accountId.equals(accountId))
+            throw new ReservationNotFoundException("Payment method %s not found for account %s".formatted(paymentMethodId, accountId));
+        return balance;
+    }
+
+    private Balance load(String accountId, String paymentMethodId) {
+        Account account = accountRepository.findAccountById(accountId).orElse(null);
+        if (account == null || account.paymentMethods() == null
+                || account.paymentMethods().stream().noneMatch(summary -> summary.id().equals(paymentMethodId)))
+            return null;
+        PaymentMethod paymentMethod = accountRepository.findPaymentMethodById(paymentMethodId).orElse(null);
+        if (paymentMethod == null)
+            return null;
+
+        int fractionDigits = fractionDigits(account.currency());
+        if (paymentMethod.availableBalance() == null)
+            return new Balance(accountId, fractionDigits, false, 0);
+        return new Balance(accountId, fractionDigits, true, toMinorUnits(paymentMethod.availableBalance(), fractionDigits));
+    }
+
+    private Hold hold(String reservationId) {
+        Hold hold = reservationId != null ? holds.get(reservationId) : null;
+        if (hold == null)
+            throw new ReservationNotFoundException("Reservation %s not found".formatted(reservationId));
+        return hold;
+    }
+
+    private Object lock(String accountId) {
+        int hash = accountId.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private static void complete(Hold hold, ReservationStatus status) {
+        hold.status = status;
+        hold.completedAt = System.currentTimeMillis();
+    }
+
+    private static Reservation toReservation(Hold hold, Balance balance) {
+        return new Reservation(
+                hold.id,
+                hold.accountId,
+                hold.paymentMethodId,
+                toAmount(hold.amount, balance.fractionDigits),
+                hold.status,
+                Instant.ofEpochMilli(hold.expiresAt).toString(),
+                balance.tracked ? toAmount(balance.available, balance.fractionDigits) : null);
+    }
+
+    static int fractionDigits(String currency) {
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits >= 0 ? digits : 2;
+        } catch (RuntimeException e) {
+            return 2;
+        }
+    }
+
+    static long toMinorUnits(String amount, int fractionDigits) {
+        if (amount == null || amount.isBlank())
+            throw new IllegalArgumentException("Amount is empty or null");
+        try {
+            return new BigDecimal(amount.trim()).movePointRight(fractionDigits).longValueExact();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Amount is not a valid number");
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount %s has more than %d decimals or is too large".formatted(amount, fractionDigits));
+        }
+    }
+
+    static String toAmount(long minorUnits, int fractionDigits) {
+        return BigDecimal.valueOf(minorUnits, fractionDigits).toPlainString();
+    }
+
+    // fields guarded by the lock of the account
+    private static final class Balance {
+        private final String accountId;
+        private final int fractionDigits;
+        private final boolean tracked;
+        private long available;
+
+        Balance(String accountId, int fractionDigits, boolean tracked, long available) {
+            this.accountId = accountId;
+            this.fractionDigits = fractionDigits;
+            this.tracked = tracked;
+            this.available = available;
+        }
+    }
+
+    // status and completedAt guarded by the lock of the account
+    private static final class Hold {
+        private final String id;
+        private final String accountId;
+        private final String paymentMethodId;
+        private final long amount;
+        private final long expiresAt;
+        private ReservationStatus status = ReservationStatus.RESERVED;
+        private long completedAt;
+
+        Hold(String id, String accountId, String paymentMethodId, long amount, long expiresAt) {
+            this.id = id;
+            this.accountId = accountId;
+            this.paymentMethodId = paymentMethodId;
+            this.amount = amount;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
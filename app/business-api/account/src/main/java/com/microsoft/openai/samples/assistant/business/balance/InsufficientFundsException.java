@@ -0,0 +1,15 @@
+package com.microsoft.openai.samples.assistant.business.balance;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the available balance of the payment method is lower than the amount to reserve.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientFundsException extends RuntimeException {
+
+    public InsufficientFundsException(String message) {
+        super(message);
+    }
+}
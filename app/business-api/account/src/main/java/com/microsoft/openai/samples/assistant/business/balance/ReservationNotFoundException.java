@@ -0,0 +1,15 @@
+package com.microsoft.openai.samples.assistant.business.balance;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a reservation, or the payment method to reserve funds on, doesn't exist.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReservationNotFoundException extends RuntimeException {
+
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
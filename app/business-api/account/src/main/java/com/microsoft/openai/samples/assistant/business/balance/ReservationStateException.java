@@ -0,0 +1,15 @@
+package com.microsoft.openai.samples.assistant.business.balance;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a reservation can't move to the requested status, e.g. committing an expired reservation.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReservationStateException extends RuntimeException {
+
+    public ReservationStateException(String message) {
+        super(message);
+    }
+}
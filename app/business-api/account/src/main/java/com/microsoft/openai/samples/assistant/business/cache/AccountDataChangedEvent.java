@@ -0,0 +1,8 @@
+package com.microsoft.openai.samples.assistant.business.cache;
+
+/**
+ * Published when the data of an account (details, payment methods or beneficiaries) changes, to invalidate the
+ * cached responses that include it.
+ */
+public record AccountDataChangedEvent(String accountId) {
+}
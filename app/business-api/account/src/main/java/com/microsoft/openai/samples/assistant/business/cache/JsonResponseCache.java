@@ -0,0 +1,162 @@
+package com.microsoft.openai.samples.assistant.business.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.openai.samples.assistant.business.balance.BalanceChangedEvent;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the JSON responses of the read endpoints. A resource is serialized once and kept as bytes with a strong
+ * ETag computed from its content, so a repeated read is a map lookup and a byte copy, and a conditional read with a
+ * matching If-None-Match is answered with 304 without a body. Responses are cached by request path with the version of
+ * their scope, the account or the user they are about, see {@link ScopeVersions}, and evicted when the cache is full or
+ * after the time to live. An AccountDataChangedEvent or a BalanceChangedEvent invalidates the account and its user, the
+ * responses about the other accounts and users are kept. Empty results are not cached: they are cheap to load and
+ * often the ones about to change.
+ */
+@Component
+public class JsonResponseCache {
+
+    public static final String ACCOUNTS_PREFIX = "/accounts/";
+    public static final String USERS_PREFIX = "/users/";
+
+    private final Cache<Key, CachedJson> responses;
+    private final ScopeVersions versions = new ScopeVersions();
+    private final ObjectMapper objectMapper;
+    private final AccountRepository accountRepository;
+    private final boolean enabled;
+
+    public JsonResponseCache(ObjectMapper objectMapper,
+                             AccountRepository accountRepository,
+                             @Value("${account.response-cache.enabled:true}") boolean enabled,
+                             @Value("${account.response-cache.max-entries:10000}") int maxEntries,
+                             @Value("${account.response-cache.ttl:10m}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.accountRepository = accountRepository;
+        this.enabled = enabled;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the cached response of the resource at the path, loading it when missing. The scope is the account id or
+     * the user name the resource is about. A null resource is not cached.
+     */
+    public ResponseEntity<byte[]> get(String scope, String path, String ifNoneMatch, Supplier<Object> loader) {
+        CachedJson cached;
+        if (enabled) {
+            // the version is read before the load: a response loaded during an invalidation is stored with the old one
+            CachedJson[] empty = new CachedJson[1];
+            cached = responses.get(new Key(versions.version(scope), path), k -> {
+                CachedJson loaded = load(loader);
+                if (loaded != null && loaded.empty()) {
+                    empty[0] = loaded;
+                    return null;
+                }
+                return loaded;
+            });
+            if (cached == null)
+                cached = empty[0];
+        } else {
+            cached = load(loader);
+        }
+        if (cached == null)
+            return ResponseEntity.ok().build();
+
+        if (ifNoneMatch != null && matches(ifNoneMatch, cached.etag()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cached.etag())
+                .body(cached.body());
+    }
+
+    /**
+     * Invalidates the responses about the account or the user.
+     */
+    public void invalidate(String scope) {
+        versions.invalidate(scope);
+    }
+
+    @EventListener
+    public void onAccountDataChanged(AccountDataChangedEvent event) {
+        invalidateAccount(event.accountId());
+    }
+
+    @EventListener
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        invalidateAccount(event.accountId());
+    }
+
+    private void invalidateAccount(String accountId) {
+        invalidate(accountId);
+        // the user resources embed the data of their accounts
+        accountRepository.findAccountById(accountId).map(Account::userName).ifPresent(this::invalidate);
+    }
+
+    private CachedJson load(Supplier<Object> loader) {
+        Object value = loader.get();
+        if (value == null)
+            return null;
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            return new CachedJson(body, etag(body), isEmpty(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response", e);
+        }
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value instanceof Collection<?> collection && collection.isEmpty()
+                || value instanceof Map<?, ?> map && map.isEmpty();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch.trim().equals("*"))
+            return true;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            // weak comparison, as allowed for If-None-Match
+            if (value.startsWith("W/"))
+                value = value.substring(2);
+            if (value.equals(etag))
+                return true;
+        }
+        return false;
+    }
+
+    private record Key(long version, String path) {
+    }
+
+    private record CachedJson(byte[] body, String etag, boolean empty) {
+    }
+}
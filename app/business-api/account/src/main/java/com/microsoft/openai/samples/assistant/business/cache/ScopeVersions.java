@@ -0,0 +1,38 @@
+package com.microsoft.openai.samples.assistant.business.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of the scopes of cached entries, the account, user or payment method they are about, to put in their
+ * keys. Invalidating a scope gives it a new version, so all the entries about it are missed at once without scanning
+ * the caches: the old entries are no longer read and are evicted by size or ttl. An entry loaded while its scope is
+ * invalidated is stored with the old version, so it is never served stale.
+ * <p>
+ * Versions come from a single counter and only the most recently invalidated scopes keep theirs: a scope whose
+ * version is evicted gets the highest evicted version, so its entries cached before the eviction, which were up to
+ * date, are still read and those cached before its last invalidation are not.
+ */
+class ScopeVersions {
+
+    private static final int MAX_VERSIONS = 100_000;
+
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final AtomicLong evictedVersion = new AtomicLong();
+    // the eviction listener runs while the version is removed, so a missing version is always read after the update
+    private final Cache<Object, Long> versions = Caffeine.newBuilder()
+            .maximumSize(MAX_VERSIONS)
+            .<Object, Long>evictionListener((scope, version, cause) -> evictedVersion.accumulateAndGet(version, Math::max))
+            .build();
+
+    long version(Object scope) {
+        Long version = scope == null ? null : versions.getIfPresent(scope);
+        return version != null ? version : evictedVersion.get();
+    }
+
+    void invalidate(Object scope) {
+        versions.put(scope, lastVersion.incrementAndGet());
+    }
+}
@@ -0,0 +1,30 @@
+package com.microsoft.openai.samples.assistant.business.cache;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keys of the cached tool results: the tool arguments with the version of the first one, the account, user or
+ * payment method the result is about, see {@link ScopeVersions}.
+ */
+@Component
+public class ToolCacheKeys implements KeyGenerator {
+
+    private final ScopeVersions versions = new ScopeVersions();
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return new Key(versions.version(params.length > 0 ? params[0] : null), Arrays.asList(params.clone()));
+    }
+
+    public void invalidate(Object scope) {
+        versions.invalidate(scope);
+    }
+
+    private record Key(long version, List<Object> arguments) {
+    }
+}
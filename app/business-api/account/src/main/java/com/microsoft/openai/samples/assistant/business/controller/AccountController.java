@@ -1,14 +1,22 @@
 package com.microsoft.openai.samples.assistant.business.controller;
 
-import com.microsoft.openai.samples.assistant.business.models.Account;
-import com.microsoft.openai.samples.assistant.business.models.PaymentMethod;
-import com.microsoft.openai.samples.assistant.business.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.cache.JsonResponseCache;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
 import com.microsoft.openai.samples.assistant.business.service.AccountService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -18,27 +26,63 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final JsonResponseCache responseCache;
     private static final Logger logger = LoggerFactory.getLogger(AccountController.class);
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, JsonResponseCache responseCache) {
         this.accountService = accountService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping("/{accountId}")
-    public Account getAccountDetails(@PathVariable String accountId) {
+    public ResponseEntity<byte[]> getAccountDetails(@PathVariable String accountId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("Received request to get account details for account id: {}", accountId);
-        return accountService.getAccountDetails(accountId);
+        return responseCache.get(accountId, JsonResponseCache.ACCOUNTS_PREFIX + accountId, ifNoneMatch,
+                () -> accountService.getAccountDetails(accountId));
     }
 
     @GetMapping("/{accountId}/paymentmethods/{methodId}")
-    public PaymentMethod getPaymentMethodDetails(@PathVariable String accountId, @PathVariable String methodId) {
+    public ResponseEntity<byte[]> getPaymentMethodDetails(@PathVariable String accountId, @PathVariable String methodId,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("Received request to get payment method details for account id: {} and method id: {}", accountId, methodId);
-        return accountService.getPaymentMethodDetails(methodId);
+        return responseCache.get(accountId, JsonResponseCache.ACCOUNTS_PREFIX + accountId + "/paymentmethods/" + methodId, ifNoneMatch,
+                () -> accountService.getPaymentMethodDetails(methodId));
     }
 
     @GetMapping("/{accountId}/registeredBeneficiaries")
-    public List<Beneficiary> getBeneficiaryDetails(@PathVariable String accountId) {
+    public ResponseEntity<byte[]> getBeneficiaryDetails(@PathVariable String accountId,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("Received request to get beneficiary details for account id: {}", accountId);
-        return accountService.getRegisteredBeneficiary(accountId);
+        return responseCache.get(accountId, JsonResponseCache.ACCOUNTS_PREFIX + accountId + "/registeredBeneficiaries", ifNoneMatch,
+                () -> accountService.getRegisteredBeneficiary(accountId));
+    }
+
+    @GetMapping("/{accountId}/registeredBeneficiaries/search")
+    public List<NameMatch> resolveBeneficiaryName(@PathVariable String accountId, @RequestParam(name = "name") String name) {
+        logger.info("Received request to resolve beneficiary name [{}] for account id: {}", name, accountId);
+        return accountService.resolveBeneficiaryName(accountId, name);
+    }
+
+    @GetMapping("/{accountId}/registeredBeneficiaries/find")
+    public List<Beneficiary> findBeneficiary(@PathVariable String accountId,
+                                             @RequestParam(name = "name", required = false) String name,
+                                             @RequestParam(name = "bankCode", required = false) String bankCode) {
+        logger.info("Received request to find beneficiary [{}] bank code [{}] for account id: {}", name, bankCode, accountId);
+        return accountService.findBeneficiary(accountId, name, bankCode);
+    }
+
+    @PostMapping("/{accountId}/registeredBeneficiaries")
+    public ResponseEntity<Beneficiary> addBeneficiary(@PathVariable String accountId, @RequestBody Beneficiary beneficiary) {
+        logger.info("Received request to register beneficiary [{}] for account id: {}", beneficiary.fullName(), accountId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(accountService.addBeneficiary(accountId, beneficiary));
+    }
+
+    @DeleteMapping("/{accountId}/registeredBeneficiaries/{beneficiaryId}")
+    public ResponseEntity<Void> removeBeneficiary(@PathVariable String accountId, @PathVariable String beneficiaryId) {
+        logger.info("Received request to remove beneficiary {} for account id: {}", beneficiaryId, accountId);
+        return accountService.removeBeneficiary(accountId, beneficiaryId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 }
\ No newline at end of file
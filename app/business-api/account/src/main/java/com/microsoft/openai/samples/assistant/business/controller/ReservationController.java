@@ -0,0 +1,52 @@
+package com.microsoft.openai.samples.assistant.business.controller;
+
+import com.microsoft.openai.samples.assistant.business.balance.BalanceEngine;
+import com.microsoft.openai.samples.assistant.business.common.models.Reservation;
+import com.microsoft.openai.samples.assistant.business.common.models.ReservationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/reservations")
+public class ReservationController {
+
+    private final BalanceEngine balanceEngine;
+    private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
+
+    public ReservationController(BalanceEngine balanceEngine) {
+        this.balanceEngine = balanceEngine;
+    }
+
+    @PostMapping
+    public ResponseEntity<Reservation> reserve(@RequestBody ReservationRequest request) {
+        logger.info("Received request to reserve {} on payment method {} for account id: {}", request.amount(), request.paymentMethodId(), request.accountId());
+        Reservation reservation = balanceEngine.reserve(request.reservationId(), request.accountId(), request.paymentMethodId(), request.amount());
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+    }
+
+    @GetMapping("/{reservationId}")
+    public Reservation getReservation(@PathVariable String reservationId) {
+        return balanceEngine.getReservation(reservationId);
+    }
+
+    @PostMapping("/{reservationId}/commit")
+    public Reservation commit(@PathVariable String reservationId) {
+        logger.info("Received request to commit reservation {}", reservationId);
+        return balanceEngine.commit(reservationId);
+    }
+
+    @DeleteMapping("/{reservationId}")
+    public Reservation release(@PathVariable String reservationId) {
+        logger.info("Received request to release reservation {}", reservationId);
+        return balanceEngine.release(reservationId);
+    }
+}
@@ -1,33 +1,49 @@
 package com.microsoft.openai.samples.assistant.business.controller;
 
-import com.microsoft.openai.samples.assistant.business.models.Account;
+import com.microsoft.openai.samples.assistant.business.cache.JsonResponseCache;
+import com.microsoft.openai.samples.assistant.business.service.AccountOverviewService;
 import com.microsoft.openai.samples.assistant.business.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userService;
+    private final AccountOverviewService accountOverviewService;
+    private final JsonResponseCache responseCache;
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, AccountOverviewService accountOverviewService, JsonResponseCache responseCache) {
         this.userService = userService;
+        this.accountOverviewService = accountOverviewService;
+        this.responseCache = responseCache;
     }
     @GetMapping("/{userName}/accounts")
-    public List<Account> getAccountsByUserName(@PathVariable String userName) {
+    public ResponseEntity<byte[]> getAccountsByUserName(@PathVariable String userName,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // Implement the logic to get the list of all accounts for a specific user
         logger.info("Received request to get accounts for user: {}", userName);
-        return userService.getAccountsByUserName(userName);
+        return responseCache.get(userName, JsonResponseCache.USERS_PREFIX + userName + "/accounts", ifNoneMatch,
+                () -> userService.getAccountsByUserName(userName));
+    }
+
+    @GetMapping("/{userName}/overview")
+    public ResponseEntity<byte[]> getAccountOverview(@PathVariable String userName,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("Received request to get accounts overview for user: {}", userName);
+        return responseCache.get(userName, JsonResponseCache.USERS_PREFIX + userName + "/overview", ifNoneMatch,
+                () -> accountOverviewService.getAccountOverview(userName));
     }
 }
@@ -9,7 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-public class MCPServerConfiguration {
+public class AccountMCPServerConfiguration {
 
     @Bean
     public ToolCallbackProvider accountTools(AccountMCPService accountMCPService) {
@@ -0,0 +1,100 @@
+package com.microsoft.openai.samples.assistant.business.mcp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.openai.samples.assistant.business.balance.BalanceChangedEvent;
+import com.microsoft.openai.samples.assistant.business.cache.AccountDataChangedEvent;
+import com.microsoft.openai.samples.assistant.business.cache.ToolCacheKeys;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches of the results of the account MCP tools, one per tool bounded by number of entries (Caffeine W-TinyLFU) and
+ * with its own ttl, so repeated calls with the same arguments from the agents don't reach the services. The results
+ * about an account are invalidated when its data or its balance change. Cache statistics are exposed by the actuator
+ * metrics endpoint (cache.gets, cache.puts, cache.evictions, cache.size by cache).
+ */
+@Configuration
+@EnableCaching
+public class AccountToolCacheConfiguration {
+
+    // the caches are named after the tools, whose first argument is the user name
+    static final List<String> USER_TOOLS = List.of("getAccountOverview", "getAccountsByUserName");
+    // ... the account id
+    static final List<String> ACCOUNT_TOOLS = List.of("getAccountDetails", "getRegisteredBeneficiary", "findBeneficiary", "resolveBeneficiaryName");
+    // ... the payment method id
+    static final List<String> PAYMENT_METHOD_TOOLS = List.of("getPaymentMethodDetails");
+
+    private final ToolCacheKeys toolCacheKeys;
+    private final AccountRepository accountRepository;
+
+    public AccountToolCacheConfiguration(ToolCacheKeys toolCacheKeys, AccountRepository accountRepository) {
+        this.toolCacheKeys = toolCacheKeys;
+        this.accountRepository = accountRepository;
+    }
+
+    @Bean
+    public CacheManager cacheManager(@Value("${account.tool-cache.enabled:true}") boolean enabled,
+                                     @Value("${account.tool-cache.max-entries:10000}") long maxEntries,
+                                     @Value("${account.tool-cache.default-ttl:5m}") Duration defaultTtl,
+                                     // tool=duration pairs, e.g. getAccountOverview=1m,getRegisteredBeneficiary=10m
+                                     @Value("${account.tool-cache.ttls:}") String toolTtls) {
+        if (!enabled)
+            return new NoOpCacheManager();
+        Map<String, Duration> ttls = parseTtls(toolTtls);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        for (List<String> tools : List.of(USER_TOOLS, ACCOUNT_TOOLS, PAYMENT_METHOD_TOOLS)) {
+            for (String tool : tools) {
+                cacheManager.registerCustomCache(tool, Caffeine.newBuilder()
+                        .maximumSize(maxEntries)
+                        .expireAfterWrite(ttls.getOrDefault(tool, defaultTtl))
+                        .recordStats()
+                        .build());
+            }
+        }
+        return cacheManager;
+    }
+
+    @EventListener
+    public void onAccountDataChanged(AccountDataChangedEvent event) {
+        invalidateAccount(event.accountId());
+    }
+
+    @EventListener
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        invalidateAccount(event.accountId());
+    }
+
+    private void invalidateAccount(String accountId) {
+        toolCacheKeys.invalidate(accountId);
+        accountRepository.findAccountById(accountId).map(Account::userName).ifPresent(toolCacheKeys::invalidate);
+        accountRepository.findPaymentMethodsByAccountId(accountId).stream().map(PaymentMethod::id).forEach(toolCacheKeys::invalidate);
+    }
+
+    private static Map<String, Duration> parseTtls(String toolTtls) {
+        Map<String, Duration> ttls = new HashMap<>();
+        for (String toolTtl : toolTtls.split(",")) {
+            if (toolTtl.isBlank())
+                continue;
+            String[] toolAndTtl = toolTtl.split("=");
+            if (toolAndTtl.length != 2)
+                throw new IllegalArgumentException("Invalid tool cache ttl, expected tool=duration: " + toolTtl);
+            ttls.put(toolAndTtl[0].trim(), DurationStyle.detectAndParse(toolAndTtl[1].trim()));
+        }
+        return ttls;
+    }
+}
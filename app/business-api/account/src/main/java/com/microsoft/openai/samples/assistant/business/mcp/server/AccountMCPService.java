@@ -1,35 +1,67 @@
 package com.microsoft.openai.samples.assistant.business.mcp.server;
 
-import com.microsoft.openai.samples.assistant.business.models.Account;
-import com.microsoft.openai.samples.assistant.business.models.Beneficiary;
-import com.microsoft.openai.samples.assistant.business.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.models.AccountOverview;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.service.AccountOverviewService;
 import com.microsoft.openai.samples.assistant.business.service.AccountService;
 import org.springframework.stereotype.Service;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 
 import java.util.List;
 
 @Service
+@CacheConfig(keyGenerator = "toolCacheKeys")
 public class AccountMCPService {
 
     private final AccountService accountService;
-    public AccountMCPService(AccountService accountService) {
+    private final AccountOverviewService accountOverviewService;
+    public AccountMCPService(AccountService accountService, AccountOverviewService accountOverviewService) {
        this.accountService = accountService;
+       this.accountOverviewService = accountOverviewService;
+    }
+
+    @Tool(description = "Get in a single call all the accounts of a user with balance, payment methods with their available balance and registered beneficiaries")
+    @Cacheable("getAccountOverview")
+    public AccountOverview getAccountOverview(@ToolParam( description ="userName once the user has logged" ) String userName) {
+        return this.accountOverviewService.getAccountOverview(userName);
     }
 
     @Tool(description = "Get account details and available payment methods")
+    @Cacheable("getAccountDetails")
     public Account getAccountDetails(String accountId) {
         return this.accountService.getAccountDetails(accountId);
 
     }
 
     @Tool(description = "Get payment method detail with available balance")
+    @Cacheable("getPaymentMethodDetails")
     public PaymentMethod getPaymentMethodDetails(String paymentMethodId) {
        return this.accountService.getPaymentMethodDetails(paymentMethodId);
     }
 
     @Tool(description = "Get list of registered beneficiaries for a specific account")
+    @Cacheable("getRegisteredBeneficiary")
     public List<Beneficiary> getRegisteredBeneficiary(String accountId) {
-     return this.accountService.getRegisteredBeneficiary(accountId);
+     return List.copyOf(this.accountService.getRegisteredBeneficiary(accountId));
+    }
+
+    @Tool(description = "Find a registered beneficiary of the account by name. Returns only the matching beneficiaries, or an empty list when the payee is not registered")
+    @Cacheable("findBeneficiary")
+    public List<Beneficiary> findBeneficiary(String accountId,
+                                             @ToolParam( description ="beneficiary full name, e.g. the payee name" ) String name,
+                                             @ToolParam( description ="beneficiary bank code, to narrow the result when known", required = false ) String bankCode) {
+     return List.copyOf(this.accountService.findBeneficiary(accountId, name, bankCode));
+    }
+
+    @Tool(description = "Find the registered beneficiaries names similar to the provided name. Results are ranked by a similarity score between 0 and 1")
+    @Cacheable("resolveBeneficiaryName")
+    public List<NameMatch> resolveBeneficiaryName(String accountId, String beneficiaryName) {
+     return List.copyOf(this.accountService.resolveBeneficiaryName(accountId, beneficiaryName));
     }
 }
\ No newline at end of file
@@ -1,18 +1,18 @@
 package com.microsoft.openai.samples.assistant.business.mcp.server;
 
-import com.microsoft.openai.samples.assistant.business.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
 import com.microsoft.openai.samples.assistant.business.service.UserService;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 
 @Service
+@CacheConfig(keyGenerator = "toolCacheKeys")
 public class UserMCPService {
     private final UserService userService;
 
@@ -21,8 +21,9 @@ public class UserMCPService {
      }
 
      @Tool(description = "Get the list of all accounts for a specific user")
+     @Cacheable("getAccountsByUserName")
     public List<Account> getAccountsByUserName(@ToolParam( description ="userName once the user has logged" ) String userName) {
-        return userService.getAccountsByUserName(userName);
+        return List.copyOf(userService.getAccountsByUserName(userName));
     }
 
 
@@ -0,0 +1,12 @@
+package com.microsoft.openai.samples.assistant.business.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AccountOverview(
+        @JsonProperty("userName") String userName,
+        @JsonProperty("accounts") List<AccountSummary> accounts
+) {}
@@ -0,0 +1,19 @@
+package com.microsoft.openai.samples.assistant.business.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AccountSummary(
+        @JsonProperty("id") String id,
+        @JsonProperty("accountHolderFullName") String accountHolderFullName,
+        @JsonProperty("currency") String currency,
+        @JsonProperty("balance") String balance,
+        @JsonProperty("paymentMethods") List<PaymentMethodBalance> paymentMethods,
+        @JsonProperty("beneficiaries") List<Beneficiary> beneficiaries
+) {}
@@ -0,0 +1,15 @@
+package com.microsoft.openai.samples.assistant.business.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaymentMethodBalance(
+        @JsonProperty("id") String id,
+        @JsonProperty("type") String type,
+        @JsonProperty("expirationDate") String expirationDate,
+    // null when the balance of the payment method is not available
+        @JsonProperty("availableBalance") String availableBalance
+) {}
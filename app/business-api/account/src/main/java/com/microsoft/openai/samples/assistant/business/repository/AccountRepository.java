@@ -0,0 +1,21 @@
+package com.microsoft.openai.samples.assistant.business.repository;
+
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of the accounts and of their payment methods. Accounts are returned with the summary of their payment methods.
+ */
+public interface AccountRepository {
+
+    Optional<Account> findAccountById(String accountId);
+
+    List<Account> findAccountsByUserName(String userName);
+
+    Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId);
+
+    List<PaymentMethod> findPaymentMethodsByAccountId(String accountId);
+}
@@ -0,0 +1,21 @@
+package com.microsoft.openai.samples.assistant.business.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class AccountRepositoryConfiguration {
+
+    @Bean
+    public AccountRepository accountRepository(JdbcTemplate jdbcTemplate,
+                                               @Value("${account.repository.cache.enabled:true}") boolean cacheEnabled,
+                                               @Value("${account.repository.cache.max-entries:100000}") long cacheMaxEntries,
+                                               @Value("${account.repository.cache.ttl:10m}") Duration cacheTtl) {
+        AccountRepository repository = new JdbcAccountRepository(jdbcTemplate);
+        return cacheEnabled ? new CachingAccountRepository(repository, cacheMaxEntries, cacheTtl) : repository;
+    }
+}
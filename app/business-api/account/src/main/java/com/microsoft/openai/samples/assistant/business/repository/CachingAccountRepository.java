@@ -0,0 +1,93 @@
+package com.microsoft.openai.samples.assistant.business.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.microsoft.openai.samples.assistant.business.cache.AccountDataChangedEvent;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of an account repository. A single cache bounded by number of entries is shared by all
+ * the lookups: Caffeine evicts the entries least likely to be read again (W-TinyLFU), so the accounts of the active
+ * customers stay cached while a scan of inactive ones doesn't flush them. Missing accounts are cached too, and entries
+ * expire after the ttl so changes made directly on the database are eventually visible.
+ */
+public class CachingAccountRepository implements AccountRepository {
+
+    private final AccountRepository repository;
+    private final Cache<CacheKey, Object> cache;
+
+    public CachingAccountRepository(AccountRepository repository, long maxEntries, Duration ttl) {
+        this.repository = repository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<Account> findAccountById(String accountId) {
+        return get(KeyType.ACCOUNT, accountId, repository::findAccountById);
+    }
+
+    @Override
+    public List<Account> findAccountsByUserName(String userName) {
+        return get(KeyType.USER_ACCOUNTS, userName, repository::findAccountsByUserName);
+    }
+
+    @Override
+    public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+        return get(KeyType.PAYMENT_METHOD, paymentMethodId, repository::findPaymentMethodById);
+    }
+
+    @Override
+    public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+        return get(KeyType.ACCOUNT_PAYMENT_METHODS, accountId, repository::findPaymentMethodsByAccountId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // evicted before the response cache, so a response reloaded after a change is not built on stale data
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAccountDataChanged(AccountDataChangedEvent event) {
+        String accountId = event.accountId();
+        Object account = cache.getIfPresent(new CacheKey(KeyType.ACCOUNT, accountId));
+        if (account instanceof Optional<?> cached && cached.isPresent())
+            cache.invalidate(new CacheKey(KeyType.USER_ACCOUNTS, ((Account) cached.get()).userName()));
+        else
+            // the owner of the account is not known: the user lookups are evicted all together
+            cache.asMap().keySet().removeIf(key -> key.type() == KeyType.USER_ACCOUNTS);
+        cache.invalidate(new CacheKey(KeyType.ACCOUNT, accountId));
+        findPaymentMethodIds(accountId).forEach(id -> cache.invalidate(new CacheKey(KeyType.PAYMENT_METHOD, id)));
+        cache.invalidate(new CacheKey(KeyType.ACCOUNT_PAYMENT_METHODS, accountId));
+    }
+
+    private List<String> findPaymentMethodIds(String accountId) {
+        Object paymentMethods = cache.getIfPresent(new CacheKey(KeyType.ACCOUNT_PAYMENT_METHODS, accountId));
+        if (paymentMethods instanceof List<?> cached)
+            return cached.stream().map(paymentMethod -> ((PaymentMethod) paymentMethod).id()).toList();
+        return repository.findPaymentMethodsByAccountId(accountId).stream().map(PaymentMethod::id).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(KeyType type, String id, Function<String, T> loader) {
+        return (T) cache.get(new CacheKey(type, id), key -> loader.apply(key.id()));
+    }
+
+    private enum KeyType { ACCOUNT, USER_ACCOUNTS, PAYMENT_METHOD, ACCOUNT_PAYMENT_METHODS }
+
+    private record CacheKey(KeyType type, String id) {}
+}
@@ -0,0 +1,108 @@
+package com.microsoft.openai.samples.assistant.business.repository;
+
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Account repository on a relational database. An account is read with its payment methods in a single join query,
+ * and the user and account lookups are served by the indexes on account.user_name and payment_method.account_id.
+ */
+public class JdbcAccountRepository implements AccountRepository {
+
+    private static final String SELECT_ACCOUNTS = """
+            SELECT a.id, a.user_name, a.account_holder_full_name, a.currency, a.activation_date, a.balance,
+                   p.id AS payment_method_id, p.type, p.activation_date AS payment_method_activation_date, p.expiration_date
+            FROM account a LEFT JOIN payment_method p ON p.account_id = a.id
+            """;
+    private static final String SELECT_ACCOUNT_BY_ID = SELECT_ACCOUNTS + " WHERE a.id = ? ORDER BY p.id";
+    private static final String SELECT_ACCOUNTS_BY_USER_NAME = SELECT_ACCOUNTS + " WHERE a.user_name = ? ORDER BY a.id, p.id";
+
+    private static final String SELECT_PAYMENT_METHODS = """
+            SELECT id, type, activation_date, expiration_date, available_balance, card_number FROM payment_method
+            """;
+    private static final String SELECT_PAYMENT_METHOD_BY_ID = SELECT_PAYMENT_METHODS + " WHERE id = ?";
+    private static final String SELECT_PAYMENT_METHODS_BY_ACCOUNT_ID = SELECT_PAYMENT_METHODS + " WHERE account_id = ? ORDER BY id";
+
+    private static final RowMapper<PaymentMethod> PAYMENT_METHOD_MAPPER = (rs, rowNum) -> new PaymentMethod(
+            rs.getString("id"),
+            rs.getString("type"),
+            rs.getString("activation_date"),
+            rs.getString("expiration_date"),
+            toAmount(rs.getBigDecimal("available_balance")),
+            rs.getString("card_number"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcAccountRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<Account> findAccountById(String accountId) {
+        return jdbcTemplate.query(SELECT_ACCOUNT_BY_ID, JdbcAccountRepository::toAccounts, accountId).stream().findFirst();
+    }
+
+    @Override
+    public List<Account> findAccountsByUserName(String userName) {
+        return jdbcTemplate.query(SELECT_ACCOUNTS_BY_USER_NAME, JdbcAccountRepository::toAccounts, userName);
+    }
+
+    @Override
+    public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+        return jdbcTemplate.query(SELECT_PAYMENT_METHOD_BY_ID, PAYMENT_METHOD_MAPPER, paymentMethodId).stream().findFirst();
+    }
+
+    @Override
+    public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+        return jdbcTemplate.query(SELECT_PAYMENT_METHODS_BY_ACCOUNT_ID, PAYMENT_METHOD_MAPPER, accountId);
+    }
+
+    /**
+     * Groups the rows of the account and payment method join, ordered by account, into accounts.
+     */
+    private static List<Account> toAccounts(ResultSet rs) throws SQLException {
+        Map<String, Account> accounts = new LinkedHashMap<>();
+        while (rs.next()) {
+            String accountId = rs.getString("id");
+            Account account = accounts.get(accountId);
+            if (account == null) {
+                account = new Account(
+                        accountId,
+                        rs.getString("user_name"),
+                        rs.getString("account_holder_full_name"),
+                        rs.getString("currency"),
+                        rs.getString("activation_date"),
+                        toAmount(rs.getBigDecimal("balance")),
+                        new ArrayList<>());
+                accounts.put(accountId, account);
+            }
+            String paymentMethodId = rs.getString("payment_method_id");
+            if (paymentMethodId != null)
+                account.paymentMethods().add(new PaymentMethodSummary(
+                        paymentMethodId,
+                        rs.getString("type"),
+                        rs.getString("payment_method_activation_date"),
+                        rs.getString("expiration_date")));
+        }
+        return accounts.values().stream()
+                .map(account -> new Account(account.id(), account.userName(), account.accountHolderFullName(), account.currency(),
+                        account.activationDate(), account.balance(), List.copyOf(account.paymentMethods())))
+                .toList();
+    }
+
+    private static String toAmount(BigDecimal amount) {
+        return amount != null ? amount.toPlainString() : null;
+    }
+}
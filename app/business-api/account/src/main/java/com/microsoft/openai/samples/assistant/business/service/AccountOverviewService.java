@@ -0,0 +1,56 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.models.AccountOverview;
+import com.microsoft.openai.samples.assistant.business.models.AccountSummary;
+import com.microsoft.openai.samples.assistant.business.models.PaymentMethodBalance;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Assembles in a single call the accounts of a user with their payment methods balances and the registered
+ * beneficiaries, instead of one lookup per account and per payment method.
+ */
+@Service
+public class AccountOverviewService {
+
+    private final UserService userService;
+    private final AccountService accountService;
+
+    public AccountOverviewService(UserService userService, AccountService accountService) {
+        this.userService = userService;
+        this.accountService = accountService;
+    }
+
+    public AccountOverview getAccountOverview(String userName) {
+        if (userName == null || userName.isEmpty())
+            throw new IllegalArgumentException("UserName is empty or null");
+
+        List<AccountSummary> accounts = userService.getAccountsByUserName(userName).stream()
+                .filter(Objects::nonNull)
+                .map(this::toAccountSummary)
+                .toList();
+        return new AccountOverview(userName, accounts);
+    }
+
+    private AccountSummary toAccountSummary(Account account) {
+        // the payment methods balances of the account are read with a single lookup
+        List<PaymentMethodBalance> paymentMethods = accountService.getPaymentMethodsByAccountId(account.id()).stream()
+                .map(paymentMethod -> new PaymentMethodBalance(
+                        paymentMethod.id(),
+                        paymentMethod.type(),
+                        paymentMethod.expirationDate(),
+                        paymentMethod.availableBalance()))
+                .toList();
+
+        return new AccountSummary(
+                account.id(),
+                account.accountHolderFullName(),
+                account.currency(),
+                account.balance(),
+                paymentMethods,
+                accountService.getRegisteredBeneficiary(account.id()));
+    }
+}
@@ -1,58 +1,38 @@
 package com.microsoft.openai.samples.assistant.business.service;
 
-import com.microsoft.openai.samples.assistant.business.models.Account;
-import com.microsoft.openai.samples.assistant.business.models.PaymentMethod;
-import com.microsoft.openai.samples.assistant.business.models.PaymentMethodSummary;
-import com.microsoft.openai.samples.assistant.business.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.balance.BalanceEngine;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
 
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class AccountService {
 
-    private final Map<String, Account> accounts;
-    private final Map<String, PaymentMethod> paymentMethods;
-
-    public AccountService() {
-        this.accounts = new HashMap<>();
-        this.paymentMethods = new HashMap<>();
-        // Fill the map with dummy data
-        this.accounts.put("1000", new Account(
-                "1000",
-                "alice.user@contoso.com",
-                "Alice User",
-                "USD",
-                "2022-01-01",
-                "5000",
-                Arrays.asList(new PaymentMethodSummary("12345", "Visa", "2022-01-01", "2025-01-01"),
-                              new PaymentMethodSummary("23456", "BankTransfer", "2022-01-01", "9999-01-01"))));
-        this.accounts.put("1010", new Account(
-                "1010",
-                "bob.user@contoso.com",
-                "Bob User",
-                "EUR",
-                "2022-01-01",
-                "10000",
-                Arrays.asList(new PaymentMethodSummary("345678", "BankTransfer", "2022-01-01", "9999-01-01"),
-                              new PaymentMethodSummary("55555", "Visa", "2022-01-01", "2026-01-01"))));
-        this.accounts.put("1020", new Account(
-                "1020",
-                "charlie.user@contoso.com",
-                "Charlie User",
-                "EUR",
-                "2022-01-01",
-                "3000",
-                Arrays.asList(new PaymentMethodSummary("46748576", "DirectDebit", "2022-02-01", "9999-02-01"))));
-
-        this.paymentMethods.put("12345", new PaymentMethod("12345", "Visa", "2022-01-01", "2025-01-01", "500.00", "1234567812345678"));
-        this.paymentMethods.put("55555", new PaymentMethod("55555", "Visa", "2024-01-01", "2028-01-01", "350.00", "637362551913266"));
-        this.paymentMethods.put("23456", new PaymentMethod("23456", "BankTransfer", "2022-01-01", "9999-01-01", "5000.00", null));
-        this.paymentMethods.put("345678", new PaymentMethod("345678", "BankTransfer", "2022-01-01", "9999-01-01", "10000.00", null));
+    private final AccountRepository accountRepository;
+    private final BalanceEngine balanceEngine;
+    private final BeneficiaryStore beneficiaries;
+
+    private static final int MAX_NAME_MATCHES = 5;
+    private static final double MIN_NAME_MATCH_SCORE = 0.75;
+    // accounts of the sample data that have registered beneficiaries
+    private static final List<String> DUMMY_BENEFICIARY_ACCOUNTS = List.of("1000", "1010", "1020");
+
+    public AccountService(AccountRepository accountRepository, BalanceEngine balanceEngine, BeneficiaryStore beneficiaries) {
+        this.accountRepository = accountRepository;
+        this.balanceEngine = balanceEngine;
+        this.beneficiaries = beneficiaries;
+        List<Beneficiary> dummyBeneficiaries = Arrays.asList(
+                new Beneficiary("1", "Mike ThePlumber", "123456789", "Intesa Sanpaolo"),
+                new Beneficiary("2", "Jane TheElectrician", "987654321", "UBS")
+        );
+        DUMMY_BENEFICIARY_ACCOUNTS.forEach(accountId -> this.beneficiaries.load(accountId, dummyBeneficiaries));
     }
 
     public Account getAccountDetails(String accountId) {
@@ -63,8 +43,7 @@ public class AccountService {
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("AccountId is not a valid number");
         }
-        // Return account data from the map
-        return this.accounts.get(accountId);
+        return this.accountRepository.findAccountById(accountId).orElse(null);
     }
 
     public PaymentMethod getPaymentMethodDetails(String paymentMethodId) {
@@ -75,8 +54,21 @@ public class AccountService {
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("AccountId is not a valid number");
         }
-        // Return account data from the map
-        return this.paymentMethods.get(paymentMethodId);
+        // the available balance is net of the funds reserved by the payments in progress
+        return this.balanceEngine.withAvailableBalance(this.accountRepository.findPaymentMethodById(paymentMethodId).orElse(null));
+    }
+
+    public List<PaymentMethod> getPaymentMethodsByAccountId(String accountId) {
+        if (accountId == null || accountId.isEmpty())
+            throw new IllegalArgumentException("AccountId is empty or null");
+        try {
+            Integer.parseInt(accountId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("AccountId is not a valid number");
+        }
+        return this.accountRepository.findPaymentMethodsByAccountId(accountId).stream()
+                .map(this.balanceEngine::withAvailableBalance)
+                .toList();
     }
 
     public List<Beneficiary> getRegisteredBeneficiary(String accountId) {
@@ -87,10 +79,64 @@ public class AccountService {
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("AccountId is not a valid number");
         }
-        // Return dummy list of beneficiaries
-        return Arrays.asList(
-                new Beneficiary("1", "Mike ThePlumber", "123456789", "Intesa Sanpaolo"),
-                new Beneficiary("2", "Jane TheElectrician", "987654321", "UBS")
-        );
+        return this.beneficiaries.list(accountId);
+    }
+
+    public List<Beneficiary> findBeneficiary(String accountId, String name, String bankCode) {
+        if (accountId == null || accountId.isEmpty())
+            throw new IllegalArgumentException("AccountId is empty or null");
+        try {
+            Integer.parseInt(accountId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("AccountId is not a valid number");
+        }
+        if ((name == null || name.isBlank()) && (bankCode == null || bankCode.isBlank()))
+            throw new IllegalArgumentException("Beneficiary name and bank code are empty or null");
+
+        return this.beneficiaries.find(accountId, name, bankCode);
+    }
+
+    public Beneficiary addBeneficiary(String accountId, Beneficiary beneficiary) {
+        if (accountId == null || accountId.isEmpty())
+            throw new IllegalArgumentException("AccountId is empty or null");
+        try {
+            Integer.parseInt(accountId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("AccountId is not a valid number");
+        }
+        if (this.accountRepository.findAccountById(accountId).isEmpty())
+            throw new IllegalArgumentException("Account %s not found".formatted(accountId));
+        if (beneficiary == null)
+            throw new IllegalArgumentException("Beneficiary is null");
+
+        return this.beneficiaries.add(accountId, beneficiary.fullName(), beneficiary.bankCode(), beneficiary.bankName());
+    }
+
+    public boolean removeBeneficiary(String accountId, String beneficiaryId) {
+        if (accountId == null || accountId.isEmpty())
+            throw new IllegalArgumentException("AccountId is empty or null");
+        try {
+            Integer.parseInt(accountId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("AccountId is not a valid number");
+        }
+        if (beneficiaryId == null || beneficiaryId.isEmpty())
+            throw new IllegalArgumentException("BeneficiaryId is empty or null");
+
+        return this.beneficiaries.remove(accountId, beneficiaryId);
+    }
+
+    public List<NameMatch> resolveBeneficiaryName(String accountId, String name) {
+        if (accountId == null || accountId.isEmpty())
+            throw new IllegalArgumentException("AccountId is empty or null");
+        try {
+            Integer.parseInt(accountId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("AccountId is not a valid number");
+        }
+        if (name == null || name.isBlank())
+            throw new IllegalArgumentException("Beneficiary name is empty or null");
+
+        return this.beneficiaries.resolveName(accountId, name, MAX_NAME_MATCHES, MIN_NAME_MATCH_SCORE);
     }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.cache.AccountDataChangedEvent;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.NameIndex;
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registered beneficiaries of each account, indexed by normalized name and by bank code so a single payee is found
+ * with a hash lookup instead of scanning the whole list. Each account keeps an immutable snapshot of its beneficiaries
+ * and indexes that is replaced on every change: reads are lock free and changes, which are rare, are serialized per
+ * account. Every change publishes an AccountDataChangedEvent.
+ */
+@Component
+public class BeneficiaryStore {
+
+    // a fuzzy match is returned by find only when it is almost exact
+    private static final double MIN_FIND_SCORE = 0.9;
+
+    private final Map<String, AccountBeneficiaries> accounts = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BeneficiaryStore(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Replaces all the beneficiaries of the account without publishing a change, e.g. to load the initial data.
+     */
+    public void load(String accountId, Collection<Beneficiary> beneficiaries) {
+        AccountBeneficiaries accountBeneficiaries = accounts.computeIfAbsent(accountId, id -> new AccountBeneficiaries());
+        synchronized (accountBeneficiaries) {
+            accountBeneficiaries.snapshot = Snapshot.of(beneficiaries);
+        }
+    }
+
+    public List<Beneficiary> list(String accountId) {
+        return snapshot(accountId).beneficiaries();
+    }
+
+    /**
+     * Returns the beneficiaries registered with the name: an exact match on the normalized name or, when there is none,
+     * the closest name if it's almost exact. The bank code, when provided, narrows the result.
+     */
+    public List<Beneficiary> find(String accountId, String name, String bankCode) {
+        Snapshot snapshot = snapshot(accountId);
+        String normalizedBankCode = bankCode == null || bankCode.isBlank() ? null : bankCode.trim();
+
+        if (name == null || name.isBlank())
+            return normalizedBankCode == null ? List.of() : snapshot.byBankCode().getOrDefault(normalizedBankCode, List.of());
+
+        List<Beneficiary> matches = snapshot.byName().get(NameIndex.normalize(name));
+        if (matches == null) {
+            List<NameMatch> closest = snapshot.names().resolve(name, 1, MIN_FIND_SCORE);
+            matches = closest.isEmpty() ? List.of() : snapshot.byName().getOrDefault(NameIndex.normalize(closest.get(0).name()), List.of());
+        }
+        if (normalizedBankCode == null)
+            return matches;
+        List<Beneficiary> sameBankCode = matches.stream().filter(beneficiary -> normalizedBankCode.equals(beneficiary.bankCode())).toList();
+        // a name registered with another bank code is still returned, so the caller can report the mismatch
+        return sameBankCode.isEmpty() ? matches : sameBankCode;
+    }
+
+    public List<NameMatch> resolveName(String accountId, String name, int maxResults, double minScore) {
+        return snapshot(accountId).names().resolve(name, maxResults, minScore);
+    }
+
+    public Beneficiary add(String accountId, String fullName, String bankCode, String bankName) {
+        if (fullName == null || fullName.isBlank())
+            throw new IllegalArgumentException("Beneficiary name is empty or null");
+        if (bankCode == null || bankCode.isBlank())
+            throw new IllegalArgumentException("Beneficiary bank code is empty or null");
+
+        AccountBeneficiaries accountBeneficiaries = accounts.computeIfAbsent(accountId, id -> new AccountBeneficiaries());
+        Beneficiary beneficiary;
+        synchronized (accountBeneficiaries) {
+            Snapshot snapshot = accountBeneficiaries.snapshot;
+            String normalizedName = NameIndex.normalize(fullName);
+            for (Beneficiary registered : snapshot.byBankCode().getOrDefault(bankCode.trim(), List.of())) {
+                if (normalizedName.equals(NameIndex.normalize(registered.fullName())))
+                    throw new IllegalArgumentException("Beneficiary %s with bank code %s is already registered".formatted(fullName, bankCode));
+            }
+            // ids of removed beneficiaries are not reused
+            accountBeneficiaries.lastId = Math.max(accountBeneficiaries.lastId, snapshot.maxId()) + 1;
+            beneficiary = new Beneficiary(String.valueOf(accountBeneficiaries.lastId), fullName.trim(), bankCode.trim(), bankName);
+            accountBeneficiaries.snapshot = snapshot.with(beneficiary);
+        }
+        eventPublisher.publishEvent(new AccountDataChangedEvent(accountId));
+        return beneficiary;
+    }
+
+    public boolean remove(String accountId, String beneficiaryId) {
+        AccountBeneficiaries accountBeneficiaries = accounts.get(accountId);
+        if (accountBeneficiaries == null)
+            return false;
+        synchronized (accountBeneficiaries) {
+            List<Beneficiary> beneficiaries = new ArrayList<>(accountBeneficiaries.snapshot.beneficiaries());
+            if (!beneficiaries.removeIf(beneficiary -> beneficiary.id().equals(beneficiaryId)))
+                return false;
+            accountBeneficiaries.snapshot = Snapshot.of(beneficiaries);
+        }
+        eventPublisher.publishEvent(new AccountDataChangedEvent(accountId));
+        return true;
+    }
+
+    private Snapshot snapshot(String accountId) {
+        AccountBeneficiaries accountBeneficiaries = accounts.get(accountId);
+        return accountBeneficiaries == null ? Snapshot.EMPTY : accountBeneficiaries.snapshot;
+    }
+
+    private static class AccountBeneficiaries {
+        private volatile Snapshot snapshot = Snapshot.EMPTY;
+        private long lastId;
+    }
+
+    private record Snapshot(List<Beneficiary> beneficiaries,
+                            Map<String, List<Beneficiary>> byName,
+                            Map<String, List<Beneficiary>> byBankCode,
+                            NameIndex names,
+                            long maxId) {
+
+        static final Snapshot EMPTY = Snapshot.of(List.of());
+
+        static Snapshot of(Collection<Beneficiary> beneficiaries) {
+            Map<String, List<Beneficiary>> byName = new HashMap<>();
+            Map<String, List<Beneficiary>> byBankCode = new HashMap<>();
+            NameIndex names = new NameIndex();
+            long maxId = 0;
+            for (Beneficiary beneficiary : beneficiaries) {
+                byName.computeIfAbsent(NameIndex.normalize(beneficiary.fullName()), k -> new ArrayList<>()).add(beneficiary);
+                if (beneficiary.bankCode() != null)
+                    byBankCode.computeIfAbsent(beneficiary.bankCode(), k -> new ArrayList<>()).add(beneficiary);
+                names.add(beneficiary.fullName());
+                try {
+                    maxId = Math.max(maxId, Long.parseLong(beneficiary.id()));
+                } catch (NumberFormatException e) {
+                    // non numeric ids loaded from the initial data are not considered
+                }
+            }
+            byName.replaceAll((k, v) -> List.copyOf(v));
+            byBankCode.replaceAll((k, v) -> List.copyOf(v));
+            return new Snapshot(List.copyOf(beneficiaries), byName, byBankCode, names, maxId);
+        }
+
+        /**
+         * Copies the snapshot adding a beneficiary. The name index supports concurrent additions, so it's shared
+         * with the new snapshot instead of being rebuilt; it's rebuilt only when a beneficiary is removed.
+         */
+        Snapshot with(Beneficiary beneficiary) {
+            // the empty snapshot is shared by all the accounts, as well as its name index
+            if (beneficiaries.isEmpty())
+                return Snapshot.of(List.of(beneficiary));
+            List<Beneficiary> newBeneficiaries = new ArrayList<>(beneficiaries.size() + 1);
+            newBeneficiaries.addAll(beneficiaries);
+            newBeneficiaries.add(beneficiary);
+            Map<String, List<Beneficiary>> newByName = new HashMap<>(byName);
+            newByName.merge(NameIndex.normalize(beneficiary.fullName()), List.of(beneficiary), Snapshot::concat);
+            Map<String, List<Beneficiary>> newByBankCode = new HashMap<>(byBankCode);
+            newByBankCode.merge(beneficiary.bankCode(), List.of(beneficiary), Snapshot::concat);
+            names.add(beneficiary.fullName());
+            return new Snapshot(Collections.unmodifiableList(newBeneficiaries), newByName, newByBankCode, names, Math.max(maxId, Long.parseLong(beneficiary.id())));
+        }
+
+        private static List<Beneficiary> concat(List<Beneficiary> registered, List<Beneficiary> added) {
+            List<Beneficiary> all = new ArrayList<>(registered);
+            all.addAll(added);
+            return List.copyOf(all);
+        }
+    }
+}
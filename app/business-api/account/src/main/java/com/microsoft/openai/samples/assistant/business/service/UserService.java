@@ -1,58 +1,25 @@
 package com.microsoft.openai.samples.assistant.business.service;
 
-import com.microsoft.openai.samples.assistant.business.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.util.List;
 
 
 @Service
 public class UserService {
 
+    private final AccountRepository accountRepository;
+
+    public UserService(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
 
-    private Map<String, Account> accounts = new HashMap<>();
-
-    public UserService() {
-        accounts.put(
-                "alice.user@contoso.com",
-                new Account(
-                        "1000",
-                        "alice.user@contoso.com",
-                        "Alice User",
-                        "USD",
-                        "2022-01-01",
-                        "5000",
-                       null
-                )
-        );
-        accounts.put(
-                "bob.user@contoso.com",
-                new Account(
-                        "1010",
-                        "bob.user@contoso.com",
-                        "Bob User",
-                        "EUR",
-                        "2022-01-01",
-                        "10000",
-                       null
-                )
-        );
-        accounts.put(
-                "charlie.user@contoso.com",
-                new Account(
-                        "1020",
-                        "charlie.user@contoso.com",
-                        "Charlie User",
-                        "EUR",
-                        "2022-01-01",
-                        "3000",
-                        null
-                )
-        );
-
-     }
     public List<Account> getAccountsByUserName(String userName) {
-        return Arrays.asList(accounts.get(userName));
+        if (userName == null || userName.isEmpty())
+            throw new IllegalArgumentException("UserName is empty or null");
+        return accountRepository.findAccountsByUserName(userName);
     }
 
 
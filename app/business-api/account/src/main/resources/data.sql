@@ -0,0 +1,11 @@
+MERGE INTO account (id, user_name, account_holder_full_name, currency, activation_date, balance) KEY (id) VALUES
+    ('1000', 'alice.user@contoso.com', 'Alice User', 'USD', '2022-01-01', 5000),
+    ('1010', 'bob.user@contoso.com', 'Bob User', 'EUR', '2022-01-01', 10000),
+    ('1020', 'charlie.user@contoso.com', 'Charlie User', 'EUR', '2022-01-01', 3000);
+
+MERGE INTO payment_method (id, account_id, type, activation_date, expiration_date, available_balance, card_number) KEY (id) VALUES
+    ('12345', '1000', 'Visa', '2022-01-01', '2025-01-01', 500.00, '1234567812345678'),
+    ('23456', '1000', 'BankTransfer', '2022-01-01', '9999-01-01', 5000.00, NULL),
+    ('345678', '1010', 'BankTransfer', '2022-01-01', '9999-01-01', 10000.00, NULL),
+    ('55555', '1010', 'Visa', '2024-01-01', '2028-01-01', 350.00, '637362551913266'),
+    ('46748576', '1020', 'DirectDebit', '2022-02-01', '9999-02-01', NULL, NULL);
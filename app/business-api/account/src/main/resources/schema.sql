@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS account (
+    id                       VARCHAR(32)    PRIMARY KEY,
+    user_name                VARCHAR(255)   NOT NULL,
+    account_holder_full_name VARCHAR(255),
+    currency                 VARCHAR(3),
+    activation_date          VARCHAR(10),
+    balance                  DECIMAL(19, 2)
+);
+
+CREATE INDEX IF NOT EXISTS account_user_name_idx ON account (user_name);
+
+CREATE TABLE IF NOT EXISTS payment_method (
+    id                VARCHAR(32)    PRIMARY KEY,
+    account_id        VARCHAR(32)    NOT NULL REFERENCES account (id),
+    type              VARCHAR(32),
+    activation_date   VARCHAR(10),
+    expiration_date   VARCHAR(10),
+    available_balance DECIMAL(19, 2),
+    card_number       VARCHAR(32)
+);
+
+CREATE INDEX IF NOT EXISTS payment_method_account_id_idx ON payment_method (account_id);
@@ -0,0 +1,66 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+/**
+ * Measures the latency of the account read endpoints over HTTP with the response cache disabled, enabled and with
+ * conditional requests answered by 304. The account service is started in process on a random port.
+ * Usage: AccountHttpCacheBenchmark [requests] [path]
+ */
+public class AccountHttpCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        String path = args.length > 1 ? args[1] : "/users/bob.user@contoso.com/overview";
+
+        for (boolean cacheEnabled : new boolean[]{false, true}) {
+            ConfigurableApplicationContext context = new SpringApplication(AccountApplication.class).run(
+                    "--server.port=0",
+                    "--account.response-cache.enabled=" + cacheEnabled,
+                    "--logging.level.root=WARN");
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + path);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            HttpResponse<byte[]> first = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+            String etag = first.headers().firstValue("ETag").orElseThrow();
+
+            run(client, HttpRequest.newBuilder(uri).build(), requests / 4);
+            report(cacheEnabled ? "cached 200" : "uncached 200", run(client, HttpRequest.newBuilder(uri).build(), requests), first.body().length);
+            if (cacheEnabled)
+                report("cached 304", run(client, HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(), requests), 0);
+            context.close();
+        }
+    }
+
+    private static long[] run(HttpClient client, HttpRequest request, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            latencies[i] = System.nanoTime() - start;
+            if (response.statusCode() != 200 && response.statusCode() != 304)
+                throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies, int bodyBytes) {
+        long total = Arrays.stream(latencies).sum();
+        Arrays.sort(latencies);
+        System.out.printf("%-13s %6.0f req/s  p50 %5.0f us  p99 %5.0f us  body %d bytes%n",
+                name,
+                latencies.length / (total / 1e9),
+                latencies[latencies.length / 2] / 1e3,
+                latencies[(int) (latencies.length * 0.99)] / 1e3,
+                bodyBytes);
+    }
+}
@@ -0,0 +1,105 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.balance.BalanceEngine;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import com.microsoft.openai.samples.assistant.business.models.AccountOverview;
+import com.microsoft.openai.samples.assistant.business.models.AccountSummary;
+import com.microsoft.openai.samples.assistant.business.models.PaymentMethodBalance;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+import com.microsoft.openai.samples.assistant.business.service.AccountOverviewService;
+import com.microsoft.openai.samples.assistant.business.service.AccountService;
+import com.microsoft.openai.samples.assistant.business.service.BeneficiaryStore;
+import com.microsoft.openai.samples.assistant.business.service.UserService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds the overview of a user with two accounts and checks that it lists only the accounts of the user, each with
+ * all its payment methods, their available balance net of the reserved funds, and its registered beneficiaries,
+ * including one just added.
+ * Usage: AccountOverviewIntegrationTest
+ */
+public class AccountOverviewIntegrationTest {
+
+    public static void main(String[] args) {
+        var repository = new Repository();
+        var balanceEngine = new BalanceEngine(repository, event -> {}, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        var accountService = new AccountService(repository, balanceEngine, new BeneficiaryStore(event -> {}));
+        var overviewService = new AccountOverviewService(new UserService(repository), accountService);
+
+        balanceEngine.reserve("r1", "1010", "101", "200.00");
+        accountService.addBeneficiary("1010", new Beneficiary(null, "Contoso", "555666777", "Fabrikam Bank"));
+
+        AccountOverview overview = overviewService.getAccountOverview("bob");
+        if (!overview.accounts().stream().map(AccountSummary::id).toList().equals(List.of("1010", "1020")))
+            throw new IllegalStateException("Check failed: accounts of bob, got " + overview.accounts());
+
+        AccountSummary checking = overview.accounts().get(0);
+        List<PaymentMethodBalance> paymentMethods = checking.paymentMethods();
+        if (paymentMethods.size() != 2)
+            throw new IllegalStateException("Check failed: payment methods of account 1010, got " + paymentMethods);
+        if (!"300.00".equals(paymentMethods.get(0).availableBalance()))
+            throw new IllegalStateException("Check failed: reserved funds not deducted, got " + paymentMethods.get(0));
+        if (paymentMethods.get(1).availableBalance() != null)
+            throw new IllegalStateException("Check failed: payment method without balance given one, got " + paymentMethods.get(1));
+        if (checking.beneficiaries().stream().noneMatch(beneficiary -> beneficiary.fullName().equals("Contoso")) || checking.beneficiaries().size() != 3)
+            throw new IllegalStateException("Check failed: beneficiaries of account 1010, got " + checking.beneficiaries());
+
+        AccountSummary savings = overview.accounts().get(1);
+        if (savings.paymentMethods().size() != 1 || !"50.00".equals(savings.paymentMethods().get(0).availableBalance()))
+            throw new IllegalStateException("Check failed: payment methods of account 1020, got " + savings.paymentMethods());
+
+        if (!overviewService.getAccountOverview("carol").accounts().isEmpty())
+            throw new IllegalStateException("Check failed: overview of a user without accounts not empty");
+
+        System.out.println("AccountOverviewIntegrationTest passed");
+    }
+
+    /**
+     * Accounts 1010 and 1020 of bob, and 1030 of alice. Payment method 102 has no balance.
+     */
+    private static class Repository implements AccountRepository {
+        private final List<Account> accounts = List.of(
+                account("1010", "bob", "101", "102"),
+                account("1020", "bob", "103"),
+                account("1030", "alice", "104"));
+        private final List<PaymentMethod> paymentMethods = List.of(
+                new PaymentMethod("101", "Visa", "2022-01-01", "9999-01-01", "500.00", "4111111111111111"),
+                new PaymentMethod("102", "DirectDebit", "2022-01-01", "9999-01-01", null, null),
+                new PaymentMethod("103", "BankTransfer", "2022-01-01", "9999-01-01", "50.00", null),
+                new PaymentMethod("104", "BankTransfer", "2022-01-01", "9999-01-01", "10.00", null));
+
+        @Override
+        public Optional<Account> findAccountById(String accountId) {
+            return accounts.stream().filter(account -> account.id().equals(accountId)).findFirst();
+        }
+
+        @Override
+        public List<Account> findAccountsByUserName(String userName) {
+            return accounts.stream().filter(account -> account.userName().equals(userName)).toList();
+        }
+
+        @Override
+        public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+            return paymentMethods.stream().filter(paymentMethod -> paymentMethod.id().equals(paymentMethodId)).findFirst();
+        }
+
+        @Override
+        public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+            List<String> ids = findAccountById(accountId).orElseThrow().paymentMethods().stream().map(PaymentMethodSummary::id).toList();
+            return paymentMethods.stream().filter(paymentMethod -> ids.contains(paymentMethod.id())).toList();
+        }
+
+        private static Account account(String id, String userName, String... paymentMethodIds) {
+            List<PaymentMethodSummary> summaries = List.of(paymentMethodIds).stream()
+                    .map(paymentMethodId -> new PaymentMethodSummary(paymentMethodId, "BankTransfer", "2022-01-01", "9999-01-01"))
+                    .toList();
+            return new Account(id, userName, "User " + userName, "EUR", "2022-01-01", "0", summaries);
+        }
+    }
+}
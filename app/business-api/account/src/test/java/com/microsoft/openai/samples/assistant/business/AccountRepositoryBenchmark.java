@@ -0,0 +1,131 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+import com.microsoft.openai.samples.assistant.business.repository.CachingAccountRepository;
+import com.microsoft.openai.samples.assistant.business.repository.JdbcAccountRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the user to accounts and account to payment methods lookups on the in-memory maps previously used by the
+ * account service with the JDBC repository on H2, with and without the read-through cache. Lookups are spread on the
+ * active customers, a subset of all the customers.
+ * Usage: AccountRepositoryBenchmark [customers] [activeCustomers] [lookups]
+ */
+public class AccountRepositoryBenchmark {
+
+    public static void main(String[] args) {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int activeCustomers = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl("jdbc:h2:mem:benchmark;QUERY_CACHE_SIZE=64");
+            dataSource.setMaximumPoolSize(4);
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+            long start = System.nanoTime();
+            Map<String, List<Account>> accountsByUserName = new HashMap<>();
+            Map<String, PaymentMethod> paymentMethods = new HashMap<>();
+            load(jdbcTemplate, customers, accountsByUserName, paymentMethods);
+            System.out.printf("loaded %d customers in %d ms%n", customers, (System.nanoTime() - start) / 1_000_000);
+
+            AccountRepository jdbc = new JdbcAccountRepository(jdbcTemplate);
+            AccountRepository cached = new CachingAccountRepository(jdbc, 100_000, Duration.ofMinutes(10));
+
+            IntFunction<Object> mapUsers = i -> accountsByUserName.get(userName(i));
+            IntFunction<Object> mapPaymentMethods = i -> {
+                // the maps are keyed by payment method: the account summary is needed to find them
+                List<PaymentMethod> result = new ArrayList<>();
+                for (PaymentMethodSummary summary : accountsByUserName.get(userName(i)).get(0).paymentMethods())
+                    result.add(paymentMethods.get(summary.id()));
+                return result;
+            };
+
+            for (int round = 0; round < 2; round++) {
+                boolean warmUp = round == 0;
+                run("maps      user->accounts", lookups, activeCustomers, mapUsers, warmUp);
+                run("jdbc      user->accounts", lookups / 10, activeCustomers, i -> jdbc.findAccountsByUserName(userName(i)), warmUp);
+                run("cached    user->accounts", lookups, activeCustomers, i -> cached.findAccountsByUserName(userName(i)), warmUp);
+                run("maps      account->methods", lookups, activeCustomers, mapPaymentMethods, warmUp);
+                run("jdbc      account->methods", lookups / 10, activeCustomers, i -> jdbc.findPaymentMethodsByAccountId(accountId(i)), warmUp);
+                run("cached    account->methods", lookups, activeCustomers, i -> cached.findPaymentMethodsByAccountId(accountId(i)), warmUp);
+            }
+            System.out.println("cache " + ((CachingAccountRepository) cached).stats());
+        }
+    }
+
+    private static void load(JdbcTemplate jdbcTemplate, int customers, Map<String, List<Account>> accountsByUserName, Map<String, PaymentMethod> paymentMethods) {
+        List<Object[]> accountRows = new ArrayList<>();
+        List<Object[]> paymentMethodRows = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            String accountId = accountId(i);
+            PaymentMethod card = new PaymentMethod("1" + accountId, "Visa", "2022-01-01", "2028-01-01", "500.00", "1234567812345678");
+            PaymentMethod transfer = new PaymentMethod("2" + accountId, "BankTransfer", "2022-01-01", "9999-01-01", "5000.00", null);
+            for (PaymentMethod paymentMethod : List.of(card, transfer)) {
+                paymentMethods.put(paymentMethod.id(), paymentMethod);
+                paymentMethodRows.add(new Object[]{paymentMethod.id(), accountId, paymentMethod.type(), paymentMethod.activationDate(),
+                        paymentMethod.expirationDate(), new BigDecimal(paymentMethod.availableBalance()), paymentMethod.cardNumber()});
+            }
+            accountsByUserName.put(userName(i), List.of(new Account(accountId, userName(i), "Customer " + i, "EUR", "2022-01-01", "5000.00",
+                    List.of(summary(card), summary(transfer)))));
+            accountRows.add(new Object[]{accountId, userName(i), "Customer " + i, "EUR", "2022-01-01", new BigDecimal("5000.00")});
+
+            if (accountRows.size() == 1000 || i == customers - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO account VALUES (?, ?, ?, ?, ?, ?)", accountRows);
+                jdbcTemplate.batchUpdate("INSERT INTO payment_method VALUES (?, ?, ?, ?, ?, ?, ?)", paymentMethodRows);
+                accountRows.clear();
+                paymentMethodRows.clear();
+            }
+        }
+    }
+
+    private static PaymentMethodSummary summary(PaymentMethod paymentMethod) {
+        return new PaymentMethodSummary(paymentMethod.id(), paymentMethod.type(), paymentMethod.activationDate(), paymentMethod.expirationDate());
+    }
+
+    private static String userName(int customer) {
+        return "customer" + customer + "@contoso.com";
+    }
+
+    private static String accountId(int customer) {
+        return String.valueOf(100_000_000 + customer);
+    }
+
+    private static void run(String name, int lookups, int activeCustomers, IntFunction<Object> lookup, boolean warmUp) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] latencies = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            int customer = random.nextInt(activeCustomers);
+            long start = System.nanoTime();
+            if (lookup.apply(customer) == null)
+                throw new IllegalStateException("Customer not found " + customer);
+            latencies[i] = System.nanoTime() - start;
+        }
+        if (warmUp)
+            return;
+        long total = Arrays.stream(latencies).sum();
+        Arrays.sort(latencies);
+        System.out.printf("%-27s %10.0f ops/s  p50 %7.2f us  p99 %7.2f us%n",
+                name,
+                lookups / (total / 1e9),
+                latencies[lookups / 2] / 1e3,
+                latencies[(int) (lookups * 0.99)] / 1e3);
+    }
+}
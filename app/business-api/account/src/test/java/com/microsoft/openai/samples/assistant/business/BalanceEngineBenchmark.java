@@ -0,0 +1,133 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.balance.BalanceEngine;
+import com.microsoft.openai.samples.assistant.business.balance.InsufficientFundsException;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the reserve and commit throughput of the balance engine with concurrent payments on a single hot payment
+ * method and spread over many accounts, then checks that the balances are consistent: the available balance is the
+ * initial one minus the committed payments and no reservation is accepted beyond the available funds.
+ * Usage: BalanceEngineBenchmark [paymentsPerThread] [accounts]
+ */
+public class BalanceEngineBenchmark {
+
+    private static final String INITIAL_BALANCE = "1000000000.00";
+
+    public static void main(String[] args) throws Exception {
+        int paymentsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        for (int round = 0; round < 2; round++) {
+            boolean warmUp = round == 0;
+            for (int threads : new int[]{1, 4, 16}) {
+                run("hot account", threads, paymentsPerThread / threads, 1, warmUp);
+                run(accounts + " accounts", threads, paymentsPerThread / threads, accounts, warmUp);
+            }
+        }
+        checkOverdraft();
+    }
+
+    private static void run(String name, int threads, int paymentsPerThread, int accounts, boolean warmUp) throws Exception {
+        BalanceEngine engine = new BalanceEngine(new Repository(INITIAL_BALANCE), event -> {}, Duration.ofMinutes(5), Duration.ofSeconds(1));
+        AtomicLong committed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                for (int i = 0; i < paymentsPerThread; i++) {
+                    String accountId = String.valueOf(1000 + (thread + i * threads) % accounts);
+                    String reservationId = thread + "-" + i;
+                    engine.reserve(reservationId, accountId, "pm" + accountId, "1.25");
+                    engine.commit(reservationId);
+                    committed.addAndGet(125);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long available = 0;
+        for (int a = 0; a < accounts; a++)
+            available += minorUnits(engine.withAvailableBalance(paymentMethod("pm" + (1000 + a), INITIAL_BALANCE)).availableBalance());
+        if (available != accounts * minorUnits(INITIAL_BALANCE) - committed.get())
+            throw new IllegalStateException("Inconsistent balances: available " + available + ", committed " + committed.get());
+        if (!warmUp)
+            System.out.printf("%-15s %2d threads %10.0f payments/s%n", name, threads, threads * (double) paymentsPerThread / (elapsed / 1e9));
+    }
+
+    /**
+     * Many threads compete for a balance that covers only part of the payments: exactly that part must be accepted.
+     */
+    private static void checkOverdraft() throws Exception {
+        BalanceEngine engine = new BalanceEngine(new Repository("1000.00"), event -> {}, Duration.ofMinutes(5), Duration.ofSeconds(1));
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(16);
+        for (int t = 0; t < 16; t++) {
+            int thread = t;
+            new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        engine.reserve(thread + "-" + i, "1000", "pm1000", "1.00");
+                        accepted.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.printf("overdraft check: %d accepted, %d rejected, available %s%n", accepted.get(), rejected.get(),
+                engine.withAvailableBalance(paymentMethod("pm1000", "1000.00")).availableBalance());
+        if (accepted.get() != 1000)
+            throw new IllegalStateException("Accepted reservations beyond the available funds");
+    }
+
+    private static long minorUnits(String amount) {
+        return new java.math.BigDecimal(amount).movePointRight(2).longValueExact();
+    }
+
+    private static PaymentMethod paymentMethod(String id, String balance) {
+        return new PaymentMethod(id, "BankTransfer", "2022-01-01", "9999-01-01", balance, null);
+    }
+
+    /**
+     * Every account id has a single payment method, "pm" + account id, with the same initial balance.
+     */
+    private record Repository(String balance) implements AccountRepository {
+
+        @Override
+        public Optional<Account> findAccountById(String accountId) {
+            return Optional.of(new Account(accountId, "user" + accountId, "User " + accountId, "EUR", "2022-01-01", balance,
+                    List.of(new PaymentMethodSummary("pm" + accountId, "BankTransfer", "2022-01-01", "9999-01-01"))));
+        }
+
+        @Override
+        public List<Account> findAccountsByUserName(String userName) {
+            return List.of();
+        }
+
+        @Override
+        public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+            return Optional.of(paymentMethod(paymentMethodId, balance));
+        }
+
+        @Override
+        public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+            return List.of(paymentMethod("pm" + accountId, balance));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.balance.BalanceEngine;
+import com.microsoft.openai.samples.assistant.business.balance.InsufficientFundsException;
+import com.microsoft.openai.samples.assistant.business.balance.ReservationStateException;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import com.microsoft.openai.samples.assistant.business.common.models.ReservationStatus;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Checks that a payment method without a balance, like the direct debit of the initial data, is not balance tracked
+ * and accepts payments, and that a released reservation id can't be reserved again and then committed.
+ * Usage: BalanceEngineIntegrationTest
+ */
+public class BalanceEngineIntegrationTest {
+
+    public static void main(String[] args) {
+        var repository = new Repository(Map.of("pm1", "100.00", "pm2", ""));
+        BalanceEngine engine = new BalanceEngine(repository, event -> {}, Duration.ofMinutes(5), Duration.ofMinutes(1));
+
+        // the direct debit has no balance: it's not checked nor debited
+        var directDebit = engine.reserve("r1", "1020", "pm2", "5000.00");
+        if (directDebit.status() != ReservationStatus.RESERVED || directDebit.availableBalance() != null)
+            throw new IllegalStateException("Check failed: direct debit reserved, got " + directDebit);
+        if (engine.commit("r1").status() != ReservationStatus.COMMITTED)
+            throw new IllegalStateException("Check failed: direct debit committed");
+        if (engine.withAvailableBalance(repository.paymentMethod("pm2")).availableBalance() != null)
+            throw new IllegalStateException("Check failed: direct debit balance stays unknown");
+
+        // the tracked payment method is still checked
+        try {
+            engine.reserve("r2", "1020", "pm1", "100.01");
+            throw new IllegalStateException("Check failed: reservation beyond the available funds accepted");
+        } catch (InsufficientFundsException expected) {
+            // the funds are not available
+        }
+
+        // a released reservation can't be reused: its funds are back in the balance
+        engine.reserve("r3", "1020", "pm1", "40.00");
+        engine.release("r3");
+        try {
+            engine.reserve("r3", "1020", "pm1", "40.00");
+            throw new IllegalStateException("Check failed: released reservation reused");
+        } catch (ReservationStateException expected) {
+            // the payment must use a new reservation id
+        }
+        if (!engine.withAvailableBalance(repository.paymentMethod("pm1")).availableBalance().equals("100.00"))
+            throw new IllegalStateException("Check failed: released funds available");
+        if (!engine.reserve("r4", "1020", "pm1", "40.00").availableBalance().equals("60.00"))
+            throw new IllegalStateException("Check failed: new reservation holds the funds");
+        // a retried reservation returns the same one while it's reserved
+        if (!engine.reserve("r4", "1020", "pm1", "40.00").availableBalance().equals("60.00"))
+            throw new IllegalStateException("Check failed: retried reservation not held twice");
+
+        System.out.println("BalanceEngineIntegrationTest passed");
+    }
+
+    /**
+     * A single account, 1020, with the payment methods and balances given; a blank balance is a missing one.
+     */
+    private record Repository(Map<String, String> balances) implements AccountRepository {
+
+        @Override
+        public Optional<Account> findAccountById(String accountId) {
+            List<PaymentMethodSummary> summaries = balances.keySet().stream()
+                    .map(id -> new PaymentMethodSummary(id, "BankTransfer", "2022-01-01", "9999-01-01"))
+                    .toList();
+            return Optional.of(new Account(accountId, "user" + accountId, "User " + accountId, "EUR", "2022-01-01", "0", summaries));
+        }
+
+        @Override
+        public List<Account> findAccountsByUserName(String userName) {
+            return List.of();
+        }
+
+        @Override
+        public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+            return Optional.ofNullable(balances.containsKey(paymentMethodId) ? paymentMethod(paymentMethodId) : null);
+        }
+
+        @Override
+        public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+            return balances.keySet().stream().map(this::paymentMethod).toList();
+        }
+
+        PaymentMethod paymentMethod(String id) {
+            String balance = balances.get(id);
+            return new PaymentMethod(id, "BankTransfer", "2022-01-01", "9999-01-01", balance.isEmpty() ? null : balance, null);
+        }
+    }
+}
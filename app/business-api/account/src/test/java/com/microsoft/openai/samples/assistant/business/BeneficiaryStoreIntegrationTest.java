@@ -0,0 +1,69 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.cache.AccountDataChangedEvent;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.service.BeneficiaryStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers beneficiaries and checks that they are found by normalized name, by an almost exact name and by bank
+ * code, that the bank code narrows a name registered at two banks, that the indexes follow the additions and the
+ * removals, whose ids are not reused, that a beneficiary can't be registered twice at the same bank and that every
+ * change publishes an AccountDataChangedEvent.
+ * Usage: BeneficiaryStoreIntegrationTest
+ */
+public class BeneficiaryStoreIntegrationTest {
+
+    public static void main(String[] args) {
+        List<Object> events = new ArrayList<>();
+        var store = new BeneficiaryStore(events::add);
+        store.load("1010", List.of(
+                new Beneficiary("1", "Mike ThePlumber", "123456789", "Intesa Sanpaolo"),
+                new Beneficiary("2", "Jane TheElectrician", "987654321", "UBS")));
+        if (!events.isEmpty())
+            throw new IllegalStateException("Check failed: loading the initial data published " + events);
+
+        checkFound(store.find("1010", "  mike theplumber ", null), "1");
+        checkFound(store.find("1010", "Mike ThePlumbr", null), "1");
+        checkFound(store.find("1010", null, "987654321"), "2");
+        if (!store.find("1010", "Wayne Enterprises", null).isEmpty())
+            throw new IllegalStateException("Check failed: unknown beneficiary found");
+        if (!store.find("1020", "Mike ThePlumber", null).isEmpty())
+            throw new IllegalStateException("Check failed: beneficiary of another account found");
+
+        // the same name at another bank: the bank code selects it, without bank code both are returned
+        Beneficiary otherBank = store.add("1010", "Mike ThePlumber", "555000111", "Fabrikam Bank");
+        checkFound(store.find("1010", "Mike ThePlumber", "555000111"), otherBank.id());
+        if (store.find("1010", "Mike ThePlumber", null).size() != 2)
+            throw new IllegalStateException("Check failed: both beneficiaries named Mike ThePlumber returned");
+        try {
+            store.add("1010", "mike theplumber", "555000111", "Fabrikam Bank");
+            throw new IllegalStateException("Check failed: beneficiary registered twice at the same bank");
+        } catch (IllegalArgumentException expected) {
+            // already registered
+        }
+
+        // removed: no longer indexed, and its id is not given to the next one
+        if (!store.remove("1010", otherBank.id()))
+            throw new IllegalStateException("Check failed: beneficiary not removed");
+        if (!store.find("1010", null, "555000111").isEmpty())
+            throw new IllegalStateException("Check failed: removed beneficiary still indexed by bank code");
+        Beneficiary next = store.add("1010", "Contoso", "444000222", "Fabrikam Bank");
+        if (next.id().equals(otherBank.id()))
+            throw new IllegalStateException("Check failed: id %s of a removed beneficiary reused".formatted(next.id()));
+        if (store.resolveName("1010", "contoso ltd", 1, 0.75).isEmpty())
+            throw new IllegalStateException("Check failed: new beneficiary not resolved by name");
+
+        if (events.size() != 3 || !events.stream().allMatch(event -> event.equals(new AccountDataChangedEvent("1010"))))
+            throw new IllegalStateException("Check failed: one change event per change, got " + events);
+
+        System.out.println("BeneficiaryStoreIntegrationTest passed");
+    }
+
+    private static void checkFound(List<Beneficiary> found, String id) {
+        if (found.size() != 1 || !found.get(0).id().equals(id))
+            throw new IllegalStateException("Check failed: beneficiary %s found, got %s".formatted(id, found));
+    }
+}
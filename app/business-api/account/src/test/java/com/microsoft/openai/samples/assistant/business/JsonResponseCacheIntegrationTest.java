@@ -0,0 +1,102 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.openai.samples.assistant.business.balance.BalanceChangedEvent;
+import com.microsoft.openai.samples.assistant.business.cache.JsonResponseCache;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that a balance change invalidates the cached responses of its account and of the user of the account only,
+ * that a conditional read of an unchanged response is answered with 304, and that a response loaded while its account
+ * is invalidated is not served afterwards.
+ * Usage: JsonResponseCacheIntegrationTest
+ */
+public class JsonResponseCacheIntegrationTest {
+
+    public static void main(String[] args) throws Exception {
+        var cache = new JsonResponseCache(new ObjectMapper(), new Repository(Map.of("1010", "alice", "1020", "bob")),
+                true, 1000, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            cache.get("1010", "/accounts/1010", null, () -> List.of("1010", loads.incrementAndGet()));
+            cache.get("alice", "/users/alice/accounts", null, () -> List.of("alice", loads.incrementAndGet()));
+            cache.get("1020", "/accounts/1020", null, () -> List.of("1020", loads.incrementAndGet()));
+            cache.get("bob", "/users/bob/accounts", null, () -> List.of("bob", loads.incrementAndGet()));
+        }
+        if (loads.get() != 4)
+            throw new IllegalStateException("Check failed: cached responses loaded again, %d loads".formatted(loads.get()));
+        String etag = cache.get("bob", "/users/bob/accounts", null, () -> List.of()).getHeaders().getETag();
+        if (cache.get("bob", "/users/bob/accounts", etag, () -> List.of()).getStatusCode() != HttpStatus.NOT_MODIFIED)
+            throw new IllegalStateException("Check failed: unchanged response not answered with 304");
+
+        // the balance of alice's account changes: bob's responses are kept
+        cache.onBalanceChanged(new BalanceChangedEvent("1010"));
+        loads.set(0);
+        cache.get("1010", "/accounts/1010", null, () -> List.of("1010", loads.incrementAndGet()));
+        cache.get("alice", "/users/alice/accounts", null, () -> List.of("alice", loads.incrementAndGet()));
+        cache.get("1020", "/accounts/1020", null, () -> List.of("1020", loads.incrementAndGet()));
+        cache.get("bob", "/users/bob/accounts", null, () -> List.of("bob", loads.incrementAndGet()));
+        if (loads.get() != 2)
+            throw new IllegalStateException("Check failed: %d responses loaded again after the change of one account".formatted(loads.get()));
+
+        // the account changes while its response is loaded: the stale response is not served afterwards
+        var loading = new CountDownLatch(1);
+        var changed = new CountDownLatch(1);
+        Thread reader = new Thread(() -> cache.get("1020", "/accounts/1020/registeredBeneficiaries", null, () -> {
+            loading.countDown();
+            try {
+                changed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("stale");
+        }));
+        reader.start();
+        loading.await();
+        cache.onBalanceChanged(new BalanceChangedEvent("1020"));
+        changed.countDown();
+        reader.join();
+        String body = new String(cache.get("1020", "/accounts/1020/registeredBeneficiaries", null, () -> List.of("fresh")).getBody());
+        if (!body.contains("fresh"))
+            throw new IllegalStateException("Check failed: response loaded during an invalidation served, got " + body);
+
+        System.out.println("JsonResponseCacheIntegrationTest passed");
+    }
+
+    /**
+     * Accounts with the user they belong to.
+     */
+    private record Repository(Map<String, String> userNames) implements AccountRepository {
+
+        @Override
+        public Optional<Account> findAccountById(String accountId) {
+            return Optional.ofNullable(userNames.get(accountId))
+                    .map(userName -> new Account(accountId, userName, userName, "EUR", "2022-01-01", "0", List.of()));
+        }
+
+        @Override
+        public List<Account> findAccountsByUserName(String userName) {
+            return List.of();
+        }
+
+        @Override
+        public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+            return List.of();
+        }
+    }
+}
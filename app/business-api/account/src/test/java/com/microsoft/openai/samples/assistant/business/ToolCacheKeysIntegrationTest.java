@@ -0,0 +1,79 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.balance.BalanceChangedEvent;
+import com.microsoft.openai.samples.assistant.business.cache.AccountDataChangedEvent;
+import com.microsoft.openai.samples.assistant.business.cache.ToolCacheKeys;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.mcp.config.AccountToolCacheConfiguration;
+import com.microsoft.openai.samples.assistant.business.repository.AccountRepository;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Generates the keys of the cached tool results and checks that a change of an account gives new keys to the
+ * results about the account, its user and its payment methods, while the keys of the other accounts and users are
+ * unchanged, so their results are still read.
+ * Usage: ToolCacheKeysIntegrationTest
+ */
+public class ToolCacheKeysIntegrationTest {
+
+    public static void main(String[] args) throws Exception {
+        var keys = new ToolCacheKeys();
+        var configuration = new AccountToolCacheConfiguration(keys, new Repository());
+        Method tool = ToolCacheKeysIntegrationTest.class.getDeclaredMethod("main", String[].class);
+
+        List<Object> scopes = List.of("1010", "bob", "101", "1020", "alice", "103");
+        List<Object> before = scopes.stream().map(scope -> keys.generate(null, tool, scope, "arguments")).toList();
+        if (!before.equals(scopes.stream().map(scope -> keys.generate(null, tool, scope, "arguments")).toList()))
+            throw new IllegalStateException("Check failed: keys of the same arguments differ");
+
+        configuration.onBalanceChanged(new BalanceChangedEvent("1010"));
+        List<Object> after = scopes.stream().map(scope -> keys.generate(null, tool, scope, "arguments")).toList();
+        for (int i = 0; i < scopes.size(); i++) {
+            boolean invalidated = i < 3;
+            if (invalidated == before.get(i).equals(after.get(i)))
+                throw new IllegalStateException("Check failed: key of %s %s after the change of account 1010"
+                        .formatted(scopes.get(i), invalidated ? "unchanged" : "changed"));
+        }
+
+        // the other arguments of the tool are part of the key
+        if (keys.generate(null, tool, "1020", "Contoso").equals(keys.generate(null, tool, "1020", "Acme")))
+            throw new IllegalStateException("Check failed: results with different arguments share a key");
+
+        configuration.onAccountDataChanged(new AccountDataChangedEvent("1020"));
+        if (keys.generate(null, tool, "alice", "arguments").equals(after.get(4)))
+            throw new IllegalStateException("Check failed: key of alice unchanged after the change of account 1020");
+
+        System.out.println("ToolCacheKeysIntegrationTest passed");
+    }
+
+    /**
+     * Account 1010 of bob with payment method 101, account 1020 of alice with payment method 103.
+     */
+    private static class Repository implements AccountRepository {
+
+        @Override
+        public Optional<Account> findAccountById(String accountId) {
+            return Optional.of(new Account(accountId, accountId.equals("1010") ? "bob" : "alice", "User", "EUR", "2022-01-01", "0", List.of()));
+        }
+
+        @Override
+        public List<Account> findAccountsByUserName(String userName) {
+            return List.of();
+        }
+
+        @Override
+        public Optional<PaymentMethod> findPaymentMethodById(String paymentMethodId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<PaymentMethod> findPaymentMethodsByAccountId(String accountId) {
+            String id = accountId.equals("1010") ? "101" : "103";
+            return List.of(new PaymentMethod(id, "BankTransfer", "2022-01-01", "9999-01-01", "100.00", null));
+        }
+    }
+}
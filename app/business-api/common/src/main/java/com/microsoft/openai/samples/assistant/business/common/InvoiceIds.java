@@ -0,0 +1,84 @@
+package com.microsoft.openai.samples.assistant.business.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts the invoice or bill ids from a payment or transaction description (e.g. "payment for invoice 1527248",
+ * "Payment of the bill 334398"), so that the payments of an invoice are recognized the same way when they are made
+ * and in the transactions history.
+ */
+public final class InvoiceIds {
+
+    private static final Set<String> INVOICE_KEYWORDS = Set.of("invoice", "bill");
+    // words that can be found between the keyword and the id, e.g. "bill id with 0001", "invoice number 1527248"
+    private static final Set<String> FILLER_WORDS = Set.of("id", "number", "no", "nr", "num", "with", "of", "is", "n");
+
+    private InvoiceIds() {
+    }
+
+    /**
+     * The invoice ids found in the description, lower case, in order.
+     */
+    public static List<String> extract(String description) {
+        List<String> invoiceIds = new ArrayList<>();
+        if (description == null || description.isEmpty())
+            return invoiceIds;
+
+        // tokenized by hand instead of using a regex as it runs on every ingested transaction
+        List<String> tokens = tokenize(description);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!INVOICE_KEYWORDS.contains(tokens.get(i)))
+                continue;
+            int next = i + 1;
+            while (next < tokens.size() && FILLER_WORDS.contains(tokens.get(next)))
+                next++;
+            // an id must contain at least one digit, otherwise it's just a word following invoice or bill
+            if (next < tokens.size() && tokens.get(next).chars().anyMatch(Character::isDigit))
+                invoiceIds.add(tokens.get(next));
+        }
+        return invoiceIds;
+    }
+
+    /**
+     * The first invoice id found in the description, or null.
+     */
+    public static String first(String description) {
+        List<String> invoiceIds = extract(description);
+        return invoiceIds.isEmpty() ? null : invoiceIds.get(0);
+    }
+
+    /**
+     * The invoice id given by a user, e.g. "#INV-0001", as extracted from the descriptions.
+     */
+    public static String normalize(String invoiceId) {
+        if (invoiceId == null)
+            return "";
+        String normalized = invoiceId.trim().toLowerCase();
+        if (normalized.startsWith("#"))
+            normalized = normalized.substring(1);
+        return normalized;
+    }
+
+    private static List<String> tokenize(String description) {
+        List<String> tokens = new ArrayList<>();
+        String lowerCase = description.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean tokenChar = i < lowerCase.length() && isTokenChar(lowerCase.charAt(i), i > start && start >= 0);
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isTokenChar(char c, boolean insideToken) {
+        // ids may contain separators like 2024-INV/0001, but a token can't start with them
+        return Character.isLetterOrDigit(c) || (insideToken && (c == '-' || c == '_' || c == '/'));
+    }
+}
@@ -0,0 +1,268 @@
+package com.microsoft.openai.samples.assistant.business.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fuzzy name resolver. Candidates are retrieved through a trigram inverted index and ranked by Jaro-Winkler
+ * similarity, so a misspelled or partial name (e.g. "Contoso Ltd", "Wayne Enterprise") is resolved to the known
+ * names in a single lookup. Names can be added incrementally while the index is being queried.
+ */
+public class NameIndex {
+
+    private static final Set<String> LEGAL_SUFFIXES = Set.of("ltd", "inc", "llc", "plc", "corp", "co", "spa", "srl", "gmbh", "ag", "sa");
+    // max number of candidates, ordered by shared trigrams, to be scored with Jaro-Winkler
+    private static final int MAX_CANDIDATES = 256;
+    private static final int MAX_SCANNED_POSTINGS = 20_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // names as they have been added, to skip normalization when the same name is added again
+    private final Set<String> addedNames = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> normalizedNames = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * Adds a name to the index. Names that are equal once normalized are stored only once.
+     */
+    public void add(String name) {
+        if (name == null || addedNames.contains(name))
+            return;
+        String normalized = normalize(name);
+
+        lock.writeLock().lock();
+        try {
+            if (!normalized.isEmpty() && !nameIds.containsKey(normalized)) {
+                int id = names.size();
+                nameIds.put(normalized, id);
+                names.add(name.trim());
+                normalizedNames.add(normalized);
+
+                Set<String> trigrams = trigrams(normalized);
+                trigrams.forEach(trigram -> postings.computeIfAbsent(trigram, t -> new Postings()).add(id));
+            }
+            // only once indexed: a name added again returns early, and must be found by the queries that follow
+            addedNames.add(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the known names similar to the query, ranked by score (1.0 is an exact match).
+     */
+    public List<NameMatch> resolve(String query, int maxResults, double minScore) {
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty())
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            Integer exactMatch = nameIds.get(normalizedQuery);
+            if (exactMatch != null && maxResults == 1)
+                return List.of(new NameMatch(names.get(exactMatch), 1.0));
+
+            // scan the rarest trigrams first and stop once the postings budget is exhausted: common trigrams
+            // (e.g. shared by most of the names) add cost but almost no selectivity
+            List<Postings> queryPostings = new ArrayList<>();
+            for (String trigram : trigrams(normalizedQuery)) {
+                Postings trigramPostings = postings.get(trigram);
+                if (trigramPostings != null)
+                    queryPostings.add(trigramPostings);
+            }
+            queryPostings.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            int scannedPostings = 0;
+            int scannedLists = 0;
+            for (Postings trigramPostings : queryPostings) {
+                if (scannedPostings > 0 && scannedPostings + trigramPostings.size > MAX_SCANNED_POSTINGS)
+                    break;
+                scannedPostings += trigramPostings.size;
+                scannedLists++;
+            }
+
+            // the trigrams shared with the query are counted in a table sized to the postings scanned, not to
+            // the number of names in the index
+            Candidates candidates = new Candidates(scannedPostings);
+            for (int list = 0; list < scannedLists; list++) {
+                Postings trigramPostings = queryPostings.get(list);
+                for (int i = 0; i < trigramPostings.size; i++)
+                    candidates.add(trigramPostings.ids[i]);
+            }
+
+            List<NameMatch> matches = new ArrayList<>();
+            for (int id : topCandidates(candidates, queryPostings.size())) {
+                double score = jaroWinkler(normalizedQuery, normalizedNames.get(id));
+                if (score >= minScore)
+                    matches.add(new NameMatch(names.get(id), Math.round(score * 1000) / 1000.0));
+            }
+            matches.sort((a, b) -> Double.compare(b.score(), a.score()));
+            return matches.size() > maxResults ? new ArrayList<>(matches.subList(0, maxResults)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Selects the candidates sharing the highest number of trigrams with the query, using a counting sort
+     * on the shared trigrams instead of sorting all the candidates.
+     */
+    private static int[] topCandidates(Candidates candidates, int maxShared) {
+        if (candidates.size <= MAX_CANDIDATES)
+            return Arrays.copyOf(candidates.ids, candidates.size);
+
+        int[] histogram = new int[maxShared + 1];
+        for (int i = 0; i < candidates.size; i++)
+            histogram[candidates.sharedTrigrams[i]]++;
+
+        int threshold = maxShared;
+        int selected = histogram[threshold];
+        while (threshold > 1 && selected < MAX_CANDIDATES)
+            selected += histogram[--threshold];
+
+        int[] top = new int[MAX_CANDIDATES];
+        int size = 0;
+        // candidates above the threshold first, then the ones at the threshold until the limit is reached
+        for (int i = 0; i < candidates.size && size < MAX_CANDIDATES; i++)
+            if (candidates.sharedTrigrams[i] > threshold)
+                top[size++] = candidates.ids[i];
+        for (int i = 0; i < candidates.size && size < MAX_CANDIDATES; i++)
+            if (candidates.sharedTrigrams[i] == threshold)
+                top[size++] = candidates.ids[i];
+        return Arrays.copyOf(top, size);
+    }
+
+    public static String normalize(String name) {
+        if (name == null)
+            return "";
+        String[] tokens = name.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim().split(" ");
+        StringBuilder normalized = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            // legal entity suffixes are not significant to identify a payee
+            if (i > 0 && LEGAL_SUFFIXES.contains(tokens[i]))
+                continue;
+            if (normalized.length() > 0)
+                normalized.append(' ');
+            normalized.append(tokens[i]);
+        }
+        return normalized.toString();
+    }
+
+    static Set<String> trigrams(String normalized) {
+        String padded = "  " + normalized + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++)
+            trigrams.add(padded.substring(i, i + 3));
+        return trigrams;
+    }
+
+    static double jaroWinkler(String s1, String s2) {
+        if (s1.equals(s2))
+            return 1.0;
+        int len1 = s1.length();
+        int len2 = s2.length();
+        if (len1 == 0 || len2 == 0)
+            return 0.0;
+
+        int matchDistance = Math.max(0, Math.max(len1, len2) / 2 - 1);
+        boolean[] s1Matches = new boolean[len1];
+        boolean[] s2Matches = new boolean[len2];
+
+        int matches = 0;
+        for (int i = 0; i < len1; i++) {
+            int start = Math.max(0, i - matchDistance);
+            int end = Math.min(i + matchDistance + 1, len2);
+            for (int j = start; j < end; j++) {
+                if (s2Matches[j] || s1.charAt(i) != s2.charAt(j))
+                    continue;
+                s1Matches[i] = true;
+                s2Matches[j] = true;
+                matches++;
+                break;
+            }
+        }
+        if (matches == 0)
+            return 0.0;
+
+        int transpositions = 0;
+        for (int i = 0, k = 0; i < len1; i++) {
+            if (!s1Matches[i])
+                continue;
+            while (!s2Matches[k])
+                k++;
+            if (s1.charAt(i) != s2.charAt(k))
+                transpositions++;
+            k++;
+        }
+
+        double m = matches;
+        double jaro = (m / len1 + m / len2 + (m - transpositions / 2.0) / m) / 3.0;
+
+        int prefix = 0;
+        for (int i = 0; i < Math.min(4, Math.min(len1, len2)) && s1.charAt(i) == s2.charAt(i); i++)
+            prefix++;
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+
+    /**
+     * Open addressing table counting the shared trigrams of each candidate, in the order they are first found.
+     */
+    private static class Candidates {
+        private final int[] slots;
+        private final int[] ids;
+        private final int[] sharedTrigrams;
+        private int size;
+
+        Candidates(int maxCandidates) {
+            slots = new int[Integer.highestOneBit(Math.max(1, maxCandidates) * 2 - 1) * 2];
+            ids = new int[maxCandidates];
+            sharedTrigrams = new int[maxCandidates];
+        }
+
+        void add(int id) {
+            int mask = slots.length - 1;
+            int slot = (id * 0x9E3779B9) >>> 1 & mask;
+            // a slot holds the candidate position + 1, 0 is free
+            while (slots[slot] != 0) {
+                int position = slots[slot] - 1;
+                if (ids[position] == id) {
+                    sharedTrigrams[position]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            ids[size] = id;
+            sharedTrigrams[size] = 1;
+            slots[slot] = ++size;
+        }
+    }
+
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.microsoft.openai.samples.assistant.business.common;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record NameMatch(
+        @JsonProperty("name") String name,
+    // similarity score between 0 and 1. 1 is an exact match
+        @JsonProperty("score") double score
+) {}
@@ -0,0 +1,231 @@
+package com.microsoft.openai.samples.assistant.business.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only log split in partitions, one file per partition, with one record per line. Records with the same key
+ * always go to the same partition, so their order is preserved, while different partitions can be consumed in
+ * parallel. Readers track their own offset (the byte position in the partition file) and only see complete lines.
+ * Producer and consumers can live in different processes sharing the same directory.
+ */
+public class PartitionedLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedLog.class);
+    private static final String PARTITIONS_FILE_NAME = "partitions";
+    private static final byte NEW_LINE = '\n';
+
+    private final Path directory;
+    private final int partitions;
+    private final FileChannel[] appendChannels;
+    private final FileChannel[] readChannels;
+
+    public PartitionedLog(Path directory, int partitions) {
+        if (partitions <= 0)
+            throw new IllegalArgumentException("Partitions must be greater than 0");
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            this.partitions = readOrWritePartitions(partitions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open partitioned log " + directory, e);
+        }
+        this.appendChannels = new FileChannel[this.partitions];
+        this.readChannels = new FileChannel[this.partitions];
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    public int partitionFor(String key) {
+        return Math.floorMod(key.hashCode(), partitions);
+    }
+
+    /**
+     * Appends the records to the partition with a single write. Records must not contain new lines.
+     * @return the offset after the last appended record
+     */
+    public long append(int partition, List<byte[]> records, boolean fsync) {
+        int size = 0;
+        for (byte[] record : records)
+            size += record.length + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] record : records)
+            buffer.put(record).put(NEW_LINE);
+        buffer.flip();
+
+        FileChannel channel = appendChannel(partition);
+        synchronized (channel) {
+            try {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                if (fsync)
+                    channel.force(false);
+                return channel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot append to partition " + partition, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the complete records available from the offset, up to about maxBytes.
+     */
+    public ReadBatch read(int partition, long offset, int maxBytes) {
+        FileChannel channel = readChannel(partition);
+        try {
+            long available = channel.size() - offset;
+            if (available <= 0)
+                return new ReadBatch(List.of(), offset);
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(available, maxBytes));
+            int lastNewLine = -1;
+            while (true) {
+                if (channel.read(buffer, offset + buffer.position()) < 0)
+                    break;
+                if (buffer.hasRemaining() && buffer.position() < available)
+                    continue;
+                for (int i = buffer.position() - 1; i >= 0 && lastNewLine < 0; i--)
+                    if (buffer.get(i) == NEW_LINE)
+                        lastNewLine = i;
+                // a record longer than maxBytes: read more until the end of the line is found
+                if (lastNewLine >= 0 || buffer.position() >= available)
+                    break;
+                ByteBuffer larger = ByteBuffer.allocate((int) Math.min(available, buffer.capacity() * 2L));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            if (lastNewLine < 0)
+                return new ReadBatch(List.of(), offset);
+
+            byte[] bytes = buffer.array();
+            List<byte[]> records = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i <= lastNewLine; i++) {
+                if (bytes[i] != NEW_LINE)
+                    continue;
+                if (i > start)
+                    records.add(Arrays.copyOfRange(bytes, start, i));
+                start = i + 1;
+            }
+            return new ReadBatch(records, offset + lastNewLine + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read partition " + partition, e);
+        }
+    }
+
+    public long size(int partition) {
+        try {
+            return readChannel(partition).size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read partition " + partition, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel channel : appendChannels)
+            if (channel != null)
+                channel.close();
+        for (FileChannel channel : readChannels)
+            if (channel != null)
+                channel.close();
+    }
+
+    private synchronized FileChannel appendChannel(int partition) {
+        if (appendChannels[partition] == null) {
+            try {
+                FileChannel channel = FileChannel.open(partitionFile(partition),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                truncateTornRecord(partition, channel);
+                channel.position(channel.size());
+                appendChannels[partition] = channel;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open partition " + partition, e);
+            }
+        }
+        return appendChannels[partition];
+    }
+
+    private synchronized FileChannel readChannel(int partition) {
+        if (readChannels[partition] == null) {
+            try {
+                Path file = partitionFile(partition);
+                if (!Files.exists(file))
+                    Files.createFile(file);
+                readChannels[partition] = FileChannel.open(file, StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open partition " + partition, e);
+            }
+        }
+        return readChannels[partition];
+    }
+
+    /**
+     * A producer crashed in the middle of a write leaves an incomplete last line, never seen by the readers:
+     * it's removed before appending new records.
+     */
+    private static void truncateTornRecord(int partition, FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0)
+            return;
+        ByteBuffer lastByte = ByteBuffer.allocate(1);
+        channel.read(lastByte, size - 1);
+        if (lastByte.get(0) == NEW_LINE)
+            return;
+
+        long end = size;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            channel.read(buffer, start);
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == NEW_LINE) {
+                    channel.truncate(start + i + 1);
+                    logger.warn("Removed {} bytes of incomplete record from partition {}", size - (start + i + 1), partition);
+                    return;
+                }
+            }
+            end = start;
+        }
+        channel.truncate(0);
+    }
+
+    private int readOrWritePartitions(int partitions) throws IOException {
+        // the number of partitions is fixed when the log is created: changing it would break the ordering by key
+        Path partitionsFile = directory.resolve(PARTITIONS_FILE_NAME);
+        if (Files.exists(partitionsFile)) {
+            int existing = Integer.parseInt(Files.readString(partitionsFile, StandardCharsets.UTF_8).trim());
+            if (existing != partitions)
+                logger.warn("Partitioned log {} has {} partitions, ignoring the configured {}", directory, existing, partitions);
+            return existing;
+        }
+        Path tempFile = directory.resolve(PARTITIONS_FILE_NAME + ".tmp");
+        Files.writeString(tempFile, Integer.toString(partitions), StandardCharsets.UTF_8);
+        Files.move(tempFile, partitionsFile, StandardCopyOption.ATOMIC_MOVE);
+        return partitions;
+    }
+
+    private Path partitionFile(int partition) {
+        return directory.resolve("partition-%04d.log".formatted(partition));
+    }
+
+    public record ReadBatch(List<byte[]> records, long nextOffset) {
+    }
+}
@@ -1,4 +1,4 @@
-package com.microsoft.openai.samples.assistant.business.models;
+package com.microsoft.openai.samples.assistant.business.common.models;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -0,0 +1,18 @@
+package com.microsoft.openai.samples.assistant.business.common.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Reservation(
+        @JsonProperty("reservationId") String reservationId,
+        @JsonProperty("accountId") String accountId,
+        @JsonProperty("paymentMethodId") String paymentMethodId,
+        @JsonProperty("amount") String amount,
+        @JsonProperty("status") ReservationStatus status,
+        @JsonProperty("expiresAt") String expiresAt,
+        // available balance of the payment method right after the operation
+        @JsonProperty("availableBalance") String availableBalance
+) {}
@@ -0,0 +1,13 @@
+package com.microsoft.openai.samples.assistant.business.common.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ReservationRequest(
+        // chosen by the caller, so a reservation retried with the same id is made only once
+        @JsonProperty("reservationId") String reservationId,
+        @JsonProperty("accountId") String accountId,
+        @JsonProperty("paymentMethodId") String paymentMethodId,
+        @JsonProperty("amount") String amount
+) {}
@@ -0,0 +1,12 @@
+package com.microsoft.openai.samples.assistant.business.common.models;
+
+/**
+ * Reserved funds are either committed, when the payment is executed, or released back to the available balance.
+ * A reservation that is neither committed nor released before its expiration is released as EXPIRED.
+ */
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,86 @@
+package com.microsoft.openai.samples.assistant.business.client;
+
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.Reservation;
+import com.microsoft.openai.samples.assistant.business.common.models.ReservationRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non blocking client of the account API. Calls return a Mono, so independent lookups can be run in parallel.
+ */
+@Component
+public class AccountClient {
+
+    private static final ParameterizedTypeReference<List<Account>> ACCOUNTS = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Beneficiary>> BENEFICIARIES = new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+
+    public AccountClient(WebClient.Builder webClientBuilder, @Value("${accounts.api.url}") String accountAPIUrl) {
+        this.webClient = webClientBuilder.baseUrl(accountAPIUrl).build();
+    }
+
+    public Mono<List<Account>> getAccountsByUserName(String userName) {
+        return webClient.get()
+                .uri("/users/{userName}/accounts", userName)
+                .retrieve()
+                .bodyToMono(ACCOUNTS)
+                .defaultIfEmpty(List.of());
+    }
+
+    public Mono<Account> getAccountDetails(String accountId) {
+        return webClient.get()
+                .uri("/accounts/{accountId}", accountId)
+                .retrieve()
+                .bodyToMono(Account.class);
+    }
+
+    public Mono<PaymentMethod> getPaymentMethodDetails(String accountId, String paymentMethodId) {
+        return webClient.get()
+                .uri("/accounts/{accountId}/paymentmethods/{methodId}", accountId, paymentMethodId)
+                .retrieve()
+                .bodyToMono(PaymentMethod.class);
+    }
+
+    public Mono<List<Beneficiary>> findBeneficiary(String accountId, String name, String bankCode) {
+        return webClient.get()
+                .uri(builder -> builder.path("/accounts/{accountId}/registeredBeneficiaries/find")
+                        .queryParam("name", name)
+                        .queryParamIfPresent("bankCode", Optional.ofNullable(bankCode).filter(code -> !code.isBlank()))
+                        .build(accountId))
+                .retrieve()
+                .bodyToMono(BENEFICIARIES)
+                .defaultIfEmpty(List.of());
+    }
+
+    public Mono<Reservation> reserve(ReservationRequest request) {
+        return webClient.post()
+                .uri("/reservations")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(Reservation.class);
+    }
+
+    public Mono<Reservation> commitReservation(String reservationId) {
+        return webClient.post()
+                .uri("/reservations/{reservationId}/commit", reservationId)
+                .retrieve()
+                .bodyToMono(Reservation.class);
+    }
+
+    public Mono<Reservation> releaseReservation(String reservationId) {
+        return webClient.delete()
+                .uri("/reservations/{reservationId}", reservationId)
+                .retrieve()
+                .bodyToMono(Reservation.class);
+    }
+}
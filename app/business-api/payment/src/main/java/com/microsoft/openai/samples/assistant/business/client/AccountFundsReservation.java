@@ -0,0 +1,66 @@
+package com.microsoft.openai.samples.assistant.business.client;
+
+import com.microsoft.openai.samples.assistant.business.models.Payment;
+import com.microsoft.openai.samples.assistant.business.common.models.ReservationRequest;
+import com.microsoft.openai.samples.assistant.business.service.FundsReservation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Reserves the payment funds on the balance engine of the account API, so the funds check and the debit are
+ * consistent when payments on the same payment method are processed in parallel. The payment id is used as the
+ * reservation id: a reservation retried after a timeout is not made twice.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.funds-reservation.enabled", havingValue = "true", matchIfMissing = true)
+public class AccountFundsReservation implements FundsReservation {
+
+    private final AccountClient accountClient;
+    private final Duration timeout;
+
+    public AccountFundsReservation(AccountClient accountClient, @Value("${payment.funds-reservation.timeout:5s}") Duration timeout) {
+        this.accountClient = accountClient;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String reserve(String paymentId, Payment payment) {
+        try {
+            return accountClient.reserve(new ReservationRequest(paymentId, payment.accountId(), payment.paymentMethodId(), payment.amount()))
+                    .block(timeout)
+                    .reservationId();
+        } catch (WebClientResponseException e) {
+            // insufficient funds, payment method not found or reservation id already used for another payment
+            if (e.getStatusCode().value() == HttpStatus.CONFLICT.value() || e.getStatusCode().value() == HttpStatus.NOT_FOUND.value())
+                throw new IllegalArgumentException(errorMessage(e));
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit(String reservationId) {
+        accountClient.commitReservation(reservationId).block(timeout);
+    }
+
+    @Override
+    public void release(String reservationId) {
+        accountClient.releaseReservation(reservationId).block(timeout);
+    }
+
+    private static String errorMessage(WebClientResponseException e) {
+        try {
+            Map<?, ?> body = e.getResponseBodyAs(Map.class);
+            if (body != null && body.get("message") instanceof String message && !message.isBlank())
+                return message;
+        } catch (RuntimeException ignored) {
+            // the error body is not json
+        }
+        return "Funds reservation rejected: " + e.getStatusText();
+    }
+}
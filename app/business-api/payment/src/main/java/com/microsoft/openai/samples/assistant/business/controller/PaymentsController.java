@@ -1,12 +1,19 @@
 package com.microsoft.openai.samples.assistant.business.controller;
 
 import com.microsoft.openai.samples.assistant.business.models.Payment;
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
+import com.microsoft.openai.samples.assistant.business.models.PaymentValidation;
 import com.microsoft.openai.samples.assistant.business.service.PaymentService;
+import com.microsoft.openai.samples.assistant.business.service.PaymentValidationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -15,14 +22,34 @@ public class PaymentsController {
     private static final Logger logger = LoggerFactory.getLogger(PaymentsController.class);
 
     private final PaymentService paymentService;
+    private final PaymentValidationService paymentValidationService;
 
-    public PaymentsController(PaymentService paymentService) {
+    public PaymentsController(PaymentService paymentService, PaymentValidationService paymentValidationService) {
         this.paymentService = paymentService;
+        this.paymentValidationService = paymentValidationService;
     }
 
     @PostMapping("/payments")
-    public void submitPayment(@RequestBody Payment payment) {
+    public ResponseEntity<PaymentResult> submitPayment(@RequestBody Payment payment,
+                                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         logger.info("Received payment request: {}", payment);
-        paymentService.processPayment(payment);
+        PaymentResult receipt = paymentService.processPayment(payment, idempotencyKey != null ? idempotencyKey : payment.idempotencyKey());
+        return ResponseEntity.accepted().body(receipt);
+    }
+
+    @GetMapping("/payments/validation")
+    public PaymentValidation validatePayment(@RequestParam String userName,
+                                             @RequestParam String recipientName,
+                                             @RequestParam(required = false) String recipientBankCode,
+                                             @RequestParam String amount,
+                                             @RequestParam(required = false) String paymentMethod) {
+        logger.info("Received request to validate payment of {} to [{}] for user: {}", amount, recipientName, userName);
+        return paymentValidationService.validatePayment(userName, recipientName, recipientBankCode, amount, paymentMethod);
+    }
+
+    @GetMapping("/payments/{paymentId}")
+    public PaymentResult getPaymentStatus(@PathVariable String paymentId) {
+        logger.info("Received request to get status for payment: {}", paymentId);
+        return paymentService.getPaymentStatus(paymentId);
     }
 }
\ No newline at end of file
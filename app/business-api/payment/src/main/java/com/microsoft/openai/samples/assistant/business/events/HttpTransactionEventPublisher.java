@@ -0,0 +1,60 @@
+package com.microsoft.openai.samples.assistant.business.events;
+
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Sends batches of transactions to the transactions history batch API. The outbox id and the sequences are sent as
+ * headers, so the transactions API drops the transactions of a batch sent again after a timeout.
+ * A single WebClient is built and reused, so the connections to the transactions API are pooled and kept alive.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.events.backend", havingValue = "http", matchIfMissing = true)
+public class HttpTransactionEventPublisher implements TransactionEventPublisher {
+
+    static final String OUTBOX_ID_HEADER = "X-Outbox-Id";
+    static final String OUTBOX_SEQUENCES_HEADER = "X-Outbox-Sequences";
+
+    private final WebClient webClient;
+    private final Duration deliveryTimeout;
+
+    public HttpTransactionEventPublisher(WebClient.Builder webClientBuilder,
+                                         @Value("${transactions.api.url}") String transactionAPIUrl,
+                                         @Value("${payment.outbox.delivery-timeout:10s}") Duration deliveryTimeout) {
+        this.webClient = webClientBuilder.baseUrl(transactionAPIUrl).build();
+        this.deliveryTimeout = deliveryTimeout;
+    }
+
+    /**
+     * Blocks until the transactions API acknowledges the batch.
+     */
+    @Override
+    public PublishResult publish(String outboxId, String accountId, List<Transaction> transactions, List<Long> sequences) {
+        PublishResult result = webClient
+                .post()
+                .uri("/transactions/{accountId}/batch", accountId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(OUTBOX_ID_HEADER, outboxId)
+                .header(OUTBOX_SEQUENCES_HEADER, sequences.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .body(BodyInserters.fromValue(transactions))
+                .retrieve()
+                .bodyToMono(PublishResult.class)
+                .block(deliveryTimeout);
+
+        if (result == null)
+            throw new IllegalStateException("Empty response from transactions API for account id: " + accountId);
+        // the transactions stored before the error are dropped when the batch is sent again
+        if (result.error() != null)
+            throw new IllegalStateException("Transactions API failed to store the batch for account id %s: %s".formatted(accountId, result.error()));
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.microsoft.openai.samples.assistant.business.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microsoft.openai.samples.assistant.business.common.PartitionedLog;
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends the transactions to the local partitioned log, partitioned by account id so the transactions of an
+ * account are consumed in order. The log directory must be shared with the transactions history service.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.events.backend", havingValue = "log")
+public class LogTransactionEventPublisher implements TransactionEventPublisher {
+
+    private final PartitionedLog log;
+    private final ObjectWriter transactionWriter;
+    private final boolean fsync;
+
+    public LogTransactionEventPublisher(ObjectMapper objectMapper,
+                                        @Value("${payment.events.log.dir:./events}") String logDir,
+                                        @Value("${payment.events.partitions:16}") int partitions,
+                                        @Value("${payment.events.fsync:true}") boolean fsync) {
+        this.log = new PartitionedLog(Path.of(logDir, "transactions"), partitions);
+        this.transactionWriter = objectMapper.writerFor(Transaction.class);
+        this.fsync = fsync;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        log.close();
+    }
+
+    /**
+     * The sequences are not needed: the consumers of the log skip the transactions already stored.
+     */
+    @Override
+    public PublishResult publish(String outboxId, String accountId, List<Transaction> transactions, List<Long> sequences) {
+        List<byte[]> records = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            try {
+                // the default writer escapes new lines inside strings, so a record is always a single line
+                records.add(transactionWriter.writeValueAsBytes(transaction));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        log.append(log.partitionFor(accountId), records, fsync);
+        return new PublishResult(transactions.size(), 0, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.microsoft.openai.samples.assistant.business.events;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PublishResult(
+        @JsonProperty("accepted") long accepted,
+        @JsonProperty("rejected") long rejected,
+        @JsonProperty("error") String error
+) {}
@@ -0,0 +1,20 @@
+package com.microsoft.openai.samples.assistant.business.events;
+
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+
+import java.util.List;
+
+/**
+ * Publishes the transactions created by the payments to the transactions history. The backend is selected with
+ * the payment.events.backend property: http (default) posts them to the transactions API, log appends them to a
+ * local partitioned log consumed by the transactions history service.
+ */
+public interface TransactionEventPublisher {
+
+    /**
+     * Publishes a batch of transactions of the same account, preserving their order. Any failure is thrown to
+     * let the caller retry. The sequences, one per transaction, increase with every notification of the outbox:
+     * a transaction with a sequence already received from the same outbox is a retried delivery.
+     */
+    PublishResult publish(String outboxId, String accountId, List<Transaction> transactions, List<Long> sequences);
+}
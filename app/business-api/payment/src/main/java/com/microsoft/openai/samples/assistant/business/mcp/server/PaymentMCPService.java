@@ -2,8 +2,12 @@ package com.microsoft.openai.samples.assistant.business.mcp.server;
 
 
 import com.microsoft.openai.samples.assistant.business.models.Payment;
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
+import com.microsoft.openai.samples.assistant.business.models.PaymentValidation;
 import com.microsoft.openai.samples.assistant.business.service.PaymentService;
+import com.microsoft.openai.samples.assistant.business.service.PaymentValidationService;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
 
 import org.springframework.stereotype.Service;
 
@@ -11,13 +15,29 @@ import org.springframework.stereotype.Service;
 public class PaymentMCPService {
 
     private final PaymentService paymentService;
+    private final PaymentValidationService paymentValidationService;
 
-    public PaymentMCPService(PaymentService paymentService) {
+    public PaymentMCPService(PaymentService paymentService, PaymentValidationService paymentValidationService) {
         this.paymentService = paymentService;
+        this.paymentValidationService = paymentValidationService;
     }
 
-    @Tool(description = "Submit a payment request")
-    public void processPayment(Payment payment){
-        paymentService.processPayment(payment);
+    @Tool(description = "Submit a payment request. Returns immediately a receipt with the payment id and status. Submitting again the same payment returns the original receipt with duplicate=true instead of paying twice")
+    public PaymentResult processPayment(Payment payment){
+        return paymentService.processPayment(payment);
+    }
+
+    @Tool(description = "Get the status of a submitted payment: ACCEPTED, RESERVED, EXECUTED, PENDING_NOTIFICATION (executed, not yet in the transactions history), COMPLETED or FAILED with the error message")
+    public PaymentResult getPaymentStatus(@ToolParam(description = "ID of the payment returned in the receipt") String paymentId){
+        return paymentService.getPaymentStatus(paymentId);
+    }
+
+    @Tool(description = "Validate a payment before submitting it, in a single call: resolves the user account and the payment method, checks the payment method available funds and expiration, and checks if the payee is a registered beneficiary. Returns the verdict, the issues found and the accountId and paymentMethodId to use to submit the payment")
+    public PaymentValidation validatePayment(@ToolParam(description = "userName once the user has logged") String userName,
+                                             @ToolParam(description = "payee name") String recipientName,
+                                             @ToolParam(description = "payee bank code, if provided by the user", required = false) String recipientBankCode,
+                                             @ToolParam(description = "payment amount") String amount,
+                                             @ToolParam(description = "payment method id, or payment method type chosen by the user e.g. Visa, BankTransfer") String paymentMethod) {
+        return paymentValidationService.validatePayment(userName, recipientName, recipientBankCode, amount, paymentMethod);
     }
 }
\ No newline at end of file
@@ -13,5 +13,6 @@ public record Payment(
     @JsonProperty("paymentMethodId") String paymentMethodId,
     @JsonProperty("paymentType") String paymentType,
     @JsonProperty("amount") String amount,
-    @JsonProperty("timestamp") String timestamp
+    @JsonProperty("timestamp") String timestamp,
+    @JsonProperty("idempotencyKey") String idempotencyKey
 ) {}
\ No newline at end of file
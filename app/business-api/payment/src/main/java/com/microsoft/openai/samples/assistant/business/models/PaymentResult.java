@@ -0,0 +1,36 @@
+package com.microsoft.openai.samples.assistant.business.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Receipt of a submitted payment, updated as the payment moves through the pipeline.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaymentResult(
+    @JsonProperty("paymentId") String paymentId,
+    @JsonProperty("status") PaymentStatus status,
+    @JsonProperty("accountId") String accountId,
+    @JsonProperty("recipientName") String recipientName,
+    @JsonProperty("amount") String amount,
+    @JsonProperty("description") String description,
+    @JsonProperty("transactionId") String transactionId,
+    @JsonProperty("idempotencyKey") String idempotencyKey,
+    @JsonProperty("duplicate") boolean duplicate,
+    @JsonProperty("submittedAt") String submittedAt,
+    @JsonProperty("updatedAt") String updatedAt,
+    @JsonProperty("message") String message
+) {
+
+    public PaymentResult asDuplicate() {
+        return new PaymentResult(paymentId, status, accountId, recipientName, amount, description, transactionId,
+                idempotencyKey, true, submittedAt, updatedAt, message);
+    }
+
+    public PaymentResult withStatus(PaymentStatus status, String transactionId, String updatedAt, String message) {
+        return new PaymentResult(paymentId, status, accountId, recipientName, amount, description, transactionId,
+                idempotencyKey, duplicate, submittedAt, updatedAt, message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.microsoft.openai.samples.assistant.business.models;
+
+/**
+ * Stages of the payment pipeline. A payment is ACCEPTED once validated and queued, then it's RESERVED, EXECUTED
+ * and notified to the transactions history, ending as COMPLETED. Any failure before the execution ends the payment
+ * as FAILED. An executed payment can't fail anymore: it's PENDING_NOTIFICATION while its notification is retried.
+ */
+public enum PaymentStatus {
+    ACCEPTED,
+    RESERVED,
+    EXECUTED,
+    PENDING_NOTIFICATION,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,30 @@
+package com.microsoft.openai.samples.assistant.business.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+
+import java.util.List;
+
+/**
+ * Verdict of the checks done before submitting a payment, with the ids to use to submit it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaymentValidation(
+        @JsonProperty("valid") boolean valid,
+        @JsonProperty("accountId") String accountId,
+        @JsonProperty("currency") String currency,
+        @JsonProperty("paymentMethodId") String paymentMethodId,
+        @JsonProperty("paymentMethodType") String paymentMethodType,
+        @JsonProperty("availableBalance") String availableBalance,
+        @JsonProperty("amount") String amount,
+        @JsonProperty("sufficientFunds") Boolean sufficientFunds,
+        @JsonProperty("beneficiaryKnown") boolean beneficiaryKnown,
+        @JsonProperty("beneficiaryName") String beneficiaryName,
+        @JsonProperty("beneficiaryBankCode") String beneficiaryBankCode,
+    // payment methods of the account, valued when the requested one can't be resolved
+        @JsonProperty("availablePaymentMethods") List<PaymentMethodSummary> availablePaymentMethods,
+        @JsonProperty("issues") List<String> issues
+) {}
@@ -0,0 +1,12 @@
+package com.microsoft.openai.samples.assistant.business.outbox;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record OutboxEntry(
+        @JsonProperty("sequence") long sequence,
+        @JsonProperty("enqueuedAt") long enqueuedAt,
+        @JsonProperty("transaction") Transaction transaction
+) {}
@@ -0,0 +1,182 @@
+package com.microsoft.openai.samples.assistant.business.outbox;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only local journal of the outbox. Every enqueued entry and every delivery acknowledgement is appended as a
+ * JSON line and flushed to disk, so pending notifications survive a restart and are replayed at startup.
+ * Compacting the journal rewrites it with the pending entries only. The first record of the journal holds the outbox
+ * id and the last sequence assigned, so the sequences are never reused: the receivers drop the notifications with a
+ * sequence they have already seen.
+ */
+public class OutboxJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxJournal.class);
+    private static final String ADD = "add";
+    private static final String ACK = "ack";
+    private static final String HEADER = "header";
+
+    private final Path journalFile;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long appendedRecords;
+    private String outboxId;
+    private long lastSequence;
+
+    public OutboxJournal(Path journalFile, ObjectMapper objectMapper, boolean fsync) {
+        this.journalFile = journalFile;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the journal and returns the entries not yet acknowledged, in sequence order.
+     */
+    public synchronized List<OutboxEntry> open() {
+        try {
+            Files.createDirectories(journalFile.toAbsolutePath().getParent());
+            Map<Long, OutboxEntry> pending = new LinkedHashMap<>();
+            if (Files.exists(journalFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank())
+                            continue;
+                        JournalRecord record;
+                        try {
+                            record = objectMapper.readValue(line, JournalRecord.class);
+                        } catch (IOException e) {
+                            // a torn write of the last record can happen if the process died while appending
+                            logger.warn("Skipping unreadable outbox journal record: {}", e.getMessage());
+                            continue;
+                        }
+                        if (ADD.equals(record.op()) && record.entry() != null) {
+                            pending.put(record.entry().sequence(), record.entry());
+                            lastSequence = Math.max(lastSequence, record.entry().sequence());
+                        } else if (ACK.equals(record.op())) {
+                            pending.remove(record.sequence());
+                        } else if (HEADER.equals(record.op())) {
+                            outboxId = record.outboxId();
+                            lastSequence = Math.max(lastSequence, record.sequence());
+                        }
+                    }
+                }
+            }
+            // a new journal starts a new sequence: it gets a new id, so its notifications are not taken for duplicates
+            if (outboxId == null)
+                outboxId = UUID.randomUUID().toString();
+            List<OutboxEntry> pendingEntries = new ArrayList<>(pending.values());
+            rewrite(pendingEntries);
+            logger.info("Outbox journal [{}] opened with {} pending entries", journalFile, pendingEntries.size());
+            return pendingEntries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open outbox journal " + journalFile, e);
+        }
+    }
+
+    public synchronized void append(OutboxEntry entry) {
+        write(List.of(new JournalRecord(ADD, entry.sequence(), entry, null)));
+        lastSequence = Math.max(lastSequence, entry.sequence());
+    }
+
+    public synchronized void acknowledge(Collection<OutboxEntry> entries) {
+        List<JournalRecord> records = new ArrayList<>(entries.size());
+        entries.forEach(entry -> records.add(new JournalRecord(ACK, entry.sequence(), null, null)));
+        write(records);
+    }
+
+    /**
+     * Rewrites the journal with the pending entries only.
+     */
+    public synchronized void compact(Collection<OutboxEntry> pendingEntries) {
+        try {
+            rewrite(pendingEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact outbox journal " + journalFile, e);
+        }
+    }
+
+    public synchronized long appendedRecords() {
+        return appendedRecords;
+    }
+
+    public synchronized String outboxId() {
+        return outboxId;
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen())
+            channel.close();
+    }
+
+    private void write(List<JournalRecord> records) {
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (JournalRecord record : records)
+                lines.append(objectMapper.writeValueAsString(record)).append('\n');
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            if (fsync)
+                channel.force(false);
+            appendedRecords += records.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write outbox journal " + journalFile, e);
+        }
+    }
+
+    private void rewrite(Collection<OutboxEntry> pendingEntries) throws IOException {
+        close();
+        Path compacted = journalFile.resolveSibling(journalFile.getFileName() + ".compact");
+        try (FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            StringBuilder lines = new StringBuilder();
+            lines.append(objectMapper.writeValueAsString(new JournalRecord(HEADER, lastSequence, null, outboxId))).append('\n');
+            for (OutboxEntry entry : pendingEntries)
+                lines.append(objectMapper.writeValueAsString(new JournalRecord(ADD, entry.sequence(), entry, null))).append('\n');
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                compactedChannel.write(buffer);
+            compactedChannel.force(true);
+        }
+        Files.move(compacted, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        appendedRecords = pendingEntries.size() + 1;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record JournalRecord(
+            @JsonProperty("op") String op,
+            @JsonProperty("sequence") long sequence,
+            @JsonProperty("entry") OutboxEntry entry,
+            @JsonProperty("outboxId") String outboxId
+    ) {}
+}
@@ -0,0 +1,221 @@
+package com.microsoft.openai.samples.assistant.business.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.openai.samples.assistant.business.events.PublishResult;
+import com.microsoft.openai.samples.assistant.business.events.TransactionEventPublisher;
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable outbox for the transactions notifications. A transaction is persisted in the local journal before the
+ * payment is acknowledged, then a background worker delivers the pending transactions in batches, retrying with
+ * exponential backoff while the transactions API is not available. Every notification is sent with the outbox id and
+ * its sequence, so the receiver can drop the ones it has already stored when a delivery is retried.
+ */
+@Component
+public class TransactionOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionOutbox.class);
+    private static final String JOURNAL_FILE_NAME = "transactions-outbox.log";
+
+    private final TransactionEventPublisher transactionEventPublisher;
+    private final OutboxJournal journal;
+    private final int batchSize;
+    private final Duration deliveryInterval;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int compactionThreshold;
+
+    private final ConcurrentSkipListMap<Long, OutboxEntry> pending = new ConcurrentSkipListMap<>();
+    // the journal and the pending entries are changed together, so a compaction never drops an entry being enqueued
+    private final Object journalLock = new Object();
+    private long sequence;
+    private final ScheduledExecutorService deliveryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transactions-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // accessed by the delivery thread only
+    private int consecutiveFailures;
+    private long nextAttemptAt;
+
+    private final Counter deliveredCounter;
+    private final Counter rejectedCounter;
+    private final Counter failuresCounter;
+    private final Timer deliveryTimer;
+
+    public TransactionOutbox(TransactionEventPublisher transactionEventPublisher,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${payment.outbox.dir:./outbox}") String outboxDir,
+                             @Value("${payment.outbox.fsync:true}") boolean fsync,
+                             @Value("${payment.outbox.batch-size:100}") int batchSize,
+                             @Value("${payment.outbox.delivery-interval:200ms}") Duration deliveryInterval,
+                             @Value("${payment.outbox.initial-backoff:500ms}") Duration initialBackoff,
+                             @Value("${payment.outbox.max-backoff:60s}") Duration maxBackoff,
+                             @Value("${payment.outbox.compaction-threshold:10000}") int compactionThreshold) {
+        this.transactionEventPublisher = transactionEventPublisher;
+        this.journal = new OutboxJournal(Path.of(outboxDir, JOURNAL_FILE_NAME), objectMapper, fsync);
+        this.batchSize = batchSize;
+        this.deliveryInterval = deliveryInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.compactionThreshold = compactionThreshold;
+
+        Gauge.builder("payment.outbox.queue.depth", pending, Map::size)
+                .description("Number of transactions notifications waiting to be delivered")
+                .register(meterRegistry);
+        Gauge.builder("payment.outbox.delivery.lag", this, TransactionOutbox::deliveryLagSeconds)
+                .description("Age in seconds of the oldest transaction notification waiting to be delivered")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("payment.outbox.delivered")
+                .description("Transactions notifications delivered to the transactions API")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("payment.outbox.rejected")
+                .description("Transactions notifications delivered but rejected by the transactions API")
+                .register(meterRegistry);
+        this.failuresCounter = Counter.builder("payment.outbox.delivery.failures")
+                .description("Failed batch delivery attempts")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("payment.outbox.delivery")
+                .description("Batch delivery latency")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        synchronized (journalLock) {
+            List<OutboxEntry> pendingEntries = journal.open();
+            pendingEntries.forEach(entry -> pending.put(entry.sequence(), entry));
+            sequence = journal.lastSequence();
+        }
+
+        deliveryExecutor.scheduleWithFixedDelay(this::deliverPending, 0, deliveryInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        deliveryExecutor.shutdown();
+        deliveryExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        journal.close();
+        logger.info("Transactions outbox stopped with {} pending notifications", pending.size());
+    }
+
+    /**
+     * Persists the transaction in the outbox. When this method returns the notification is durable and will be
+     * delivered even if the transactions API is not available or the service restarts.
+     */
+    public void enqueue(Transaction transaction) {
+        synchronized (journalLock) {
+            OutboxEntry entry = new OutboxEntry(sequence + 1, System.currentTimeMillis(), transaction);
+            journal.append(entry);
+            sequence = entry.sequence();
+            pending.put(entry.sequence(), entry);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    void deliverPending() {
+        try {
+            while (!pending.isEmpty() && System.currentTimeMillis() >= nextAttemptAt) {
+                List<OutboxEntry> batch = new ArrayList<>(batchSize);
+                for (OutboxEntry entry : pending.values()) {
+                    batch.add(entry);
+                    if (batch.size() == batchSize)
+                        break;
+                }
+                if (!deliver(batch))
+                    break;
+            }
+            synchronized (journalLock) {
+                // the delivered entries are dropped from the journal, even when some are still pending
+                if (journal.appendedRecords() - pending.size() >= compactionThreshold)
+                    journal.compact(pending.values());
+            }
+        } catch (RuntimeException e) {
+            // never let an exception cancel the scheduled delivery
+            logger.error("Unexpected error delivering transactions notifications", e);
+        }
+    }
+
+    private boolean deliver(List<OutboxEntry> batch) {
+        // the transactions API ingests batches per account, preserving the order of the notifications
+        Map<String, List<OutboxEntry>> entriesByAccount = new LinkedHashMap<>();
+        batch.forEach(entry -> entriesByAccount.computeIfAbsent(entry.transaction().accountId(), id -> new ArrayList<>()).add(entry));
+
+        for (Map.Entry<String, List<OutboxEntry>> accountEntries : entriesByAccount.entrySet()) {
+            String accountId = accountEntries.getKey();
+            List<OutboxEntry> entries = accountEntries.getValue();
+            List<Transaction> transactions = entries.stream().map(OutboxEntry::transaction).toList();
+            List<Long> sequences = entries.stream().map(OutboxEntry::sequence).toList();
+            long start = System.nanoTime();
+            try {
+                PublishResult result = transactionEventPublisher.publish(journal.outboxId(), accountId, transactions, sequences);
+                deliveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+                if (result.rejected() > 0) {
+                    // rejected transactions would be rejected again: they are logged and not retried
+                    logger.warn("{} transactions for account[{}] rejected by transactions API: {}", result.rejected(), accountId, result.error());
+                    rejectedCounter.increment(result.rejected());
+                }
+                synchronized (journalLock) {
+                    journal.acknowledge(entries);
+                    entries.forEach(entry -> pending.remove(entry.sequence()));
+                }
+                deliveredCounter.increment(entries.size());
+                consecutiveFailures = 0;
+                logger.info("Transactions notified for account[{}]: {}", accountId, transactions.size());
+            } catch (RuntimeException e) {
+                failuresCounter.increment();
+                consecutiveFailures++;
+                long backoffMillis = backoffMillis(consecutiveFailures);
+                nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+                logger.warn("Cannot notify {} transactions for account[{}] (attempt {}). Retrying in {} ms: {}",
+                        transactions.size(), accountId, consecutiveFailures, backoffMillis, e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long backoffMillis(int failures) {
+        long exponential = initialBackoff.toMillis() << Math.min(failures - 1, 20);
+        long capped = Math.min(exponential, maxBackoff.toMillis());
+        // full jitter on half of the delay to avoid retry storms from many replicas
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private double deliveryLagSeconds() {
+        var oldest = pending.firstEntry();
+        if (oldest == null)
+            return 0;
+        return (System.currentTimeMillis() - oldest.getValue().enqueuedAt()) / 1000.0;
+    }
+}
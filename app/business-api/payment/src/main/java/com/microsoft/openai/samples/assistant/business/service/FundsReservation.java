@@ -0,0 +1,20 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.models.Payment;
+
+/**
+ * Reserve stage of the payment pipeline. Funds are reserved before the payment is executed, then the reservation
+ * is committed when the payment is executed or released when it fails.
+ */
+public interface FundsReservation {
+
+    /**
+     * Reserves the payment amount. Throws IllegalArgumentException when the funds are not available.
+     * @return the reservation id
+     */
+    String reserve(String paymentId, Payment payment);
+
+    void commit(String reservationId);
+
+    void release(String reservationId);
+}
@@ -0,0 +1,60 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.common.InvoiceIds;
+import com.microsoft.openai.samples.assistant.business.models.Payment;
+
+import java.math.BigDecimal;
+
+/**
+ * Builds the idempotency key of a payment. A key supplied by the client is used as is, otherwise it's derived
+ * from the account, the payee, the amount and the invoice or bill id found in the payment description. Without an
+ * invoice id the key is derived from the description: the same payment can legitimately be made again (e.g. a
+ * weekly transfer), so such a key only deduplicates the retries within a short window.
+ */
+public final class IdempotencyKeys {
+
+    private static final String CLIENT_KEY = "client|";
+    private static final String INVOICE_KEY = "invoice|";
+    private static final String DESCRIPTION_KEY = "description|";
+
+    private IdempotencyKeys() {
+    }
+
+    public static String of(Payment payment, String clientKey) {
+        // client keys are scoped by account so two accounts can't collide on the same key
+        if (clientKey != null && !clientKey.isBlank())
+            return CLIENT_KEY + payment.accountId() + "|" + clientKey.trim();
+
+        String invoiceId = InvoiceIds.first(payment.description());
+        // without an invoice id the description is the best identifier of what is being paid
+        String subject = invoiceId != null ? invoiceId : normalize(payment.description());
+        return (invoiceId != null ? INVOICE_KEY : DESCRIPTION_KEY) + payment.accountId()
+                + "|" + normalize(payment.recipientName())
+                + "|" + normalizeAmount(payment.amount())
+                + "|" + subject;
+    }
+
+    /**
+     * Whether the key is derived from the payment description, without a client key or an invoice id.
+     */
+    public static boolean isDescriptionKey(String idempotencyKey) {
+        return idempotencyKey != null && idempotencyKey.startsWith(DESCRIPTION_KEY);
+    }
+
+    static String normalize(String value) {
+        if (value == null)
+            return "";
+        return value.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    static String normalizeAmount(String amount) {
+        if (amount == null || amount.isBlank())
+            return "";
+        try {
+            // 100, 100.0 and 100.00 are the same amount
+            return new BigDecimal(amount.trim()).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return amount.trim();
+        }
+    }
+}
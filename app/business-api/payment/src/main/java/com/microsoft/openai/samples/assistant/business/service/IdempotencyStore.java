@@ -0,0 +1,144 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Deduplication store for the payment requests. The result of a payment is kept for a fixed time to live, so a
+ * retried or re-confirmed request with the same idempotency key returns the original result instead of being
+ * processed again. Memory is bounded: the oldest keys are evicted once the max number of entries is reached.
+ * The keys derived from the payment description only have a short time to live (see IdempotencyKeys).
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // insertion order is expiration order for the keys with the same time to live. The short lived keys queued behind
+    // a longer lived one are evicted later, but they are not returned once expired
+    private final Queue<Entry> expirationQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedEntries = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final long ttlNanos;
+    private final long descriptionTtlNanos;
+    private final int maxEntries;
+    private final Counter duplicatesCounter;
+
+    public IdempotencyStore(MeterRegistry meterRegistry,
+                            @Value("${payment.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${payment.idempotency.description-ttl:10m}") Duration descriptionTtl,
+                            @Value("${payment.idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.descriptionTtlNanos = Math.min(descriptionTtl.toNanos(), ttlNanos);
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("payment.idempotency.keys", entries, Map::size)
+                .description("Idempotency keys currently stored")
+                .register(meterRegistry);
+        this.duplicatesCounter = Counter.builder("payment.idempotency.duplicates")
+                .description("Duplicate payment requests suppressed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the payment once per idempotency key. A duplicate received while the original payment is still being
+     * processed waits for its result. A failed payment is not stored, so it can be submitted again.
+     */
+    public PaymentResult execute(String idempotencyKey, Supplier<PaymentResult> payment) {
+        long now = System.nanoTime();
+        evict(now);
+
+        long entryTtlNanos = IdempotencyKeys.isDescriptionKey(idempotencyKey) ? descriptionTtlNanos : ttlNanos;
+        Entry entry = new Entry(idempotencyKey, new CompletableFuture<>(), now + entryTtlNanos);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(idempotencyKey, entry)) != null) {
+            if (existing.expiresAt - now > 0)
+                return duplicate(existing);
+            entries.remove(idempotencyKey, existing);
+        }
+        expirationQueue.add(entry);
+        queuedEntries.incrementAndGet();
+
+        try {
+            PaymentResult result = payment.get();
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.remove(idempotencyKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forgets the result stored for the key, e.g. because the payment failed after being accepted. The key is
+     * forgotten only while it still refers to that payment: once expired it can refer to a new payment.
+     */
+    public void invalidate(String idempotencyKey, String paymentId) {
+        if (idempotencyKey == null || paymentId == null)
+            return;
+        Entry entry = entries.get(idempotencyKey);
+        if (entry == null)
+            return;
+        // the payment can fail before its receipt is stored in the entry
+        entry.result.thenAccept(result -> {
+            if (paymentId.equals(result.paymentId()))
+                entries.remove(idempotencyKey, entry);
+        });
+    }
+
+    public long duplicates() {
+        return (long) duplicatesCounter.count();
+    }
+
+    private PaymentResult duplicate(Entry existing) {
+        duplicatesCounter.increment();
+        logger.info("Duplicate payment request suppressed for idempotency key [{}]", existing.key);
+        try {
+            return existing.result.join().asDuplicate();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    private void evict(long now) {
+        // a single thread evicts at a time, the others don't wait for it
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            Entry head;
+            while ((head = expirationQueue.peek()) != null
+                    && (head.expiresAt - now <= 0 || queuedEntries.get() > maxEntries)) {
+                expirationQueue.poll();
+                queuedEntries.decrementAndGet();
+                entries.remove(head.key, head);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Entry(String key, CompletableFuture<PaymentResult> result, long expiresAt) {
+    }
+}
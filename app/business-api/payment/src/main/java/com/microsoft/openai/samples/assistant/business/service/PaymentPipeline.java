@@ -0,0 +1,224 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.models.Payment;
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
+import com.microsoft.openai.samples.assistant.business.models.PaymentStatus;
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+import com.microsoft.openai.samples.assistant.business.outbox.TransactionOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged payment pipeline. Payments are validated by the caller, then queued and processed by a pool of workers
+ * through the reserve, execute and notify stages. The queue is bounded: when it's full new payments are rejected
+ * instead of piling up, so callers can back off and retry. A payment fails only before its funds are committed:
+ * once executed, a notification that cannot be stored in the outbox is retried until it is.
+ */
+@Component
+public class PaymentPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentPipeline.class);
+    private static final Duration NOTIFICATION_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_NOTIFICATION_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final PaymentTracker paymentTracker;
+    private final TransactionOutbox transactionOutbox;
+    private final IdempotencyStore idempotencyStore;
+    private final FundsReservation fundsReservation;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService notificationRetries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-notification-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter rejectedCounter;
+    private final Timer completedTimer;
+    private final Timer failedTimer;
+
+    public PaymentPipeline(PaymentTracker paymentTracker,
+                           TransactionOutbox transactionOutbox,
+                           IdempotencyStore idempotencyStore,
+                           ObjectProvider<FundsReservation> fundsReservation,
+                           MeterRegistry meterRegistry,
+                           @Value("${payment.pipeline.workers:8}") int workerCount,
+                           @Value("${payment.pipeline.queue-capacity:1000}") int queueCapacity) {
+        this.paymentTracker = paymentTracker;
+        this.transactionOutbox = transactionOutbox;
+        this.idempotencyStore = idempotencyStore;
+        this.fundsReservation = fundsReservation.getIfAvailable();
+
+        AtomicInteger workerId = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-worker-" + workerId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("payment.pipeline.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Payments waiting to be processed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("payment.pipeline.rejected")
+                .description("Payments rejected because the pipeline queue is full")
+                .register(meterRegistry);
+        this.completedTimer = Timer.builder("payment.pipeline.processing")
+                .description("Time from submission to the end of the pipeline")
+                .tag("status", PaymentStatus.COMPLETED.name())
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("payment.pipeline.processing")
+                .description("Time from submission to the end of the pipeline")
+                .tag("status", PaymentStatus.FAILED.name())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // queued payments are already accepted: let the workers drain them
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS))
+            logger.warn("Payment pipeline stopped with {} payments not processed", workers.getQueue().size());
+        int notRetried = notificationRetries.shutdownNow().size();
+        if (notRetried > 0)
+            logger.error("Payment pipeline stopped with {} executed payments not notified", notRetried);
+    }
+
+    /**
+     * Queues a validated payment and returns its receipt without waiting for the payment to be processed.
+     */
+    public PaymentResult submit(Payment payment, String idempotencyKey) {
+        String now = Instant.now().toString();
+        PaymentResult receipt = new PaymentResult(
+                UUID.randomUUID().toString(),
+                PaymentStatus.ACCEPTED,
+                payment.accountId(),
+                payment.recipientName(),
+                payment.amount(),
+                payment.description(),
+                null,
+                idempotencyKey,
+                false,
+                now,
+                now,
+                null);
+
+        paymentTracker.track(receipt);
+        long submittedAt = System.nanoTime();
+        try {
+            workers.execute(() -> process(receipt, payment, submittedAt));
+        } catch (RejectedExecutionException e) {
+            paymentTracker.forget(receipt.paymentId());
+            rejectedCounter.increment();
+            throw new PaymentQueueFullException("Too many payments in progress. Retry later");
+        }
+        return receipt;
+    }
+
+    public PaymentResult getStatus(String paymentId) {
+        return paymentTracker.get(paymentId);
+    }
+
+    private void process(PaymentResult receipt, Payment payment, long submittedAt) {
+        String reservationId = null;
+        Transaction transaction;
+        try {
+            if (fundsReservation != null)
+                reservationId = fundsReservation.reserve(receipt.paymentId(), payment);
+            receipt = advance(receipt, PaymentStatus.RESERVED, null, null);
+
+            transaction = convertPaymentToTransaction(receipt.paymentId(), payment);
+            if (reservationId != null)
+                fundsReservation.commit(reservationId);
+        } catch (RuntimeException e) {
+            fail(receipt, payment, reservationId, submittedAt, e);
+            return;
+        }
+
+        // the funds are committed: from now on the payment can't fail, only its notification can be delayed
+        receipt = advance(receipt, PaymentStatus.EXECUTED, transaction.id(), null);
+        notifyTransaction(receipt, payment, transaction, submittedAt, 1);
+    }
+
+    private void fail(PaymentResult receipt, Payment payment, String reservationId, long submittedAt, RuntimeException e) {
+        if (reservationId != null) {
+            try {
+                fundsReservation.release(reservationId);
+            } catch (RuntimeException releaseError) {
+                // the hold expires anyway: the payment is still recorded as failed
+                logger.warn("Cannot release reservation [{}] of payment [{}]: {}", reservationId, receipt.paymentId(), releaseError.getMessage());
+            }
+        }
+        // a failed payment can be submitted again with the same idempotency key
+        idempotencyStore.invalidate(receipt.idempotencyKey(), receipt.paymentId());
+        advance(receipt, PaymentStatus.FAILED, receipt.transactionId(), e.getMessage());
+        failedTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        logger.warn("Payment [{}] for account[{}] failed: {}", receipt.paymentId(), payment.accountId(), e.getMessage());
+    }
+
+    private void notifyTransaction(PaymentResult receipt, Payment payment, Transaction transaction, long submittedAt, int attempt) {
+        try {
+            // the transaction is stored in the outbox, then published in batches through the configured events backend
+            transactionOutbox.enqueue(transaction);
+        } catch (RuntimeException e) {
+            PaymentResult pending = receipt.status() == PaymentStatus.PENDING_NOTIFICATION
+                    ? receipt
+                    : advance(receipt, PaymentStatus.PENDING_NOTIFICATION, transaction.id(), e.getMessage());
+            long delayMillis = Math.min(MAX_NOTIFICATION_RETRY_DELAY.toMillis(), NOTIFICATION_RETRY_DELAY.toMillis() << Math.min(attempt - 1, 10));
+            logger.warn("Cannot notify payment [{}] for account[{}] (attempt {}). Retrying in {} ms: {}",
+                    receipt.paymentId(), payment.accountId(), attempt, delayMillis, e.getMessage());
+            try {
+                notificationRetries.schedule(() -> notifyTransaction(pending, payment, transaction, submittedAt, attempt + 1), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException stopped) {
+                logger.error("Payment [{}] for account[{}] executed but not notified: the pipeline is stopped", receipt.paymentId(), payment.accountId());
+            }
+            return;
+        }
+        advance(receipt, PaymentStatus.COMPLETED, transaction.id(), null);
+        completedTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        logger.info("Payment [{}] for account[{}] completed", receipt.paymentId(), payment.accountId());
+    }
+
+    private PaymentResult advance(PaymentResult receipt, PaymentStatus status, String transactionId, String message) {
+        PaymentResult updated = receipt.withStatus(status, transactionId, Instant.now().toString(), message);
+        paymentTracker.update(updated);
+        return updated;
+    }
+
+    private Transaction convertPaymentToTransaction(String paymentId, Payment payment) {
+        // the transactions history requires a timestamp: a payment without one is executed now
+        String timestamp = payment.timestamp() == null || payment.timestamp().isBlank() ? Instant.now().toString() : payment.timestamp();
+        // the payment id is used as transaction id, so the payment can be found in the transactions history
+        return new Transaction(
+                paymentId,
+                payment.description(),
+                "outcome",
+                payment.recipientName(),
+                payment.recipientBankCode(),
+                payment.accountId(),
+                payment.paymentType(),
+                payment.amount(),
+                timestamp
+        );
+    }
+}
@@ -0,0 +1,15 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the payment pipeline can't accept more payments. Callers should retry later.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentQueueFullException extends RuntimeException {
+
+    public PaymentQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -1,31 +1,29 @@
 package com.microsoft.openai.samples.assistant.business.service;
 
 import com.microsoft.openai.samples.assistant.business.models.Payment;
-import com.microsoft.openai.samples.assistant.business.models.Transaction;
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
-
-import java.util.UUID;
 
 @Service
 public class PaymentService {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
-    private final WebClient.Builder webClientBuilder;
-    private final String transactionAPIUrl;
+    private final PaymentPipeline paymentPipeline;
+    private final IdempotencyStore idempotencyStore;
+
+    public PaymentService(PaymentPipeline paymentPipeline, IdempotencyStore idempotencyStore) {
+        this.paymentPipeline = paymentPipeline;
+        this.idempotencyStore = idempotencyStore;
+    }
 
-    public PaymentService(WebClient.Builder webClientBuilder, @Value("${transactions.api.url}") String transactionAPIUrl) {
-        this.webClientBuilder = webClientBuilder;
-        this.transactionAPIUrl = transactionAPIUrl;
+    public PaymentResult processPayment(Payment payment) {
+        return processPayment(payment, payment.idempotencyKey());
     }
 
-    public void processPayment(Payment payment) {
+    public PaymentResult processPayment(Payment payment, String clientIdempotencyKey) {
 
         if (payment.accountId() == null || payment.accountId().isEmpty())
             throw new IllegalArgumentException("AccountId is empty or null");
@@ -44,39 +42,26 @@ public class PaymentService {
             throw new IllegalArgumentException("paymentMethodId is not a valid number");
         }
 
-
         // Log the payment details
-        logger.info("Payment successful for: {}", payment.toString());
-
-        // Convert the Payment object into a Transaction object
-        Transaction transaction = convertPaymentToTransaction(payment);
+        logger.info("Payment validated for: {}", payment.toString());
 
-        /**
-         * Make the POST request. The transaction is sent to the transaction API. In a real scenario this would be an event published to a hub and consumed by the transaction API.
-         */
+        String idempotencyKey = IdempotencyKeys.of(payment, clientIdempotencyKey);
+        PaymentResult receipt = idempotencyStore.execute(idempotencyKey, () -> paymentPipeline.submit(payment, idempotencyKey));
+        if (!receipt.duplicate())
+            return receipt;
 
-        logger.info("Notifying payment [{}] for account[{}]..", payment.description() , transaction.accountId());
-        webClientBuilder.build()
-                .post()
-                .uri(transactionAPIUrl + "/transactions/{accountId}", payment.accountId())
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(BodyInserters.fromValue(transaction))
-                .retrieve()
-                .bodyToMono(String.class)
-                .subscribe(response -> logger.info("Transaction notified for: {}", transaction.toString()));
+        // a duplicate gets the current status of the original payment rather than its first receipt
+        PaymentResult current = paymentPipeline.getStatus(receipt.paymentId());
+        return current != null ? current.asDuplicate() : receipt;
     }
 
-    private Transaction convertPaymentToTransaction(Payment payment) {
-        return new Transaction(
-                UUID.randomUUID().toString(),
-                payment.description(),
-                "outcome",
-                payment.recipientName(),
-                payment.recipientBankCode(),
-                payment.accountId(),
-                payment.paymentType(),
-                payment.amount(),
-                payment.timestamp()
-        );
+    public PaymentResult getPaymentStatus(String paymentId) {
+        if (paymentId == null || paymentId.isEmpty())
+            throw new IllegalArgumentException("PaymentId is empty or null");
+
+        PaymentResult status = paymentPipeline.getStatus(paymentId);
+        if (status == null)
+            throw new IllegalArgumentException("Payment not found: " + paymentId);
+        return status;
     }
 }
\ No newline at end of file
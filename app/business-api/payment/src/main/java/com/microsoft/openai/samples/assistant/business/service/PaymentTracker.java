@@ -0,0 +1,53 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latest receipt of the submitted payments, by payment id. The number of tracked payments is bounded: the
+ * oldest payments are forgotten once the max number of entries is reached.
+ */
+@Component
+public class PaymentTracker {
+
+    private final Map<String, PaymentResult> payments = new ConcurrentHashMap<>();
+    private final Queue<String> submissionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger trackedPayments = new AtomicInteger();
+    private final int maxEntries;
+
+    public PaymentTracker(@Value("${payment.status.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public void track(PaymentResult receipt) {
+        payments.put(receipt.paymentId(), receipt);
+        submissionOrder.add(receipt.paymentId());
+        if (trackedPayments.incrementAndGet() > maxEntries) {
+            String oldest = submissionOrder.poll();
+            if (oldest != null) {
+                trackedPayments.decrementAndGet();
+                payments.remove(oldest);
+            }
+        }
+    }
+
+    public void update(PaymentResult receipt) {
+        // a payment that has been forgotten in the meantime is not tracked again
+        payments.replace(receipt.paymentId(), receipt);
+    }
+
+    public void forget(String paymentId) {
+        payments.remove(paymentId);
+    }
+
+    public PaymentResult get(String paymentId) {
+        return payments.get(paymentId);
+    }
+}
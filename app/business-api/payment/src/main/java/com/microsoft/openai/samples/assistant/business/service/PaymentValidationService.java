@@ -0,0 +1,178 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.client.AccountClient;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import com.microsoft.openai.samples.assistant.business.models.PaymentValidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs all the checks needed before a payment in a single call: account of the user, payment method, available
+ * funds and registered beneficiary. The lookups on the account API that don't depend on each other run in parallel.
+ */
+@Service
+public class PaymentValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentValidationService.class);
+
+    private final AccountClient accountClient;
+    private final Duration timeout;
+
+    public PaymentValidationService(AccountClient accountClient, @Value("${payment.validation.timeout:5s}") Duration timeout) {
+        this.accountClient = accountClient;
+        this.timeout = timeout;
+    }
+
+    public PaymentValidation validatePayment(String userName, String recipientName, String recipientBankCode, String amount, String paymentMethod) {
+        if (userName == null || userName.isEmpty())
+            throw new IllegalArgumentException("UserName is empty or null");
+        if (recipientName == null || recipientName.isBlank())
+            throw new IllegalArgumentException("RecipientName is empty or null");
+        if (amount == null || amount.isBlank())
+            throw new IllegalArgumentException("Amount is empty or null");
+        BigDecimal paymentAmount;
+        try {
+            paymentAmount = new BigDecimal(amount.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Amount is not a valid number");
+        }
+        if (paymentAmount.signum() <= 0)
+            throw new IllegalArgumentException("Amount must be greater than 0");
+
+        List<String> issues = new ArrayList<>();
+        List<Account> accounts = accountClient.getAccountsByUserName(userName).block(timeout);
+        if (accounts == null || accounts.isEmpty()) {
+            issues.add("No account found for user " + userName);
+            return new PaymentValidation(false, null, null, null, null, null, amount, null, false, null, null, null, issues);
+        }
+        // the account is the one owning the payment method: the accounts of the user list their payment methods
+        Account account = null;
+        PaymentMethodSummary summary = null;
+        for (Account candidate : accounts) {
+            summary = findPaymentMethod(paymentMethods(candidate), paymentMethod);
+            if (summary != null) {
+                account = candidate;
+                break;
+            }
+        }
+        // no payment method matched: the available ones are listed, from the only account or from all of them
+        if (account == null && accounts.size() == 1)
+            account = accounts.get(0);
+        String accountId = account != null ? account.id() : null;
+        List<PaymentMethodSummary> paymentMethods = account != null
+                ? paymentMethods(account)
+                : accounts.stream().flatMap(candidate -> paymentMethods(candidate).stream()).toList();
+
+        var lookups = Mono.zip(
+                summary != null ? optional(accountClient.getPaymentMethodDetails(accountId, summary.id())) : Mono.just(Optional.<PaymentMethod>empty()),
+                accountId != null ? accountClient.findBeneficiary(accountId, recipientName, recipientBankCode) : Mono.just(List.<Beneficiary>of())
+        ).block(timeout);
+        PaymentMethod selectedMethod = lookups.getT1().orElse(null);
+
+        // payment method and funds
+        Boolean sufficientFunds = null;
+        if (selectedMethod == null) {
+            issues.add(paymentMethod == null || paymentMethod.isBlank()
+                    ? "Payment method not provided. Choose one of the available payment methods"
+                    : accountId != null
+                    ? "Payment method [%s] not found for account %s".formatted(paymentMethod, accountId)
+                    : "Payment method [%s] not found for the accounts of user %s".formatted(paymentMethod, userName));
+        } else {
+            if (isExpired(selectedMethod.expirationDate()))
+                issues.add("Payment method %s expired on %s".formatted(selectedMethod.id(), selectedMethod.expirationDate()));
+            // a payment method without balance, e.g. a direct debit, is not balance tracked: there are no funds to check
+            BigDecimal availableBalance = parseAmount(selectedMethod.availableBalance());
+            if (selectedMethod.availableBalance() != null && availableBalance == null) {
+                issues.add("Available balance of payment method %s is not valid: %s".formatted(selectedMethod.id(), selectedMethod.availableBalance()));
+            } else if (availableBalance != null) {
+                sufficientFunds = availableBalance.compareTo(paymentAmount) >= 0;
+                if (!sufficientFunds)
+                    issues.add("Insufficient funds on payment method %s: available %s, requested %s".formatted(selectedMethod.id(), selectedMethod.availableBalance(), amount));
+            }
+        }
+
+        // registered beneficiary: the account API matches the name almost exactly and prefers the same bank code
+        Beneficiary beneficiary = lookups.getT2().isEmpty() ? null : lookups.getT2().get(0);
+        if (beneficiary != null && recipientBankCode != null && !recipientBankCode.isBlank() && !recipientBankCode.trim().equals(beneficiary.bankCode()))
+            issues.add("Bank code %s doesn't match the registered beneficiary %s bank code".formatted(recipientBankCode, beneficiary.fullName()));
+        boolean bankTransfer = selectedMethod != null && selectedMethod.type() != null && selectedMethod.type().toLowerCase().contains("transfer");
+        if (bankTransfer && beneficiary == null && (recipientBankCode == null || recipientBankCode.isBlank()))
+            issues.add("Payee %s is not a registered beneficiary: the payee bank code is required for a bank transfer".formatted(recipientName));
+
+        logger.info("Payment validation for user [{}] payee [{}] amount [{}]: {} issues", userName, recipientName, amount, issues.size());
+        return new PaymentValidation(
+                issues.isEmpty(),
+                accountId,
+                account != null ? account.currency() : null,
+                selectedMethod != null ? selectedMethod.id() : null,
+                selectedMethod != null ? selectedMethod.type() : null,
+                selectedMethod != null ? selectedMethod.availableBalance() : null,
+                amount,
+                sufficientFunds,
+                beneficiary != null,
+                beneficiary != null ? beneficiary.fullName() : null,
+                beneficiary != null ? beneficiary.bankCode() : null,
+                selectedMethod == null ? paymentMethods : null,
+                issues);
+    }
+
+    private static List<PaymentMethodSummary> paymentMethods(Account account) {
+        return account.paymentMethods() != null ? account.paymentMethods() : List.of();
+    }
+
+    private static <T> Mono<Optional<T>> optional(Mono<T> mono) {
+        return mono.map(Optional::of).defaultIfEmpty(Optional.empty());
+    }
+
+    /**
+     * Matches the payment method by id or by type, e.g. "visa" or "bank transfer".
+     */
+    private static PaymentMethodSummary findPaymentMethod(List<PaymentMethodSummary> paymentMethods, String paymentMethod) {
+        if (paymentMethod == null || paymentMethod.isBlank())
+            return null;
+        String normalized = normalizeType(paymentMethod);
+        for (PaymentMethodSummary summary : paymentMethods) {
+            if (paymentMethod.trim().equals(summary.id()) || normalized.equals(normalizeType(summary.type())))
+                return summary;
+        }
+        return null;
+    }
+
+    private static String normalizeType(String type) {
+        return type == null ? "" : type.toLowerCase().replaceAll("[^a-z0-9]", "");
+    }
+
+    private static boolean isExpired(String expirationDate) {
+        if (expirationDate == null || expirationDate.isBlank())
+            return false;
+        try {
+            return LocalDate.parse(expirationDate.trim()).isBefore(LocalDate.now());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static BigDecimal parseAmount(String amount) {
+        if (amount == null || amount.isBlank())
+            return null;
+        try {
+            return new BigDecimal(amount.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
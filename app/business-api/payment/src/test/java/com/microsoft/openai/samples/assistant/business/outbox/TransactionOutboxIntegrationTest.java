@@ -0,0 +1,131 @@
+package com.microsoft.openai.samples.assistant.business.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.openai.samples.assistant.business.events.PublishResult;
+import com.microsoft.openai.samples.assistant.business.events.TransactionEventPublisher;
+import com.microsoft.openai.samples.assistant.business.models.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * Runs the outbox against an in process publisher and checks that the pending notifications are replayed after a
+ * restart with the same outbox id and sequences, that the journal is compacted while some notifications are still
+ * pending, and that the sequences are not reused once the journal is compacted.
+ * Usage: TransactionOutboxIntegrationTest
+ */
+public class TransactionOutboxIntegrationTest {
+
+    private static final int COMPACTION_THRESHOLD = 10;
+
+    public static void main(String[] args) throws Exception {
+        Path outboxDir = Files.createTempDirectory("transactions-outbox");
+        Path journalFile = outboxDir.resolve("transactions-outbox.log");
+        var publisher = new RecordingPublisher();
+
+        // the transactions API is down: the notifications stay in the journal
+        publisher.unavailableAccounts.add("1010");
+        var unavailable = outbox(publisher, outboxDir);
+        unavailable.start();
+        for (int i = 1; i <= 25; i++)
+            unavailable.enqueue(transaction("t" + i, "1010"));
+        unavailable.stop();
+        if (unavailable.pendingCount() != 25)
+            throw new IllegalStateException("Check failed: 25 notifications pending, got " + unavailable.pendingCount());
+
+        // the transactions API is back: the notifications are replayed at startup, in order
+        publisher.unavailableAccounts.clear();
+        var recovered = outbox(publisher, outboxDir);
+        recovered.start();
+        await(() -> recovered.pendingCount() == 0 && Files.exists(journalFile) && lines(journalFile) == 1, "replay and compaction");
+        if (!publisher.sequences.equals(range(1, 25)))
+            throw new IllegalStateException("Check failed: replayed with the same sequences, got " + publisher.sequences);
+        if (publisher.outboxIds.size() != 1)
+            throw new IllegalStateException("Check failed: a single outbox id, got " + publisher.outboxIds);
+        String outboxId = publisher.outboxIds.iterator().next();
+        recovered.stop();
+
+        // the journal only holds its header: the sequences continue after a restart
+        publisher.sequences.clear();
+        publisher.unavailableAccounts.addAll(List.of("1010", "2020"));
+        var restarted = outbox(publisher, outboxDir);
+        restarted.start();
+        for (int i = 26; i <= 39; i++)
+            restarted.enqueue(transaction("t" + i, "1010"));
+        restarted.enqueue(transaction("t40", "2020"));
+        // the account 1010 is delivered, 2020 is still down: the journal is compacted to the pending notification
+        publisher.unavailableAccounts.remove("1010");
+        await(() -> restarted.pendingCount() == 1 && lines(journalFile) == 2, "compaction with a pending notification");
+        if (!publisher.sequences.equals(range(26, 39)))
+            throw new IllegalStateException("Check failed: sequences are not reused after a compaction, got " + publisher.sequences);
+        if (!publisher.outboxIds.equals(Set.of(outboxId)))
+            throw new IllegalStateException("Check failed: the outbox id survives the compaction, got " + publisher.outboxIds);
+        restarted.stop();
+
+        // the notification still pending after the compaction is replayed with its sequence
+        publisher.sequences.clear();
+        publisher.unavailableAccounts.clear();
+        var replayed = outbox(publisher, outboxDir);
+        replayed.start();
+        await(() -> replayed.pendingCount() == 0, "replay of the pending notification");
+        if (!publisher.sequences.equals(List.of(40L)))
+            throw new IllegalStateException("Check failed: pending notification replayed with sequence 40, got " + publisher.sequences);
+        replayed.stop();
+
+        System.out.println("TransactionOutboxIntegrationTest passed");
+    }
+
+    private static TransactionOutbox outbox(TransactionEventPublisher publisher, Path outboxDir) {
+        return new TransactionOutbox(publisher, new ObjectMapper(), new SimpleMeterRegistry(), outboxDir.toString(), false,
+                10, Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofMillis(50), COMPACTION_THRESHOLD);
+    }
+
+    private static Transaction transaction(String id, String accountId) {
+        return new Transaction(id, "payment " + id, "outcome", "acme", "0001", accountId, "BankTransfer", "10.00", "2025-01-01T12:00:00Z");
+    }
+
+    private static List<Long> range(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().toList();
+    }
+
+    private static long lines(Path file) {
+        try (var lines = Files.lines(file)) {
+            return lines.count();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                throw new IllegalStateException("Timed out waiting for " + description);
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingPublisher implements TransactionEventPublisher {
+        private final Set<String> unavailableAccounts = ConcurrentHashMap.newKeySet();
+        private final List<Long> sequences = new CopyOnWriteArrayList<>();
+        private final Set<String> outboxIds = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public PublishResult publish(String outboxId, String accountId, List<Transaction> transactions, List<Long> sequences) {
+            if (unavailableAccounts.contains(accountId))
+                throw new IllegalStateException("transactions API unavailable for account " + accountId);
+            this.outboxIds.add(outboxId);
+            this.sequences.addAll(sequences);
+            return new PublishResult(transactions.size(), 0, null);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.models.Payment;
+import com.microsoft.openai.samples.assistant.business.models.PaymentResult;
+import com.microsoft.openai.samples.assistant.business.models.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the idempotency windows: a payment with an invoice id is deduplicated for the whole time to live, a payment
+ * identified by its description only within the short window. Also checks that invalidating the key of a failed
+ * payment doesn't forget a newer payment stored with the same key.
+ * Usage: IdempotencyStoreIntegrationTest
+ */
+public class IdempotencyStoreIntegrationTest {
+
+    public static void main(String[] args) throws Exception {
+        var store = new IdempotencyStore(new SimpleMeterRegistry(), Duration.ofSeconds(5), Duration.ofMillis(200), 1000);
+        AtomicInteger submitted = new AtomicInteger();
+
+        Payment invoicePayment = payment("payment of the invoice 1527248");
+        Payment weeklyTransfer = payment("weekly pocket money");
+        String invoiceKey = IdempotencyKeys.of(invoicePayment, null);
+        String descriptionKey = IdempotencyKeys.of(weeklyTransfer, null);
+        if (IdempotencyKeys.isDescriptionKey(invoiceKey))
+            throw new IllegalStateException("Check failed: invoice key, got " + invoiceKey);
+        if (!IdempotencyKeys.isDescriptionKey(descriptionKey))
+            throw new IllegalStateException("Check failed: description key, got " + descriptionKey);
+        if (IdempotencyKeys.isDescriptionKey(IdempotencyKeys.of(weeklyTransfer, "client-key")))
+            throw new IllegalStateException("Check failed: client key");
+
+        // retried within the window: both are deduplicated
+        PaymentResult invoiceReceipt = store.execute(invoiceKey, () -> receipt(invoiceKey, submitted));
+        PaymentResult transferReceipt = store.execute(descriptionKey, () -> receipt(descriptionKey, submitted));
+        if (!store.execute(invoiceKey, () -> receipt(invoiceKey, submitted)).duplicate())
+            throw new IllegalStateException("Check failed: invoice payment retried");
+        if (!store.execute(descriptionKey, () -> receipt(descriptionKey, submitted)).duplicate())
+            throw new IllegalStateException("Check failed: transfer retried");
+        if (submitted.get() != 2)
+            throw new IllegalStateException("Check failed: 2 payments submitted, got " + submitted.get());
+
+        // after the short window the same transfer is a new payment, the invoice is still paid
+        Thread.sleep(300);
+        PaymentResult nextTransfer = store.execute(descriptionKey, () -> receipt(descriptionKey, submitted));
+        if (nextTransfer.duplicate() || nextTransfer.paymentId().equals(transferReceipt.paymentId()))
+            throw new IllegalStateException("Check failed: transfer made again after the window");
+        if (!store.execute(invoiceKey, () -> receipt(invoiceKey, submitted)).duplicate())
+            throw new IllegalStateException("Check failed: invoice still deduplicated");
+
+        // the first transfer fails late: its key now refers to the next transfer, which is not forgotten
+        store.invalidate(descriptionKey, transferReceipt.paymentId());
+        if (!store.execute(descriptionKey, () -> receipt(descriptionKey, submitted)).duplicate())
+            throw new IllegalStateException("Check failed: newer payment kept on a stale invalidation");
+
+        // the invoice payment fails: it can be submitted again
+        store.invalidate(invoiceKey, invoiceReceipt.paymentId());
+        if (store.execute(invoiceKey, () -> receipt(invoiceKey, submitted)).duplicate())
+            throw new IllegalStateException("Check failed: failed payment submitted again");
+
+        System.out.println("IdempotencyStoreIntegrationTest passed");
+    }
+
+    private static Payment payment(String description) {
+        return new Payment(description, "contoso", "0001", "1010", "1", "Transfer", "100.00", "2025-01-01T12:00:00Z", null);
+    }
+
+    private static PaymentResult receipt(String idempotencyKey, AtomicInteger submitted) {
+        submitted.incrementAndGet();
+        String now = Instant.now().toString();
+        return new PaymentResult(UUID.randomUUID().toString(), PaymentStatus.ACCEPTED, "1010", "contoso", "100.00",
+                "payment", null, idempotencyKey, false, now, now, null);
+    }
+}
@@ -0,0 +1,100 @@
+package com.microsoft.openai.samples.assistant.business.service;
+
+import com.microsoft.openai.samples.assistant.business.client.AccountClient;
+import com.microsoft.openai.samples.assistant.business.common.models.Account;
+import com.microsoft.openai.samples.assistant.business.common.models.Beneficiary;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethod;
+import com.microsoft.openai.samples.assistant.business.common.models.PaymentMethodSummary;
+import com.microsoft.openai.samples.assistant.business.models.PaymentValidation;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validates payments against a simulated account API and checks that a payment with enough funds to a registered
+ * beneficiary is valid, that the missing funds, an expired card, an unknown payment method and an unknown payee of a
+ * bank transfer are reported as issues, that a direct debit without balance is not checked for funds, and that the
+ * payment method and beneficiary lookups run in parallel.
+ * Usage: PaymentValidationServiceIntegrationTest
+ */
+public class PaymentValidationServiceIntegrationTest {
+
+    public static void main(String[] args) {
+        var accountApi = new AccountApi(Duration.ofMillis(300));
+        var service = new PaymentValidationService(accountApi, Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        PaymentValidation valid = service.validatePayment("bob", "Contoso", null, "100.00", "bank transfer");
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        if (!valid.valid() || !"pm1".equals(valid.paymentMethodId()) || !valid.beneficiaryKnown() || !Boolean.TRUE.equals(valid.sufficientFunds()))
+            throw new IllegalStateException("Check failed: payment to a registered beneficiary not valid, got " + valid);
+        // the account lookup, then the payment method and beneficiary lookups together
+        if (elapsedMillis >= 850)
+            throw new IllegalStateException("Check failed: lookups not run in parallel, took %d ms".formatted(elapsedMillis));
+
+        checkIssue(service.validatePayment("bob", "Contoso", null, "1500.00", "pm1"), "Insufficient funds");
+        checkIssue(service.validatePayment("bob", "Contoso", null, "10.00", "visa"), "expired");
+        checkIssue(service.validatePayment("bob", "Contoso", null, "10.00", "paypal"), "not found");
+        checkIssue(service.validatePayment("bob", "Fabrikam", null, "10.00", "pm1"), "bank code is required");
+        checkIssue(service.validatePayment("alice", "Contoso", null, "10.00", "pm1"), "No account found");
+
+        PaymentValidation directDebit = service.validatePayment("bob", "Contoso", null, "5000.00", "direct debit");
+        if (!directDebit.valid() || directDebit.sufficientFunds() != null)
+            throw new IllegalStateException("Check failed: direct debit checked for funds, got " + directDebit);
+
+        PaymentValidation unknownMethod = service.validatePayment("bob", "Contoso", null, "10.00", "paypal");
+        if (unknownMethod.availablePaymentMethods() == null || unknownMethod.availablePaymentMethods().size() != 3)
+            throw new IllegalStateException("Check failed: available payment methods not listed, got " + unknownMethod);
+
+        System.out.println("PaymentValidationServiceIntegrationTest passed");
+    }
+
+    private static void checkIssue(PaymentValidation validation, String issue) {
+        if (validation.valid() || validation.issues().stream().noneMatch(text -> text.contains(issue)))
+            throw new IllegalStateException("Check failed: issue [%s] not reported, got %s".formatted(issue, validation.issues()));
+    }
+
+    /**
+     * Account 1010 of bob with a bank transfer, an expired card and a direct debit, and Contoso as registered
+     * beneficiary. Every lookup answers after the delay given.
+     */
+    private static class AccountApi extends AccountClient {
+        private static final Map<String, PaymentMethod> PAYMENT_METHODS = Map.of(
+                "pm1", new PaymentMethod("pm1", "BankTransfer", "2022-01-01", "9999-01-01", "1000.00", null),
+                "pm2", new PaymentMethod("pm2", "Visa", "2020-01-01", "2021-01-01", "1000.00", "4111111111111111"),
+                "pm3", new PaymentMethod("pm3", "DirectDebit", "2022-01-01", "9999-01-01", null, null));
+
+        private final Duration delay;
+
+        AccountApi(Duration delay) {
+            super(WebClient.builder(), "http://localhost");
+            this.delay = delay;
+        }
+
+        @Override
+        public Mono<List<Account>> getAccountsByUserName(String userName) {
+            if (!userName.equals("bob"))
+                return Mono.just(List.<Account>of()).delayElement(delay);
+            List<PaymentMethodSummary> summaries = PAYMENT_METHODS.values().stream()
+                    .map(method -> new PaymentMethodSummary(method.id(), method.type(), method.activationDate(), method.expirationDate()))
+                    .toList();
+            return Mono.just(List.of(new Account("1010", "bob", "Bob User", "EUR", "2022-01-01", "1000.00", summaries))).delayElement(delay);
+        }
+
+        @Override
+        public Mono<PaymentMethod> getPaymentMethodDetails(String accountId, String paymentMethodId) {
+            return Mono.justOrEmpty(PAYMENT_METHODS.get(paymentMethodId)).delayElement(delay);
+        }
+
+        @Override
+        public Mono<List<Beneficiary>> findBeneficiary(String accountId, String name, String bankCode) {
+            List<Beneficiary> beneficiaries = name.equalsIgnoreCase("contoso")
+                    ? List.of(new Beneficiary("1", "Contoso", "123456789", "Intesa Sanpaolo"))
+                    : List.of();
+            return Mono.just(beneficiaries).delayElement(delay);
+        }
+    }
+}
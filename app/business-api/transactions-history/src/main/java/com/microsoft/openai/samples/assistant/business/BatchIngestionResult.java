@@ -0,0 +1,20 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BatchIngestionResult(
+        @JsonProperty("accountId") String accountId,
+        @JsonProperty("received") long received,
+        @JsonProperty("accepted") long accepted,
+        @JsonProperty("rejected") long rejected,
+        @JsonProperty("elapsedMillis") long elapsedMillis,
+        @JsonProperty("batches") List<BatchResult> batches,
+    // valued only when the stream can't be parsed anymore or a batch can't be stored. Batches stored before the error are kept.
+        @JsonProperty("error") String error
+) {}
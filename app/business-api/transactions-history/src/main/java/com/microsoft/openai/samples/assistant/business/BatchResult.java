@@ -0,0 +1,15 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BatchResult(
+        @JsonProperty("batch") int batch,
+        @JsonProperty("accepted") int accepted,
+        @JsonProperty("rejected") int rejected,
+    // validation errors are capped per batch
+        @JsonProperty("errors") List<String> errors
+) {}
@@ -0,0 +1,43 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.common.InvoiceIds;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per account hash index of the invoice or bill ids found in the transactions description
+ * (e.g. "payment for invoice 1527248", "Payment of the bill 334398"). Ids are extracted once at ingest
+ * so checking if an invoice has been paid doesn't require to scan the transactions history.
+ */
+public class InvoiceIndex {
+
+    private final Map<String, Map<String, Transaction>> paidInvoices = new ConcurrentHashMap<>();
+
+    public void add(String accountId, Transaction transaction) {
+        List<String> invoiceIds = InvoiceIds.extract(transaction.description());
+        if (invoiceIds.isEmpty())
+            return;
+
+        var accountInvoices = paidInvoices.computeIfAbsent(accountId, id -> new ConcurrentHashMap<>());
+        invoiceIds.forEach(invoiceId -> accountInvoices.putIfAbsent(invoiceId, transaction));
+    }
+
+    public InvoicePaymentStatus getPaymentStatus(String accountId, String invoiceId) {
+        String normalizedInvoiceId = InvoiceIds.normalize(invoiceId);
+        var accountInvoices = paidInvoices.get(accountId);
+        Transaction transaction = accountInvoices == null ? null : accountInvoices.get(normalizedInvoiceId);
+
+        if (transaction == null)
+            return new InvoicePaymentStatus(invoiceId, false, null, null, null, null);
+
+        return new InvoicePaymentStatus(
+                invoiceId,
+                true,
+                transaction.id(),
+                transaction.recipientName(),
+                transaction.amount(),
+                transaction.timestamp());
+    }
+}
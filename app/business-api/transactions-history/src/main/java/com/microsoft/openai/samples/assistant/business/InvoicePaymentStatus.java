@@ -0,0 +1,17 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record InvoicePaymentStatus(
+        @JsonProperty("invoiceId") String invoiceId,
+        @JsonProperty("paid") boolean paid,
+    // payment details are valued only when the invoice has been paid
+        @JsonProperty("transactionId") String transactionId,
+        @JsonProperty("recipientName") String recipientName,
+        @JsonProperty("amount") String amount,
+        @JsonProperty("timestamp") String timestamp
+) {}
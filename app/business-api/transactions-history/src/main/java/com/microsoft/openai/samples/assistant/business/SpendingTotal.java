@@ -0,0 +1,11 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpendingTotal(
+        @JsonProperty("key") String key,
+        @JsonProperty("count") long count,
+        @JsonProperty("total") String total
+) {}
@@ -0,0 +1,51 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keys of the cached tool results: the tool arguments with the version of the first one, the account the result is
+ * about. Invalidating an account gives it a new version, so all the results about it are missed at once without
+ * scanning the caches: the old entries are no longer read and are evicted by size or ttl. A result loaded while its
+ * account is invalidated is stored with the old version, so it is never served stale.
+ * <p>
+ * Versions come from a single counter and only the most recently invalidated scopes keep theirs: a scope whose
+ * version is evicted gets the highest evicted version, so its results cached before the eviction, which were up to
+ * date, are still read and those cached before its last invalidation are not.
+ */
+@Component
+public class ToolCacheKeys implements KeyGenerator {
+
+    private static final int MAX_VERSIONS = 100_000;
+
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final AtomicLong evictedVersion = new AtomicLong();
+    // the eviction listener runs while the version is removed, so a missing version is always read after the update
+    private final Cache<Object, Long> versions = Caffeine.newBuilder()
+            .maximumSize(MAX_VERSIONS)
+            .<Object, Long>evictionListener((scope, version, cause) -> evictedVersion.accumulateAndGet(version, Math::max))
+            .build();
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Object scope = params.length > 0 ? params[0] : null;
+        Long version = scope == null ? null : versions.getIfPresent(scope);
+        if (version == null)
+            version = evictedVersion.get();
+        return new Key(version, Arrays.asList(params.clone()));
+    }
+
+    public void invalidate(Object accountId) {
+        versions.put(accountId, lastVersion.incrementAndGet());
+    }
+
+    private record Key(long version, List<Object> arguments) {
+    }
+}
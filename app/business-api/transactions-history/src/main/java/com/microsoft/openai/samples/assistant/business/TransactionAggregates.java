@@ -0,0 +1,119 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Materialized spending aggregates per account. Totals are updated incrementally every time a transaction
+ * is added, so a summary is served without scanning the transactions history. The totals by payee, month and payment
+ * type only count the outcome transactions, the totals by direction count both incomes and outcomes.
+ */
+public class TransactionAggregates {
+
+    private static final String UNKNOWN_KEY = "unknown";
+    private static final String OUTCOME = "outcome";
+
+    private final Map<String, AccountAggregates> accountAggregates = new ConcurrentHashMap<>();
+
+    public void add(String accountId, Transaction transaction) {
+        accountAggregates
+                .computeIfAbsent(accountId, id -> new AccountAggregates())
+                .add(transaction);
+    }
+
+    public TransactionSummary getSummary(String accountId) {
+        var aggregates = accountAggregates.get(accountId);
+        if (aggregates == null)
+            return new TransactionSummary(accountId, List.of(), List.of(), List.of(), List.of());
+        return aggregates.toSummary(accountId);
+    }
+
+    static String monthKey(String timestamp) {
+        if (timestamp == null || timestamp.isEmpty())
+            return UNKNOWN_KEY;
+        // timestamps are not always zero padded (e.g. 2024-4-01T12:00:00Z). Parsed by hand as it runs on every ingested transaction
+        int dateEnd = timestamp.indexOf('T');
+        if (dateEnd < 0)
+            dateEnd = timestamp.length();
+        int yearEnd = timestamp.indexOf('-');
+        if (yearEnd <= 0 || yearEnd >= dateEnd)
+            return UNKNOWN_KEY;
+        int monthEnd = timestamp.indexOf('-', yearEnd + 1);
+        if (monthEnd < 0 || monthEnd > dateEnd)
+            monthEnd = dateEnd;
+        try {
+            int year = Integer.parseInt(timestamp, 0, yearEnd, 10);
+            int month = Integer.parseInt(timestamp, yearEnd + 1, monthEnd, 10);
+            if (year < 1000 || year > 9999 || month < 1 || month > 12)
+                return UNKNOWN_KEY;
+            return year + (month < 10 ? "-0" : "-") + month;
+        } catch (NumberFormatException e) {
+            return UNKNOWN_KEY;
+        }
+    }
+
+    static String normalizeKey(String value) {
+        if (value == null || value.isBlank())
+            return UNKNOWN_KEY;
+        return value.trim().toLowerCase();
+    }
+
+    static BigDecimal parseAmount(String amount) {
+        if (amount == null || amount.isBlank())
+            return BigDecimal.ZERO;
+        try {
+            return new BigDecimal(amount.trim());
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private static class AccountAggregates {
+        private final Map<String, Totals> byPayee = new HashMap<>();
+        private final Map<String, Totals> byMonth = new HashMap<>();
+        private final Map<String, Totals> byPaymentType = new HashMap<>();
+        private final Map<String, Totals> byDirection = new HashMap<>();
+
+        synchronized void add(Transaction transaction) {
+            BigDecimal amount = parseAmount(transaction.amount());
+            String direction = normalizeKey(transaction.type());
+            byDirection.computeIfAbsent(direction, k -> new Totals()).add(amount);
+            // incomes are not spending: only the outcome transactions are totaled by payee, month and payment type
+            if (!OUTCOME.equals(direction))
+                return;
+            byPayee.computeIfAbsent(normalizeKey(transaction.recipientName()), k -> new Totals()).add(amount);
+            byMonth.computeIfAbsent(monthKey(transaction.timestamp()), k -> new Totals()).add(amount);
+            byPaymentType.computeIfAbsent(normalizeKey(transaction.paymentType()), k -> new Totals()).add(amount);
+        }
+
+        synchronized TransactionSummary toSummary(String accountId) {
+            return new TransactionSummary(
+                    accountId,
+                    toSpendingTotals(byPayee),
+                    toSpendingTotals(byMonth),
+                    toSpendingTotals(byPaymentType),
+                    toSpendingTotals(byDirection));
+        }
+
+        private static List<SpendingTotal> toSpendingTotals(Map<String, Totals> totals) {
+            List<SpendingTotal> result = new ArrayList<>(totals.size());
+            totals.forEach((key, value) -> result.add(new SpendingTotal(key, value.count, value.total.toPlainString())));
+            result.sort((a, b) -> a.key().compareTo(b.key()));
+            return result;
+        }
+    }
+
+    private static class Totals {
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+
+        void add(BigDecimal amount) {
+            count++;
+            total = total.add(amount);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams transactions from a JSON array or a NDJSON body, validates them and stores them in batches.
+ * Rows are bound one at a time, so the whole payload is never held in memory.
+ * Batches sent by a payment outbox come with a sequence per row: the highest sequence stored is kept per outbox and
+ * account, and the rows at or below it are dropped as retried deliveries. The transactions ids are deduplicated by
+ * the TransactionService too, for the marks evicted or a retry racing with the original delivery.
+ */
+@Component
+public class TransactionBatchIngestion {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBatchIngestion.class);
+    private static final int MAX_ERRORS_PER_BATCH = 10;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 50_000;
+    private static final int MAX_DELIVERY_MARKS = 100_000;
+
+    private final TransactionService transactionService;
+    private final ObjectReader transactionReader;
+    // highest sequence stored by outbox id and account id
+    private final Cache<String, Long> deliveryMarks = Caffeine.newBuilder()
+            .maximumSize(MAX_DELIVERY_MARKS)
+            .expireAfterAccess(Duration.ofDays(1))
+            .build();
+
+    public TransactionBatchIngestion(TransactionService transactionService, ObjectMapper objectMapper) {
+        this.transactionService = transactionService;
+        this.transactionReader = objectMapper.readerFor(Transaction.class);
+    }
+
+    public BatchIngestionResult ingest(String accountId, InputStream body, int batchSize) throws IOException {
+        return ingest(accountId, body, batchSize, null, null);
+    }
+
+    /**
+     * Ingests a batch sent by an outbox. The sequences are aligned with the rows: a row without sequence is never
+     * taken for a retried delivery.
+     */
+    public BatchIngestionResult ingest(String accountId, InputStream body, int batchSize, String outboxId, long[] sequences) throws IOException {
+        TransactionService.validateAccountId(accountId);
+        if (batchSize <= 0 || batchSize > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        String deliveryKey = outboxId == null || outboxId.isBlank() || sequences == null ? null : outboxId + "/" + accountId;
+        Long deliveredSequence = deliveryKey == null ? null : deliveryMarks.getIfPresent(deliveryKey);
+
+        long start = System.nanoTime();
+        long received = 0;
+        long accepted = 0;
+        long duplicates = 0;
+        String error = null;
+
+        List<BatchResult> batchResults = new ArrayList<>();
+        List<Transaction> batch = new ArrayList<>(batchSize);
+        List<String> batchErrors = new ArrayList<>();
+        int batchRejected = 0;
+        long batchSequence = 0;
+
+        // a root level JSON array is unwrapped by the iterator, while NDJSON is read as a sequence of root values
+        try (MappingIterator<Transaction> rows = transactionReader.readValues(body)) {
+            while (rows.hasNextValue()) {
+                Transaction row = rows.nextValue();
+                received++;
+
+                long sequence = deliveryKey != null && received <= sequences.length ? sequences[(int) received - 1] : 0;
+                if (sequence > 0 && deliveredSequence != null && sequence <= deliveredSequence) {
+                    // already stored by a previous delivery of the batch
+                    duplicates++;
+                    continue;
+                }
+                batchSequence = Math.max(batchSequence, sequence);
+
+                String rowError = validate(accountId, row);
+                if (rowError == null) {
+                    batch.add(withAccountId(accountId, row));
+                } else {
+                    batchRejected++;
+                    if (batchErrors.size() < MAX_ERRORS_PER_BATCH)
+                        batchErrors.add("row %d: %s".formatted(received, rowError));
+                }
+
+                if (batch.size() + batchRejected == batchSize) {
+                    // reset before the flush: a batch that cannot be stored is not flushed again
+                    List<Transaction> fullBatch = batch;
+                    List<String> fullBatchErrors = batchErrors;
+                    int fullBatchRejected = batchRejected;
+                    long fullBatchSequence = batchSequence;
+                    batch = new ArrayList<>(batchSize);
+                    batchErrors = new ArrayList<>();
+                    batchRejected = 0;
+                    batchSequence = 0;
+                    accepted += flush(accountId, fullBatch, fullBatchRejected, fullBatchErrors, batchResults, received);
+                    markDelivered(deliveryKey, fullBatchSequence);
+                }
+            }
+        } catch (BatchStoreException e) {
+            // rows stored before the error are kept: the client can resume after the last stored row
+            logger.warn("Cannot store transactions for account id [{}]: {}", accountId, e.getMessage());
+            error = e.getMessage();
+        } catch (IOException | RuntimeException e) {
+            // rows parsed before the error are still stored: the client can resume after the last received row
+            logger.warn("Transactions stream for account id [{}] interrupted after {} rows: {}", accountId, received, e.getMessage());
+            error = "Cannot parse row %d: %s".formatted(received + 1, e.getMessage());
+        }
+
+        if (!batch.isEmpty() || batchRejected > 0) {
+            try {
+                accepted += flush(accountId, batch, batchRejected, batchErrors, batchResults, received);
+                markDelivered(deliveryKey, batchSequence);
+            } catch (BatchStoreException e) {
+                logger.warn("Cannot store transactions for account id [{}]: {}", accountId, e.getMessage());
+                error = error == null ? e.getMessage() : error + ". " + e.getMessage();
+            }
+        }
+
+        if (duplicates > 0)
+            logger.info("Dropped {} transactions for account id [{}] already delivered by outbox [{}]", duplicates, accountId, outboxId);
+        // the duplicates are already stored: they are acknowledged as accepted
+        accepted += duplicates;
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Ingested {} of {} transactions for account id [{}] in {} ms", accepted, received, accountId, elapsedMillis);
+        return new BatchIngestionResult(accountId, received, accepted, received - accepted, elapsedMillis, batchResults, error);
+    }
+
+    private int flush(String accountId, List<Transaction> batch, int rejected, List<String> errors, List<BatchResult> batchResults, long lastRow) {
+        if (!batch.isEmpty()) {
+            try {
+                transactionService.notifyTransactions(accountId, batch);
+            } catch (RuntimeException e) {
+                long firstRow = lastRow - batch.size() - rejected + 1;
+                throw new BatchStoreException("Cannot store rows %d to %d: %s".formatted(firstRow, lastRow, e.getMessage()), e);
+            }
+        }
+        batchResults.add(new BatchResult(batchResults.size() + 1, batch.size(), rejected, errors));
+        return batch.size();
+    }
+
+    private void markDelivered(String deliveryKey, long sequence) {
+        if (deliveryKey != null && sequence > 0)
+            deliveryMarks.asMap().merge(deliveryKey, sequence, Math::max);
+    }
+
+    static String validate(String accountId, Transaction transaction) {
+        if (transaction == null)
+            return "transaction is null";
+        if (transaction.id() == null || transaction.id().isBlank())
+            return "id is empty or null";
+        if (transaction.recipientName() == null || transaction.recipientName().isBlank())
+            return "recipientName is empty or null";
+        if (transaction.accountId() != null && !transaction.accountId().isEmpty() && !transaction.accountId().equals(accountId))
+            return "accountId [%s] doesn't match account id [%s]".formatted(transaction.accountId(), accountId);
+        if (transaction.amount() == null || transaction.amount().isBlank())
+            return "amount is empty or null";
+        try {
+            new BigDecimal(transaction.amount().trim());
+        } catch (NumberFormatException e) {
+            return "amount [%s] is not a valid number".formatted(transaction.amount());
+        }
+        if (transaction.timestamp() == null || transaction.timestamp().isBlank())
+            return "timestamp is empty or null";
+        return null;
+    }
+
+    private static Transaction withAccountId(String accountId, Transaction transaction) {
+        if (accountId.equals(transaction.accountId()))
+            return transaction;
+        return new Transaction(
+                transaction.id(),
+                transaction.description(),
+                transaction.type(),
+                transaction.recipientName(),
+                transaction.recipientBankReference(),
+                accountId,
+                transaction.paymentType(),
+                transaction.amount(),
+                transaction.timestamp());
+    }
+
+    private static class BatchStoreException extends RuntimeException {
+        BatchStoreException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
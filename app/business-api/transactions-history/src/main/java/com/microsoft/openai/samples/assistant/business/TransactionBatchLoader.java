@@ -0,0 +1,44 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads a local file of transactions (JSON array or NDJSON) into the transactions history through the batch API.
+ * Usage: TransactionBatchLoader transactionsApiUrl accountId file [batchSize]
+ * e.g. TransactionBatchLoader http://localhost:8090 1010 ./statements-1010.ndjson 5000
+ */
+public class TransactionBatchLoader {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: TransactionBatchLoader transactionsApiUrl accountId file [batchSize]");
+            System.exit(1);
+        }
+        String transactionsApiUrl = args[0];
+        String accountId = args[1];
+        Path file = Path.of(args[2]);
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : TransactionBatchIngestion.DEFAULT_BATCH_SIZE;
+
+        String fileName = file.getFileName().toString();
+        String contentType = fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl") ? "application/x-ndjson" : "application/json";
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("%s/transactions/%s/batch?batch_size=%d".formatted(transactionsApiUrl, accountId, batchSize)))
+                .header("Content-Type", contentType)
+                // the file is streamed, not loaded in memory
+                .POST(HttpRequest.BodyPublishers.ofFile(file))
+                .build();
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Loaded " + Files.size(file) + " bytes from " + file + " in " + elapsedMillis + " ms. Status: " + response.statusCode());
+        System.out.println(response.body());
+    }
+}
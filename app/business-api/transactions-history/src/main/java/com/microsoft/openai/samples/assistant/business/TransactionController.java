@@ -1,9 +1,14 @@
 package com.microsoft.openai.samples.assistant.business;
 
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
@@ -11,9 +16,11 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionBatchIngestion transactionBatchIngestion;
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, TransactionBatchIngestion transactionBatchIngestion) {
         this.transactionService = transactionService;
+        this.transactionBatchIngestion = transactionBatchIngestion;
     }
 
     @GetMapping("/{accountId}")
@@ -26,11 +33,47 @@ public class TransactionController {
             return transactionService.getlastTransactions(accountId);
     }
 
+    @GetMapping("/{accountId}/summary")
+    public TransactionSummary getTransactionsSummary(@PathVariable String accountId){
+        logger.info("Received request to get transactions summary for accountid[{}]",accountId);
+        return transactionService.getTransactionsSummary(accountId);
+    }
+
+    @GetMapping("/{accountId}/invoices/{invoiceId}")
+    public InvoicePaymentStatus isInvoicePaid(@PathVariable String accountId, @PathVariable String invoiceId){
+        logger.info("Received request to check invoice [{}] payment for accountid[{}]",invoiceId,accountId);
+        return transactionService.isInvoicePaid(accountId, invoiceId);
+    }
+
+    @GetMapping("/{accountId}/payees")
+    public List<NameMatch> resolvePayeeName(@PathVariable String accountId, @RequestParam(name = "name") String name){
+        logger.info("Received request to resolve payee name [{}] for accountid[{}]",name,accountId);
+        return transactionService.resolvePayeeName(accountId, name);
+    }
+
     @PostMapping("/{accountId}")
     public void notifyTransaction(@PathVariable String accountId, @RequestBody Transaction transaction){
         logger.info("Received request to notify transaction for accountid[{}]. {}", accountId,transaction);
         transactionService.notifyTransaction(accountId, transaction);
     }
 
+    @PostMapping(value = "/{accountId}/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchIngestionResult ingestTransactions(@PathVariable String accountId,
+                                                   @RequestParam(name = "batch_size", required = false, defaultValue = "" + TransactionBatchIngestion.DEFAULT_BATCH_SIZE) int batchSize,
+                                                   @RequestHeader(name = "X-Outbox-Id", required = false) String outboxId,
+                                                   @RequestHeader(name = "X-Outbox-Sequences", required = false) String outboxSequences,
+                                                   InputStream body) throws IOException {
+        logger.info("Received request to ingest transactions batch for accountid[{}]. Batch size is[{}]", accountId, batchSize);
+        return transactionBatchIngestion.ingest(accountId, body, batchSize, outboxId, parseSequences(outboxSequences));
+    }
 
-}
\ No newline at end of file
+    private static long[] parseSequences(String outboxSequences) {
+        if (outboxSequences == null || outboxSequences.isBlank())
+            return null;
+        try {
+            return Arrays.stream(outboxSequences.split(",")).map(String::trim).mapToLong(Long::parseLong).toArray();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("X-Outbox-Sequences is not a list of numbers");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microsoft.openai.samples.assistant.business.common.PartitionedLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Consumes the transactions published by the payment service in the local partitioned log. Each partition is
+ * consumed by a single thread, so the transactions of an account are stored in order, while partitions are spread
+ * across the consumer threads. The transactions store is in memory, so are the offsets: the log is replayed from the
+ * start on every startup to rebuild the store. The offset of a partition moves only after its records are stored,
+ * and the store skips the transactions it already has (same id), so a record read again is never stored twice.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.events.backend", havingValue = "log")
+public class TransactionEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionEventConsumer.class);
+    private static final int MAX_READ_BYTES = 1024 * 1024;
+
+    private final TransactionService transactionService;
+    private final ObjectReader transactionReader;
+    private final PartitionedLog log;
+    private final int consumerThreads;
+    private final Duration pollInterval;
+    private final AtomicLongArray offsets;
+
+    private ExecutorService consumers;
+    private volatile boolean running;
+
+    public TransactionEventConsumer(TransactionService transactionService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${transactions.events.log.dir:./events}") String logDir,
+                                    @Value("${transactions.events.partitions:16}") int partitions,
+                                    @Value("${transactions.events.consumers:0}") int consumerThreads,
+                                    @Value("${transactions.events.poll-interval:20ms}") Duration pollInterval) {
+        this.transactionService = transactionService;
+        this.transactionReader = objectMapper.readerFor(Transaction.class);
+        this.log = new PartitionedLog(Path.of(logDir, "transactions"), partitions);
+        // by default one thread per core, but never more threads than partitions
+        int threads = consumerThreads > 0 ? consumerThreads : Runtime.getRuntime().availableProcessors();
+        this.consumerThreads = Math.min(threads, log.partitions());
+        this.pollInterval = pollInterval;
+        this.offsets = new AtomicLongArray(log.partitions());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger consumerId = new AtomicInteger();
+        consumers = Executors.newFixedThreadPool(consumerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "transactions-consumer-" + consumerId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < consumerThreads; i++) {
+            int consumer = i;
+            consumers.execute(() -> consume(consumer));
+        }
+        logger.info("Consuming {} transactions partitions with {} threads", offsets.length(), consumerThreads);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        consumers.shutdown();
+        consumers.awaitTermination(5, TimeUnit.SECONDS);
+        log.close();
+    }
+
+    /**
+     * Bytes written in the log not yet consumed, over all the partitions.
+     */
+    public long lag() {
+        long lag = 0;
+        for (int partition = 0; partition < offsets.length(); partition++)
+            lag += log.size(partition) - offsets.get(partition);
+        return lag;
+    }
+
+    private void consume(int consumer) {
+        while (running) {
+            boolean consumed = false;
+            for (int partition = consumer; partition < offsets.length(); partition += consumerThreads) {
+                try {
+                    consumed |= poll(partition);
+                } catch (RuntimeException e) {
+                    // the offset doesn't move: the same records are read again on the next poll
+                    logger.error("Cannot consume transactions partition {}", partition, e);
+                }
+            }
+            if (!consumed) {
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    boolean poll(int partition) {
+        PartitionedLog.ReadBatch batch = log.read(partition, offsets.get(partition), MAX_READ_BYTES);
+        if (batch.records().isEmpty())
+            return false;
+
+        Map<String, List<Transaction>> transactionsByAccount = new LinkedHashMap<>();
+        for (byte[] record : batch.records()) {
+            Transaction transaction = parse(partition, record);
+            if (transaction == null)
+                continue;
+            String error = TransactionBatchIngestion.validate(transaction.accountId(), transaction);
+            if (transaction.accountId() == null || error != null) {
+                logger.warn("Skipping invalid transaction in partition {}: {}", partition, error != null ? error : "accountId is null");
+                continue;
+            }
+            transactionsByAccount.computeIfAbsent(transaction.accountId(), id -> new ArrayList<>()).add(transaction);
+        }
+        transactionsByAccount.forEach(transactionService::notifyTransactions);
+
+        offsets.set(partition, batch.nextOffset());
+        return true;
+    }
+
+    private Transaction parse(int partition, byte[] record) {
+        try {
+            return transactionReader.readValue(record);
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable record in partition {}: {}", partition, e.getMessage());
+            return null;
+        }
+    }
+}
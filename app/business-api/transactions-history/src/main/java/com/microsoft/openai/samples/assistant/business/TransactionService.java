@@ -1,18 +1,50 @@
 package com.microsoft.openai.samples.assistant.business;
 
 import com.microsoft.openai.samples.assistant.business.Transaction;
+import com.microsoft.openai.samples.assistant.business.common.NameIndex;
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
 
-    private Map<String,List<Transaction>> lastTransactions= new HashMap<>();
-    private Map<String,List<Transaction>> allTransactions= new HashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+    private static final int MAX_NAME_MATCHES = 5;
+    private static final double MIN_NAME_MATCH_SCORE = 0.75;
+    // a fuzzy match is used in place of the requested recipient name only when it's almost certain
+    private static final double RECIPIENT_NAME_FALLBACK_SCORE = 0.9;
+    private static final int MAX_LAST_TRANSACTIONS = 10;
+    // the most recent transactions first. Timestamps are not always zero padded (e.g. 2024-4-01T12:00:00Z)
+    private static final Comparator<Transaction> MOST_RECENT_FIRST =
+            Comparator.comparing((Transaction transaction) -> sortableTimestamp(transaction.timestamp())).reversed();
+
+    private Map<String,List<Transaction>> lastTransactions= new ConcurrentHashMap<>();
+    private Map<String,List<Transaction>> allTransactions= new ConcurrentHashMap<>();
+    // ids of the transactions in allTransactions, guarded by the account transactions list
+    private final Map<String, Set<String>> transactionIds = new ConcurrentHashMap<>();
+    private final TransactionAggregates aggregates = new TransactionAggregates();
+    private final InvoiceIndex invoiceIndex = new InvoiceIndex();
+    private final Map<String, NameIndex> recipientNames = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher eventPublisher;
 
      public TransactionService(){
+         this(event -> {});
+     }
+
+     /**
+      * A TransactionsChangedEvent is published every time transactions are added to an account.
+      */
+     @Autowired
+     public TransactionService(ApplicationEventPublisher eventPublisher){
+         this.eventPublisher = eventPublisher;
 
          lastTransactions.put("1010",new ArrayList<> (Arrays.asList(
                 new Transaction("11", "Payment of the bill 334398", "outcome","acme", "0001", "1010", "BankTransfer", "100.00", "2024-4-01T12:00:00Z"),
@@ -37,42 +69,87 @@ public class TransactionService {
                 new Transaction("52", "Payment of the bill 171443","outcome", "contoso", "0005", "1010", "Transfer", "500.00", "2020-4-05T12:00:00Z")
          )));
 
-
+         allTransactions.forEach((accountId, transactions) -> {
+             transactionIds.put(accountId, transactions.stream().map(Transaction::id).collect(Collectors.toCollection(HashSet::new)));
+             transactions.forEach(transaction -> indexTransaction(accountId, transaction));
+         });
 
      }
     public List<Transaction> getTransactionsByRecipientName(String accountId, String name) {
 
-        if (accountId == null || accountId.isEmpty())
-            throw new IllegalArgumentException("AccountId is empty or null");
-        try {
-            Integer.parseInt(accountId);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("AccountId is not a valid number");
-        }
+        validateAccountId(accountId);
 
     if ( allTransactions.get(accountId) == null) return new ArrayList<>();
-        else
-      return  allTransactions.get(accountId).stream()
-                .filter(transaction -> transaction.recipientName().toLowerCase().contains(name.toLowerCase()))
-                .collect(Collectors.toList());
+
+      var transactions = filterByRecipientName(accountId, name);
+      if (!transactions.isEmpty())
+          return transactions;
+
+      // the name could be misspelled or partial: retry with the best known recipient name, if any
+      var bestMatch = resolveRecipientName(accountId, name, 1, RECIPIENT_NAME_FALLBACK_SCORE);
+      if (bestMatch.isEmpty())
+          return transactions;
+
+      logger.info("No transactions found for recipient [{}]. Using best match [{}]", name, bestMatch.get(0));
+      return filterByRecipientName(accountId, bestMatch.get(0).name());
 
     }
 
     public List<Transaction> getlastTransactions(String accountId) {
-        if (accountId == null || accountId.isEmpty())
-            throw new IllegalArgumentException("AccountId is empty or null");
-        try {
-            Integer.parseInt(accountId);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("AccountId is not a valid number");
-        }
+        validateAccountId(accountId);
 
-        if ( lastTransactions.get(accountId) == null) return new ArrayList<>();
-        else
-        return lastTransactions.get(accountId);
+        var lastTransactionsList = lastTransactions.get(accountId);
+        if ( lastTransactionsList == null) return new ArrayList<>();
+        synchronized (lastTransactionsList) {
+            return new ArrayList<>(lastTransactionsList);
+        }
     }
 
     public void notifyTransaction(String accountId,Transaction transaction){
+        validateAccountId(accountId);
+
+        if ( allTransactions.get(accountId) == null)
+            throw new RuntimeException("Cannot find all transactions for account id: "+accountId);
+        if ( lastTransactions.get(accountId) == null)
+            throw new RuntimeException("Cannot find last transactions for account id: "+accountId);
+
+        storeTransactions(accountId, List.of(transaction));
+    }
+
+    /**
+     * Stores a batch of already validated transactions. Unlike notifyTransaction, the transactions history is created
+     * when the account has none yet, as it's used to backfill the history of onboarding customers. Transactions already
+     * stored (same id) are skipped, so a batch delivered again is stored once.
+     */
+    public void notifyTransactions(String accountId, List<Transaction> transactions){
+        validateAccountId(accountId);
+
+        storeTransactions(accountId, transactions);
+    }
+
+    public TransactionSummary getTransactionsSummary(String accountId) {
+        validateAccountId(accountId);
+
+        return aggregates.getSummary(accountId);
+    }
+
+    public InvoicePaymentStatus isInvoicePaid(String accountId, String invoiceId) {
+        validateAccountId(accountId);
+        if (invoiceId == null || invoiceId.isBlank())
+            throw new IllegalArgumentException("InvoiceId is empty or null");
+
+        return invoiceIndex.getPaymentStatus(accountId, invoiceId);
+    }
+
+    public List<NameMatch> resolvePayeeName(String accountId, String name) {
+        validateAccountId(accountId);
+        if (name == null || name.isBlank())
+            throw new IllegalArgumentException("Payee name is empty or null");
+
+        return resolveRecipientName(accountId, name, MAX_NAME_MATCHES, MIN_NAME_MATCH_SCORE);
+    }
+
+    static void validateAccountId(String accountId) {
         if (accountId == null || accountId.isEmpty())
             throw new IllegalArgumentException("AccountId is empty or null");
         try {
@@ -80,17 +157,80 @@ public class TransactionService {
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("AccountId is not a valid number");
         }
+    }
+
+    /**
+     * Adds the new transactions to the full history, and to the last transactions only when they are among the most
+     * recent ones: a backfill of older transactions doesn't push the recent ones out.
+     */
+    private void storeTransactions(String accountId, List<Transaction> transactions) {
+        var transactionsList = allTransactions.computeIfAbsent(accountId, id -> new ArrayList<>());
+        List<Transaction> newTransactions = new ArrayList<>(transactions.size());
+        synchronized (transactionsList) {
+            var ids = transactionIds.computeIfAbsent(accountId, id -> new HashSet<>());
+            for (Transaction transaction : transactions)
+                if (ids.add(transaction.id()))
+                    newTransactions.add(transaction);
+            transactionsList.addAll(newTransactions);
+        }
+        if (newTransactions.isEmpty())
+            return;
+
+        var lastTransactionsList = lastTransactions.computeIfAbsent(accountId, id -> new ArrayList<>());
+        synchronized (lastTransactionsList) {
+            Set<String> lastIds = lastTransactionsList.stream().map(Transaction::id).collect(Collectors.toSet());
+            newTransactions.stream()
+                    .filter(transaction -> !lastIds.contains(transaction.id()))
+                    .sorted(MOST_RECENT_FIRST)
+                    .limit(MAX_LAST_TRANSACTIONS)
+                    .forEach(lastTransactionsList::add);
+            lastTransactionsList.sort(MOST_RECENT_FIRST);
+            if (lastTransactionsList.size() > MAX_LAST_TRANSACTIONS)
+                lastTransactionsList.subList(MAX_LAST_TRANSACTIONS, lastTransactionsList.size()).clear();
+        }
 
-         var transactionsList = allTransactions.get(accountId);
-         if ( transactionsList == null)
-             throw new RuntimeException("Cannot find all transactions for account id: "+accountId);
-        transactionsList.add(transaction);
+        newTransactions.forEach(transaction -> indexTransaction(accountId, transaction));
+        eventPublisher.publishEvent(new TransactionsChangedEvent(accountId));
+    }
 
-        var lastTransactionsList = lastTransactions.get(accountId);
-        if ( lastTransactionsList == null)
-            throw new RuntimeException("Cannot find last transactions for account id: "+accountId);
-        lastTransactionsList.add(transaction);
+    static String sortableTimestamp(String timestamp) {
+        if (timestamp == null)
+            return "";
+        int dateEnd = timestamp.indexOf('T');
+        if (dateEnd < 0)
+            dateEnd = timestamp.length();
+        String[] date = timestamp.substring(0, dateEnd).split("-");
+        if (date.length != 3)
+            return timestamp;
+        return date[0] + "-" + (date[1].length() < 2 ? "0" : "") + date[1] + "-" + (date[2].length() < 2 ? "0" : "") + date[2]
+                + timestamp.substring(dateEnd);
+    }
 
+    private List<Transaction> filterByRecipientName(String accountId, String name) {
+        var transactionsList = allTransactions.get(accountId);
+        synchronized (transactionsList) {
+            return transactionsList.stream()
+                    .filter(transaction -> transaction.recipientName().toLowerCase().contains(name.toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void indexTransaction(String accountId, Transaction transaction) {
+        aggregates.add(accountId, transaction);
+        invoiceIndex.add(accountId, transaction);
+        addRecipientName(accountId, transaction);
+    }
+
+    private List<NameMatch> resolveRecipientName(String accountId, String name, int maxResults, double minScore) {
+        var nameIndex = recipientNames.get(accountId);
+        if (nameIndex == null)
+            return new ArrayList<>();
+        return nameIndex.resolve(name, maxResults, minScore);
+    }
 
+    private void addRecipientName(String accountId, Transaction transaction) {
+        if (transaction.recipientName() == null)
+            return;
+        recipientNames.computeIfAbsent(accountId, id -> new NameIndex()).add(transaction.recipientName());
     }
 }
@@ -0,0 +1,17 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TransactionSummary(
+        @JsonProperty("accountId") String accountId,
+        @JsonProperty("byPayee") List<SpendingTotal> byPayee,
+        // month keys are expressed as yyyy-MM
+        @JsonProperty("byMonth") List<SpendingTotal> byMonth,
+        @JsonProperty("byPaymentType") List<SpendingTotal> byPaymentType,
+        //income/outcome
+        @JsonProperty("byDirection") List<SpendingTotal> byDirection
+) {}
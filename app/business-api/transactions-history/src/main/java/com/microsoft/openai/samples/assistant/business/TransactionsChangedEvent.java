@@ -0,0 +1,7 @@
+package com.microsoft.openai.samples.assistant.business;
+
+/**
+ * Published when transactions are added to the history of an account, to invalidate the cached results about it.
+ */
+public record TransactionsChangedEvent(String accountId) {
+}
@@ -7,7 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-public class MCPServerConfiguration {
+public class TransactionMCPServerConfiguration {
 
     @Bean
     public ToolCallbackProvider transactionTools(TransactionMCPService transactionMCPService) {
@@ -0,0 +1,78 @@
+package com.microsoft.openai.samples.assistant.business.mcp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.openai.samples.assistant.business.ToolCacheKeys;
+import com.microsoft.openai.samples.assistant.business.TransactionsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches of the results of the transactions MCP tools, one per tool bounded by number of entries (Caffeine W-TinyLFU)
+ * and with its own ttl, so repeated calls with the same arguments from the agents don't reach the service. The results
+ * about an account are invalidated when transactions are added to it. Cache statistics are exposed by the actuator
+ * metrics endpoint (cache.gets, cache.puts, cache.evictions, cache.size by cache).
+ */
+@Configuration
+@EnableCaching
+public class TransactionToolCacheConfiguration {
+
+    // the caches are named after the tools, whose first argument is the account id
+    static final List<String> ACCOUNT_TOOLS = List.of("getTransactionsByRecipientName", "getLastTransactions", "getTransactionsSummary",
+            "isInvoicePaid", "resolvePayeeName");
+
+    private final ToolCacheKeys toolCacheKeys;
+
+    public TransactionToolCacheConfiguration(ToolCacheKeys toolCacheKeys) {
+        this.toolCacheKeys = toolCacheKeys;
+    }
+
+    @Bean
+    public CacheManager cacheManager(@Value("${transactions.tool-cache.enabled:true}") boolean enabled,
+                                     @Value("${transactions.tool-cache.max-entries:10000}") long maxEntries,
+                                     @Value("${transactions.tool-cache.default-ttl:5m}") Duration defaultTtl,
+                                     // tool=duration pairs, e.g. getTransactionsSummary=15m,isInvoicePaid=1m
+                                     @Value("${transactions.tool-cache.ttls:}") String toolTtls) {
+        if (!enabled)
+            return new NoOpCacheManager();
+        Map<String, Duration> ttls = parseTtls(toolTtls);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        for (String tool : ACCOUNT_TOOLS) {
+            cacheManager.registerCustomCache(tool, Caffeine.newBuilder()
+                    .maximumSize(maxEntries)
+                    .expireAfterWrite(ttls.getOrDefault(tool, defaultTtl))
+                    .recordStats()
+                    .build());
+        }
+        return cacheManager;
+    }
+
+    @EventListener
+    public void onTransactionsChanged(TransactionsChangedEvent event) {
+        toolCacheKeys.invalidate(event.accountId());
+    }
+
+    private static Map<String, Duration> parseTtls(String toolTtls) {
+        Map<String, Duration> ttls = new HashMap<>();
+        for (String toolTtl : toolTtls.split(",")) {
+            if (toolTtl.isBlank())
+                continue;
+            String[] toolAndTtl = toolTtl.split("=");
+            if (toolAndTtl.length != 2)
+                throw new IllegalArgumentException("Invalid tool cache ttl, expected tool=duration: " + toolTtl);
+            ttls.put(toolAndTtl[0].trim(), DurationStyle.detectAndParse(toolAndTtl[1].trim()));
+        }
+        return ttls;
+    }
+}
@@ -1,14 +1,20 @@
 package com.microsoft.openai.samples.assistant.business.mcp.server;
 
+import com.microsoft.openai.samples.assistant.business.InvoicePaymentStatus;
+import com.microsoft.openai.samples.assistant.business.common.NameMatch;
 import com.microsoft.openai.samples.assistant.business.Transaction;
 import com.microsoft.openai.samples.assistant.business.TransactionService;
+import com.microsoft.openai.samples.assistant.business.TransactionSummary;
 import org.springframework.stereotype.Service;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 
 import java.util.List;
 
 @Service
+@CacheConfig(keyGenerator = "toolCacheKeys")
 public class TransactionMCPService {
 
     private final TransactionService transactionService;
@@ -18,15 +24,40 @@ public class TransactionMCPService {
     }
 
     @Tool(description = "Get transactions by recipient name")
+    @Cacheable("getTransactionsByRecipientName")
     public List<Transaction> getTransactionsByRecipientName(
             @ToolParam(description = "The account ID") String accountId,
             @ToolParam(description = "The recipient's name") String recipientName) {
-        return transactionService.getTransactionsByRecipientName(accountId, recipientName);
+        return List.copyOf(transactionService.getTransactionsByRecipientName(accountId, recipientName));
     }
 
     @Tool(description = "Get the last transactions for an account")
+    @Cacheable("getLastTransactions")
     public List<Transaction> getLastTransactions(
             @ToolParam(description = "The account ID") String accountId) {
-        return transactionService.getlastTransactions(accountId);
+        return List.copyOf(transactionService.getlastTransactions(accountId));
+    }
+
+    @Tool(description = "Get total amount and number of transactions for an account: the spending (outcome transactions) grouped by payee, month (yyyy-MM) and payment type, and all the transactions grouped by direction (income/outcome)")
+    @Cacheable("getTransactionsSummary")
+    public TransactionSummary getTransactionsSummary(
+            @ToolParam(description = "The account ID") String accountId) {
+        return transactionService.getTransactionsSummary(accountId);
+    }
+
+    @Tool(description = "Check if an invoice or bill has been already paid based on the payments history")
+    @Cacheable("isInvoicePaid")
+    public InvoicePaymentStatus isInvoicePaid(
+            @ToolParam(description = "The account ID") String accountId,
+            @ToolParam(description = "The invoice or bill id") String invoiceId) {
+        return transactionService.isInvoicePaid(accountId, invoiceId);
+    }
+
+    @Tool(description = "Find the payee names, used in the account transactions, similar to the provided name. Results are ranked by a similarity score between 0 and 1")
+    @Cacheable("resolvePayeeName")
+    public List<NameMatch> resolvePayeeName(
+            @ToolParam(description = "The account ID") String accountId,
+            @ToolParam(description = "The payee name, also partial or misspelled") String payeeName) {
+        return List.copyOf(transactionService.resolvePayeeName(accountId, payeeName));
     }
 }
\ No newline at end of file
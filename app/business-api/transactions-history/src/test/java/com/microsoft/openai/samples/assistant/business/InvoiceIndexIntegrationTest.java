@@ -0,0 +1,40 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import java.util.List;
+
+/**
+ * Adds payments to the sample history of account 1010 and checks that the invoice ids found in their descriptions
+ * are reported as paid, whatever the words between the keyword and the id, the case or a leading #, that a word
+ * without digits following invoice or bill is not an id, and that the invoices paid by an account are not visible
+ * from another one.
+ * Usage: InvoiceIndexIntegrationTest
+ */
+public class InvoiceIndexIntegrationTest {
+
+    public static void main(String[] args) {
+        var transactionService = new TransactionService();
+
+        // the sample history: "payment of bill id with 0001" and "Payment of the bill 4200"
+        checkPaid(transactionService.isInvoicePaid("1010", "0001"), "11");
+        checkPaid(transactionService.isInvoicePaid("1010", "#4200"), "21");
+
+        transactionService.notifyTransactions("1010", List.of(
+                new Transaction("61", "Payment for Invoice no 2024-INV/0001", "outcome", "acme", "0006", "1010", "BankTransfer", "75.00", "2024-5-01T12:00:00Z"),
+                new Transaction("62", "Payment of the bill online", "outcome", "contoso", "0007", "1010", "CreditCard", "20.00", "2024-5-02T12:00:00Z")));
+        checkPaid(transactionService.isInvoicePaid("1010", " 2024-inv/0001 "), "61");
+        if (transactionService.isInvoicePaid("1010", "online").paid())
+            throw new IllegalStateException("Check failed: word without digits after bill indexed as an invoice id");
+        if (transactionService.isInvoicePaid("1010", "9999").paid())
+            throw new IllegalStateException("Check failed: unknown invoice reported as paid");
+        if (transactionService.isInvoicePaid("2020", "4200").paid())
+            throw new IllegalStateException("Check failed: invoice paid by another account reported as paid");
+
+        System.out.println("InvoiceIndexIntegrationTest passed");
+    }
+
+    private static void checkPaid(InvoicePaymentStatus status, String transactionId) {
+        if (!status.paid() || !transactionId.equals(status.transactionId()))
+            throw new IllegalStateException("Check failed: invoice %s paid by transaction %s, got %s"
+                    .formatted(status.invoiceId(), transactionId, status));
+    }
+}
@@ -0,0 +1,79 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.microsoft.openai.samples.assistant.business.common.NameIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures NameIndex build time and resolve latency on a dictionary of synthetic payee names.
+ * Usage: NameIndexBenchmark [dictionarySize] [queries]
+ */
+public class NameIndexBenchmark {
+
+    private static final String[] PREFIXES = {"acme", "contoso", "fabrikam", "northwind", "wayne", "oscorp", "duff", "tailspin", "litware", "adventure", "proseware", "wingtip"};
+    private static final String[] SUFFIXES = {"enterprises", "holdings", "services", "industries", "utilities", "energy", "telecom", "insurance", "logistics", "works"};
+    private static final String[] LEGAL_FORMS = {"", " ltd", " inc", " llc", " spa"};
+
+    public static void main(String[] args) {
+        int dictionarySize = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Random random = new Random(42);
+
+        List<String> names = new ArrayList<>(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            names.add("%s %s %d%s".formatted(
+                    PREFIXES[random.nextInt(PREFIXES.length)],
+                    SUFFIXES[random.nextInt(SUFFIXES.length)],
+                    i,
+                    LEGAL_FORMS[random.nextInt(LEGAL_FORMS.length)]));
+        }
+
+        NameIndex nameIndex = new NameIndex();
+        long start = System.nanoTime();
+        names.forEach(nameIndex::add);
+        long buildNanos = System.nanoTime() - start;
+        System.out.printf("Indexed %d names in %d ms%n", nameIndex.size(), buildNanos / 1_000_000);
+
+        List<String> expectedNames = new ArrayList<>(queries);
+        List<String> misspelledQueries = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            expectedNames.add(names.get(random.nextInt(names.size())));
+            misspelledQueries.add(misspell(expectedNames.get(i), random));
+        }
+
+        // warm up
+        for (int i = 0; i < Math.min(queries, 1_000); i++)
+            nameIndex.resolve(misspelledQueries.get(i), 5, 0.75);
+
+        long[] latencies = new long[queries];
+        int topMatches = 0;
+        for (int i = 0; i < queries; i++) {
+            long queryStart = System.nanoTime();
+            var matches = nameIndex.resolve(misspelledQueries.get(i), 5, 0.75);
+            latencies[i] = System.nanoTime() - queryStart;
+            if (!matches.isEmpty() && matches.get(0).name().equals(expectedNames.get(i)))
+                topMatches++;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("Resolved %d misspelled queries. top1=%d p50=%d us p99=%d us max=%d us%n",
+                queries,
+                topMatches,
+                latencies[queries / 2] / 1_000,
+                latencies[(int) (queries * 0.99)] / 1_000,
+                latencies[queries - 1] / 1_000);
+    }
+
+    private static String misspell(String name, Random random) {
+        StringBuilder misspelled = new StringBuilder(name);
+        int position = random.nextInt(misspelled.length());
+        switch (random.nextInt(3)) {
+            case 0 -> misspelled.deleteCharAt(position);
+            case 1 -> misspelled.insert(position, (char) ('a' + random.nextInt(26)));
+            default -> misspelled.setCharAt(position, (char) ('a' + random.nextInt(26)));
+        }
+        return misspelled.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures in-process batch ingestion throughput (parsing, validation, store and indexes update) for a NDJSON stream
+ * of synthetic transactions.
+ * Usage: TransactionBatchIngestionBenchmark [rows] [batchSize]
+ */
+public class TransactionBatchIngestionBenchmark {
+
+    private static final String[] PAYEES = {"acme", "contoso", "duff", "wayne enterprises", "oscorp", "fabrikam", "northwind", "tailspin"};
+    private static final String[] PAYMENT_TYPES = {"BankTransfer", "CreditCard", "DirectDebit", "Transfer"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : TransactionBatchIngestion.DEFAULT_BATCH_SIZE;
+
+        byte[] ndjson = generate(rows);
+        System.out.printf("Generated %d rows (%d MB)%n", rows, ndjson.length / (1024 * 1024));
+
+        // warm up on a separate store
+        new TransactionBatchIngestion(new TransactionService(), new ObjectMapper())
+                .ingest("2000", new ByteArrayInputStream(ndjson), batchSize);
+
+        var transactionBatchIngestion = new TransactionBatchIngestion(new TransactionService(), new ObjectMapper());
+        long start = System.nanoTime();
+        BatchIngestionResult result = transactionBatchIngestion.ingest("2000", new ByteArrayInputStream(ndjson), batchSize);
+        long elapsedNanos = System.nanoTime() - start;
+
+        System.out.printf("Ingested %d of %d rows in %d batches, %d ms, %.0f rows/s%n",
+                result.accepted(),
+                result.received(),
+                result.batches().size(),
+                elapsedNanos / 1_000_000,
+                result.received() / (elapsedNanos / 1e9));
+    }
+
+    private static byte[] generate(int rows) {
+        var out = new ByteArrayOutputStream(rows * 220);
+        for (int i = 0; i < rows; i++) {
+            String row = "{\"id\":\"%d\",\"description\":\"payment for invoice %d\",\"type\":\"outcome\",\"recipientName\":\"%s\",\"recipientBankReference\":\"%04d\",\"accountId\":\"2000\",\"paymentType\":\"%s\",\"amount\":\"%d.%02d\",\"timestamp\":\"%d-%d-%02dT12:00:00Z\"}\n"
+                    .formatted(i, 1_000_000 + i, PAYEES[i % PAYEES.length], i % 10_000, PAYMENT_TYPES[i % PAYMENT_TYPES.length],
+                            i % 1000, i % 100, 2015 + i % 10, 1 + i % 12, 1 + i % 28);
+            out.writeBytes(row.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
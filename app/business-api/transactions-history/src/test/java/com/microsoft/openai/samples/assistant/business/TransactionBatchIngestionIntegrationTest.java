@@ -0,0 +1,89 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingests transactions batches in process and checks that a batch delivered again is stored once, that a backfill
+ * of older transactions doesn't replace the last transactions, that the rows of an outbox batch sent again are dropped
+ * by sequence and that a batch which cannot be stored is reported and not stored again.
+ * Usage: TransactionBatchIngestionIntegrationTest
+ */
+public class TransactionBatchIngestionIntegrationTest {
+
+    public static void main(String[] args) throws Exception {
+        var transactionService = new TransactionService();
+        var ingestion = new TransactionBatchIngestion(transactionService, new ObjectMapper());
+
+        // a backfill of old transactions, delivered twice
+        String backfill = ndjson(1, 500, "2021-%d-01T12:00:00Z");
+        var result = ingestion.ingest("2020", body(backfill), 100);
+        if (result.accepted() != 500)
+            throw new IllegalStateException("Check failed: backfill accepted 500 rows, got " + result.accepted());
+        ingestion.ingest("2020", body(backfill), 100);
+        if (transactionService.getTransactionsByRecipientName("2020", "payee").size() != 500)
+            throw new IllegalStateException("Check failed: the backfill delivered again is stored once");
+
+        // recent transactions, then an older backfill: the last transactions are still the recent ones
+        ingestion.ingest("2020", body(ndjson(1000, 3, "2025-%d-01T12:00:00Z")), 100);
+        ingestion.ingest("2020", body(ndjson(2000, 50, "2019-%d-01T12:00:00Z")), 100);
+        List<Transaction> lastTransactions = transactionService.getlastTransactions("2020");
+        if (lastTransactions.size() != 10)
+            throw new IllegalStateException("Check failed: last transactions are capped to 10, got " + lastTransactions.size());
+        if (!lastTransactions.get(0).timestamp().startsWith("2025-3-"))
+            throw new IllegalStateException("Check failed: the most recent transaction is first, got " + lastTransactions.get(0));
+        if (lastTransactions.stream().anyMatch(transaction -> transaction.timestamp().startsWith("2019-")))
+            throw new IllegalStateException("Check failed: the backfill doesn't push the recent transactions out");
+        System.out.println("Last transactions: " + lastTransactions);
+
+        // an outbox batch sent again after a timeout, with two more notifications: the rows already delivered are
+        // dropped by sequence, even with a transaction id not seen before
+        ingestion.ingest("4040", body(ndjson(1, 5, "2025-%d-01T12:00:00Z")), 100, "outbox-1", new long[]{1, 2, 3, 4, 5});
+        result = ingestion.ingest("4040", body(ndjson(104, 4, "2025-%d-01T12:00:00Z")), 100, "outbox-1", new long[]{4, 5, 6, 7});
+        if (result.accepted() != 4 || result.rejected() != 0)
+            throw new IllegalStateException("Check failed: the retried rows are acknowledged, got " + result);
+        if (transactionService.getTransactionsByRecipientName("4040", "payee").size() != 7)
+            throw new IllegalStateException("Check failed: the rows already delivered are not stored again");
+        ingestion.ingest("4040", body(ndjson(200, 2, "2025-%d-01T12:00:00Z")), 100, "outbox-2", new long[]{1, 2});
+        if (transactionService.getTransactionsByRecipientName("4040", "payee").size() != 9)
+            throw new IllegalStateException("Check failed: the sequences of another outbox are not taken for duplicates");
+
+        // the second batch fails to be stored: it's reported and not stored again with the last rows
+        AtomicInteger stored = new AtomicInteger();
+        var failingService = new TransactionService() {
+            @Override
+            public void notifyTransactions(String accountId, List<Transaction> transactions) {
+                if (stored.getAndIncrement() == 1)
+                    throw new IllegalStateException("store unavailable");
+                super.notifyTransactions(accountId, transactions);
+            }
+        };
+        result = new TransactionBatchIngestion(failingService, new ObjectMapper()).ingest("3030", body(ndjson(1, 250, "2024-%d-01T12:00:00Z")), 100);
+        System.out.println("Failed ingestion: " + result);
+        if (stored.get() != 2)
+            throw new IllegalStateException("Check failed: the batch which cannot be stored is not flushed again, flushes: " + stored.get());
+        if (result.accepted() != 100)
+            throw new IllegalStateException("Check failed: only the first batch is accepted, got " + result.accepted());
+        if (result.error() == null || !result.error().startsWith("Cannot store rows 101 to 200"))
+            throw new IllegalStateException("Check failed: the store failure is reported, got " + result.error());
+
+        System.out.println("TransactionBatchIngestionIntegrationTest passed");
+    }
+
+    private static String ndjson(int firstId, int count, String timestampFormat) {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            ndjson.append("{\"id\":\"%d\",\"description\":\"payment %d\",\"type\":\"outcome\",\"recipientName\":\"payee %d\",\"recipientBankReference\":\"0001\",\"paymentType\":\"Transfer\",\"amount\":\"10.00\",\"timestamp\":\"%s\"}\n"
+                    .formatted(firstId + i, firstId + i, i % 20, timestampFormat.formatted(1 + i % 12)));
+        }
+        return ndjson.toString();
+    }
+
+    private static ByteArrayInputStream body(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.openai.samples.assistant.business.common.PartitionedLog;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Consumes a local partitioned log in process and checks that a restarted service rebuilds its transactions from the
+ * start of the log, that a restarted consumer doesn't store again the transactions already stored, that the
+ * transactions published twice are stored once and that the consumer resumes with the records appended afterwards.
+ * Usage: TransactionEventConsumerIntegrationTest
+ */
+public class TransactionEventConsumerIntegrationTest {
+
+    private static final int PARTITIONS = 4;
+    private static final List<String> ACCOUNTS = List.of("5050", "6060", "7070");
+
+    public static void main(String[] args) throws Exception {
+        Path logDir = Files.createTempDirectory("transactions-events");
+        var producer = new PartitionedLog(logDir.resolve("transactions"), PARTITIONS);
+
+        // 30 transactions per account, the first 10 published twice (e.g. a publish retried after a timeout)
+        for (String accountId : ACCOUNTS) {
+            publish(producer, accountId, 0, 30);
+            publish(producer, accountId, 0, 10);
+        }
+
+        var transactionService = new TransactionService();
+        var consumer = consume(transactionService, logDir);
+        checkStored(transactionService, 30, "published twice, stored once");
+        consumer.stop();
+
+        // the service restarts with an empty store: the log is replayed from the start
+        var restartedService = new TransactionService();
+        var replaying = consume(restartedService, logDir);
+        checkStored(restartedService, 30, "rebuilt from the log after a restart");
+        replaying.stop();
+
+        // the consumer restarts on the same store: the replayed transactions are not stored again
+        var restartedConsumer = consume(transactionService, logDir);
+        checkStored(transactionService, 30, "not stored again by a restarted consumer");
+
+        // the consumer resumes with the records appended after the replay
+        for (String accountId : ACCOUNTS)
+            publish(producer, accountId, 30, 5);
+        await(() -> restartedConsumer.lag() == 0, "consumption of the new records");
+        checkStored(transactionService, 35, "new records consumed");
+        restartedConsumer.stop();
+        producer.close();
+
+        System.out.println("TransactionEventConsumerIntegrationTest passed");
+    }
+
+    private static TransactionEventConsumer consume(TransactionService transactionService, Path logDir) throws InterruptedException {
+        var consumer = new TransactionEventConsumer(transactionService, new ObjectMapper(), logDir.toString(),
+                PARTITIONS, 2, Duration.ofMillis(5));
+        consumer.start();
+        await(() -> consumer.lag() == 0, "consumption of the log");
+        return consumer;
+    }
+
+    private static void publish(PartitionedLog producer, String accountId, int first, int count) {
+        List<byte[]> records = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            records.add(("{\"id\":\"%s-%d\",\"description\":\"payment %d\",\"type\":\"outcome\",\"recipientName\":\"payee %d\",\"recipientBankReference\":\"0001\",\"accountId\":\"%s\",\"paymentType\":\"Transfer\",\"amount\":\"10.00\",\"timestamp\":\"2025-01-01T12:00:00Z\"}"
+                    .formatted(accountId, i, i, i % 5, accountId)).getBytes(StandardCharsets.UTF_8));
+        }
+        producer.append(producer.partitionFor(accountId), records, false);
+    }
+
+    private static void checkStored(TransactionService transactionService, int expected, String description) throws InterruptedException {
+        for (String accountId : ACCOUNTS) {
+            // the lag drops to 0 once the records are read, a moment before they are stored
+            await(() -> transactionService.getTransactionsByRecipientName(accountId, "payee").size() >= expected, description);
+            int stored = transactionService.getTransactionsByRecipientName(accountId, "payee").size();
+            if (stored != expected)
+                throw new IllegalStateException("Check failed: %s. Account %s has %d transactions, expected %d".formatted(description, accountId, stored, expected));
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                throw new IllegalStateException("Timed out waiting for " + description);
+            Thread.sleep(10);
+        }
+    }
+}
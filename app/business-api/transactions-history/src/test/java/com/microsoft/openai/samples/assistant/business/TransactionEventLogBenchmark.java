@@ -0,0 +1,95 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.openai.samples.assistant.business.common.PartitionedLog;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures publish throughput and end-to-end lag (from append to the transactions store) of the local partitioned
+ * log, with the producer and the consumers running in the same process. Without a rate the producer publishes as
+ * fast as it can, so the lag measures the backlog; with a rate (events/s) it measures the delivery latency.
+ * Usage: TransactionEventLogBenchmark [events] [accounts] [batchSize] [consumers] [fsync] [rate]
+ */
+public class TransactionEventLogBenchmark {
+
+    private static final int PARTITIONS = 16;
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int consumers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        boolean fsync = args.length > 4 && Boolean.parseBoolean(args[4]);
+        int rate = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+
+        Path logDir = Files.createTempDirectory("transactions-events");
+        AtomicLong consumed = new AtomicLong();
+        long[] lagNanos = new long[events / batchSize + 1];
+        AtomicLong lagSamples = new AtomicLong();
+
+        // the transaction id carries the publish time, the lag is sampled on the first transaction of each batch
+        var transactionService = new TransactionService() {
+            @Override
+            public void notifyTransactions(String accountId, List<Transaction> transactions) {
+                long now = System.nanoTime();
+                super.notifyTransactions(accountId, transactions);
+                int sample = (int) lagSamples.getAndIncrement();
+                if (sample < lagNanos.length)
+                    lagNanos[sample] = now - Long.parseLong(transactions.get(0).id().split("-")[0]);
+                consumed.addAndGet(transactions.size());
+            }
+        };
+        var consumer = new TransactionEventConsumer(transactionService, new ObjectMapper(), logDir.toString(),
+                PARTITIONS, consumers, Duration.ofMillis(1));
+        consumer.start();
+
+        var producer = new PartitionedLog(logDir.resolve("transactions"), PARTITIONS);
+        long start = System.nanoTime();
+        for (int published = 0; published < events; published += batchSize) {
+            if (rate > 0) {
+                long due = start + (long) (published * (1e9 / rate));
+                while (System.nanoTime() < due)
+                    Thread.sleep(0, 100_000);
+            }
+            String accountId = Integer.toString(1000 + (published / batchSize) % accounts);
+            List<byte[]> records = new ArrayList<>(batchSize);
+            long publishedAt = System.nanoTime();
+            for (int i = 0; i < batchSize; i++)
+                records.add(record(publishedAt + "-" + (published + i), accountId, published + i));
+            producer.append(producer.partitionFor(accountId), records, fsync);
+        }
+        long publishNanos = System.nanoTime() - start;
+
+        while (consumed.get() < events)
+            Thread.sleep(1);
+        long endToEndNanos = System.nanoTime() - start;
+        consumer.stop();
+        producer.close();
+
+        long[] lags = Arrays.copyOf(lagNanos, (int) Math.min(lagSamples.get(), lagNanos.length));
+        Arrays.sort(lags);
+        System.out.printf("Published %d events in %d ms (%.0f events/s, fsync=%s)%n",
+                events, publishNanos / 1_000_000, events / (publishNanos / 1e9), fsync);
+        System.out.printf("Consumed %d events in %d ms (%.0f events/s) with %d consumers%n",
+                consumed.get(), endToEndNanos / 1_000_000, events / (endToEndNanos / 1e9), Math.min(consumers, PARTITIONS));
+        System.out.printf("End-to-end lag: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                percentile(lags, 0.50) / 1e6, percentile(lags, 0.99) / 1e6, lags[lags.length - 1] / 1e6);
+    }
+
+    private static byte[] record(String id, String accountId, int i) {
+        return ("{\"id\":\"%s\",\"description\":\"payment for invoice %d\",\"type\":\"outcome\",\"recipientName\":\"payee %d\",\"recipientBankReference\":\"0001\",\"accountId\":\"%s\",\"paymentType\":\"Transfer\",\"amount\":\"%d.00\",\"timestamp\":\"2025-01-01T12:00:00Z\"}"
+                .formatted(id, 1_000_000 + i, i % 100, accountId, 1 + i % 1000)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))];
+    }
+}
@@ -0,0 +1,62 @@
+package com.microsoft.openai.samples.assistant.business;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Adds transactions to the sample history of account 1010 and checks that the spending aggregates match the totals
+ * computed from the transactions: incomes are only totaled by direction, timestamps without zero padding or invalid
+ * ones are totaled by month as yyyy-MM or unknown, and a transaction delivered again is not counted twice.
+ * Usage: TransactionSummaryIntegrationTest
+ */
+public class TransactionSummaryIntegrationTest {
+
+    public static void main(String[] args) {
+        var transactionService = new TransactionService();
+
+        // the sample history: 5 payments to acme and 5 to contoso, of 100 to 500
+        TransactionSummary summary = transactionService.getTransactionsSummary("1010");
+        checkTotal(summary.byPayee(), "acme", 5, "1500.00");
+        checkTotal(summary.byPayee(), "contoso", 5, "1500.00");
+        checkTotal(summary.byMonth(), "2024-04", 1, "100.00");
+        checkTotal(summary.byPaymentType(), "creditcard", 3, "800.00");
+        checkTotal(summary.byDirection(), "outcome", 10, "3000.00");
+
+        transactionService.notifyTransactions("1010", List.of(
+                new Transaction("61", "Salary", "income", "contoso", "0006", "1010", "Transfer", "2500.00", "2024-4-27T09:00:00Z"),
+                new Transaction("62", "Payment of the bill 7712", "outcome", "Acme ", "0007", "1010", "BankTransfer", "49.90", "2024-4-28T09:00:00Z"),
+                new Transaction("63", "Payment of the bill 7713", "outcome", "acme", "0008", "1010", "BankTransfer", "10.10", "not a date")));
+        // delivered again: already stored
+        transactionService.notifyTransactions("1010", List.of(
+                new Transaction("62", "Payment of the bill 7712", "outcome", "Acme ", "0007", "1010", "BankTransfer", "49.90", "2024-4-28T09:00:00Z")));
+
+        summary = transactionService.getTransactionsSummary("1010");
+        checkTotal(summary.byPayee(), "acme", 7, "1560.00");
+        checkTotal(summary.byPayee(), "contoso", 5, "1500.00");
+        checkTotal(summary.byMonth(), "2024-04", 2, "149.90");
+        checkTotal(summary.byMonth(), "unknown", 1, "10.10");
+        checkTotal(summary.byDirection(), "income", 1, "2500.00");
+        checkTotal(summary.byDirection(), "outcome", 12, "3060.00");
+
+        // the aggregates are the totals of the transactions
+        var acme = transactionService.getTransactionsByRecipientName("1010", "acme").stream()
+                .filter(transaction -> transaction.type().equals("outcome"))
+                .map(transaction -> new BigDecimal(transaction.amount()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (acme.compareTo(new BigDecimal("1560.00")) != 0)
+            throw new IllegalStateException("Check failed: acme aggregate differs from the transactions total " + acme);
+
+        if (!transactionService.getTransactionsSummary("2020").byPayee().isEmpty())
+            throw new IllegalStateException("Check failed: summary of an account without transactions not empty");
+
+        System.out.println("TransactionSummaryIntegrationTest passed");
+    }
+
+    private static void checkTotal(List<SpendingTotal> totals, String key, long count, String total) {
+        SpendingTotal spendingTotal = totals.stream().filter(t -> t.key().equals(key)).findFirst()
+                .orElseThrow(() -> new IllegalStateException("Check failed: no total for " + key + " in " + totals));
+        if (spendingTotal.count() != count || !spendingTotal.total().equals(total))
+            throw new IllegalStateException("Check failed: expected %d transactions for %s totaling %s, got %s"
+                    .formatted(count, key, total, spendingTotal));
+    }
+}
@@ -0,0 +1,344 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.admission;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits the chat requests within the tokens per minute and requests per minute quotas of the OpenAI deployment, so a
+ * burst queues before its first model call instead of failing with 429 in the middle of the calls of the agents.
+ * <p>
+ * Each request is charged its estimated tokens and model calls in two token buckets refilled at the quotas. A request
+ * the buckets can't pay for waits in the queue of its priority: the HIGH requests, e.g. the turns of a payment in
+ * progress, are admitted before the NORMAL ones, and within a priority the users are served in turn, so a user sending
+ * many requests doesn't delay the others. A request is rejected at once when its estimated wait exceeds the maximum
+ * queue wait, or when its user already has too many queued requests, with the time after which the quota should
+ * allow it.
+ * <p>
+ * The lock is not a monitor: a virtual thread waiting on a monitor would pin its carrier thread.
+ */
+public class AdmissionController {
+
+    public enum Priority { HIGH, NORMAL }
+
+    /**
+     * Notified of the admissions and rejections, e.g. to export them as metrics.
+     */
+    public interface Listener {
+
+        default void admitted(Priority priority, long waitNanos) {
+        }
+
+        default void rejected(Priority priority, String reason) {
+        }
+    }
+
+    private static final class Waiter {
+        final FairQueue queue;
+        final String user;
+        final long tokens;
+        final long requests;
+        final Condition admission;
+        boolean admitted;
+
+        Waiter(FairQueue queue, String user, long tokens, long requests, Condition admission) {
+            this.queue = queue;
+            this.user = user;
+            this.tokens = tokens;
+            this.requests = requests;
+            this.admission = admission;
+        }
+    }
+
+    /**
+     * Waiters of a priority, served one request per user in turn.
+     */
+    private static final class FairQueue {
+        final Map<String, ArrayDeque<Waiter>> waitersByUser = new HashMap<>();
+        final ArrayDeque<String> users = new ArrayDeque<>();
+        long tokens;
+        long requests;
+        int size;
+
+        void add(Waiter waiter) {
+            ArrayDeque<Waiter> waiters = waitersByUser.computeIfAbsent(waiter.user, user -> new ArrayDeque<>());
+            if (waiters.isEmpty())
+                users.addLast(waiter.user);
+            waiters.addLast(waiter);
+            tokens += waiter.tokens;
+            requests += waiter.requests;
+            size++;
+        }
+
+        Waiter peek() {
+            String user = users.peekFirst();
+            return user == null ? null : waitersByUser.get(user).peekFirst();
+        }
+
+        void remove(Waiter waiter) {
+            ArrayDeque<Waiter> waiters = waitersByUser.get(waiter.user);
+            boolean first = waiters != null && waiters.peekFirst() == waiter;
+            if (waiters == null || !waiters.remove(waiter))
+                return;
+            if (waiters.isEmpty()) {
+                waitersByUser.remove(waiter.user);
+                users.remove(waiter.user);
+            } else if (first) {
+                // the next request of the user waits for the other users
+                users.remove(waiter.user);
+                users.addLast(waiter.user);
+            }
+            tokens -= waiter.tokens;
+            requests -= waiter.requests;
+            size--;
+        }
+
+        int queued(String user) {
+            ArrayDeque<Waiter> waiters = waitersByUser.get(user);
+            return waiters == null ? 0 : waiters.size();
+        }
+    }
+
+    private final TokenBucket tokenBucket;
+    private final TokenBucket requestBucket;
+    private final long maxQueueWaitNanos;
+    private final int maxQueuedPerUser;
+    private final Listener listener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, FairQueue> queues = new EnumMap<>(Priority.class);
+
+    private AdmissionController(Builder builder) {
+        long now = System.nanoTime();
+        long burstNanos = builder.burst.toNanos();
+        this.tokenBucket = new TokenBucket(builder.tokensPerMinute,
+                Math.max(1, builder.tokensPerMinute * burstNanos / TimeUnit.MINUTES.toNanos(1)), now);
+        this.requestBucket = new TokenBucket(builder.requestsPerMinute,
+                Math.max(1, builder.requestsPerMinute * burstNanos / TimeUnit.MINUTES.toNanos(1)), now);
+        this.maxQueueWaitNanos = builder.maxQueueWait.toNanos();
+        this.maxQueuedPerUser = builder.maxQueuedPerUser;
+        this.listener = builder.listener;
+        for (Priority priority : Priority.values())
+            queues.put(priority, new FairQueue());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Waits until the request can be admitted, charging its estimated tokens and model calls to the quotas.
+     *
+     * @throws AdmissionRejectedException when the request can't be admitted within the maximum queue wait
+     */
+    public void admit(String user, Priority priority, long estimatedTokens, int modelCalls) {
+        long start = System.nanoTime();
+        long tokens = Math.max(1, estimatedTokens);
+        long requests = Math.max(1, modelCalls);
+        lock.lock();
+        try {
+            if (queuedAhead(priority) == 0 && affordable(tokens, requests, start)) {
+                consume(tokens, requests, start);
+                listener.admitted(priority, 0);
+                return;
+            }
+            FairQueue queue = queues.get(priority);
+            if (queue.queued(user) >= maxQueuedPerUser)
+                throw reject(priority, "user-queue-full", estimatedWaitNanos(priority, tokens, requests, start),
+                        "Too many chat requests of user %s waiting for the OpenAI quota".formatted(user));
+            long estimatedWait = estimatedWaitNanos(priority, tokens, requests, start);
+            if (estimatedWait > maxQueueWaitNanos)
+                throw reject(priority, "quota", estimatedWait,
+                        "OpenAI quota exhausted, estimated wait %d ms".formatted(TimeUnit.NANOSECONDS.toMillis(estimatedWait)));
+
+            Waiter waiter = new Waiter(queue, user, tokens, requests, lock.newCondition());
+            queue.add(waiter);
+            long deadline = start + maxQueueWaitNanos;
+            while (true) {
+                long now = System.nanoTime();
+                dispatch(now);
+                if (waiter.admitted) {
+                    listener.admitted(priority, now - start);
+                    return;
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    queue.remove(waiter);
+                    // the requests behind may be affordable now
+                    dispatch(now);
+                    throw reject(priority, "timeout", estimatedWaitNanos(priority, tokens, requests, now),
+                            "Chat request not admitted within %d ms".formatted(TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos)));
+                }
+                try {
+                    waiter.admission.awaitNanos(Math.min(remaining, Math.max(TimeUnit.MILLISECONDS.toNanos(1), nanosUntilNextAdmission(now))));
+                } catch (InterruptedException e) {
+                    if (!waiter.admitted)
+                        queue.remove(waiter);
+                    Thread.currentThread().interrupt();
+                    throw reject(priority, "interrupted", 0, "Interrupted waiting for admission");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued(Priority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long availableTokens() {
+        lock.lock();
+        try {
+            return tokenBucket.available(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits the waiters in order while the buckets can pay for the next one: the order is kept, so a large request
+     * is not starved by smaller ones behind it.
+     */
+    private void dispatch(long now) {
+        while (true) {
+            Waiter next = nextWaiter();
+            if (next == null || !affordable(next.tokens, next.requests, now))
+                return;
+            consume(next.tokens, next.requests, now);
+            next.queue.remove(next);
+            next.admitted = true;
+            next.admission.signal();
+        }
+    }
+
+    private Waiter nextWaiter() {
+        for (Priority priority : Priority.values()) {
+            Waiter waiter = queues.get(priority).peek();
+            if (waiter != null)
+                return waiter;
+        }
+        return null;
+    }
+
+    private long nanosUntilNextAdmission(long now) {
+        Waiter next = nextWaiter();
+        if (next == null)
+            return 0;
+        return Math.max(tokenBucket.nanosUntil(next.tokens, now), requestBucket.nanosUntil(next.requests, now));
+    }
+
+    private int queuedAhead(Priority priority) {
+        int queued = 0;
+        for (Priority ahead : Priority.values()) {
+            queued += queues.get(ahead).size;
+            if (ahead == priority)
+                break;
+        }
+        return queued;
+    }
+
+    /**
+     * Time for the quotas to pay for the requests queued with the same or a higher priority, then for this one: the
+     * requests of other users may be admitted before, so it's an upper bound unless higher priority requests arrive.
+     */
+    private long estimatedWaitNanos(Priority priority, long tokens, long requests, long now) {
+        long queuedTokens = 0;
+        long queuedRequests = 0;
+        for (Priority ahead : Priority.values()) {
+            queuedTokens += queues.get(ahead).tokens;
+            queuedRequests += queues.get(ahead).requests;
+            if (ahead == priority)
+                break;
+        }
+        return Math.max(tokenBucket.nanosUntil(queuedTokens, tokens, now), requestBucket.nanosUntil(queuedRequests, requests, now));
+    }
+
+    private boolean affordable(long tokens, long requests, long now) {
+        return tokenBucket.nanosUntil(tokens, now) == 0 && requestBucket.nanosUntil(requests, now) == 0;
+    }
+
+    private void consume(long tokens, long requests, long now) {
+        tokenBucket.tryConsume(tokens, now);
+        requestBucket.tryConsume(requests, now);
+    }
+
+    private AdmissionRejectedException reject(Priority priority, String reason, long retryAfterNanos, String message) {
+        listener.rejected(priority, reason);
+        return new AdmissionRejectedException(message, Duration.ofNanos(retryAfterNanos));
+    }
+
+    public static class Builder {
+        private long tokensPerMinute;
+        private long requestsPerMinute;
+        private Duration burst = Duration.ofSeconds(1);
+        private Duration maxQueueWait = Duration.ofSeconds(10);
+        private int maxQueuedPerUser = 3;
+        private Listener listener = new Listener() {
+        };
+
+        public Builder tokensPerMinute(long tokensPerMinute) {
+            if (tokensPerMinute <= 0)
+                throw new IllegalArgumentException("tokensPerMinute must be positive");
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        public Builder requestsPerMinute(long requestsPerMinute) {
+            if (requestsPerMinute <= 0)
+                throw new IllegalArgumentException("requestsPerMinute must be positive");
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+
+        /**
+         * Quota that can be spent at once after an idle period: Azure OpenAI enforces the per minute quotas over
+         * shorter windows, so a full minute of quota sent at once is throttled. Over a window, the admitted amount is
+         * at most the burst plus the rate times the window.
+         */
+        public Builder burst(Duration burst) {
+            if (burst.isNegative() || burst.isZero())
+                throw new IllegalArgumentException("burst must be positive");
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Latency target of the queue: the requests that would wait longer are rejected.
+         */
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            if (maxQueueWait.isNegative())
+                throw new IllegalArgumentException("maxQueueWait must not be negative");
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        public Builder maxQueuedPerUser(int maxQueuedPerUser) {
+            if (maxQueuedPerUser <= 0)
+                throw new IllegalArgumentException("maxQueuedPerUser must be positive");
+            this.maxQueuedPerUser = maxQueuedPerUser;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public AdmissionController build() {
+            if (tokensPerMinute <= 0 || requestsPerMinute <= 0)
+                throw new IllegalArgumentException("tokensPerMinute and requestsPerMinute must be set");
+            return new AdmissionController(this);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.admission;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a chat request is not admitted within the queue wait target: the client may retry after the estimated
+ * time for the deployment quota to allow it.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * The retry delay in whole seconds, at least 1, for the Retry-After header.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.admission;
+
+import com.microsoft.openai.samples.assistant.admission.AdmissionController.Priority;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.Tokenizer;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cost and priority of a chat request for the {@link AdmissionController}.
+ * <p>
+ * The cost is estimated before the agents run: each model call of the request sends the last messages of the
+ * conversation, which the agents keep in a window of 20 messages, with the system prompt and the tool schemas, and
+ * generates a completion.
+ * <p>
+ * The turns of a payment in progress have the HIGH priority: a user who already went through the payment steps is
+ * not dropped in favor of new questions. A payment is in progress when a tool of the payment flow was called in the
+ * last turns and the payment was not submitted after it.
+ */
+public class ChatAdmissionPolicy {
+
+    private static final int AGENT_MEMORY_MESSAGES = 20;
+
+    private final Tokenizer tokenizer;
+    private final int modelCallsPerRequest;
+    private final int promptOverheadTokens;
+    private final int completionTokens;
+    private final Set<String> paymentFlowTools;
+    private final Set<String> paymentSubmitTools;
+    private final int paymentFlowTurns;
+
+    public ChatAdmissionPolicy(Tokenizer tokenizer, int modelCallsPerRequest, int promptOverheadTokens, int completionTokens,
+                               Set<String> paymentFlowTools, Set<String> paymentSubmitTools, int paymentFlowTurns) {
+        if (modelCallsPerRequest <= 0)
+            throw new IllegalArgumentException("modelCallsPerRequest must be positive");
+        this.tokenizer = tokenizer;
+        this.modelCallsPerRequest = modelCallsPerRequest;
+        this.promptOverheadTokens = promptOverheadTokens;
+        this.completionTokens = completionTokens;
+        this.paymentFlowTools = Set.copyOf(paymentFlowTools);
+        this.paymentSubmitTools = Set.copyOf(paymentSubmitTools);
+        this.paymentFlowTurns = paymentFlowTurns;
+    }
+
+    public int modelCalls() {
+        return modelCallsPerRequest;
+    }
+
+    /**
+     * Tokens of all the model calls of the request, prompts and completions, for the conversation ending with the
+     * new user turn.
+     */
+    public long estimatedTokens(List<ChatMessage> chatHistory) {
+        List<ChatMessage> window = chatHistory.subList(Math.max(0, chatHistory.size() - AGENT_MEMORY_MESSAGES), chatHistory.size());
+        long promptTokens = tokenizer.estimateTokenCountInMessages(window) + promptOverheadTokens;
+        return modelCallsPerRequest * (promptTokens + completionTokens);
+    }
+
+    public Priority priority(List<ChatMessage> chatHistory) {
+        int turns = 0;
+        // from the last tool calls of the previous turns, the new user turn is the last message
+        for (int i = chatHistory.size() - 2; i >= 0 && turns < paymentFlowTurns; i--) {
+            ChatMessage message = chatHistory.get(i);
+            if (message instanceof UserMessage) {
+                turns++;
+                continue;
+            }
+            if (!(message instanceof AiMessage aiMessage) || !aiMessage.hasToolExecutionRequests())
+                continue;
+            List<String> tools = aiMessage.toolExecutionRequests().stream().map(ToolExecutionRequest::name).toList();
+            if (tools.stream().anyMatch(paymentSubmitTools::contains))
+                return Priority.NORMAL;
+            if (tools.stream().anyMatch(paymentFlowTools::contains))
+                return Priority.HIGH;
+        }
+        return Priority.NORMAL;
+    }
+}
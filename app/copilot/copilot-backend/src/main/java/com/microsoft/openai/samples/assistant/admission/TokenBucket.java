@@ -0,0 +1,62 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.admission;
+
+/**
+ * Token bucket refilled continuously at a rate per minute, up to its capacity. An amount larger than the capacity is
+ * consumed once the bucket is full and leaves it in debt, so the large requests are delayed instead of never admitted
+ * and the rate is still kept. Not thread safe: guarded by the lock of the {@link AdmissionController}.
+ */
+final class TokenBucket {
+
+    private final long capacity;
+    private final double refillPerNano;
+    private double available;
+    private long refilledAt;
+
+    TokenBucket(long perMinute, long capacity, long now) {
+        if (perMinute <= 0 || capacity <= 0)
+            throw new IllegalArgumentException("perMinute and capacity must be positive");
+        this.capacity = capacity;
+        this.refillPerNano = perMinute / 60e9;
+        this.available = capacity;
+        this.refilledAt = now;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long available(long now) {
+        refill(now);
+        return (long) available;
+    }
+
+    boolean tryConsume(long amount, long now) {
+        refill(now);
+        if (available < Math.min(amount, capacity))
+            return false;
+        available -= amount;
+        return true;
+    }
+
+    /**
+     * Time until the amount can be consumed, when nothing else is consumed meanwhile.
+     */
+    long nanosUntil(long amount, long now) {
+        return nanosUntil(0, amount, now);
+    }
+
+    /**
+     * Time until the amount can be consumed after the amount consumed before it.
+     */
+    long nanosUntil(long before, long amount, long now) {
+        refill(now);
+        double missing = before + Math.min(amount, capacity) - available;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerNano);
+    }
+
+    private void refill(long now) {
+        available = Math.min(capacity, available + (now - refilledAt) * refillPerNano);
+        refilledAt = now;
+    }
+}
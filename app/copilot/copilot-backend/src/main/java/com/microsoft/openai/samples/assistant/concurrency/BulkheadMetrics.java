@@ -0,0 +1,32 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.concurrency;
+
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Meters of the bulkheads limiting the concurrent calls to the downstream services, by downstream: the calls in
+ * progress, the calls waiting for a permit and the calls rejected after the maximum wait.
+ */
+public final class BulkheadMetrics {
+
+    private BulkheadMetrics() {
+    }
+
+    public static void register(MeterRegistry meterRegistry, String downstream, Bulkhead bulkhead) {
+        Gauge.builder("copilot.bulkhead.active", bulkhead, Bulkhead::activeCalls)
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("copilot.bulkhead.waiting", bulkhead, Bulkhead::waitingCalls)
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("copilot.bulkhead.limit", bulkhead, Bulkhead::maxConcurrentCalls)
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        FunctionCounter.builder("copilot.bulkhead.rejections", bulkhead, Bulkhead::rejections)
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+    }
+}
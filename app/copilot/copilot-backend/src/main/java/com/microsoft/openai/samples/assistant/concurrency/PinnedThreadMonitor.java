@@ -0,0 +1,110 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the virtual threads pinning their carrier thread, i.e. blocking inside a synchronized block or a native
+ * frame: a pinned carrier can't run other virtual threads, so frequent pinning brings back the limits of the platform
+ * threads. It streams the jdk.VirtualThreadPinned JFR events longer than the threshold, records them in the
+ * copilot.virtual.pinned timer by source library (langchain4j, MCP client, Azure SDK, copilot or other) and logs the
+ * stack of each new pinning site once.
+ * <p>
+ * Active only when the virtual threads are enabled, with spring.threads.virtual.enabled on Java 21 or later.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinnedThreadMonitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    // the first frame from the top of the stack in one of these packages gives the source of the pinning
+    private static final Map<String, String> SOURCES = new LinkedHashMap<>();
+    static {
+        SOURCES.put("dev.langchain4j.mcp.", "mcp-client");
+        SOURCES.put("okhttp3.", "mcp-client");
+        SOURCES.put("dev.langchain4j.", "langchain4j");
+        SOURCES.put("com.azure.", "azure-sdk");
+        SOURCES.put("reactor.", "azure-sdk");
+        SOURCES.put("io.netty.", "azure-sdk");
+        SOURCES.put("com.microsoft.", "copilot");
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream recording;
+
+    @Value("${copilot.virtual-threads.pinned-threshold:20ms}") Duration threshold;
+
+    public PinnedThreadMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::pinned);
+        recording.startAsync();
+        LOGGER.info("Reporting the virtual threads pinned for more than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null)
+            recording.close();
+    }
+
+    private void pinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String source = "other";
+        String site = "unknown";
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame())
+                continue;
+            String type = frame.getMethod().getType().getName();
+            String match = SOURCES.entrySet().stream().filter(entry -> type.startsWith(entry.getKey())).map(Map.Entry::getValue).findFirst().orElse(null);
+            if (match != null) {
+                source = match;
+                site = type + "." + frame.getMethod().getName();
+                break;
+            }
+        }
+        Timer.builder("copilot.virtual.pinned")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reportedSites.add(site)) {
+            String stack = frames.stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                    .collect(Collectors.joining("\n"));
+            LOGGER.warn("Virtual thread pinned for {} ms in {} ({}), further pinning at this site is only counted:\n{}",
+                    event.getDuration().toMillis(), site, source, stack);
+        }
+    }
+}
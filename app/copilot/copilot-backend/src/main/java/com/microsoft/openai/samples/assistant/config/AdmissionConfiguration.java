@@ -0,0 +1,120 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.config;
+
+import com.microsoft.openai.samples.assistant.admission.AdmissionController;
+import com.microsoft.openai.samples.assistant.admission.AdmissionController.Priority;
+import com.microsoft.openai.samples.assistant.admission.ChatAdmissionPolicy;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.azure.AzureOpenAiTokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control of the chat requests within the quotas of the OpenAI deployment, with the copilot.admission.*
+ * metrics by priority: the requests admitted and rejected, the queue wait and the queued requests.
+ */
+@Configuration
+@ConditionalOnProperty(name = "copilot.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionConfiguration.class);
+
+    // capacity of the deployment, in thousands of tokens per minute
+    @Value("${copilot.admission.deployment-capacity}") int deploymentCapacity;
+    @Value("${copilot.admission.requests-per-thousand-tokens}") int requestsPerThousandTokens;
+    // share of the quota used by this replica, lower it when several replicas share the deployment
+    @Value("${copilot.admission.quota-share}") double quotaShare;
+    @Value("${copilot.admission.burst}") Duration burst;
+    @Value("${copilot.admission.max-queue-wait}") Duration maxQueueWait;
+    @Value("${copilot.admission.max-queued-per-user}") int maxQueuedPerUser;
+    @Value("${copilot.admission.model-calls-per-request}") int modelCallsPerRequest;
+    // system prompt and tool schemas of a model call
+    @Value("${copilot.admission.prompt-overhead-tokens}") int promptOverheadTokens;
+    @Value("${copilot.admission.completion-tokens}") int completionTokens;
+    @Value("${copilot.admission.payment-flow-tools}") String paymentFlowTools;
+    @Value("${copilot.admission.payment-submit-tools}") String paymentSubmitTools;
+    @Value("${copilot.admission.payment-flow-turns}") int paymentFlowTurns;
+    @Value("${openai.chatgpt.deployment}") String deployment;
+
+    @Bean
+    public AdmissionController admissionController(MeterRegistry meterRegistry) {
+        long tokensPerMinute = (long) (deploymentCapacity * 1000L * quotaShare);
+        long requestsPerMinute = (long) (deploymentCapacity * (long) requestsPerThousandTokens * quotaShare);
+        LOGGER.info("Admission of the chat requests within {} tokens and {} requests per minute", tokensPerMinute, requestsPerMinute);
+        AdmissionController admissionController = AdmissionController.builder()
+                .tokensPerMinute(tokensPerMinute)
+                .requestsPerMinute(requestsPerMinute)
+                .burst(burst)
+                .maxQueueWait(maxQueueWait)
+                .maxQueuedPerUser(maxQueuedPerUser)
+                .listener(new MetricsListener(meterRegistry))
+                .build();
+        for (Priority priority : Priority.values())
+            Gauge.builder("copilot.admission.queued", admissionController, controller -> controller.queued(priority))
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+        Gauge.builder("copilot.admission.tokens.available", admissionController, AdmissionController::availableTokens)
+                .register(meterRegistry);
+        return admissionController;
+    }
+
+    @Bean
+    public ChatAdmissionPolicy chatAdmissionPolicy() {
+        return new ChatAdmissionPolicy(tokenizer(), modelCallsPerRequest, promptOverheadTokens, completionTokens,
+                split(paymentFlowTools), split(paymentSubmitTools), paymentFlowTurns);
+    }
+
+    // the deployment is usually named after its model
+    private Tokenizer tokenizer() {
+        try {
+            return new AzureOpenAiTokenizer(deployment);
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("No tokenizer for deployment {}, the tokens are estimated with the gpt-4o one", deployment);
+            return new AzureOpenAiTokenizer("gpt-4o");
+        }
+    }
+
+    private static Set<String> split(String values) {
+        return Arrays.stream(values.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    private record MetricsListener(MeterRegistry meterRegistry) implements AdmissionController.Listener {
+
+        @Override
+        public void admitted(Priority priority, long waitNanos) {
+            Counter.builder("copilot.admission.admitted")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry)
+                    .increment();
+            Timer.builder("copilot.admission.wait")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry)
+                    .record(waitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void rejected(Priority priority, String reason) {
+            Counter.builder("copilot.admission.rejected")
+                    .tag("priority", priority.name())
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
@@ -5,13 +5,17 @@ import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.policy.FixedDelayOptions;
 import com.azure.core.http.policy.HttpLogDetailLevel;
 import com.azure.core.http.policy.HttpLogOptions;
+import com.azure.core.http.policy.RetryOptions;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class AzureOpenAIConfiguration {
 
@@ -21,6 +25,9 @@ public class AzureOpenAIConfiguration {
     @Value("${openai.chatgpt.deployment}")
     private String gptChatDeploymentModelId;
 
+    @Value("${openai.tracing.enabled}")
+    boolean tracingEnabled;
+
     final TokenCredential tokenCredential;
 
     public AzureOpenAIConfiguration(TokenCredential tokenCredential) {
@@ -79,4 +86,18 @@ public class AzureOpenAIConfiguration {
                 .credential(tokenCredential)
                 .buildAsyncClient();
     }
+
+    /**
+     * Client of a deployment behind the load balanced chat model: it doesn't retry, the load balancer retries the
+     * failed calls on another deployment and waits for the retry-after of the 429s.
+     */
+    public OpenAIClient createLoadBalancedClient(String serviceName) {
+        OpenAIClientBuilder builder = new OpenAIClientBuilder()
+                .endpoint("https://%s.openai.azure.com".formatted(serviceName))
+                .credential(tokenCredential)
+                .retryOptions(new RetryOptions(new FixedDelayOptions(0, Duration.ofMillis(1))));
+        if (tracingEnabled)
+            builder.httpLogOptions(new HttpLogOptions().setLogLevel(HttpLogDetailLevel.BODY));
+        return builder.buildClient();
+    }
 }
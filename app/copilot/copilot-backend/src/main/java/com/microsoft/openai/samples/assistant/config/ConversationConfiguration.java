@@ -0,0 +1,46 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.config;
+
+import com.microsoft.openai.samples.assistant.conversation.ConversationStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Server-side conversation history, with the copilot.conversations.* metrics: the conversations in memory, and the
+ * conversations evicted, spilled to disk and read back from it.
+ */
+@Configuration
+public class ConversationConfiguration {
+
+    // estimated size of all the conversations in memory
+    @Value("${copilot.conversations.max-memory}") DataSize maxMemory;
+    @Value("${copilot.conversations.idle-timeout}") Duration idleTimeout;
+    // last messages kept by conversation, the agents only send the last 20 to the model
+    @Value("${copilot.conversations.max-messages}") int maxMessages;
+    // empty to drop the evicted conversations instead of spilling them
+    @Value("${copilot.conversations.spill-directory:}") String spillDirectory;
+    @Value("${copilot.conversations.spill-retention}") Duration spillRetention;
+
+    @Bean
+    public ConversationStore conversationStore(MeterRegistry meterRegistry) {
+        ConversationStore store = new ConversationStore(maxMemory.toBytes(), idleTimeout, maxMessages,
+                spillDirectory.isBlank() ? null : Path.of(spillDirectory), spillRetention);
+        Gauge.builder("copilot.conversations.active", store, ConversationStore::size)
+                .register(meterRegistry);
+        FunctionCounter.builder("copilot.conversations.evictions", store, ConversationStore::evictions)
+                .register(meterRegistry);
+        FunctionCounter.builder("copilot.conversations.spills", store, ConversationStore::spills)
+                .register(meterRegistry);
+        FunctionCounter.builder("copilot.conversations.restores", store, ConversationStore::restores)
+                .register(meterRegistry);
+        return store;
+    }
+}
@@ -4,18 +4,33 @@ package com.microsoft.openai.samples.assistant.config;
 import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
 import com.azure.ai.documentintelligence.DocumentIntelligenceClientBuilder;
 import com.azure.core.credential.TokenCredential;
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.openai.samples.assistant.concurrency.BulkheadMetrics;
 import com.microsoft.openai.samples.assistant.invoice.DocumentIntelligenceInvoiceScanHelper;
 import com.microsoft.openai.samples.assistant.proxy.BlobStorageProxy;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
 @Configuration
 public class DocumentIntelligenceInvoiceScanConfiguration {
 
     @Value("${documentintelligence.service}")
     String documentIntelligenceServiceName;
 
+    // concurrent invoice scans: each one polls the analysis until it completes
+    @Value("${documentintelligence.max-concurrent-calls}")
+    int maxConcurrentCalls;
+
+    @Value("${documentintelligence.max-wait}")
+    Duration maxWait;
+
     final TokenCredential tokenCredential;
 
     public DocumentIntelligenceInvoiceScanConfiguration(TokenCredential tokenCredential) {
@@ -23,7 +38,7 @@ public class DocumentIntelligenceInvoiceScanConfiguration {
     }
 
     @Bean
-    public DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper(BlobStorageProxy blobStorageProxy) {
+    public DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper(BlobStorageProxy blobStorageProxy, MeterRegistry meterRegistry) {
 
         String endpoint = "https://%s.cognitiveservices.azure.com".formatted(documentIntelligenceServiceName);
 
@@ -32,7 +47,29 @@ public class DocumentIntelligenceInvoiceScanConfiguration {
                 .endpoint(endpoint)
                 .buildClient();
 
-            return new DocumentIntelligenceInvoiceScanHelper(documentIntelligenceClient,blobStorageProxy);
+        Bulkhead bulkhead = new Bulkhead("Document Intelligence", maxConcurrentCalls, maxWait);
+        BulkheadMetrics.register(meterRegistry, "document-intelligence", bulkhead);
+        return new DocumentIntelligenceInvoiceScanHelper(documentIntelligenceClient,blobStorageProxy) {
+            @Override
+            public Map<String, String> scan(String blobName) throws IOException {
+                bulkhead.acquire();
+                try {
+                    return super.scan(blobName);
+                } finally {
+                    bulkhead.release();
+                }
+            }
+
+            @Override
+            public Map<String, String> scan(File file) throws IOException {
+                bulkhead.acquire();
+                try {
+                    return super.scan(file);
+                } finally {
+                    bulkhead.release();
+                }
+            }
+        };
     }
 
 }
@@ -3,29 +3,162 @@ package com.microsoft.openai.samples.assistant.config;
 
 
 import com.azure.ai.openai.OpenAIClient;
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.langchain4j.agent.concurrency.ConcurrencyLimitedChatModel;
+import com.microsoft.langchain4j.agent.loadbalancing.LoadBalancedChatModel;
+import com.microsoft.langchain4j.agent.loadbalancing.ModelDeployment;
+import com.microsoft.openai.samples.assistant.concurrency.BulkheadMetrics;
 
 import dev.langchain4j.model.azure.AzureOpenAiChatModel;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 @Configuration
 public class Langchain4JConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Langchain4JConfiguration.class);
 
     @Value("${openai.chatgpt.deployment}")
     private String gptChatDeploymentModelId;
 
+    // deployments the model calls are load balanced across, as service/deployment[:weight], e.g. the same model in
+    // several regions weighted by their quotas: openai.service and openai.chatgpt.deployment only when empty
+    @Value("${openai.chatgpt.deployments}")
+    private String gptChatDeployments;
+
+    @Value("${openai.chatgpt.hedging.enabled}")
+    private boolean hedgingEnabled;
+
+    @Value("${openai.chatgpt.hedge-percentile}")
+    private double hedgePercentile;
+
+    @Value("${openai.chatgpt.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${openai.chatgpt.max-retry-wait}")
+    private Duration maxRetryWait;
+
+    @Value("${openai.chatgpt.breaker.failure-rate-threshold}")
+    private double breakerFailureRateThreshold;
+
+    @Value("${openai.chatgpt.breaker.window-size}")
+    private int breakerWindowSize;
+
+    @Value("${openai.chatgpt.breaker.minimum-calls}")
+    private int breakerMinimumCalls;
+
+    @Value("${openai.chatgpt.breaker.open-duration}")
+    private Duration breakerOpenDuration;
+
+    // concurrent calls to each deployment: the model calls beyond the sum over the deployments wait for a permit up
+    // to the max wait
+    @Value("${openai.chatgpt.max-concurrent-calls}")
+    private int maxConcurrentCalls;
+
+    @Value("${openai.chatgpt.max-wait}")
+    private Duration maxWait;
+
     @Bean
-    public ChatLanguageModel chatLanguageModel(OpenAIClient azureOpenAICLient) {
+    public ChatLanguageModel chatLanguageModel(OpenAIClient azureOpenAICLient, AzureOpenAIConfiguration azureOpenAIConfiguration,
+                                               MeterRegistry meterRegistry, Environment environment) {
+
+        List<String> deployments = Arrays.stream(gptChatDeployments.split(","))
+                .map(String::trim)
+                .filter(deployment -> !deployment.isEmpty())
+                .toList();
+        ChatLanguageModel chatModel;
+        Bulkhead bulkhead;
+        if (deployments.isEmpty()) {
+            chatModel = createChatModel(azureOpenAICLient, gptChatDeploymentModelId);
+            bulkhead = new Bulkhead("OpenAI deployment " + gptChatDeploymentModelId, maxConcurrentCalls, maxWait);
+        } else {
+            bulkhead = new Bulkhead("OpenAI deployments " + deployments, maxConcurrentCalls * deployments.size(), maxWait);
+            chatModel = createLoadBalancedChatModel(deployments, bulkhead, azureOpenAIConfiguration, meterRegistry, environment);
+        }
+        BulkheadMetrics.register(meterRegistry, "openai", bulkhead);
+        return new ConcurrencyLimitedChatModel(chatModel, bulkhead);
+    }
 
+    private LoadBalancedChatModel createLoadBalancedChatModel(List<String> deployments, Bulkhead bulkhead,
+                                                              AzureOpenAIConfiguration azureOpenAIConfiguration,
+                                                              MeterRegistry meterRegistry, Environment environment) {
+        LoadBalancedChatModel.Builder builder = LoadBalancedChatModel.builder()
+                .hedging(hedgingEnabled)
+                .hedgeBulkhead(bulkhead)
+                .hedgePercentile(hedgePercentile)
+                .maxAttempts(maxAttempts)
+                .maxRetryWait(maxRetryWait)
+                .circuitBreaker(breakerFailureRateThreshold, breakerWindowSize, breakerMinimumCalls, breakerOpenDuration);
+        if (Threading.VIRTUAL.isActive(environment))
+            builder.threadFactory(new VirtualThreadTaskExecutor("openai-call-").getVirtualThreadFactory());
+        // one client by service, shared by its deployments
+        Map<String, OpenAIClient> clients = new HashMap<>();
+        for (String deployment : deployments) {
+            String[] serviceAndDeployment = deployment.split("/");
+            if (serviceAndDeployment.length != 2)
+                throw new IllegalArgumentException("Invalid OpenAI deployment, expected service/deployment[:weight]: " + deployment);
+            String service = serviceAndDeployment[0];
+            String[] nameAndWeight = serviceAndDeployment[1].split(":");
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1]) : 1;
+            OpenAIClient client = clients.computeIfAbsent(service, azureOpenAIConfiguration::createLoadBalancedClient);
+            builder.deployment(service + "/" + nameAndWeight[0], createChatModel(client, nameAndWeight[0]), weight);
+        }
+        LoadBalancedChatModel chatModel = builder.build();
+        LOGGER.info("Model calls load balanced across the OpenAI deployments {}",
+                chatModel.deployments().stream().map(deployment -> deployment.name() + ":" + deployment.weight()).toList());
+        chatModel.deployments().forEach(deployment -> registerMetrics(meterRegistry, deployment));
+        return chatModel;
+    }
+
+    private static ChatLanguageModel createChatModel(OpenAIClient client, String deploymentName) {
         return AzureOpenAiChatModel.builder()
-                .openAIClient(azureOpenAICLient)
-                .deploymentName(gptChatDeploymentModelId)
+                .openAIClient(client)
+                .deploymentName(deploymentName)
                 .temperature(0.3)
                 .logRequestsAndResponses(true)
                 .build();
     }
 
-
+    private static void registerMetrics(MeterRegistry meterRegistry, ModelDeployment deployment) {
+        Gauge.builder("openai.deployment.outstanding", deployment, ModelDeployment::outstanding)
+                .tag("deployment", deployment.name())
+                .register(meterRegistry);
+        // 0 closed, 1 half open, 2 open
+        Gauge.builder("openai.deployment.breaker.state", deployment, d -> d.circuitBreakerState().ordinal())
+                .tag("deployment", deployment.name())
+                .register(meterRegistry);
+        TimeGauge.builder("openai.deployment.throttled.for", deployment, TimeUnit.MILLISECONDS, d -> d.throttledFor().toMillis())
+                .tag("deployment", deployment.name())
+                .register(meterRegistry);
+        TimeGauge.builder("openai.deployment.latency.p95", deployment, TimeUnit.MILLISECONDS, d -> d.latencyPercentile(0.95).toMillis())
+                .tag("deployment", deployment.name())
+                .register(meterRegistry);
+        Map<String, ToDoubleFunction<ModelDeployment>> counts = Map.of(
+                "openai.deployment.calls", ModelDeployment::calls,
+                "openai.deployment.failures", ModelDeployment::failures,
+                "openai.deployment.throttled", ModelDeployment::throttled,
+                "openai.deployment.hedges", ModelDeployment::hedges,
+                "openai.deployment.hedge.wins", ModelDeployment::hedgeWins);
+        counts.forEach((name, count) -> FunctionCounter.builder(name, deployment, count)
+                .tag("deployment", deployment.name())
+                .register(meterRegistry));
+    }
 }
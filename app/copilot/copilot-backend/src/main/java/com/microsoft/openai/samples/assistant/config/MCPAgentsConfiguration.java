@@ -1,6 +1,10 @@
 // Copyright (c) Microsoft. All rights reserved.
 package com.microsoft.openai.samples.assistant.config;
 
+import com.microsoft.langchain4j.agent.AbstractReActAgent;
+import com.microsoft.langchain4j.agent.mcp.MCPToolAgent;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import com.microsoft.langchain4j.agent.tools.RuleBasedToolSelector;
 import com.microsoft.openai.samples.assistant.invoice.DocumentIntelligenceInvoiceScanHelper;
 import com.microsoft.openai.samples.assistant.langchain4j.agent.SupervisorAgent;
 import com.microsoft.openai.samples.assistant.langchain4j.agent.mcp.AccountMCPAgent;
@@ -8,12 +12,20 @@ import com.microsoft.openai.samples.assistant.langchain4j.agent.mcp.PaymentMCPAg
 import com.microsoft.openai.samples.assistant.langchain4j.agent.mcp.TransactionHistoryMCPAgent;
 import com.microsoft.openai.samples.assistant.security.LoggedUserService;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * The MCP agents, with the copilot.tools.selection.* counters of the agents selecting their tools: the model calls
+ * and the tool schema tokens not sent to the model.
+ */
 @Configuration
 public class MCPAgentsConfiguration {
     @Value("${transactions.api.url}") String transactionsMCPServerUrl;
@@ -23,25 +35,77 @@ public class MCPAgentsConfiguration {
     private final ChatLanguageModel chatLanguageModel;
     private final LoggedUserService loggedUserService;
     private final DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper;
+    private final McpToolCallExecutor mcpToolCallExecutor;
+    private final MeterRegistry meterRegistry;
 
-    public MCPAgentsConfiguration(ChatLanguageModel chatLanguageModel, LoggedUserService loggedUserService, DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper) {
+    public MCPAgentsConfiguration(ChatLanguageModel chatLanguageModel, LoggedUserService loggedUserService, DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper, McpToolCallExecutor mcpToolCallExecutor, MeterRegistry meterRegistry) {
         this.chatLanguageModel = chatLanguageModel;
         this.loggedUserService = loggedUserService;
         this.documentIntelligenceInvoiceScanHelper = documentIntelligenceInvoiceScanHelper;
+        this.mcpToolCallExecutor = mcpToolCallExecutor;
+        this.meterRegistry = meterRegistry;
     }
     @Bean
     public AccountMCPAgent accountMCPAgent() {
-        return new AccountMCPAgent(chatLanguageModel, loggedUserService.getLoggedUser().username(), accountsMCPServerUrl);
+        return withToolSelectionMetrics(accountMCPAgent(chatLanguageModel));
     }
 
     @Bean
     public TransactionHistoryMCPAgent transactionHistoryMCPAgent() {
-        return new TransactionHistoryMCPAgent(chatLanguageModel, loggedUserService.getLoggedUser().username(), transactionsMCPServerUrl,accountsMCPServerUrl);
+        return withToolSelectionMetrics(transactionHistoryMCPAgent(chatLanguageModel));
     }
 
     @Bean
     public PaymentMCPAgent paymentMCPAgent() {
-        return new PaymentMCPAgent(chatLanguageModel,documentIntelligenceInvoiceScanHelper, loggedUserService.getLoggedUser().username(),transactionsMCPServerUrl,accountsMCPServerUrl, paymentsMCPServerUrl);
+        return withToolSelectionMetrics(paymentMCPAgent(chatLanguageModel));
+    }
+
+    /**
+     * Creates new agents, not managed by Spring, using another chat model: e.g. the stand-in model of the warm-up dry
+     * runs. The caller closes them; when an agent can't be created, the agents already created are closed.
+     */
+    public List<MCPToolAgent> createAgents(ChatLanguageModel chatModel) {
+        List<Function<ChatLanguageModel, MCPToolAgent>> factories = List.of(this::accountMCPAgent, this::transactionHistoryMCPAgent, this::paymentMCPAgent);
+        List<MCPToolAgent> agents = new ArrayList<>(factories.size());
+        try {
+            for (Function<ChatLanguageModel, MCPToolAgent> factory : factories)
+                agents.add(factory.apply(chatModel));
+        } catch (RuntimeException e) {
+            for (MCPToolAgent agent : agents) {
+                try {
+                    agent.close();
+                } catch (RuntimeException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            throw e;
+        }
+        return List.copyOf(agents);
+    }
+
+    // only the agents answering the users: the agents of createAgents are not counted
+    private <T extends AbstractReActAgent> T withToolSelectionMetrics(T agent) {
+        if (agent.toolSelector() instanceof RuleBasedToolSelector selector) {
+            FunctionCounter.builder("copilot.tools.selection.calls", selector, RuleBasedToolSelector::calls)
+                    .tag("agent", selector.agentName())
+                    .register(meterRegistry);
+            FunctionCounter.builder("copilot.tools.selection.tokens.saved", selector, RuleBasedToolSelector::tokensSaved)
+                    .tag("agent", selector.agentName())
+                    .register(meterRegistry);
+        }
+        return agent;
+    }
+
+    private AccountMCPAgent accountMCPAgent(ChatLanguageModel chatModel) {
+        return new AccountMCPAgent(chatModel, loggedUserService.getLoggedUser().username(), accountsMCPServerUrl, mcpToolCallExecutor);
+    }
+
+    private TransactionHistoryMCPAgent transactionHistoryMCPAgent(ChatLanguageModel chatModel) {
+        return new TransactionHistoryMCPAgent(chatModel, loggedUserService.getLoggedUser().username(), transactionsMCPServerUrl,accountsMCPServerUrl, mcpToolCallExecutor);
+    }
+
+    private PaymentMCPAgent paymentMCPAgent(ChatLanguageModel chatModel) {
+        return new PaymentMCPAgent(chatModel,documentIntelligenceInvoiceScanHelper, loggedUserService.getLoggedUser().username(),transactionsMCPServerUrl,accountsMCPServerUrl, paymentsMCPServerUrl, mcpToolCallExecutor);
     }
 
     @Bean
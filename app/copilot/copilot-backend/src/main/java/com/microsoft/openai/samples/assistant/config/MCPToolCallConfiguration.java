@@ -0,0 +1,155 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.config;
+
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.langchain4j.agent.mcp.resilience.CircuitBreaker;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpSessionManager;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpSessionStats;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import com.microsoft.langchain4j.agent.mcp.resilience.ToolCallStats;
+import com.microsoft.openai.samples.assistant.concurrency.BulkheadMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Timeouts, circuit breakers, concurrency limits and hedged reads of the MCP tool calls of all the agents, and the
+ * heartbeats and reconnections of their MCP sessions, with their metrics: mcp.tool.* counters by tool, the
+ * mcp.server.breaker.* gauges and the mcp.server.session.* meters by server, and the copilot.bulkhead.* meters. The
+ * calls run on virtual threads when they are enabled.
+ */
+@Configuration
+public class MCPToolCallConfiguration {
+
+    @Value("${mcp.tools.default-timeout}") Duration defaultTimeout;
+    // tool=duration pairs, e.g. processPayment=60s,getAccountOverview=10s
+    @Value("${mcp.tools.timeouts:}") String toolTimeouts;
+    // idempotent read tools, which may be called twice for the same request
+    @Value("${mcp.tools.hedged:}") String hedgedTools;
+    @Value("${mcp.tools.hedge-percentile}") double hedgePercentile;
+    @Value("${mcp.tools.breaker.failure-rate-threshold}") double breakerFailureRateThreshold;
+    @Value("${mcp.tools.breaker.window-size}") int breakerWindowSize;
+    @Value("${mcp.tools.breaker.minimum-calls}") int breakerMinimumCalls;
+    @Value("${mcp.tools.breaker.open-duration}") Duration breakerOpenDuration;
+    // concurrent calls to each server, 0 for no limit
+    @Value("${mcp.tools.server-max-concurrent-calls:0}") int serverMaxConcurrentCalls;
+    // 0 disables the heartbeats: lost sessions are then only found by the tool calls
+    @Value("${mcp.sessions.heartbeat-interval}") Duration heartbeatInterval;
+    @Value("${mcp.sessions.heartbeat-timeout}") Duration heartbeatTimeout;
+    @Value("${mcp.sessions.connect-timeout}") Duration connectTimeout;
+    // bounded wait of the tool calls while a lost session is replaced
+    @Value("${mcp.sessions.reconnect-wait}") Duration reconnectWait;
+    @Value("${mcp.sessions.reconnect-initial-backoff}") Duration reconnectInitialBackoff;
+    @Value("${mcp.sessions.reconnect-max-backoff}") Duration reconnectMaxBackoff;
+
+    @Bean
+    public McpToolCallExecutor mcpToolCallExecutor(MeterRegistry meterRegistry, Environment environment) {
+        McpToolCallExecutor.Builder builder = McpToolCallExecutor.builder()
+                .defaultTimeout(defaultTimeout)
+                .hedgedTools(split(hedgedTools))
+                .hedgePercentile(hedgePercentile)
+                .breakerFailureRateThreshold(breakerFailureRateThreshold)
+                .breakerWindowSize(breakerWindowSize)
+                .breakerMinimumCalls(breakerMinimumCalls)
+                .breakerOpenDuration(breakerOpenDuration)
+                .serverMaxConcurrentCalls(serverMaxConcurrentCalls)
+                .listener(new MetricsListener(meterRegistry))
+                .sessionManager(McpSessionManager.builder()
+                        .heartbeatInterval(heartbeatInterval)
+                        .heartbeatTimeout(heartbeatTimeout)
+                        .connectTimeout(connectTimeout)
+                        .reconnectWait(reconnectWait)
+                        .reconnectBackoff(reconnectInitialBackoff, reconnectMaxBackoff)
+                        .listener(new SessionMetricsListener(meterRegistry))
+                        .build());
+        if (Threading.VIRTUAL.isActive(environment))
+            builder.threadFactory(new VirtualThreadTaskExecutor("mcp-tool-call-").getVirtualThreadFactory());
+        for (String toolTimeout : split(toolTimeouts)) {
+            String[] toolAndTimeout = toolTimeout.split("=");
+            if (toolAndTimeout.length != 2)
+                throw new IllegalArgumentException("Invalid tool timeout, expected tool=duration: " + toolTimeout);
+            builder.toolTimeout(toolAndTimeout[0].trim(), DurationStyle.detectAndParse(toolAndTimeout[1].trim()));
+        }
+        return builder.build();
+    }
+
+    private static Set<String> split(String values) {
+        return Arrays.stream(values.split(",")).map(String::trim).filter(value -> !value.isEmpty()).collect(Collectors.toSet());
+    }
+
+    private record MetricsListener(MeterRegistry meterRegistry) implements McpToolCallExecutor.Listener {
+
+        @Override
+        public void serverRegistered(String serverName, CircuitBreaker circuitBreaker) {
+            // 0 closed, 1 half open, 2 open
+            Gauge.builder("mcp.server.breaker.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                    .tag("server", serverName)
+                    .register(meterRegistry);
+            Gauge.builder("mcp.server.breaker.failure.rate", circuitBreaker, CircuitBreaker::failureRate)
+                    .tag("server", serverName)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void bulkheadRegistered(String serverName, Bulkhead bulkhead) {
+            BulkheadMetrics.register(meterRegistry, "mcp-" + serverName, bulkhead);
+        }
+
+        @Override
+        public void toolRegistered(String serverName, String toolName, ToolCallStats stats) {
+            counter("mcp.tool.calls", serverName, toolName, stats, ToolCallStats::calls);
+            counter("mcp.tool.failures", serverName, toolName, stats, ToolCallStats::failures);
+            counter("mcp.tool.timeouts", serverName, toolName, stats, ToolCallStats::timeouts);
+            counter("mcp.tool.rejections", serverName, toolName, stats, ToolCallStats::rejections);
+            counter("mcp.tool.throttled", serverName, toolName, stats, ToolCallStats::throttled);
+            counter("mcp.tool.hedges", serverName, toolName, stats, ToolCallStats::hedges);
+            counter("mcp.tool.hedge.wins", serverName, toolName, stats, ToolCallStats::hedgeWins);
+        }
+
+        private void counter(String name, String serverName, String toolName, ToolCallStats stats, ToDoubleFunction<ToolCallStats> count) {
+            FunctionCounter.builder(name, stats, count)
+                    .tag("server", serverName)
+                    .tag("tool", toolName)
+                    .register(meterRegistry);
+        }
+    }
+
+    private record SessionMetricsListener(MeterRegistry meterRegistry) implements McpSessionManager.Listener {
+
+        @Override
+        public void serverRegistered(String serverName, McpSessionStats stats) {
+            counter("mcp.server.session.losses", serverName, stats, McpSessionStats::losses);
+            counter("mcp.server.session.reconnects", serverName, stats, McpSessionStats::reconnects);
+            counter("mcp.server.session.reconnect.failures", serverName, stats, McpSessionStats::reconnectFailures);
+            counter("mcp.server.session.tool.changes", serverName, stats, McpSessionStats::toolCatalogChanges);
+            Gauge.builder("mcp.server.session.connected", stats, McpSessionStats::connected)
+                    .tag("server", serverName)
+                    .register(meterRegistry);
+            // age of the most recent session of the server, it drops after a reconnection
+            TimeGauge.builder("mcp.server.session.age", stats, TimeUnit.MILLISECONDS, s -> s.youngestSessionAge().toMillis())
+                    .tag("server", serverName)
+                    .register(meterRegistry);
+        }
+
+        private void counter(String name, String serverName, McpSessionStats stats, ToDoubleFunction<McpSessionStats> count) {
+            FunctionCounter.builder(name, stats, count)
+                    .tag("server", serverName)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -9,4 +9,6 @@ public record ChatAppRequest(
         List<String> attachments,
         ChatAppRequestContext context,
         boolean stream,
-        String approach) {}
+        String approach,
+        // id of the server-side conversation, from the last response: the messages are then only the new turn
+        String session_state) {}
@@ -2,12 +2,19 @@
 package com.microsoft.openai.samples.assistant.controller;
 
 
+import com.microsoft.openai.samples.assistant.admission.AdmissionController;
+import com.microsoft.openai.samples.assistant.admission.AdmissionRejectedException;
+import com.microsoft.openai.samples.assistant.admission.ChatAdmissionPolicy;
+import com.microsoft.openai.samples.assistant.conversation.ConversationStore;
 import com.microsoft.openai.samples.assistant.langchain4j.agent.SupervisorAgent;
+import com.microsoft.openai.samples.assistant.security.LoggedUserService;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,18 +26,39 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 public class ChatController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ChatController.class);
     private final SupervisorAgent supervisorAgent;
-
-    public ChatController(SupervisorAgent supervisorAgent){
+    private final ConversationStore conversationStore;
+    private final LoggedUserService loggedUserService;
+    // absent when the admission control is disabled
+    private final AdmissionController admissionController;
+    private final ChatAdmissionPolicy admissionPolicy;
+
+    public ChatController(SupervisorAgent supervisorAgent, ConversationStore conversationStore, LoggedUserService loggedUserService,
+                          ObjectProvider<AdmissionController> admissionController, ObjectProvider<ChatAdmissionPolicy> admissionPolicy){
         this.supervisorAgent = supervisorAgent;
+        this.conversationStore = conversationStore;
+        this.loggedUserService = loggedUserService;
+        this.admissionController = admissionController.getIfAvailable();
+        this.admissionPolicy = admissionPolicy.getIfAvailable();
     }
 
 
+    /**
+     * The conversations are kept server side: the response returns the conversation id in session_state, and the next
+     * requests with this session_state only need the new user turn. The history of the agents, with their tool calls
+     * and results, is then reused by the next turns. When the conversation is unknown or expired, the request is
+     * answered with 410 Gone if it has only the new turn: the client sends it again with the full history, which
+     * starts a new conversation, with a new id, since the conversation of the id may be owned by another user.
+     * <p>
+     * The requests are admitted within the quotas of the OpenAI deployment before the agents run: a request that
+     * can't be admitted within the queue wait target is answered at once with 429 and a Retry-After header.
+     */
     @PostMapping(value = "/api/chat", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ChatResponse> openAIAsk(@RequestBody ChatAppRequest chatRequest) {
         if (chatRequest.stream()) {
@@ -48,16 +76,89 @@ public class ChatController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
 
-        List<ChatMessage> chatHistory = convertToLangchain4j(chatRequest);
+        List<ChatMessage> requestMessages = convertToLangchain4j(chatRequest);
+        if (requestMessages.isEmpty() || !(requestMessages.get(requestMessages.size() - 1) instanceof UserMessage userTurn))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The last message of a Chat request must be a user message");
+
+        String owner = loggedUserService.getLoggedUser().username();
+        String sessionState = chatRequest.session_state();
+        if (sessionState != null && !ConversationStore.isValidId(sessionState))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid session_state");
+        String conversationId = sessionState != null ? sessionState : ConversationStore.newConversationId();
+        // a turn sent before the previous one is answered waits for it, then reads the history with it
+        return conversationStore.inTurn(conversationId,
+                () -> answer(conversationId, sessionState == null, owner, requestMessages, userTurn));
+    }
 
+    private ResponseEntity<ChatResponse> answer(String conversationId, boolean newConversation, String owner,
+                                                List<ChatMessage> requestMessages, UserMessage userTurn) {
+        // the earlier messages sent by the client, stored with the turn when the server doesn't know them
+        List<ChatMessage> unstoredHistory = requestMessages.subList(0, requestMessages.size() - 1);
+        List<ChatMessage> chatHistory = new ArrayList<>();
+        if (newConversation) {
+            chatHistory.addAll(unstoredHistory);
+        } else {
+            Optional<List<ChatMessage>> storedHistory = conversationStore.find(conversationId, owner);
+            if (storedHistory.isPresent()) {
+                chatHistory.addAll(storedHistory.get());
+                unstoredHistory = List.of();
+            } else if (unstoredHistory.isEmpty()) {
+                LOGGER.info("Conversation {} unknown or expired, the client must send the full history", conversationId);
+                throw new ResponseStatusException(HttpStatus.GONE, "Conversation unknown or expired, send the full history without session_state");
+            } else {
+                // never appended to the conversation of the id: it may be owned by another user
+                String unknownId = conversationId;
+                conversationId = ConversationStore.newConversationId();
+                LOGGER.info("Conversation {} unknown or expired, the full history is stored in the new conversation {}", unknownId, conversationId);
+                chatHistory.addAll(unstoredHistory);
+            }
+        }
+        chatHistory.add(userTurn);
+
+        if (admissionController != null) {
+            try {
+                admissionController.admit(owner, admissionPolicy.priority(chatHistory),
+                        admissionPolicy.estimatedTokens(chatHistory), admissionPolicy.modelCalls());
+            } catch (AdmissionRejectedException e) {
+                LOGGER.warn("Chat request of conversation {} rejected: {}", conversationId, e.getMessage());
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                        .body(null);
+            }
+        }
 
-        LOGGER.debug("Processing chat conversation..", chatHistory.get(chatHistory.size()-1));
+        LOGGER.debug("Processing chat conversation {}..", conversationId);
 
         List<ChatMessage> agentsResponse = supervisorAgent.invoke(chatHistory);
 
         AiMessage generatedResponse = (AiMessage) agentsResponse.get(agentsResponse.size()-1);
+
+        List<ChatMessage> turn = new ArrayList<>(unstoredHistory);
+        turn.addAll(turnMessages(userTurn, agentsResponse));
+        try {
+            conversationStore.append(conversationId, owner, turn);
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Turn of conversation {} not stored: {}", conversationId, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Conversation owned by another user");
+        }
+
         return ResponseEntity.ok(
-                ChatResponse.buildChatResponse(generatedResponse));
+                ChatResponse.buildChatResponse(generatedResponse, conversationId));
+    }
+
+    /**
+     * The messages of the turn in the response of the agents, from the user message. The agents return their
+     * internal memory, the last 20 messages: if the user message is not in it anymore, all the messages are new.
+     */
+    private static List<ChatMessage> turnMessages(UserMessage userTurn, List<ChatMessage> agentsResponse) {
+        for (int i = agentsResponse.size() - 1; i >= 0; i--) {
+            if (agentsResponse.get(i) == userTurn)
+                return agentsResponse.subList(i, agentsResponse.size());
+        }
+        List<ChatMessage> turn = new ArrayList<>();
+        turn.add(userTurn);
+        turn.addAll(agentsResponse);
+        return turn;
     }
 
     private List<ChatMessage> convertToLangchain4j(ChatAppRequest chatAppRequest) {
@@ -11,7 +11,7 @@ import java.util.List;
 
 public record ChatResponse(List<ResponseChoice> choices) {
 
-    public static ChatResponse buildChatResponse(AiMessage aiMessage) {
+    public static ChatResponse buildChatResponse(AiMessage aiMessage, String sessionState) {
         List<String> dataPoints = Collections.emptyList();
         String thoughts = "";
         List<String> attachments = Collections.emptyList();
@@ -29,7 +29,8 @@ public record ChatResponse(List<ResponseChoice> choices) {
                                 new ResponseMessage(
                                         aiMessage.text(),
                                         ChatGPTMessage.ChatRole.ASSISTANT.toString(),
-                                        attachments))));
+                                        attachments),
+                                sessionState)));
     }
 
 }
@@ -2,4 +2,9 @@
 package com.microsoft.openai.samples.assistant.controller;
 
 public record ResponseChoice(
-        int index, ResponseMessage message, ResponseContext context, ResponseMessage delta) {}
+        int index,
+        ResponseMessage message,
+        ResponseContext context,
+        ResponseMessage delta,
+        // id of the server-side conversation, sent back by the client with its next turn
+        String session_state) {}
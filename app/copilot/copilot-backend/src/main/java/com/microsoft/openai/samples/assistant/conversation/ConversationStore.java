@@ -0,0 +1,308 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.conversation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Server-side history of the conversations, keyed by conversation id, so the clients send only their new turn. The
+ * history keeps all the messages of the agents, the tool calls and their results included, which the next turns reuse
+ * instead of calling the tools again.
+ * <p>
+ * The conversations are kept in memory up to a maximum estimated size and until they are idle for the idle timeout,
+ * the least recently used ones are evicted first. When a spill directory is set, the evicted conversations are written
+ * there compressed and read back on their next turn; the spilled files are deleted after the spill retention. Each
+ * conversation also keeps only its last messages, cut at a user turn so no tool result is left without its call.
+ * A conversation is only appended to by its owner.
+ * <p>
+ * The turns of a conversation run one at a time, see {@link #inTurn(String, Supplier)}, so each turn reads the
+ * history with the previous turn appended.
+ */
+public class ConversationStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversationStore.class);
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String SPILL_SUFFIX = ".json.gz";
+    // per message: the object, its lists and the fields besides the text
+    private static final int MESSAGE_OVERHEAD_BYTES = 128;
+
+    private record Conversation(String owner, List<ChatMessage> messages) {
+    }
+
+    private final int maxMessages;
+    private final Path spillDirectory;
+    private final Duration spillRetention;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cache<String, Conversation> conversations;
+    private final AtomicLong lastPurge = new AtomicLong(System.nanoTime());
+    // a lock is kept while a turn holds it, then collected: not a monitor, the turns may run on virtual threads
+    private final LoadingCache<String, ReentrantLock> turnLocks = Caffeine.newBuilder()
+            .weakValues()
+            .build(id -> new ReentrantLock());
+
+    private final LongAdder spills = new LongAdder();
+    private final LongAdder restores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param spillDirectory directory of the evicted conversations, null to drop them
+     */
+    public ConversationStore(long maxMemoryBytes, Duration idleTimeout, int maxMessages, Path spillDirectory, Duration spillRetention) {
+        if (maxMessages < 2)
+            throw new IllegalArgumentException("maxMessages must be at least 2");
+        this.maxMessages = maxMessages;
+        this.spillDirectory = spillDirectory;
+        this.spillRetention = spillRetention;
+        this.conversations = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String id, Conversation conversation) -> estimatedBytes(conversation.messages()))
+                .expireAfterAccess(idleTimeout)
+                // the idle conversations are evicted, and spilled, even when there is no traffic
+                .scheduler(Scheduler.systemScheduler())
+                .evictionListener(this::evicted)
+                .build();
+        if (spillDirectory != null) {
+            try {
+                Files.createDirectories(spillDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create the conversation spill directory " + spillDirectory, e);
+            }
+            purgeSpilled();
+        }
+    }
+
+    public static String newConversationId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * True for the ids created by {@link #newConversationId()}: the ids sent by the clients are used as file names.
+     */
+    public static boolean isValidId(String conversationId) {
+        return conversationId != null && ID.matcher(conversationId).matches();
+    }
+
+    /**
+     * Returns the messages of the conversation, read back from the spill directory if it was evicted, or empty when
+     * the conversation is unknown, expired or owned by another user.
+     */
+    public Optional<List<ChatMessage>> find(String conversationId, String owner) {
+        if (!isValidId(conversationId))
+            return Optional.empty();
+        Conversation conversation = conversations.get(conversationId, this::restore);
+        if (conversation == null || !conversation.owner().equals(owner))
+            return Optional.empty();
+        return Optional.of(conversation.messages());
+    }
+
+    /**
+     * Runs a turn of the conversation, from the {@link #find} of its history to the {@link #append} of its messages,
+     * after the turns of the same conversation already running.
+     */
+    public <T> T inTurn(String conversationId, Supplier<T> turn) {
+        if (!isValidId(conversationId))
+            throw new IllegalArgumentException("Invalid conversation id: " + conversationId);
+        ReentrantLock lock = turnLocks.get(conversationId);
+        lock.lock();
+        try {
+            return turn.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the messages of a turn, from the user message, at the end of the conversation, which is created when it's
+     * unknown. A conversation evicted since its history was read is read back from the spill directory first.
+     *
+     * @throws IllegalStateException when the conversation is owned by another user: it's left unchanged
+     */
+    public void append(String conversationId, String owner, List<ChatMessage> turn) {
+        if (!isValidId(conversationId))
+            throw new IllegalArgumentException("Invalid conversation id: " + conversationId);
+        boolean[] otherOwner = new boolean[1];
+        conversations.asMap().compute(conversationId, (id, current) -> {
+            if (current == null)
+                current = restore(id);
+            // a restored conversation is kept even when it's not appended to: its spill file is deleted
+            if (current != null && !current.owner().equals(owner)) {
+                otherOwner[0] = true;
+                return current;
+            }
+            List<ChatMessage> messages = new ArrayList<>();
+            if (current != null)
+                messages.addAll(current.messages());
+            messages.addAll(turn);
+            return new Conversation(owner, List.copyOf(lastMessages(messages)));
+        });
+        if (otherOwner[0])
+            throw new IllegalStateException("Conversation %s is owned by another user".formatted(conversationId));
+    }
+
+    public long size() {
+        return conversations.estimatedSize();
+    }
+
+    public long spills() {
+        return spills.sum();
+    }
+
+    public long restores() {
+        return restores.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * The last messages, at most maxMessages from a user message, or the whole last turn when it's longer, e.g. with
+     * many tool calls, so the next turn always has the context of the previous one.
+     */
+    List<ChatMessage> lastMessages(List<ChatMessage> messages) {
+        if (messages.size() <= maxMessages)
+            return messages;
+        int firstKept = messages.size() - maxMessages;
+        for (int start = firstKept; start < messages.size(); start++) {
+            if (messages.get(start) instanceof UserMessage)
+                return messages.subList(start, messages.size());
+        }
+        for (int start = firstKept - 1; start >= 0; start--) {
+            if (messages.get(start) instanceof UserMessage)
+                return messages.subList(start, messages.size());
+        }
+        return messages;
+    }
+
+    // called while the entry is removed, so a find of the conversation waits for its file
+    private void evicted(String conversationId, Conversation conversation, RemovalCause cause) {
+        evictions.increment();
+        if (spillDirectory == null || conversationId == null || conversation == null)
+            return;
+        Path file = spillFile(conversationId);
+        Path temporary = spillDirectory.resolve(conversationId + ".tmp");
+        try {
+            ObjectNode content = objectMapper.createObjectNode();
+            content.put("owner", conversation.owner());
+            content.set("messages", objectMapper.readTree(ChatMessageSerializer.messagesToJson(conversation.messages())));
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                objectMapper.writeValue(out, content);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            spills.increment();
+        } catch (IOException e) {
+            LOGGER.warn("Cannot spill conversation {} ({}), dropped: {}", conversationId, cause, e.toString());
+        }
+        if (System.nanoTime() - lastPurge.get() > spillRetention.toNanos() / 10)
+            purgeSpilled();
+    }
+
+    private Conversation restore(String conversationId) {
+        if (spillDirectory == null)
+            return null;
+        Path file = spillFile(conversationId);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            ObjectNode content = (ObjectNode) objectMapper.readTree(in);
+            List<ChatMessage> messages = ChatMessageDeserializer.messagesFromJson(content.get("messages").toString());
+            Files.deleteIfExists(file);
+            restores.increment();
+            return new Conversation(content.get("owner").asText(), List.copyOf(messages));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot read spilled conversation {}, dropped: {}", conversationId, e.toString());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void purgeSpilled() {
+        lastPurge.set(System.nanoTime());
+        FileTime oldest = FileTime.fromMillis(System.currentTimeMillis() - spillRetention.toMillis());
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SPILL_SUFFIX))
+                    .filter(file -> {
+                        try {
+                            return Files.getLastModifiedTime(file).compareTo(oldest) < 0;
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot purge the conversation spill directory {}: {}", spillDirectory, e.toString());
+        }
+    }
+
+    private Path spillFile(String conversationId) {
+        return spillDirectory.resolve(conversationId + SPILL_SUFFIX);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot delete spilled conversation {}: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * Estimated heap size of the messages, from the length of their texts: enough to bound the memory of the store.
+     */
+    static int estimatedBytes(List<ChatMessage> messages) {
+        long chars = 0;
+        for (ChatMessage message : messages) {
+            chars += MESSAGE_OVERHEAD_BYTES / 2;
+            if (message instanceof UserMessage userMessage)
+                chars += userMessage.hasSingleText() ? userMessage.singleText().length() : userMessage.toString().length();
+            else if (message instanceof AiMessage aiMessage) {
+                chars += aiMessage.text() == null ? 0 : aiMessage.text().length();
+                if (aiMessage.hasToolExecutionRequests())
+                    chars += aiMessage.toolExecutionRequests().stream()
+                            .mapToLong(request -> request.name().length() + request.arguments().length())
+                            .sum();
+            } else if (message instanceof ToolExecutionResultMessage toolResult)
+                chars += toolResult.text().length();
+            else if (message instanceof SystemMessage systemMessage)
+                chars += systemMessage.text().length();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars * 2);
+    }
+}
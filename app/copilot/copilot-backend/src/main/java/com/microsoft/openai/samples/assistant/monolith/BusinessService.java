@@ -0,0 +1,12 @@
+package com.microsoft.openai.samples.assistant.monolith;
+
+import java.util.Map;
+
+/**
+ * A business service run by copilot-backend in the monolith profile. The service is found on the classpath by its
+ * Spring Boot application class and its tools are registered as the in-process MCP server with the given name.
+ *
+ * @param properties override the properties of the service, e.g. the urls of the other services
+ */
+public record BusinessService(String name, String applicationClassName, int port, Map<String, String> properties) {
+}
@@ -0,0 +1,16 @@
+package com.microsoft.openai.samples.assistant.monolith;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Primary source of the application context of a business service running in copilot-backend. It scans the business
+ * package restricted to the classes of the service, see {@link CodeSourceTypeFilter}. It's not annotated with
+ * Configuration, so the copilot-backend component scan ignores it.
+ */
+@EnableAutoConfiguration
+@ComponentScan(basePackages = "com.microsoft.openai.samples.assistant.business",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.CUSTOM, classes = CodeSourceTypeFilter.class))
+class BusinessServiceModule {
+}
@@ -0,0 +1,129 @@
+package com.microsoft.openai.samples.assistant.monolith;
+
+import com.microsoft.langchain4j.agent.mcp.inprocess.InProcessMcpServers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.context.logging.LoggingApplicationListener;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.support.StandardServletEnvironment;
+
+import java.io.IOException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the business services in copilot-backend, each in its own application context and web server so the
+ * services keep calling each other over REST, and registers their tools as in-process MCP servers. The contexts
+ * are isolated from copilot-backend and from each other: each one scans only the classes of its service and reads
+ * only the application.properties of its service.
+ */
+public class BusinessServicesRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BusinessServicesRunner.class);
+
+    // the business services don't have security: copilot-backend brings it on the classpath
+    private static final String EXCLUDED_AUTO_CONFIGURATIONS = String.join(",",
+            "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration",
+            "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration");
+
+    private final List<BusinessService> services;
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    public BusinessServicesRunner(List<BusinessService> services) {
+        this.services = services;
+    }
+
+    @PostConstruct
+    public void start() {
+        for (BusinessService service : services) {
+            long start = System.nanoTime();
+            ConfigurableApplicationContext context = run(service);
+            contexts.add(context);
+            InProcessMcpServers.register(service.name(),
+                    new ToolCallbackMcpServer(service.name(), context.getBeanProvider(ToolCallbackProvider.class).orderedStream().toList()));
+            LOGGER.info("Started business service {} on port {} in {} ms", service.name(),
+                    ((WebServerApplicationContext) context).getWebServer().getPort(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        List<ConfigurableApplicationContext> started = new ArrayList<>(contexts);
+        Collections.reverse(started);
+        for (ConfigurableApplicationContext context : started) {
+            try {
+                context.close();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to stop business service {}", context.getId(), e);
+            }
+        }
+        services.forEach(service -> InProcessMcpServers.unregister(service.name()));
+        contexts.clear();
+    }
+
+    private ConfigurableApplicationContext run(BusinessService service) {
+        Class<?> applicationClass;
+        try {
+            applicationClass = ClassUtils.forName(service.applicationClassName(), getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Business service %s is not on the classpath: build copilot-backend with the monolith Maven profile"
+                    .formatted(service.name()), e);
+        }
+        CodeSource codeSource = applicationClass.getProtectionDomain().getCodeSource();
+        String codeSourceUrl = codeSource.getLocation().toString();
+
+        Map<String, Object> overrides = new HashMap<>(service.properties());
+        overrides.put("server.port", service.port());
+        overrides.put("spring.application.name", service.name());
+        // the copilot-backend application.properties is first on the classpath: the service ones are added below
+        overrides.put("spring.config.name", "monolith-" + service.name());
+        overrides.put("spring.main.banner-mode", "off");
+        overrides.merge("spring.autoconfigure.exclude", EXCLUDED_AUTO_CONFIGURATIONS, (excluded, security) -> excluded + "," + security);
+        overrides.put(CodeSourceTypeFilter.CODE_SOURCE_PROPERTY, codeSourceUrl);
+
+        StandardEnvironment environment = new StandardServletEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("monolith-" + service.name(), overrides));
+        try {
+            URL properties = serviceApplicationProperties(codeSourceUrl);
+            if (properties != null)
+                environment.getPropertySources().addLast(new ResourcePropertySource(new UrlResource(properties)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the application.properties of business service " + service.name(), e);
+        }
+
+        SpringApplication application = new SpringApplication(BusinessServiceModule.class);
+        application.setWebApplicationType(WebApplicationType.SERVLET);
+        application.setEnvironment(environment);
+        application.setRegisterShutdownHook(false);
+        // logging is configured once, by copilot-backend
+        application.setListeners(application.getListeners().stream()
+                .filter(listener -> !(listener instanceof LoggingApplicationListener))
+                .toList());
+        return application.run();
+    }
+
+    private URL serviceApplicationProperties(String codeSourceUrl) throws IOException {
+        for (URL url : Collections.list(getClass().getClassLoader().getResources("application.properties"))) {
+            if (CodeSourceTypeFilter.contains(codeSourceUrl, url))
+                return url;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.microsoft.openai.samples.assistant.monolith;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.filter.TypeFilter;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Excludes from the component scan of a business service the classes of the other services, which share the same
+ * packages, and the Spring Boot application class. The classes of the service are the ones in the jar or directory
+ * set with the monolith.service.code-source property.
+ */
+class CodeSourceTypeFilter implements TypeFilter, EnvironmentAware {
+
+    static final String CODE_SOURCE_PROPERTY = "monolith.service.code-source";
+
+    private String codeSource;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.codeSource = environment.getRequiredProperty(CODE_SOURCE_PROPERTY);
+    }
+
+    @Override
+    public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) throws IOException {
+        return !contains(codeSource, metadataReader.getResource().getURL())
+                || metadataReader.getAnnotationMetadata().hasAnnotation(SpringBootApplication.class.getName());
+    }
+
+    /**
+     * Tells whether the resource is in the code source, a directory or a jar, possibly nested in the copilot-backend
+     * executable jar.
+     */
+    static boolean contains(String codeSource, URL resource) {
+        String url = resource.toString();
+        return url.startsWith(codeSource) || url.startsWith("jar:" + codeSource + "!/");
+    }
+}
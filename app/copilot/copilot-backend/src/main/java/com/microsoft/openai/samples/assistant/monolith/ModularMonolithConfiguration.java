@@ -0,0 +1,41 @@
+package com.microsoft.openai.samples.assistant.monolith;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modular monolith deployment: the account, payment and transactions history services run in copilot-backend and
+ * the agents call their tools in process, see application-monolith.properties. copilot-backend must be built with
+ * the monolith Maven profile, which adds the services to its dependencies.
+ */
+@Configuration
+@Profile("monolith")
+public class ModularMonolithConfiguration {
+
+    private static final String BUSINESS_PACKAGE = "com.microsoft.openai.samples.assistant.business.";
+
+    @Value("${monolith.account.port:8070}") int accountPort;
+    @Value("${monolith.payment.port:8060}") int paymentPort;
+    @Value("${monolith.transactions-history.port:8090}") int transactionsHistoryPort;
+
+    // started with copilot-backend, before the agents connect to the in-process MCP servers
+    @Bean
+    @Lazy(false)
+    public BusinessServicesRunner businessServicesRunner() {
+        String noDataSource = "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration";
+        return new BusinessServicesRunner(List.of(
+                new BusinessService("account", BUSINESS_PACKAGE + "AccountApplication", accountPort, Map.of()),
+                new BusinessService("transactions-history", BUSINESS_PACKAGE + "TransactionsHistoryApplication", transactionsHistoryPort,
+                        Map.of("spring.autoconfigure.exclude", noDataSource)),
+                new BusinessService("payment", BUSINESS_PACKAGE + "PaymentApplication", paymentPort,
+                        Map.of("spring.autoconfigure.exclude", noDataSource,
+                                "accounts.api.url", "http://localhost:" + accountPort,
+                                "transactions.api.url", "http://localhost:" + transactionsHistoryPort))));
+    }
+}
@@ -0,0 +1,118 @@
+package com.microsoft.openai.samples.assistant.monolith;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.langchain4j.agent.mcp.inprocess.InProcessMcpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process MCP server exposing the Spring AI tool callbacks of a business service: initialize, ping, tools/list and
+ * tools/call are dispatched directly to the callbacks, the same way the Spring AI MCP server does over SSE. Tool
+ * errors are returned as results with isError set, so the agent can react to them.
+ */
+public class ToolCallbackMcpServer implements InProcessMcpServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ToolCallbackMcpServer.class);
+
+    private static final String PROTOCOL_VERSION = "2024-11-05";
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INVALID_PARAMS = -32602;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String serverName;
+    private final Map<String, ToolCallback> toolCallbacks = new LinkedHashMap<>();
+    // the tool list never changes: it's built once
+    private final ArrayNode tools;
+
+    public ToolCallbackMcpServer(String serverName, Collection<ToolCallbackProvider> toolCallbackProviders) {
+        this.serverName = serverName;
+        this.tools = objectMapper.createArrayNode();
+        for (ToolCallbackProvider provider : toolCallbackProviders) {
+            for (ToolCallback toolCallback : provider.getToolCallbacks()) {
+                String name = toolCallback.getToolDefinition().name();
+                if (toolCallbacks.putIfAbsent(name, toolCallback) != null)
+                    throw new IllegalArgumentException("Tool %s is provided twice by server %s".formatted(name, serverName));
+                ObjectNode tool = tools.addObject();
+                tool.put("name", name);
+                tool.put("description", toolCallback.getToolDefinition().description());
+                try {
+                    tool.set("inputSchema", objectMapper.readTree(toolCallback.getToolDefinition().inputSchema()));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Invalid input schema for tool " + name, e);
+                }
+            }
+        }
+        LOGGER.info("In-process MCP server {} exposes tools {}", serverName, toolCallbacks.keySet());
+    }
+
+    @Override
+    public JsonNode handleRequest(JsonNode request) {
+        String method = request.path("method").asText();
+        JsonNode params = request.path("params");
+        return switch (method) {
+            case "initialize" -> result(request, initialize(params));
+            case "ping" -> result(request, objectMapper.createObjectNode());
+            case "tools/list" -> result(request, objectMapper.createObjectNode().set("tools", tools));
+            case "tools/call" -> callTool(request, params);
+            default -> error(request, METHOD_NOT_FOUND, "Method not found: " + method);
+        };
+    }
+
+    private ObjectNode initialize(JsonNode params) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("protocolVersion", params.path("protocolVersion").asText(PROTOCOL_VERSION));
+        result.putObject("capabilities").putObject("tools").put("listChanged", false);
+        result.putObject("serverInfo").put("name", serverName).put("version", "1.0.0");
+        return result;
+    }
+
+    private ObjectNode callTool(JsonNode request, JsonNode params) {
+        String name = params.path("name").asText();
+        ToolCallback toolCallback = toolCallbacks.get(name);
+        if (toolCallback == null)
+            return error(request, INVALID_PARAMS, "Unknown tool: " + name);
+
+        JsonNode arguments = params.path("arguments");
+        String text;
+        boolean isError = false;
+        try {
+            text = toolCallback.call(arguments.isMissingNode() ? "{}" : arguments.toString());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Tool {} of in-process MCP server {} failed: {}", name, serverName, e.getMessage());
+            text = e.getMessage();
+            isError = true;
+        }
+        ObjectNode result = objectMapper.createObjectNode();
+        result.putArray("content").addObject().put("type", "text").put("text", text);
+        result.put("isError", isError);
+        return result(request, result);
+    }
+
+    private ObjectNode result(JsonNode request, JsonNode result) {
+        ObjectNode response = response(request);
+        response.set("result", result);
+        return response;
+    }
+
+    private ObjectNode error(JsonNode request, int code, String message) {
+        ObjectNode response = response(request);
+        response.putObject("error").put("code", code).put("message", message);
+        return response;
+    }
+
+    private ObjectNode response(JsonNode request) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+        return response;
+    }
+}
@@ -0,0 +1,69 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat model of the warm-up dry runs: it doesn't call the LLM but drives the agents through one read-only tool call,
+ * so the tool specifications, the MCP clients and the tool call path are exercised without spending tokens.
+ * The first call of a turn asks for the accounts of the user, with the first of the read-only tools below the agent
+ * exposes, the next one answers with a fixed text. The tools selected for a payment agent don't include the list of
+ * the accounts, so it reads the account overview.
+ */
+class StandInChatModel implements ChatLanguageModel {
+
+    // read-only tools taking the user name, in order of preference
+    static final List<String> TOOL_NAMES = List.of("getAccountsByUserName", "getAccountOverview");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String userName;
+
+    StandInChatModel(String userName) {
+        this.userName = userName;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        boolean toolCalled = request.messages().stream().anyMatch(ToolExecutionResultMessage.class::isInstance);
+        String toolName = toolCalled ? null : availableTool(request.parameters().toolSpecifications());
+        if (toolName == null)
+            return ChatResponse.builder().aiMessage(AiMessage.from("warm-up")).build();
+
+        ToolExecutionRequest toolRequest = ToolExecutionRequest.builder()
+                .id("warm-up")
+                .name(toolName)
+                .arguments(arguments())
+                .build();
+        return ChatResponse.builder().aiMessage(AiMessage.from(toolRequest)).build();
+    }
+
+    private static String availableTool(List<ToolSpecification> toolSpecifications) {
+        if (toolSpecifications == null)
+            return null;
+        for (String toolName : TOOL_NAMES) {
+            if (toolSpecifications.stream().anyMatch(tool -> tool.name().equals(toolName)))
+                return toolName;
+        }
+        return null;
+    }
+
+    private String arguments() {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(Map.of("userName", userName));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
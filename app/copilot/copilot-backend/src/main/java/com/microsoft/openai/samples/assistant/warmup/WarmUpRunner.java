@@ -0,0 +1,196 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.warmup;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import com.microsoft.langchain4j.agent.mcp.MCPToolAgent;
+import com.microsoft.openai.samples.assistant.config.MCPAgentsConfiguration;
+import com.microsoft.openai.samples.assistant.invoice.DocumentIntelligenceInvoiceScanHelper;
+import com.microsoft.openai.samples.assistant.langchain4j.agent.SupervisorAgent;
+import com.microsoft.openai.samples.assistant.proxy.BlobStorageProxy;
+import com.microsoft.openai.samples.assistant.security.LoggedUserService;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the clients before the application reports ready: the beans are lazy, so without it the first chat
+ * requests pay for the bean creation, the Azure token acquisition, the TLS handshakes and the MCP sessions.
+ * <p>
+ * Spring Boot publishes the readiness state ACCEPTING_TRAFFIC only after the application runners, so the readiness
+ * probe (/actuator/health/readiness) fails until the warm-up is done. The warm-up is best effort: a failing or slow
+ * component is logged and the application becomes ready anyway after the timeout.
+ * <p>
+ * The beans are created first in the runner thread, since singletons are created one at a time, then the network
+ * calls run in parallel:
+ * <ul>
+ *   <li>azure-token: the tokens of the Azure OpenAI and storage scopes, cached by the credential</li>
+ *   <li>chat-model: a chat completion of a minimal prompt</li>
+ *   <li>blob-storage: an existence check of the container</li>
+ *   <li>mcp-agents: the agents connect to the MCP servers and list their tools, then a few dry run turns with a
+ *   stand-in model exercise the tool calls without spending tokens</li>
+ * </ul>
+ * The duration of each component is logged and recorded in the copilot.warmup timer.
+ */
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private static final List<String> TOKEN_SCOPES = List.of(
+            "https://cognitiveservices.azure.com/.default",
+            "https://storage.azure.com/.default");
+
+    private final ObjectProvider<TokenCredential> tokenCredential;
+    private final ObjectProvider<ChatLanguageModel> chatLanguageModel;
+    private final ObjectProvider<BlobStorageProxy> blobStorageProxy;
+    private final ObjectProvider<DocumentIntelligenceInvoiceScanHelper> invoiceScanHelper;
+    private final ObjectProvider<SupervisorAgent> supervisorAgent;
+    private final MCPAgentsConfiguration agentsConfiguration;
+    private final LoggedUserService loggedUserService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${copilot.warm-up.enabled:true}") boolean enabled;
+    @Value("${copilot.warm-up.timeout:2m}") Duration timeout;
+    @Value("${copilot.warm-up.chat-model.enabled:true}") boolean chatModelEnabled;
+    // turns of each agent with the stand-in model, 0 to skip the dry runs
+    @Value("${copilot.warm-up.dry-run.turns:3}") int dryRunTurns;
+
+    public WarmUpRunner(ObjectProvider<TokenCredential> tokenCredential,
+                        ObjectProvider<ChatLanguageModel> chatLanguageModel,
+                        ObjectProvider<BlobStorageProxy> blobStorageProxy,
+                        ObjectProvider<DocumentIntelligenceInvoiceScanHelper> invoiceScanHelper,
+                        ObjectProvider<SupervisorAgent> supervisorAgent,
+                        MCPAgentsConfiguration agentsConfiguration,
+                        LoggedUserService loggedUserService,
+                        MeterRegistry meterRegistry) {
+        this.tokenCredential = tokenCredential;
+        this.chatLanguageModel = chatLanguageModel;
+        this.blobStorageProxy = blobStorageProxy;
+        this.invoiceScanHelper = invoiceScanHelper;
+        this.supervisorAgent = supervisorAgent;
+        this.agentsConfiguration = agentsConfiguration;
+        this.loggedUserService = loggedUserService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            LOGGER.info("Warm-up disabled");
+            return;
+        }
+        long start = System.nanoTime();
+        if (!warmUp("beans", this::createBeans)) {
+            LOGGER.warn("Warm-up skipped, the clients couldn't be created");
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "warm-up-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Boolean>> components = new ArrayList<>();
+            components.add(CompletableFuture.supplyAsync(() -> warmUp("azure-token", this::acquireTokens), executor));
+            if (chatModelEnabled)
+                components.add(CompletableFuture.supplyAsync(() -> warmUp("chat-model", this::chat), executor));
+            components.add(CompletableFuture.supplyAsync(() -> warmUp("blob-storage", () -> blobStorageProxy.getObject().containerExists()), executor));
+            components.add(CompletableFuture.supplyAsync(() -> warmUp("mcp-agents", supervisorAgent::getObject)
+                    && (dryRunTurns <= 0 || warmUp("dry-run", this::dryRun)), executor));
+
+            CompletableFuture.allOf(components.toArray(CompletableFuture[]::new)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            long failures = components.stream().filter(component -> !component.join()).count();
+            LOGGER.info("Warm-up done in {} ms, {} of {} components failed", elapsedMillis(start), failures, components.size() + 1);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Warm-up not done after {}, accepting traffic anyway", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("Warm-up failed", e.getCause());
+        } finally {
+            // the components still running complete in the background
+            executor.shutdown();
+        }
+    }
+
+    private void createBeans() {
+        tokenCredential.getObject();
+        chatLanguageModel.getObject();
+        blobStorageProxy.getObject();
+        invoiceScanHelper.getObject();
+    }
+
+    private void acquireTokens() {
+        for (String scope : TOKEN_SCOPES)
+            tokenCredential.getObject().getTokenSync(new TokenRequestContext().addScopes(scope));
+    }
+
+    private void chat() {
+        // no request parameters: the chat model rejects the ones set per request, e.g. maxOutputTokens
+        ChatRequest request = ChatRequest.builder()
+                .messages(UserMessage.from("Reply with OK"))
+                .build();
+        chatLanguageModel.getObject().chat(request);
+    }
+
+    /**
+     * Each agent answers a few turns with the stand-in model: the first turns connect the MCP clients and load the
+     * classes of the tool call path, the next ones give the JIT some work.
+     */
+    private void dryRun() {
+        String userName = loggedUserService.getLoggedUser().username();
+        List<MCPToolAgent> agents = agentsConfiguration.createAgents(new StandInChatModel(userName));
+        try {
+            for (int turn = 0; turn < dryRunTurns; turn++) {
+                for (MCPToolAgent agent : agents)
+                    agent.invoke(List.of(UserMessage.from("What are my accounts?")));
+            }
+        } finally {
+            agents.forEach(MCPToolAgent::close);
+        }
+    }
+
+    private boolean warmUp(String component, Runnable warmUp) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            warmUp.run();
+            succeeded = true;
+            LOGGER.info("Warm-up of {} done in {} ms", component, elapsedMillis(start));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Warm-up of {} failed after {} ms", component, elapsedMillis(start), e);
+        }
+        Timer.builder("copilot.warmup")
+                .tag("component", component)
+                .tag("outcome", succeeded ? "success" : "failure")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return succeeded;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,168 @@
+package com.microsoft.openai.samples.assistant;
+
+import com.microsoft.openai.samples.assistant.admission.AdmissionController;
+import com.microsoft.openai.samples.assistant.admission.AdmissionController.Priority;
+import com.microsoft.openai.samples.assistant.admission.AdmissionRejectedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the admission control of the chat requests: compares the goodput, the requests completed within the
+ * latency target, of a simulated OpenAI deployment under overload without admission control and with it.
+ * <p>
+ * The deployment enforces its tokens per minute quota over 10 second windows: a model call beyond it fails with 429,
+ * and is retried like the Azure SDK does, 3 times with an exponential backoff. A chat request makes 3 model calls and
+ * fails when one of them fails. The requests arrive at a constant rate, a multiple of the rate the quota allows, and 10%
+ * of them are turns of a payment in progress, with the HIGH priority.
+ * Usage: AdmissionGoodputBenchmark [tokensPerMinute] [tokensPerCall] [modelLatencyMs] [secondsPerLevel]
+ */
+public class AdmissionGoodputBenchmark {
+
+    private static final double[] LOAD_LEVELS = {0.5, 1, 2, 4};
+    private static final int CALLS_PER_REQUEST = 3;
+    private static final double PAYMENT_SHARE = 0.1;
+    private static final Duration LATENCY_TARGET = Duration.ofSeconds(15);
+
+    public static void main(String[] args) throws Exception {
+        long tokensPerMinute = args.length > 0 ? Long.parseLong(args[0]) : 600_000;
+        long tokensPerCall = args.length > 1 ? Long.parseLong(args[1]) : 2_000;
+        long modelLatencyMs = args.length > 2 ? Long.parseLong(args[2]) : 300;
+        int secondsPerLevel = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        double capacityRps = tokensPerMinute / 60.0 / (tokensPerCall * CALLS_PER_REQUEST);
+        System.out.printf("quota %d tokens/min: %.2f requests/s, latency target %d s%n", tokensPerMinute, capacityRps, LATENCY_TARGET.toSeconds());
+
+        for (double load : LOAD_LEVELS) {
+            for (boolean admission : List.of(false, true)) {
+                Deployment deployment = new Deployment(tokensPerMinute, modelLatencyMs);
+                AdmissionController admissionController = !admission ? null : AdmissionController.builder()
+                        .tokensPerMinute((long) (tokensPerMinute * 0.9))
+                        .requestsPerMinute(1_000_000)
+                        .burst(Duration.ofSeconds(1))
+                        .maxQueueWait(Duration.ofSeconds(10))
+                        .build();
+                Result result = run(load * capacityRps, secondsPerLevel, priority -> {
+                    if (admissionController != null)
+                        admissionController.admit("user-" + ThreadLocalRandom.current().nextInt(50), priority,
+                                tokensPerCall * CALLS_PER_REQUEST, CALLS_PER_REQUEST);
+                    for (int call = 0; call < CALLS_PER_REQUEST; call++)
+                        deployment.call(tokensPerCall);
+                });
+                System.out.printf("load %.1fx %-12s goodput %5.2f/s (payments %5.2f/s)  p95 %6d ms  rejected at once %4d  failed %4d  deployment 429s %5d%n",
+                        load, admission ? "admission" : "no admission", result.goodput(secondsPerLevel), result.paymentGoodput(secondsPerLevel),
+                        result.p95Ms(), result.rejected.get(), result.failed.get(), deployment.throttled.get());
+            }
+        }
+        System.exit(0);
+    }
+
+    private interface ChatRequest {
+        void run(Priority priority) throws Exception;
+    }
+
+    private static final class Result {
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger paymentsInTarget = new AtomicInteger();
+        final AtomicInteger inTarget = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        double goodput(int seconds) {
+            return inTarget.get() / (double) seconds;
+        }
+
+        double paymentGoodput(int seconds) {
+            return paymentsInTarget.get() / (double) seconds;
+        }
+
+        long p95Ms() {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.isEmpty() ? 0 : TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.95)));
+        }
+    }
+
+    private static Result run(double requestsPerSecond, int seconds, ChatRequest request) throws InterruptedException {
+        Result result = new Result();
+        ExecutorService requestThreads = Executors.newCachedThreadPool();
+        long intervalNanos = (long) (1e9 / requestsPerSecond);
+        long start = System.nanoTime();
+        for (long next = start; next < start + TimeUnit.SECONDS.toNanos(seconds); next += intervalNanos) {
+            long delay = next - System.nanoTime();
+            if (delay > 0)
+                TimeUnit.NANOSECONDS.sleep(delay);
+            Priority priority = ThreadLocalRandom.current().nextDouble() < PAYMENT_SHARE ? Priority.HIGH : Priority.NORMAL;
+            requestThreads.execute(() -> {
+                long requestStart = System.nanoTime();
+                try {
+                    request.run(priority);
+                    long latency = System.nanoTime() - requestStart;
+                    result.latencies.add(latency);
+                    if (latency <= LATENCY_TARGET.toNanos()) {
+                        result.inTarget.incrementAndGet();
+                        if (priority == Priority.HIGH)
+                            result.paymentsInTarget.incrementAndGet();
+                    }
+                } catch (AdmissionRejectedException e) {
+                    result.rejected.incrementAndGet();
+                } catch (Exception e) {
+                    result.failed.incrementAndGet();
+                }
+            });
+        }
+        requestThreads.shutdown();
+        requestThreads.awaitTermination(5, TimeUnit.MINUTES);
+        return result;
+    }
+
+    /**
+     * OpenAI deployment with a tokens per minute quota enforced over 10 second windows.
+     */
+    private static final class Deployment {
+        private static final int MAX_RETRIES = 3;
+
+        final long tokensPerWindow;
+        final long modelLatencyMs;
+        final AtomicInteger throttled = new AtomicInteger();
+        long windowStart = System.nanoTime();
+        long windowTokens;
+
+        Deployment(long tokensPerMinute, long modelLatencyMs) {
+            this.tokensPerWindow = tokensPerMinute / 6;
+            this.modelLatencyMs = modelLatencyMs;
+        }
+
+        void call(long tokens) throws InterruptedException {
+            for (int attempt = 0; ; attempt++) {
+                if (tryConsume(tokens)) {
+                    Thread.sleep(modelLatencyMs);
+                    return;
+                }
+                throttled.incrementAndGet();
+                if (attempt == MAX_RETRIES)
+                    throw new IllegalStateException("429 Too Many Requests");
+                Thread.sleep(1000L << attempt);
+            }
+        }
+
+        private synchronized boolean tryConsume(long tokens) {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(10)) {
+                windowStart = now;
+                windowTokens = 0;
+            }
+            if (windowTokens + tokens > tokensPerWindow)
+                return false;
+            windowTokens += tokens;
+            return true;
+        }
+    }
+}
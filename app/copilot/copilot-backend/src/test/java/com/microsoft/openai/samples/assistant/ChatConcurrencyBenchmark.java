@@ -0,0 +1,193 @@
+package com.microsoft.openai.samples.assistant;
+
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.langchain4j.agent.concurrency.ConcurrencyLimitedChatModel;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.ResourceRef;
+import dev.langchain4j.mcp.client.ResourceResponse;
+import dev.langchain4j.mcp.client.ResourceTemplateRef;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how many concurrent conversations copilot-backend sustains at a fixed p95 latency with the platform request
+ * threads, a pool of 200 like the Tomcat default, and with virtual request threads. A chat request is simulated by
+ * its blocking calls: 3 model calls and 2 MCP tool calls with fixed latencies, through the bulkheads of the OpenAI
+ * deployment and of the MCP server. Closed-loop clients send requests for a while at each concurrency level; the
+ * highest level whose p95 stays within the target is reported for each mode.
+ * The virtual thread mode needs Java 21 or later and is skipped otherwise.
+ * Usage: ChatConcurrencyBenchmark [modelLatencyMs] [toolLatencyMs] [secondsPerLevel] [openAiLimit] [mcpLimit]
+ */
+public class ChatConcurrencyBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int[] CONCURRENCY_LEVELS = {50, 100, 200, 400, 800, 1600};
+    // p95 target relative to the latency of a request without contention
+    private static final double P95_TARGET_RATIO = 1.25;
+
+    public static void main(String[] args) throws Exception {
+        long modelLatencyMs = args.length > 0 ? Long.parseLong(args[0]) : 100;
+        long toolLatencyMs = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int secondsPerLevel = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int openAiLimit = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int mcpLimit = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+
+        long unloadedMs = 3 * modelLatencyMs + 2 * toolLatencyMs;
+        long p95TargetMs = (long) (unloadedMs * P95_TARGET_RATIO);
+        System.out.printf("request %d ms without contention, p95 target %d ms%n", unloadedMs, p95TargetMs);
+
+        ExecutorService virtualThreads = virtualThreadPerTaskExecutor();
+        for (String mode : List.of("platform", "virtual")) {
+            if (mode.equals("virtual") && virtualThreads == null) {
+                System.out.println("virtual  skipped: virtual threads need Java 21 or later, running " + System.getProperty("java.version"));
+                continue;
+            }
+            ChatLanguageModel chatModel = new ConcurrencyLimitedChatModel(new SlowChatModel(modelLatencyMs),
+                    new Bulkhead("openai", openAiLimit, Duration.ofSeconds(30)));
+            McpToolCallExecutor.Builder toolCallExecutor = McpToolCallExecutor.builder().serverMaxConcurrentCalls(mcpLimit);
+            if (mode.equals("virtual"))
+                toolCallExecutor.threadFactory(virtualThreadFactory());
+            McpClient mcpClient = new SlowMcpClient(toolLatencyMs);
+
+            int sustained = 0;
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                ExecutorService requestThreads = mode.equals("platform") ? Executors.newFixedThreadPool(TOMCAT_MAX_THREADS) : virtualThreads;
+                McpToolCallExecutor executor = toolCallExecutor.build();
+                Result result = run(requestThreads, concurrency, secondsPerLevel, () -> chat(chatModel, executor, mcpClient));
+                if (mode.equals("platform"))
+                    requestThreads.shutdownNow();
+                System.out.printf("%-8s %5d conversations %8.1f requests/s  p50 %6d ms  p95 %6d ms%n",
+                        mode, concurrency, result.throughput(), result.p50Ms(), result.p95Ms());
+                if (result.p95Ms() > p95TargetMs)
+                    break;
+                sustained = concurrency;
+            }
+            System.out.printf("%-8s sustains %d concurrent conversations at p95 <= %d ms%n", mode, sustained, p95TargetMs);
+        }
+        System.exit(0);
+    }
+
+    private static void chat(ChatLanguageModel chatModel, McpToolCallExecutor toolCallExecutor, McpClient mcpClient) {
+        ToolExecutionRequest toolRequest = ToolExecutionRequest.builder().id("1").name("getAccountsByUserName").arguments("{}").build();
+        for (int step = 0; step < 3; step++) {
+            chatModel.chat(ChatRequest.builder().messages(UserMessage.from("What are my accounts?")).build());
+            if (step < 2)
+                toolCallExecutor.execute("account", mcpClient, toolRequest);
+        }
+    }
+
+    private record Result(double throughput, long p50Ms, long p95Ms) {
+    }
+
+    private static Result run(ExecutorService requestThreads, int concurrency, int seconds, Runnable request) throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        // each client waits for its response before sending the next request, like a user in a conversation
+        for (int client = 0; client < concurrency; client++) {
+            startClient(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    try {
+                        requestThreads.submit(request).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    latencies.add(System.nanoTime() - start);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(sorted.size() / (double) seconds,
+                TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() / 2)),
+                TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.95))));
+    }
+
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory() throws ReflectiveOperationException {
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        return (ThreadFactory) builder.getClass().getMethod("factory").invoke(builder);
+    }
+
+    private static void startClient(Runnable client) {
+        Thread thread = new Thread(client);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private record SlowChatModel(long latencyMs) implements ChatLanguageModel {
+
+        @Override
+        public ChatResponse doChat(ChatRequest request) {
+            sleep(latencyMs);
+            return ChatResponse.builder().aiMessage(AiMessage.from("ok")).build();
+        }
+    }
+
+    private record SlowMcpClient(long latencyMs) implements McpClient {
+
+        @Override
+        public List<ToolSpecification> listTools() {
+            return List.of();
+        }
+
+        @Override
+        public String executeTool(ToolExecutionRequest request) {
+            sleep(latencyMs);
+            return "[]";
+        }
+
+        @Override
+        public List<ResourceRef> listResources() {
+            return List.of();
+        }
+
+        @Override
+        public List<ResourceTemplateRef> listResourceTemplates() {
+            return List.of();
+        }
+
+        @Override
+        public ResourceResponse readResource(String uri) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
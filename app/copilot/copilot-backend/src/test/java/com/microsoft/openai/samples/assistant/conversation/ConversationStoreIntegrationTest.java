@@ -0,0 +1,110 @@
+// Copyright (c) Microsoft. All rights reserved.
+package com.microsoft.openai.samples.assistant.conversation;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends turns to a conversation store with a spill directory and checks that a conversation can't be appended to
+ * by another user, in memory or spilled, that a spilled conversation is read back before a turn is appended to it,
+ * that the conversations keep their last messages from a user message, and that a single turn longer than the
+ * maximum messages is kept whole instead of leaving the conversation empty.
+ * Usage: ConversationStoreIntegrationTest
+ */
+public class ConversationStoreIntegrationTest {
+
+    private static final int MAX_MESSAGES = 200;
+
+    public static void main(String[] args) throws Exception {
+        Path spillDirectory = Files.createTempDirectory("conversations");
+        var store = new ConversationStore(10_000_000, Duration.ofHours(1), MAX_MESSAGES, spillDirectory, Duration.ofHours(1));
+
+        // another user reusing the conversation id: rejected, the conversation of its owner is unchanged
+        String conversationId = ConversationStore.newConversationId();
+        store.append(conversationId, "alice", turn("what is my balance", 2));
+        checkOtherOwnerRejected(store, conversationId);
+        if (store.find(conversationId, "bob").isPresent())
+            throw new IllegalStateException("Check failed: conversation found by another user");
+
+        // the conversations keep their last messages from a user message
+        for (int i = 0; i < 60; i++)
+            store.append(conversationId, "alice", turn("turn " + i, 2));
+        List<ChatMessage> kept = store.find(conversationId, "alice").orElseThrow();
+        if (kept.size() > MAX_MESSAGES || !(kept.get(0) instanceof UserMessage))
+            throw new IllegalStateException("Check failed: %d messages kept, first %s".formatted(kept.size(), kept.get(0)));
+        if (!((UserMessage) kept.get(kept.size() - 6)).singleText().equals("turn 59"))
+            throw new IllegalStateException("Check failed: last turn not kept, got " + kept.get(kept.size() - 6));
+
+        // a single turn with more tool calls than the maximum messages is kept whole
+        String longTurnId = ConversationStore.newConversationId();
+        store.append(longTurnId, "alice", turn("list all my payments", 120));
+        List<ChatMessage> longTurn = store.find(longTurnId, "alice").orElseThrow();
+        if (longTurn.size() != 242 || !(longTurn.get(0) instanceof UserMessage))
+            throw new IllegalStateException("Check failed: long turn not kept whole, got %d messages".formatted(longTurn.size()));
+        store.append(longTurnId, "alice", turn("and the last one?", 1));
+        List<ChatMessage> afterLongTurn = store.find(longTurnId, "alice").orElseThrow();
+        if (afterLongTurn.isEmpty() || !((UserMessage) afterLongTurn.get(0)).singleText().equals("and the last one?"))
+            throw new IllegalStateException("Check failed: turn after the long one not kept, got %d messages".formatted(afterLongTurn.size()));
+
+        // a store too small for any conversation spills them all: they are read back before a turn is appended
+        var spilling = new ConversationStore(1, Duration.ofHours(1), MAX_MESSAGES, spillDirectory, Duration.ofHours(1));
+        String spilledId = ConversationStore.newConversationId();
+        spilling.append(spilledId, "alice", turn("first", 2));
+        awaitSpilled(spilling, 1);
+        spilling.append(spilledId, "alice", turn("second", 2));
+        awaitSpilled(spilling, 2);
+        checkOtherOwnerRejected(spilling, spilledId);
+        List<ChatMessage> restored = spilling.find(spilledId, "alice").orElseThrow();
+        if (restored.size() != 12 || !((UserMessage) restored.get(6)).singleText().equals("second"))
+            throw new IllegalStateException("Check failed: spilled conversation not appended to, got %d messages".formatted(restored.size()));
+
+        System.out.println("ConversationStoreIntegrationTest passed");
+    }
+
+    private static void checkOtherOwnerRejected(ConversationStore store, String conversationId) {
+        int messages = store.find(conversationId, "alice").orElseThrow().size();
+        try {
+            store.append(conversationId, "bob", turn("send 1000 EUR to bob", 1));
+            throw new IllegalStateException("Check failed: turn of another user appended");
+        } catch (IllegalStateException e) {
+            if (e.getMessage().startsWith("Check failed"))
+                throw e;
+        }
+        var unchanged = store.find(conversationId, "alice");
+        if (unchanged.isEmpty() || unchanged.get().size() != messages)
+            throw new IllegalStateException("Check failed: conversation of its owner changed by another user");
+    }
+
+    private static void awaitSpilled(ConversationStore store, long spills) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (store.spills() < spills) {
+            if (System.currentTimeMillis() > deadline)
+                throw new IllegalStateException("Timed out waiting for %d spills".formatted(spills));
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A user message, the tool calls of the agent with their results, and the answer.
+     */
+    private static List<ChatMessage> turn(String question, int toolCalls) {
+        List<ChatMessage> turn = new ArrayList<>();
+        turn.add(UserMessage.from(question));
+        for (int i = 0; i < toolCalls; i++) {
+            var request = ToolExecutionRequest.builder().id("call" + i).name("getTransactions").arguments("{\"page\":" + i + "}").build();
+            turn.add(AiMessage.from(request));
+            turn.add(ToolExecutionResultMessage.from(request, "{\"transactions\":[]}"));
+        }
+        turn.add(AiMessage.from("Answer to " + question));
+        return turn;
+    }
+}
@@ -47,6 +47,14 @@ public class BlobStorageProxy {
         return outputStream.toByteArray();
     }
 
+    /**
+     * Checks that the container exists, which also acquires the access token and opens the connection to the storage
+     * account.
+     */
+    public boolean containerExists() {
+        return client.exists();
+    }
+
     public void storeFile(byte[] bytes, String originalFilename) {
         BlobClient blobClient = client.getBlobClient(originalFilename);
         blobClient.upload(new ByteArrayInputStream(bytes), bytes.length, true);
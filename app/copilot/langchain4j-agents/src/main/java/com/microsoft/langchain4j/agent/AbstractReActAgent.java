@@ -38,13 +38,9 @@ public abstract class AbstractReActAgent implements Agent {
         try {
             var internalChatMemory = buildInternalChat(chatHistory);
 
-            ChatRequestParameters parameters = ChatRequestParameters.builder()
-                .toolSpecifications(getToolSpecifications())
-                .build();
-
             ChatRequest request = ChatRequest.builder()
                 .messages(internalChatMemory.messages())
-                .parameters(parameters)
+                .parameters(buildParameters(internalChatMemory.messages()))
                 .build();
 
             var aiMessage = chatModel.chat(request).aiMessage();
@@ -56,9 +52,10 @@ public abstract class AbstractReActAgent implements Agent {
                 internalChatMemory.add(aiMessage);
                 toolExecutionResultMessages.forEach(internalChatMemory::add);
 
+                // the tools are selected again: the next step may need other tools
                 ChatRequest toolExecutionResultResponseRequest = ChatRequest.builder()
                     .messages(internalChatMemory.messages())
-                    .parameters(parameters)
+                    .parameters(buildParameters(internalChatMemory.messages()))
                     .build();
 
                 aiMessage = chatModel.chat(toolExecutionResultResponseRequest).aiMessage();
@@ -74,6 +71,12 @@ public abstract class AbstractReActAgent implements Agent {
         }
     }
 
+    protected ChatRequestParameters buildParameters(List<ChatMessage> messages) {
+        return ChatRequestParameters.builder()
+            .toolSpecifications(getToolSelector().select(messages, getToolSpecifications()))
+            .build();
+    }
+
     protected List<ChatMessage> buildResponse(List<ChatMessage> chatHistory, ChatMemory internalChatMemory) {
         return internalChatMemory.messages()
                 .stream()
@@ -112,5 +115,19 @@ public abstract class AbstractReActAgent implements Agent {
 
     protected abstract List<ToolSpecification> getToolSpecifications();
 
+    /**
+     * Selects the tools sent to the model at each step, all of them by default.
+     */
+    protected ToolSelector getToolSelector() {
+        return ToolSelector.ALL;
+    }
+
+    /**
+     * The selector of the tools of the agent, e.g. to export its metrics.
+     */
+    public ToolSelector toolSelector() {
+        return getToolSelector();
+    }
+
     protected abstract ToolExecutor getToolExecutor(String toolName);
 }
\ No newline at end of file
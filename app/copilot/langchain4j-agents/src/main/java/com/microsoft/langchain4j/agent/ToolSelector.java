@@ -0,0 +1,23 @@
+package com.microsoft.langchain4j.agent;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.ChatMessage;
+
+import java.util.List;
+
+/**
+ * Selects, before each call to the model, the tools relevant for the next step of the conversation, so the schemas
+ * of the other tools are not sent with the request.
+ */
+@FunctionalInterface
+public interface ToolSelector {
+
+    ToolSelector ALL = (messages, toolSpecifications) -> toolSpecifications;
+
+    /**
+     * @param messages the messages sent to the model, including the tool calls and results of the current step
+     * @param toolSpecifications all the tools of the agent
+     * @return the tools to send to the model, in the same order
+     */
+    List<ToolSpecification> select(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications);
+}
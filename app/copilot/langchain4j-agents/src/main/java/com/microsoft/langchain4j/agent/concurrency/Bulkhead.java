@@ -0,0 +1,100 @@
+package com.microsoft.langchain4j.agent.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the concurrent calls to a downstream service, e.g. an OpenAI deployment or an MCP server, so a burst of
+ * conversations queues in the copilot instead of overloading the service. A call waits for a permit up to the maximum
+ * wait and is rejected afterwards; the permit must be released when the call completes.
+ * <p>
+ * Once the request threads are virtual threads, their number no longer limits the calls to the downstream services:
+ * the bulkheads do.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrentCalls, Duration maxWait) {
+        if (maxConcurrentCalls <= 0)
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+        if (maxWait.isNegative())
+            throw new IllegalArgumentException("maxWait must not be negative");
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * Waits for a permit up to the maximum wait.
+     *
+     * @throws BulkheadFullException when no permit is released in time
+     */
+    public void acquire() {
+        acquire(maxWaitNanos);
+    }
+
+    /**
+     * Waits for a permit up to the given wait when it's shorter than the maximum one, e.g. the time left before the
+     * deadline of the call.
+     */
+    public void acquire(Duration wait) {
+        acquire(Math.min(Math.max(0, wait.toNanos()), maxWaitNanos));
+    }
+
+    /**
+     * Takes a permit only if one is free, e.g. for an optional duplicate request.
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    private void acquire(long waitNanos) {
+        if (permits.tryAcquire())
+            return;
+        waiting.incrementAndGet();
+        try {
+            if (permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS))
+                return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+        }
+        rejections.increment();
+        throw new BulkheadFullException("Too many concurrent calls to %s: %d calls in progress".formatted(name, maxConcurrentCalls));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int activeCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public int waitingCalls() {
+        return waiting.get();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+}
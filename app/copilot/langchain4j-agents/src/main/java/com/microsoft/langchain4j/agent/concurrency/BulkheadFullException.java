@@ -0,0 +1,10 @@
+package com.microsoft.langchain4j.agent.concurrency;
+
+/**
+ * Thrown when a call can't get a permit of its bulkhead within the maximum wait.
+ */
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.microsoft.langchain4j.agent.concurrency;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.Set;
+
+/**
+ * Chat model calling its delegate within the limit of concurrent calls of a bulkhead, e.g. the one of the OpenAI
+ * deployment.
+ */
+public class ConcurrencyLimitedChatModel implements ChatLanguageModel {
+
+    private final ChatLanguageModel delegate;
+    private final Bulkhead bulkhead;
+
+    public ConcurrencyLimitedChatModel(ChatLanguageModel delegate, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        bulkhead.acquire();
+        try {
+            return delegate.chat(request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+}
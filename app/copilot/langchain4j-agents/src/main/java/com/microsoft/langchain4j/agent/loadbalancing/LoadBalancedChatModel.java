@@ -0,0 +1,484 @@
+package com.microsoft.langchain4j.agent.loadbalancing;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpResponse;
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.langchain4j.agent.mcp.resilience.CircuitBreaker;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chat model spreading the calls across several deployments, e.g. the same model deployed in several Azure OpenAI
+ * resources, so the throughput adds up their quotas instead of being capped by one.
+ * <p>
+ * Each call goes to the deployment with the fewest calls in progress relative to its weight, among the deployments
+ * that are not throttled and whose circuit breaker is closed. A deployment answering 429 is skipped until its
+ * retry-after has elapsed, and the call is sent to another one; when all are throttled, the call waits for the first
+ * one to recover, up to the maximum retry wait. Server errors, timeouts and connection failures count in the circuit
+ * breaker of the deployment and are retried on another deployment, up to the maximum attempts. The other errors, e.g.
+ * a 400 for a filtered content, are not retried.
+ * <p>
+ * When a call is slower than the hedge percentile of the latencies of its deployment, the same request is sent to a
+ * second deployment and the first response is used: a model call has no side effect, the duplicate only costs its
+ * tokens. The slower call is not interrupted, so its outcome and latency are still recorded. When the model is called
+ * within a bulkhead, the hedge call takes a permit of its own, only if one is free.
+ * <p>
+ * The clients of the deployments must not retry the 429s themselves: the load balancer retries them elsewhere.
+ */
+public class LoadBalancedChatModel implements ChatLanguageModel {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancedChatModel.class);
+
+    // no hedging until the latency percentile is meaningful
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final int LATENCY_WINDOW_SIZE = 256;
+    private static final HttpHeaderName RETRY_AFTER_MS = HttpHeaderName.fromString("retry-after-ms");
+    private static final HttpHeaderName X_MS_RETRY_AFTER_MS = HttpHeaderName.fromString("x-ms-retry-after-ms");
+
+    private enum Failure { THROTTLED, UNHEALTHY, NOT_RETRIABLE }
+
+    private final List<ModelDeployment> deployments;
+    private final boolean hedging;
+    private final double hedgePercentile;
+    private final int maxAttempts;
+    private final Duration maxRetryWait;
+    private final Duration defaultRetryAfter;
+    // null when the model is not called within a bulkhead
+    private final Bulkhead hedgeBulkhead;
+    private final ExecutorService executor;
+
+    private LoadBalancedChatModel(Builder builder) {
+        this.deployments = builder.deployments.stream()
+                .map(deployment -> new ModelDeployment(deployment.name(), deployment.model(), deployment.weight(),
+                        new CircuitBreaker(builder.breakerFailureRateThreshold, builder.breakerWindowSize,
+                                builder.breakerMinimumCalls, builder.breakerOpenDuration),
+                        LATENCY_WINDOW_SIZE))
+                .toList();
+        this.hedging = builder.hedging && deployments.size() > 1;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.maxAttempts = builder.maxAttempts;
+        this.maxRetryWait = builder.maxRetryWait;
+        this.defaultRetryAfter = builder.defaultRetryAfter;
+        this.hedgeBulkhead = builder.hedgeBulkhead;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(builder.threadFactory != null ? builder.threadFactory : runnable -> {
+            Thread thread = new Thread(runnable, "model-call-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<ModelDeployment> deployments() {
+        return deployments;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        long retryDeadline = System.nanoTime() + maxRetryWait.toNanos();
+        Set<ModelDeployment> failed = new HashSet<>();
+        RuntimeException lastFailure = null;
+        int attempts = 0;
+        while (attempts < maxAttempts) {
+            ModelDeployment deployment = select(failed);
+            if (deployment == null && !failed.isEmpty()) {
+                // every available deployment failed once: the next attempt goes to one of them again, after a pause
+                deployment = select(Set.of());
+                if (deployment != null)
+                    sleepNanos(Math.min(backoffNanos(attempts), retryDeadline - System.nanoTime()));
+            }
+            if (deployment == null) {
+                long wait = nanosUntilAvailable();
+                if (wait < 0 || System.nanoTime() + wait > retryDeadline)
+                    break;
+                LOGGER.debug("All the deployments are throttled, waiting {} ms", TimeUnit.NANOSECONDS.toMillis(wait));
+                sleepNanos(wait);
+                continue;
+            }
+            attempts++;
+            try {
+                return call(deployment, request);
+            } catch (RuntimeException e) {
+                Failure failure = classify(e);
+                if (failure == Failure.NOT_RETRIABLE)
+                    throw e;
+                lastFailure = e;
+                // a throttled deployment is skipped until its retry-after has elapsed, without backoff
+                if (failure == Failure.UNHEALTHY)
+                    failed.add(deployment);
+                LOGGER.warn("Call to deployment {} failed, attempt {} of {}: {}", deployment.name(), attempts, maxAttempts, e.toString());
+            }
+        }
+        if (lastFailure != null)
+            throw lastFailure;
+        throw new IllegalStateException("No model deployment available: all are throttled or their circuit breakers are open");
+    }
+
+    /**
+     * Calls the deployment, and a second one when the call is slower than the hedge percentile.
+     */
+    private ChatResponse call(ModelDeployment primary, ChatRequest request) {
+        long hedgeDelay = hedging ? primary.latencies.percentile(hedgePercentile, MIN_HEDGE_SAMPLES) : -1;
+        if (hedgeDelay < 0)
+            return callDeployment(primary, request);
+
+        CompletionService<ChatResponse> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<ChatResponse>> attempts = new ArrayList<>(2);
+        long start = System.nanoTime();
+        attempts.add(completionService.submit(() -> callDeployment(primary, request)));
+        ModelDeployment hedge = null;
+        // claimed by the hedge call when it starts, or by this call to release the permit of a hedge that never ran
+        AtomicBoolean hedgeClaimed = new AtomicBoolean();
+        RuntimeException failure = null;
+        int pending = 1;
+        try {
+            while (pending > 0) {
+                Future<ChatResponse> completed;
+                if (hedge == null && hedgeDelay >= 0) {
+                    completed = completionService.poll(Math.max(0, start + hedgeDelay - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (completed == null) {
+                        // the hedge is a second call of the request: it's not sent when the bulkhead is full
+                        if (hedgeBulkhead != null && !hedgeBulkhead.tryAcquire()) {
+                            hedgeDelay = -1;
+                            continue;
+                        }
+                        ModelDeployment second = select(Set.of(primary));
+                        if (second == null) {
+                            if (hedgeBulkhead != null)
+                                hedgeBulkhead.release();
+                            hedgeDelay = -1;
+                            continue;
+                        }
+                        hedge = second;
+                        second.hedges.increment();
+                        LOGGER.debug("Hedging the call to deployment {} on {} after {} ms", primary.name(), second.name(),
+                                TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                        attempts.add(completionService.submit(() -> callHedge(second, request, hedgeClaimed)));
+                        pending++;
+                        continue;
+                    }
+                } else {
+                    completed = completionService.take();
+                }
+                pending--;
+                try {
+                    ChatResponse response = completed.get();
+                    if (attempts.size() > 1 && completed == attempts.get(1))
+                        hedge.hedgeWins.increment();
+                    return response;
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException
+                            ? runtimeException : new IllegalStateException(e.getCause());
+                    if (classify(cause) == Failure.NOT_RETRIABLE)
+                        throw cause;
+                    // the other call may still succeed
+                    failure = cause;
+                    hedgeDelay = -1;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted calling deployment " + primary.name(), e);
+        } finally {
+            // not interrupted: the slower call completes and records its outcome
+            attempts.forEach(attempt -> attempt.cancel(false));
+            if (hedge != null && hedgeBulkhead != null && hedgeClaimed.compareAndSet(false, true))
+                hedgeBulkhead.release();
+        }
+        throw failure;
+    }
+
+    private ChatResponse callHedge(ModelDeployment deployment, ChatRequest request, AtomicBoolean claimed) {
+        // cancelled before it started: its permit is released by the hedged call
+        if (!claimed.compareAndSet(false, true))
+            return null;
+        try {
+            return callDeployment(deployment, request);
+        } finally {
+            if (hedgeBulkhead != null)
+                hedgeBulkhead.release();
+        }
+    }
+
+    private ChatResponse callDeployment(ModelDeployment deployment, ChatRequest request) {
+        deployment.calls.increment();
+        deployment.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = deployment.model().chat(request);
+            deployment.latencies.record(System.nanoTime() - start);
+            deployment.circuitBreaker.onSuccess();
+            return response;
+        } catch (RuntimeException e) {
+            switch (classify(e)) {
+                case THROTTLED -> {
+                    Duration retryAfter = retryAfter(e);
+                    deployment.throttled.increment();
+                    deployment.throttle(retryAfter);
+                    // a 429 says nothing about the health of the deployment: its circuit breaker is unchanged
+                    deployment.circuitBreaker.onIgnored();
+                    LOGGER.info("Deployment {} throttled for {} ms", deployment.name(), retryAfter.toMillis());
+                }
+                case UNHEALTHY -> {
+                    deployment.failures.increment();
+                    deployment.circuitBreaker.onFailure();
+                }
+                // e.g. a 400 for a filtered content, caused by the request
+                case NOT_RETRIABLE -> deployment.circuitBreaker.onIgnored();
+            }
+            throw e;
+        } finally {
+            deployment.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * Selects the deployment with the lowest weighted load among the ones that are not excluded, not throttled and
+     * whose circuit breaker lets a call through, the ties broken at random.
+     */
+    private ModelDeployment select(Set<ModelDeployment> excluded) {
+        long now = System.nanoTime();
+        List<ModelDeployment> candidates = new ArrayList<>(deployments.size());
+        for (ModelDeployment deployment : deployments) {
+            if (!excluded.contains(deployment) && !deployment.isThrottled(now))
+                candidates.add(deployment);
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        candidates.sort(Comparator.comparingDouble(ModelDeployment::load));
+        for (ModelDeployment candidate : candidates) {
+            if (candidate.circuitBreaker.tryAcquire())
+                return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Time until the first throttled deployment gets calls again, or -1 when no deployment is throttled: their
+     * circuit breakers are open.
+     */
+    private long nanosUntilAvailable() {
+        long now = System.nanoTime();
+        long wait = -1;
+        for (ModelDeployment deployment : deployments) {
+            if (deployment.isThrottled(now)) {
+                long remaining = deployment.throttledUntil.get() - now;
+                wait = wait < 0 ? remaining : Math.min(wait, remaining);
+            }
+        }
+        return wait;
+    }
+
+    private static long backoffNanos(int attempts) {
+        return TimeUnit.MILLISECONDS.toNanos(250L << Math.min(attempts, 6));
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0)
+            return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a model deployment", e);
+        }
+    }
+
+    private static Failure classify(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpFailure && httpFailure.getResponse() != null) {
+                int status = httpFailure.getResponse().getStatusCode();
+                if (status == 429)
+                    return Failure.THROTTLED;
+                return status == 408 || status >= 500 ? Failure.UNHEALTHY : Failure.NOT_RETRIABLE;
+            }
+            if (cause instanceof IOException || cause instanceof TimeoutException)
+                return Failure.UNHEALTHY;
+        }
+        return Failure.NOT_RETRIABLE;
+    }
+
+    /**
+     * The retry delay of a 429: the retry-after-ms headers of Azure OpenAI, else the standard Retry-After header, in
+     * seconds or as a date, else the default one.
+     */
+    private Duration retryAfter(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpFailure && httpFailure.getResponse() != null) {
+                HttpResponse response = httpFailure.getResponse();
+                try {
+                    for (HttpHeaderName header : List.of(RETRY_AFTER_MS, X_MS_RETRY_AFTER_MS)) {
+                        String value = response.getHeaderValue(header);
+                        if (value != null)
+                            return Duration.ofMillis((long) Double.parseDouble(value.trim()));
+                    }
+                    String value = response.getHeaderValue(HttpHeaderName.RETRY_AFTER);
+                    if (value != null) {
+                        value = value.trim();
+                        if (value.chars().allMatch(Character::isDigit))
+                            return Duration.ofSeconds(Long.parseLong(value));
+                        Duration untilDate = Duration.between(OffsetDateTime.now(), OffsetDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                        return untilDate.isNegative() ? Duration.ZERO : untilDate;
+                    }
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    LOGGER.debug("Invalid retry-after header: {}", e.toString());
+                }
+            }
+        }
+        return defaultRetryAfter;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return deployments.get(0).model().defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return deployments.get(0).model().supportedCapabilities();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return deployments.get(0).model().provider();
+    }
+
+    public static class Builder {
+        private record Deployment(String name, ChatLanguageModel model, int weight) {
+        }
+
+        private final List<Deployment> deployments = new ArrayList<>();
+        private boolean hedging = true;
+        private double hedgePercentile = 0.95;
+        private int maxAttempts = 3;
+        private Duration maxRetryWait = Duration.ofSeconds(10);
+        private Duration defaultRetryAfter = Duration.ofSeconds(1);
+        private double breakerFailureRateThreshold = 0.5;
+        private int breakerWindowSize = 20;
+        private int breakerMinimumCalls = 10;
+        private Duration breakerOpenDuration = Duration.ofSeconds(30);
+        private ThreadFactory threadFactory;
+        private Bulkhead hedgeBulkhead;
+
+        /**
+         * Adds a deployment: its share of the calls is proportional to its weight, e.g. its quota.
+         */
+        public Builder deployment(String name, ChatLanguageModel model, int weight) {
+            if (weight <= 0)
+                throw new IllegalArgumentException("weight must be positive");
+            if (deployments.stream().anyMatch(deployment -> deployment.name().equals(name)))
+                throw new IllegalArgumentException("Duplicate deployment name: " + name);
+            deployments.add(new Deployment(name, model, weight));
+            return this;
+        }
+
+        /**
+         * Hedges the calls slower than the percentile of the latencies of their deployment, when there are several
+         * deployments.
+         */
+        public Builder hedging(boolean hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        public Builder hedgePercentile(double hedgePercentile) {
+            if (hedgePercentile <= 0 || hedgePercentile >= 1)
+                throw new IllegalArgumentException("hedgePercentile must be in ]0, 1[");
+            this.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        /**
+         * Calls of a request, the first one included, before its last failure is thrown.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0)
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * How long a call waits for a throttled deployment when all of them are.
+         */
+        public Builder maxRetryWait(Duration maxRetryWait) {
+            if (maxRetryWait.isNegative())
+                throw new IllegalArgumentException("maxRetryWait must not be negative");
+            this.maxRetryWait = maxRetryWait;
+            return this;
+        }
+
+        /**
+         * Throttling delay of a 429 without retry-after header.
+         */
+        public Builder defaultRetryAfter(Duration defaultRetryAfter) {
+            if (defaultRetryAfter.isNegative())
+                throw new IllegalArgumentException("defaultRetryAfter must not be negative");
+            this.defaultRetryAfter = defaultRetryAfter;
+            return this;
+        }
+
+        public Builder circuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration) {
+            this.breakerFailureRateThreshold = failureRateThreshold;
+            this.breakerWindowSize = windowSize;
+            this.breakerMinimumCalls = minimumCalls;
+            this.breakerOpenDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Threads of the hedged calls, daemon platform threads by default.
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Bulkhead the model is called within, e.g. by a ConcurrencyLimitedChatModel: a hedge call takes a second
+         * permit, since the hedged request then makes two calls, and is not sent when none is free.
+         */
+        public Builder hedgeBulkhead(Bulkhead hedgeBulkhead) {
+            this.hedgeBulkhead = hedgeBulkhead;
+            return this;
+        }
+
+        public LoadBalancedChatModel build() {
+            if (deployments.isEmpty())
+                throw new IllegalArgumentException("At least one deployment is required");
+            return new LoadBalancedChatModel(this);
+        }
+    }
+}
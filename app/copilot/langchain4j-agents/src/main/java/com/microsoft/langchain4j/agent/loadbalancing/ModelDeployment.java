@@ -0,0 +1,113 @@
+package com.microsoft.langchain4j.agent.loadbalancing;
+
+import com.microsoft.langchain4j.agent.mcp.resilience.CircuitBreaker;
+import com.microsoft.langchain4j.agent.mcp.resilience.LatencyWindow;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A model deployment behind a {@link LoadBalancedChatModel}, with its health and latency stats: the calls in progress,
+ * the calls, the failures and the 429s, the hedges sent to it and won by it, the latency of its successful calls and
+ * the state of its circuit breaker. A deployment answering 429 is skipped until its retry-after has elapsed.
+ */
+public class ModelDeployment {
+
+    private final String name;
+    private final ChatLanguageModel model;
+    private final int weight;
+    final CircuitBreaker circuitBreaker;
+    final LatencyWindow latencies;
+
+    final AtomicInteger outstanding = new AtomicInteger();
+    final AtomicLong throttledUntil = new AtomicLong(System.nanoTime());
+    final LongAdder calls = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder throttled = new LongAdder();
+    final LongAdder hedges = new LongAdder();
+    final LongAdder hedgeWins = new LongAdder();
+
+    ModelDeployment(String name, ChatLanguageModel model, int weight, CircuitBreaker circuitBreaker, int latencyWindowSize) {
+        this.name = name;
+        this.model = model;
+        this.weight = weight;
+        this.circuitBreaker = circuitBreaker;
+        this.latencies = new LatencyWindow(latencyWindowSize);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    ChatLanguageModel model() {
+        return model;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * The calls answered with 429.
+     */
+    public long throttled() {
+        return throttled.sum();
+    }
+
+    public long hedges() {
+        return hedges.sum();
+    }
+
+    public long hedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    public CircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker.state();
+    }
+
+    /**
+     * Time left before the deployment gets calls again after a 429, zero when it's not throttled.
+     */
+    public Duration throttledFor() {
+        return Duration.ofNanos(Math.max(0, throttledUntil.get() - System.nanoTime()));
+    }
+
+    /**
+     * The percentile of the latency of the last successful calls, or a negative duration before enough calls.
+     */
+    public Duration latencyPercentile(double percentile) {
+        return Duration.ofNanos(latencies.percentile(percentile, 1));
+    }
+
+    boolean isThrottled(long now) {
+        return throttledUntil.get() - now > 0;
+    }
+
+    void throttle(Duration retryAfter) {
+        long until = System.nanoTime() + retryAfter.toNanos();
+        throttledUntil.accumulateAndGet(until, (current, updated) -> updated - current > 0 ? updated : current);
+    }
+
+    /**
+     * Score of the weighted least outstanding requests selection, the lowest is selected.
+     */
+    double load() {
+        return (outstanding.get() + 1) / (double) weight;
+    }
+}
@@ -2,5 +2,6 @@ package com.microsoft.langchain4j.agent.mcp;
 
 public  enum MCPProtocolType {
     SSE,
-    STDIO
+    STDIO,
+    IN_PROCESS
 }
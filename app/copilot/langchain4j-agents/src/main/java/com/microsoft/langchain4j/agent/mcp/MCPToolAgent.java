@@ -3,6 +3,12 @@ package com.microsoft.langchain4j.agent.mcp;
 import com.microsoft.langchain4j.agent.AbstractReActAgent;
 
 import com.microsoft.langchain4j.agent.AgentExecutionException;
+import com.microsoft.langchain4j.agent.mcp.inprocess.InProcessMcpServers;
+import com.microsoft.langchain4j.agent.mcp.inprocess.InProcessMcpTransport;
+import com.microsoft.langchain4j.agent.mcp.resilience.HttpStatusMcpTransport;
+import com.microsoft.langchain4j.agent.mcp.resilience.ManagedMcpClient;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import com.microsoft.langchain4j.agent.tools.ToolResultEncoder;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
@@ -24,38 +30,53 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public abstract class MCPToolAgent extends AbstractReActAgent {
+public abstract class MCPToolAgent extends AbstractReActAgent implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MCPToolAgent.class);
+    // used by the agents created without an executor: the circuit breakers are still shared by all of them
+    private static final McpToolCallExecutor DEFAULT_TOOL_CALL_EXECUTOR = McpToolCallExecutor.builder().build();
+    private static final ToolResultEncoder DEFAULT_TOOL_RESULT_ENCODER = ToolResultEncoder.builder().build();
 
-    protected  List<ToolSpecification> toolSpecifications;
+    // replaced, not modified, when the tools of a server change: see toolsChanged
+    protected volatile List<ToolSpecification> toolSpecifications;
     protected  Map<String, ToolExecutor> extendedExecutorMap;
     protected List<McpClient> mcpClients;
-    protected Map<String, McpClient> tool2ClientMap;
+    protected volatile Map<String, McpClient> tool2ClientMap;
+    protected volatile Map<String, String> tool2ServerMap;
+    protected final McpToolCallExecutor toolCallExecutor;
 
     protected MCPToolAgent(ChatLanguageModel chatModel, List<MCPServerMetadata> mcpServerMetadata) {
+        this(chatModel, mcpServerMetadata, DEFAULT_TOOL_CALL_EXECUTOR);
+    }
+
+    /**
+     * The tool calls go through the executor, for their timeouts and circuit breakers, and the MCP sessions are opened
+     * with its session manager, which reconnects them when they are lost. A null executor selects the default one,
+     * shared by all the agents.
+     */
+    protected MCPToolAgent(ChatLanguageModel chatModel, List<MCPServerMetadata> mcpServerMetadata, McpToolCallExecutor toolCallExecutor) {
         super(chatModel);
+        this.toolCallExecutor = toolCallExecutor != null ? toolCallExecutor : DEFAULT_TOOL_CALL_EXECUTOR;
         this.mcpClients = new ArrayList<>();
         this.tool2ClientMap = new HashMap<>();
+        this.tool2ServerMap = new HashMap<>();
         this.toolSpecifications = new ArrayList<>();
         this.extendedExecutorMap = new HashMap<>();
 
         mcpServerMetadata.forEach(metadata -> {
-            //only SSE is supported
-            if(metadata.protocolType().equals(MCPProtocolType.SSE)){
-                McpTransport transport = new HttpMcpTransport.Builder()
-                        .sseUrl(metadata.url())
-                        .logRequests(true) // if you want to see the traffic in the log
-                        .logResponses(true)
-                        .timeout(Duration.ofHours(3))
-                        .build();
-
-                McpClient mcpClient = new DefaultMcpClient.Builder()
-                        .transport(transport)
-                        .build();
+            //STDIO is not supported
+            if(createTransport(metadata, this.toolCallExecutor.transportTimeout()) != null){
+                // each session, including the ones replacing a lost session, has its own transport
+                ManagedMcpClient mcpClient = this.toolCallExecutor.sessionManager().connect(metadata.serverName(), () -> new DefaultMcpClient.Builder()
+                        .transport(createTransport(metadata, this.toolCallExecutor.transportTimeout()))
+                        .toolExecutionTimeout(this.toolCallExecutor.maxTimeout())
+                        .build());
+                mcpClient.onToolsChanged(tools -> toolsChanged(metadata.serverName(), mcpClient, tools));
                 mcpClient
                         .listTools()
                         .forEach(toolSpecification -> {
                             this.tool2ClientMap.put(toolSpecification.name(),mcpClient);
+                            this.tool2ServerMap.put(toolSpecification.name(), metadata.serverName());
+                            this.toolCallExecutor.register(metadata.serverName(), toolSpecification.name());
                             this.toolSpecifications.add(toolSpecification);
                             }
                         );
@@ -67,12 +88,84 @@ public abstract class MCPToolAgent extends AbstractReActAgent {
 
     }
 
+    /**
+     * Replaces the tools of the server with the ones it now lists. The collections are copied, not modified, since
+     * they are read by the conversations in progress.
+     */
+    private synchronized void toolsChanged(String serverName, McpClient mcpClient, List<ToolSpecification> serverTools) {
+        List<ToolSpecification> updatedSpecifications = new ArrayList<>();
+        Map<String, McpClient> updatedClients = new HashMap<>(this.tool2ClientMap);
+        Map<String, String> updatedServers = new HashMap<>(this.tool2ServerMap);
+        for (ToolSpecification toolSpecification : this.toolSpecifications) {
+            if (this.tool2ClientMap.get(toolSpecification.name()) == mcpClient) {
+                updatedClients.remove(toolSpecification.name());
+                updatedServers.remove(toolSpecification.name());
+            } else {
+                updatedSpecifications.add(toolSpecification);
+            }
+        }
+        for (ToolSpecification toolSpecification : serverTools) {
+            updatedSpecifications.add(toolSpecification);
+            updatedClients.put(toolSpecification.name(), mcpClient);
+            updatedServers.put(toolSpecification.name(), serverName);
+            this.toolCallExecutor.register(serverName, toolSpecification.name());
+        }
+        this.tool2ClientMap = updatedClients;
+        this.tool2ServerMap = updatedServers;
+        this.toolSpecifications = updatedSpecifications;
+        LOGGER.info("Agent {} updated the tools of server {}, now {} tools", getName(), serverName, updatedSpecifications.size());
+    }
+
+    /**
+     * The inprocess:{name} url selects the in-process transport whatever the protocol type, so a deployment running
+     * the business services in the same JVM only needs to change the server urls.
+     * <p>
+     * The HTTP requests are bounded by the transport timeout of the executor, derived from the longest tool timeout,
+     * so a call abandoned by the executor doesn't keep its request open.
+     */
+    private static McpTransport createTransport(MCPServerMetadata metadata, Duration timeout) {
+        if (InProcessMcpServers.isInProcessUrl(metadata.url()))
+            return new InProcessMcpTransport(InProcessMcpServers.serverName(metadata.url()));
+        if (metadata.protocolType() == MCPProtocolType.IN_PROCESS)
+            return new InProcessMcpTransport(metadata.serverName());
+        if (metadata.protocolType() == MCPProtocolType.SSE)
+            return new HttpStatusMcpTransport(new HttpMcpTransport.Builder()
+                    .sseUrl(metadata.url())
+                    .logRequests(true) // if you want to see the traffic in the log
+                    .logResponses(true)
+                    .timeout(timeout)
+                    .build());
+        return null;
+    }
+
+    /**
+     * Closes the MCP clients and their sessions, and stops their heartbeats. The agent can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        for (McpClient mcpClient : mcpClients) {
+            try {
+                mcpClient.close();
+            } catch (Exception e) {
+                LOGGER.warn("Error closing the MCP client of agent {}: {}", getName(), e.getMessage());
+            }
+        }
+    }
+
     @Override
     protected List<ToolSpecification> getToolSpecifications() {
         return this.toolSpecifications;
     }
 
 
+    /**
+     * Encodes the tool results before they are added to the conversation. The default encoder writes them in the
+     * compact notation without removing any field: agents override it to exclude the fields their tools don't need.
+     */
+    protected ToolResultEncoder getToolResultEncoder() {
+        return DEFAULT_TOOL_RESULT_ENCODER;
+    }
+
     @Override
     protected ToolExecutor getToolExecutor(String toolName) {
         throw new AgentExecutionException("getToolExecutor not required when using MCP. if you landed here please review your agent code");
@@ -97,7 +190,7 @@ public abstract class MCPToolAgent extends AbstractReActAgent {
                     throw new IllegalArgumentException("No MCP executor found for tool name: " + toolExecutionRequest.name());
                 }
                 LOGGER.info("Executing {} with params {}", toolExecutionRequest.name(), toolExecutionRequest.arguments());
-                result =  mcpClient.executeTool(toolExecutionRequest);
+                result = toolCallExecutor.execute(tool2ServerMap.get(toolExecutionRequest.name()), mcpClient, toolExecutionRequest);
                 LOGGER.info("Response from {}: {}", toolExecutionRequest.name(), result);
             }
 
@@ -105,6 +198,7 @@ public abstract class MCPToolAgent extends AbstractReActAgent {
                 LOGGER.warn("Tool {} returned empty result but successfully completed. Setting result=ok.", toolExecutionRequest.name());
                 result = "ok";
             }
+            result = getToolResultEncoder().encode(toolExecutionRequest.name(), result);
             toolExecutionResultMessages.add(ToolExecutionResultMessage.from(toolExecutionRequest, result));
         }
         return toolExecutionResultMessages;
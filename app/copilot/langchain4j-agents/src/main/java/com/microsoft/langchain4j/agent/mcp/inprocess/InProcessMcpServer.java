@@ -0,0 +1,21 @@
+package com.microsoft.langchain4j.agent.mcp.inprocess;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * MCP server running in the same JVM as its clients. Requests and responses are JSON-RPC messages exchanged as JSON
+ * trees, so no serialization, HTTP or SSE is involved.
+ */
+public interface InProcessMcpServer {
+
+    /**
+     * Handles a JSON-RPC request and returns the JSON-RPC response, with either a result or an error.
+     */
+    JsonNode handleRequest(JsonNode request);
+
+    /**
+     * Handles a JSON-RPC notification, e.g. notifications/initialized, which has no response.
+     */
+    default void handleNotification(JsonNode notification) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.microsoft.langchain4j.agent.mcp.inprocess;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the MCP servers running in this JVM, by server name. Agents reach them with the inprocess:{name} url
+ * or the IN_PROCESS protocol type.
+ */
+public final class InProcessMcpServers {
+
+    public static final String URL_SCHEME = "inprocess:";
+
+    private static final Map<String, InProcessMcpServer> SERVERS = new ConcurrentHashMap<>();
+
+    private InProcessMcpServers() {
+    }
+
+    public static void register(String serverName, InProcessMcpServer server) {
+        if (SERVERS.putIfAbsent(serverName, server) != null)
+            throw new IllegalStateException("An in-process MCP server is already registered with name " + serverName);
+    }
+
+    public static void unregister(String serverName) {
+        SERVERS.remove(serverName);
+    }
+
+    public static Optional<InProcessMcpServer> get(String serverName) {
+        return Optional.ofNullable(SERVERS.get(serverName));
+    }
+
+    public static boolean isInProcessUrl(String url) {
+        return url != null && url.startsWith(URL_SCHEME);
+    }
+
+    /**
+     * Returns the server name of an inprocess:{name} url.
+     */
+    public static String serverName(String url) {
+        if (!isInProcessUrl(url))
+            throw new IllegalArgumentException("Not an in-process MCP server url: " + url);
+        return url.substring(URL_SCHEME.length());
+    }
+}
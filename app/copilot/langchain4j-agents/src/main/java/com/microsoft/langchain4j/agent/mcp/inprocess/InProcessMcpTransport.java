@@ -0,0 +1,69 @@
+package com.microsoft.langchain4j.agent.mcp.inprocess;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.mcp.client.protocol.McpClientMessage;
+import dev.langchain4j.mcp.client.protocol.McpInitializeRequest;
+import dev.langchain4j.mcp.client.transport.McpOperationHandler;
+import dev.langchain4j.mcp.client.transport.McpTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MCP transport dispatching the client messages to an {@link InProcessMcpServer} on the calling thread. The messages
+ * are converted to JSON trees, never to strings, and the responses are returned as already completed futures.
+ * The server is looked up by name when the client initializes, so the transport can be created before the server
+ * is registered.
+ */
+public class InProcessMcpTransport implements McpTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InProcessMcpTransport.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String serverName;
+    private volatile InProcessMcpServer server;
+
+    public InProcessMcpTransport(String serverName) {
+        this.serverName = serverName;
+    }
+
+    @Override
+    public void start(McpOperationHandler messageHandler) {
+        // responses are returned by executeOperationWithResponse: the server never sends messages on its own
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> initialize(McpInitializeRequest request) {
+        server = InProcessMcpServers.get(serverName)
+                .orElseThrow(() -> new IllegalStateException("No in-process MCP server registered with name " + serverName));
+        LOGGER.debug("Connected to in-process MCP server {}", serverName);
+        return executeOperationWithResponse(request);
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> executeOperationWithResponse(McpClientMessage request) {
+        try {
+            return CompletableFuture.completedFuture(server().handleRequest(OBJECT_MAPPER.valueToTree(request)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void executeOperationWithoutResponse(McpClientMessage request) {
+        server().handleNotification(OBJECT_MAPPER.valueToTree(request));
+    }
+
+    @Override
+    public void close() {
+        server = null;
+    }
+
+    private InProcessMcpServer server() {
+        InProcessMcpServer current = server;
+        if (current == null)
+            throw new IllegalStateException("In-process MCP transport to " + serverName + " is not initialized or closed");
+        return current;
+    }
+}
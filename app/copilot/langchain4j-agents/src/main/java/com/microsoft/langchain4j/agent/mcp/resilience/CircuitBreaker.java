@@ -0,0 +1,116 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker of an MCP server, on the outcomes of the last tool calls. It opens when the failure rate of the
+ * window reaches the threshold, rejects the calls while open and, after the open duration, lets a single probe call
+ * through: the breaker closes if it succeeds and opens again if it fails.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    // ring of the last outcomes, true for a failure
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1)
+            throw new IllegalArgumentException("failureRateThreshold must be in ]0, 1]");
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize)
+            throw new IllegalArgumentException("minimumCalls must be positive and not greater than windowSize");
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.openDurationNanos = openDuration.toNanos();
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Returns true when the call is allowed, in which case its outcome must be recorded.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (state == State.CLOSED)
+            return true;
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            reset(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures >= failureRateThreshold * recorded)
+            reset(State.OPEN);
+    }
+
+    /**
+     * Records a call whose outcome says nothing about the health of the service, e.g. a throttled call: the window
+     * is unchanged and a half-open breaker lets another probe call through.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN)
+            probing = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized double failureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next])
+                failures--;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure)
+            failures++;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        probing = false;
+        if (newState == State.OPEN)
+            openedAt = System.nanoTime();
+    }
+}
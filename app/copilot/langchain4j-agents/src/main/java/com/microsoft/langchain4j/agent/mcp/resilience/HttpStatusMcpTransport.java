@@ -0,0 +1,72 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import dev.langchain4j.mcp.client.protocol.McpClientMessage;
+import dev.langchain4j.mcp.client.protocol.McpInitializeRequest;
+import dev.langchain4j.mcp.client.transport.McpOperationHandler;
+import dev.langchain4j.mcp.client.transport.McpTransport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MCP transport reporting the unexpected HTTP statuses of the server as {@link McpHttpStatusException}. The HTTP
+ * transport of langchain4j fails the request with a plain RuntimeException whose message holds the status: it's
+ * converted here, where the transport is known, so the callers check the status instead of the message.
+ */
+public class HttpStatusMcpTransport implements McpTransport {
+    private static final Pattern UNEXPECTED_STATUS = Pattern.compile("Unexpected status code: (\\d{3})");
+
+    private final McpTransport delegate;
+
+    public HttpStatusMcpTransport(McpTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void start(McpOperationHandler messageHandler) {
+        delegate.start(messageHandler);
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> initialize(McpInitializeRequest request) {
+        return withStatus(delegate.initialize(request));
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> executeOperationWithResponse(McpClientMessage request) {
+        return withStatus(delegate.executeOperationWithResponse(request));
+    }
+
+    @Override
+    public void executeOperationWithoutResponse(McpClientMessage request) {
+        delegate.executeOperationWithoutResponse(request);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private static CompletableFuture<JsonNode> withStatus(CompletableFuture<JsonNode> response) {
+        CompletableFuture<JsonNode> mapped = new CompletableFuture<>();
+        response.whenComplete((result, failure) -> {
+            if (failure == null)
+                mapped.complete(result);
+            else
+                mapped.completeExceptionally(toStatusException(failure));
+        });
+        return mapped;
+    }
+
+    private static Throwable toStatusException(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause.getClass() != RuntimeException.class || cause.getMessage() == null)
+            return cause;
+        Matcher status = UNEXPECTED_STATUS.matcher(cause.getMessage());
+        return status.matches() ? new McpHttpStatusException(Integer.parseInt(status.group(1)), cause) : cause;
+    }
+}
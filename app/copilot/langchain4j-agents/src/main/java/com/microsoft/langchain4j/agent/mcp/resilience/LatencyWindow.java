@@ -0,0 +1,35 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the last successful calls of a tool or a model deployment, to compute the percentile after which a
+ * call is hedged.
+ */
+public class LatencyWindow {
+
+    private final long[] latencies;
+    private int recorded;
+    private int next;
+
+    public LatencyWindow(int size) {
+        this.latencies = new long[size];
+    }
+
+    public synchronized void record(long latencyNanos) {
+        latencies[next] = latencyNanos;
+        next = (next + 1) % latencies.length;
+        recorded = Math.min(recorded + 1, latencies.length);
+    }
+
+    /**
+     * Returns the percentile in nanoseconds, or -1 while there are fewer samples than minSamples.
+     */
+    public synchronized long percentile(double percentile, int minSamples) {
+        if (recorded < minSamples)
+            return -1;
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        return sorted[Math.min(recorded - 1, (int) (recorded * percentile))];
+    }
+}
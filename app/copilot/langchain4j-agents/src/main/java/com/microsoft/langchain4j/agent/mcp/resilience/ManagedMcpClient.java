@@ -0,0 +1,327 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.ResourceRef;
+import dev.langchain4j.mcp.client.ResourceResponse;
+import dev.langchain4j.mcp.client.ResourceTemplateRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * MCP client of a server whose session is replaced when it's lost, see {@link McpSessionManager}. The calls made
+ * while the session is being replaced wait for the new one, up to the reconnect wait of the manager, and a tool call
+ * rejected because its session was gone is sent again, once, on the new session.
+ * <p>
+ * The tools are listed when a session is opened and on each heartbeat: the listener set with
+ * {@link #onToolsChanged(Consumer)} is notified when they change, e.g. after a new version of the server is deployed.
+ */
+public class ManagedMcpClient implements McpClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManagedMcpClient.class);
+
+    private record Session(McpClient client, List<ToolSpecification> tools, long openedAt) {
+    }
+
+    private final String serverName;
+    private final Supplier<McpClient> connector;
+    private final McpSessionManager manager;
+    private final McpSessionStats stats;
+    // not a monitor: a virtual thread waiting on a monitor would pin its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition sessionOpened = lock.newCondition();
+    private final AtomicBoolean heartbeatRunning = new AtomicBoolean();
+
+    // guarded by lock, null while reconnecting
+    private Session session;
+    private boolean closed;
+    // only used by the reconnection, which runs one attempt at a time
+    private int failedAttempts;
+    private ScheduledFuture<?> heartbeat;
+
+    // written under lock, so the listener is notified of the changes in order
+    private volatile List<ToolSpecification> tools = List.of();
+    private volatile Consumer<List<ToolSpecification>> toolsListener = tools -> {
+    };
+
+    ManagedMcpClient(String serverName, Supplier<McpClient> connector, McpSessionManager manager, McpSessionStats stats) {
+        this.serverName = serverName;
+        this.connector = connector;
+        this.manager = manager;
+        this.stats = stats;
+    }
+
+    void open() {
+        Session opened;
+        try {
+            opened = openSession();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cannot connect to the MCP server " + serverName, e);
+        }
+        lock.lock();
+        try {
+            session = opened;
+        } finally {
+            lock.unlock();
+        }
+        tools = opened.tools();
+        stats.clients.add(this);
+        long interval = manager.heartbeatInterval.toMillis();
+        if (interval > 0)
+            heartbeat = manager.scheduler.scheduleWithFixedDelay(() -> manager.execute(this::heartbeat), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public String serverName() {
+        return serverName;
+    }
+
+    public boolean isConnected() {
+        lock.lock();
+        try {
+            return session != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Age of the current session, zero while reconnecting.
+     */
+    public Duration sessionAge() {
+        Session current;
+        lock.lock();
+        try {
+            current = session;
+        } finally {
+            lock.unlock();
+        }
+        return current == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - current.openedAt());
+    }
+
+    /**
+     * Sets the listener of the changes of the tools, called with all the tools of the server.
+     */
+    public void onToolsChanged(Consumer<List<ToolSpecification>> toolsListener) {
+        this.toolsListener = toolsListener;
+    }
+
+    /**
+     * Returns the tools listed by the last session opening or heartbeat, without calling the server.
+     */
+    @Override
+    public List<ToolSpecification> listTools() {
+        return tools;
+    }
+
+    @Override
+    public String executeTool(ToolExecutionRequest request) {
+        Session current = awaitSession();
+        try {
+            return current.client().executeTool(request);
+        } catch (RuntimeException e) {
+            if (!isSessionGone(e))
+                throw e;
+            sessionLost(current, e);
+            // the request didn't reach the server: it can't have been executed
+            return awaitSession().client().executeTool(request);
+        }
+    }
+
+    @Override
+    public List<ResourceRef> listResources() {
+        return awaitSession().client().listResources();
+    }
+
+    @Override
+    public List<ResourceTemplateRef> listResourceTemplates() {
+        return awaitSession().client().listResourceTemplates();
+    }
+
+    @Override
+    public ResourceResponse readResource(String uri) {
+        return awaitSession().client().readResource(uri);
+    }
+
+    @Override
+    public void close() {
+        Session current;
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            current = session;
+            session = null;
+            sessionOpened.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (heartbeat != null)
+            heartbeat.cancel(false);
+        stats.clients.remove(this);
+        if (current != null)
+            closeQuietly(current.client());
+    }
+
+    private Session openSession() throws Exception {
+        return manager.call(() -> {
+            McpClient client = connector.get();
+            try {
+                return new Session(client, List.copyOf(client.listTools()), System.nanoTime());
+            } catch (RuntimeException e) {
+                closeQuietly(client);
+                throw e;
+            }
+        }, manager.connectTimeout);
+    }
+
+    private Session awaitSession() {
+        lock.lock();
+        try {
+            long deadline = System.nanoTime() + manager.reconnectWait.toNanos();
+            while (session == null && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    throw new McpSessionUnavailableException("Not connected to the MCP server %s, reconnecting".formatted(serverName));
+                try {
+                    sessionOpened.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the MCP server " + serverName, e);
+                }
+            }
+            if (closed)
+                throw new IllegalStateException("The MCP client of server %s is closed".formatted(serverName));
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void heartbeat() {
+        Session current;
+        lock.lock();
+        try {
+            current = session;
+        } finally {
+            lock.unlock();
+        }
+        if (current == null || !heartbeatRunning.compareAndSet(false, true))
+            return;
+        try {
+            updateTools(manager.call(current.client()::listTools, manager.heartbeatTimeout));
+        } catch (Exception e) {
+            sessionLost(current, e);
+        } finally {
+            heartbeatRunning.set(false);
+        }
+    }
+
+    private void sessionLost(Session lost, Throwable cause) {
+        lock.lock();
+        try {
+            // already replaced by another caller
+            if (closed || session != lost)
+                return;
+            session = null;
+        } finally {
+            lock.unlock();
+        }
+        stats.losses.increment();
+        LOGGER.warn("Session of MCP server {} lost after {} s: {}", serverName,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - lost.openedAt()), cause.toString());
+        manager.execute(() -> {
+            closeQuietly(lost.client());
+            reconnect();
+        });
+    }
+
+    private void reconnect() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+        } finally {
+            lock.unlock();
+        }
+        Session opened;
+        try {
+            opened = openSession();
+        } catch (Exception e) {
+            stats.reconnectFailures.increment();
+            long delay = manager.reconnectDelayMillis(++failedAttempts);
+            LOGGER.warn("Reconnection {} to MCP server {} failed, next attempt in {} ms: {}", failedAttempts, serverName, delay, e.toString());
+            manager.scheduler.schedule(() -> manager.execute(this::reconnect), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        boolean closedWhileReconnecting;
+        lock.lock();
+        try {
+            closedWhileReconnecting = closed;
+            if (!closed) {
+                session = opened;
+                sessionOpened.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (closedWhileReconnecting) {
+            closeQuietly(opened.client());
+            return;
+        }
+        LOGGER.info("Reconnected to MCP server {} after {} failed attempts", serverName, failedAttempts);
+        failedAttempts = 0;
+        stats.reconnects.increment();
+        updateTools(opened.tools());
+    }
+
+    private void updateTools(List<ToolSpecification> listed) {
+        List<ToolSpecification> updated = List.copyOf(listed);
+        lock.lock();
+        try {
+            if (updated.equals(tools))
+                return;
+            tools = updated;
+            stats.toolCatalogChanges.increment();
+            LOGGER.info("Tools of MCP server {} changed: {}", serverName, updated.stream().map(ToolSpecification::name).toList());
+            toolsListener.accept(updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * True when the server is down or doesn't know the session anymore, e.g. after a restart: the request was
+     * rejected before reaching any tool. The status is reported by the {@link HttpStatusMcpTransport} of the session.
+     */
+    private static boolean isSessionGone(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException)
+                return true;
+            if (cause instanceof McpHttpStatusException statusException && statusException.statusCode() == 404)
+                return true;
+        }
+        return false;
+    }
+
+    private void closeQuietly(McpClient client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            LOGGER.debug("Error closing a session of MCP server {}: {}", serverName, e.toString());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+/**
+ * Thrown when the MCP server answers a request with an unexpected HTTP status, e.g. 404 for an unknown session.
+ */
+public class McpHttpStatusException extends RuntimeException {
+    private final int statusCode;
+
+    public McpHttpStatusException(int statusCode, Throwable cause) {
+        super("Unexpected status code: " + statusCode, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,208 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import dev.langchain4j.mcp.client.McpClient;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Opens the MCP client sessions of the agents and keeps them alive: each {@link ManagedMcpClient} sends a heartbeat,
+ * a tool listing, at a fixed interval, which also keeps idle SSE streams open through proxies. A session is replaced
+ * when a heartbeat fails or times out, or when a tool call finds it gone, e.g. after a restart of the business service.
+ * The reconnection attempts are spaced by an exponential backoff with jitter, so the clients of a restarted server
+ * don't reconnect all at once.
+ * <p>
+ * The heartbeats and the reconnections run on daemon threads shared by all the clients.
+ */
+public class McpSessionManager {
+
+    /**
+     * Notified when a server is first connected, e.g. to export its session metrics.
+     */
+    public interface Listener {
+
+        default void serverRegistered(String serverName, McpSessionStats stats) {
+        }
+    }
+
+    final Duration heartbeatInterval;
+    final Duration heartbeatTimeout;
+    final Duration connectTimeout;
+    final Duration reconnectWait;
+    private final Duration reconnectInitialBackoff;
+    private final Duration reconnectMaxBackoff;
+    private final Listener listener;
+
+    private final Map<String, McpSessionStats> sessionStats = new ConcurrentHashMap<>();
+    final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+
+    private McpSessionManager(Builder builder) {
+        this.heartbeatInterval = builder.heartbeatInterval;
+        this.heartbeatTimeout = builder.heartbeatTimeout;
+        this.connectTimeout = builder.connectTimeout;
+        this.reconnectWait = builder.reconnectWait;
+        this.reconnectInitialBackoff = builder.reconnectInitialBackoff;
+        this.reconnectMaxBackoff = builder.reconnectMaxBackoff;
+        this.listener = builder.listener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-session-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-session-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Opens a session to the server with a client of the connector, which must create a new transport on each call.
+     * The first session is opened before returning: it fails like the connector when the server is not reachable.
+     */
+    public ManagedMcpClient connect(String serverName, Supplier<McpClient> connector) {
+        ManagedMcpClient client = new ManagedMcpClient(serverName, connector, this, sessionStats(serverName));
+        client.open();
+        return client;
+    }
+
+    /**
+     * Longest time without a heartbeat response on an idle session, zero when the heartbeats are disabled.
+     */
+    public Duration heartbeatPeriod() {
+        return heartbeatInterval.isZero() ? Duration.ZERO : heartbeatInterval.plus(heartbeatTimeout);
+    }
+
+    public Map<String, McpSessionStats> sessionStats() {
+        return Collections.unmodifiableMap(sessionStats);
+    }
+
+    /**
+     * Runs the blocking call of the MCP client with a timeout: the MCP clients don't bound their listings and
+     * initializations, which never complete when the SSE stream is dead.
+     */
+    <T> T call(Callable<T> call, Duration timeout) throws Exception {
+        Future<T> future = executor.submit(call);
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException | InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Delay before the reconnection attempt, from 1: exponential, capped, with half of it random.
+     */
+    long reconnectDelayMillis(int attempt) {
+        long backoff = reconnectInitialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(backoff, reconnectMaxBackoff.toMillis());
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private McpSessionStats sessionStats(String serverName) {
+        McpSessionStats stats = sessionStats.get(serverName);
+        if (stats != null)
+            return stats;
+        McpSessionStats created = new McpSessionStats();
+        stats = sessionStats.putIfAbsent(serverName, created);
+        if (stats != null)
+            return stats;
+        listener.serverRegistered(serverName, created);
+        return created;
+    }
+
+    public static class Builder {
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+        private Duration heartbeatTimeout = Duration.ofSeconds(10);
+        private Duration connectTimeout = Duration.ofSeconds(30);
+        private Duration reconnectWait = Duration.ofSeconds(10);
+        private Duration reconnectInitialBackoff = Duration.ofMillis(500);
+        private Duration reconnectMaxBackoff = Duration.ofSeconds(30);
+        private Listener listener = new Listener() {
+        };
+
+        /**
+         * Interval between the heartbeats of a session, zero to disable them: dead sessions are then only found by
+         * the tool calls.
+         */
+        public Builder heartbeatInterval(Duration heartbeatInterval) {
+            if (heartbeatInterval.isNegative())
+                throw new IllegalArgumentException("heartbeatInterval must not be negative");
+            this.heartbeatInterval = heartbeatInterval;
+            return this;
+        }
+
+        public Builder heartbeatTimeout(Duration heartbeatTimeout) {
+            this.heartbeatTimeout = positive("heartbeatTimeout", heartbeatTimeout);
+            return this;
+        }
+
+        /**
+         * Timeout of the opening of a session: the initialization and the listing of the tools.
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = positive("connectTimeout", connectTimeout);
+            return this;
+        }
+
+        /**
+         * How long a tool call waits for a new session when the current one is lost, before failing.
+         */
+        public Builder reconnectWait(Duration reconnectWait) {
+            if (reconnectWait.isNegative())
+                throw new IllegalArgumentException("reconnectWait must not be negative");
+            this.reconnectWait = reconnectWait;
+            return this;
+        }
+
+        public Builder reconnectBackoff(Duration initialBackoff, Duration maxBackoff) {
+            positive("initialBackoff", initialBackoff);
+            if (maxBackoff.compareTo(initialBackoff) < 0)
+                throw new IllegalArgumentException("maxBackoff must not be less than initialBackoff");
+            this.reconnectInitialBackoff = initialBackoff;
+            this.reconnectMaxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public McpSessionManager build() {
+            return new McpSessionManager(this);
+        }
+
+        private static Duration positive(String name, Duration duration) {
+            if (duration.isNegative() || duration.isZero())
+                throw new IllegalArgumentException(name + " must be positive");
+            return duration;
+        }
+    }
+}
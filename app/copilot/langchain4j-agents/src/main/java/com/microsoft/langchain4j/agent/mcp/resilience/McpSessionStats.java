@@ -0,0 +1,53 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sessions of the MCP clients of a server, across all the agents: a session is lost when a heartbeat or a tool call
+ * finds it dead, and a reconnect is a new session opened to replace a lost one.
+ */
+public class McpSessionStats {
+
+    final Set<ManagedMcpClient> clients = ConcurrentHashMap.newKeySet();
+    final LongAdder losses = new LongAdder();
+    final LongAdder reconnects = new LongAdder();
+    final LongAdder reconnectFailures = new LongAdder();
+    final LongAdder toolCatalogChanges = new LongAdder();
+
+    public long losses() {
+        return losses.sum();
+    }
+
+    public long reconnects() {
+        return reconnects.sum();
+    }
+
+    public long reconnectFailures() {
+        return reconnectFailures.sum();
+    }
+
+    public long toolCatalogChanges() {
+        return toolCatalogChanges.sum();
+    }
+
+    /**
+     * Number of clients with an open session, the others are reconnecting.
+     */
+    public int connected() {
+        return (int) clients.stream().filter(ManagedMcpClient::isConnected).count();
+    }
+
+    /**
+     * Age of the most recent open session, zero when none is open: it drops when a session is replaced.
+     */
+    public Duration youngestSessionAge() {
+        return clients.stream()
+                .map(ManagedMcpClient::sessionAge)
+                .filter(age -> !age.isZero())
+                .min(Duration::compareTo)
+                .orElse(Duration.ZERO);
+    }
+}
@@ -0,0 +1,11 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+/**
+ * Thrown when a call can't get a session of the MCP server: the lost session is still being replaced.
+ */
+public class McpSessionUnavailableException extends IllegalStateException {
+
+    public McpSessionUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,418 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.langchain4j.agent.concurrency.BulkheadFullException;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.mcp.client.McpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes MCP tool calls with a timeout per tool and a circuit breaker per server, so a slow or failing business
+ * service cannot stall a conversation: the model gets a tool error message instead and can answer the user.
+ * Idempotent read tools can be hedged: when the call is slower than the hedge percentile of the tool latencies, a
+ * duplicate request is sent and the first response is used. The concurrent calls to each server can be limited by a
+ * bulkhead: a call waits for a permit within its timeout, and a duplicate request is only sent when a permit is free.
+ * <p>
+ * The calls run on a pool of daemon threads: a timed out call is interrupted and its server is not waited for. Its
+ * bulkhead permit is released then, while the server may still be running the call: the bulkhead bounds the calls
+ * waited for, the transport timeout bounds how long the abandoned requests stay open.
+ * <p>
+ * Only the failures telling that the server is unhealthy count for the circuit breaker: the transport errors, the
+ * timeouts and the 5xx statuses. A request the server rejects, e.g. with arguments that are not valid JSON, doesn't
+ * count, so a model calling a tool with bad arguments doesn't open the breaker of a healthy server.
+ * <p>
+ * The executor also holds the {@link McpSessionManager} that the agents open their MCP client sessions with, so the
+ * agents sharing an executor share its heartbeat and reconnection settings and its session metrics.
+ */
+public class McpToolCallExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(McpToolCallExecutor.class);
+
+    // no hedging until the latency percentile is meaningful
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final int LATENCY_WINDOW_SIZE = 256;
+
+    /**
+     * Notified when a server or a tool is first used, e.g. to export its metrics.
+     */
+    public interface Listener {
+
+        default void serverRegistered(String serverName, CircuitBreaker circuitBreaker) {
+        }
+
+        default void bulkheadRegistered(String serverName, Bulkhead bulkhead) {
+        }
+
+        default void toolRegistered(String serverName, String toolName, ToolCallStats stats) {
+        }
+    }
+
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> toolTimeouts;
+    private final Set<String> hedgedTools;
+    private final double hedgePercentile;
+    private final double breakerFailureRateThreshold;
+    private final int breakerWindowSize;
+    private final int breakerMinimumCalls;
+    private final Duration breakerOpenDuration;
+    // 0 for no limit
+    private final int serverMaxConcurrentCalls;
+    private final Listener listener;
+    private final McpSessionManager sessionManager;
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, ToolCallStats> toolStats = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private McpToolCallExecutor(Builder builder) {
+        this.defaultTimeout = builder.defaultTimeout;
+        this.toolTimeouts = Map.copyOf(builder.toolTimeouts);
+        this.hedgedTools = Set.copyOf(builder.hedgedTools);
+        this.hedgePercentile = builder.hedgePercentile;
+        this.breakerFailureRateThreshold = builder.breakerFailureRateThreshold;
+        this.breakerWindowSize = builder.breakerWindowSize;
+        this.breakerMinimumCalls = builder.breakerMinimumCalls;
+        this.breakerOpenDuration = builder.breakerOpenDuration;
+        this.serverMaxConcurrentCalls = builder.serverMaxConcurrentCalls;
+        this.listener = builder.listener;
+        this.sessionManager = builder.sessionManager != null ? builder.sessionManager : McpSessionManager.builder().build();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(builder.threadFactory != null ? builder.threadFactory : runnable -> {
+            Thread thread = new Thread(runnable, "mcp-tool-call-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Registers a tool of a server, before it's called.
+     */
+    public void register(String serverName, String toolName) {
+        circuitBreaker(serverName);
+        bulkhead(serverName);
+        toolStats(serverName, toolName);
+    }
+
+    /**
+     * Calls the tool and returns its result, or an error message for the model when the call fails, times out or is
+     * rejected by the circuit breaker or the bulkhead of the server.
+     */
+    public String execute(String serverName, McpClient mcpClient, ToolExecutionRequest request) {
+        String toolName = request.name();
+        ToolCallStats stats = toolStats(serverName, toolName);
+        stats.calls.increment();
+        Duration timeout = timeout(toolName);
+        Bulkhead bulkhead = bulkhead(serverName);
+        if (bulkhead == null)
+            return execute(serverName, mcpClient, request, stats, timeout, null);
+
+        long start = System.nanoTime();
+        try {
+            bulkhead.acquire(timeout);
+        } catch (BulkheadFullException e) {
+            stats.throttled.increment();
+            LOGGER.warn("Tool {} throttled: {}", toolName, e.getMessage());
+            return "Tool %s is not available: the %s service has too many requests in progress. Tell the user to retry in a moment."
+                    .formatted(toolName, serverName);
+        }
+        try {
+            return execute(serverName, mcpClient, request, stats, timeout.minusNanos(System.nanoTime() - start), bulkhead);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private String execute(String serverName, McpClient mcpClient, ToolExecutionRequest request, ToolCallStats stats,
+                           Duration timeout, Bulkhead bulkhead) {
+        String toolName = request.name();
+        CircuitBreaker circuitBreaker = circuitBreaker(serverName);
+        if (!circuitBreaker.tryAcquire()) {
+            stats.rejections.increment();
+            LOGGER.warn("Tool {} rejected: circuit breaker of server {} is open", toolName, serverName);
+            return "Tool %s is not available: the %s service is not responding. Don't retry it now, tell the user the service is temporarily unavailable."
+                    .formatted(toolName, serverName);
+        }
+
+        LatencyWindow latencyWindow = latencies.computeIfAbsent(toolName, name -> new LatencyWindow(LATENCY_WINDOW_SIZE));
+        long hedgeDelay = hedgedTools.contains(toolName) ? latencyWindow.percentile(hedgePercentile, MIN_HEDGE_SAMPLES) : -1;
+
+        CompletionService<String> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<String>> attempts = new ArrayList<>(2);
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        Throwable failure = null;
+        boolean hedgePermit = false;
+        try {
+            attempts.add(completionService.submit(() -> mcpClient.executeTool(request)));
+            int pending = 1;
+            while (pending > 0) {
+                long now = System.nanoTime();
+                boolean canHedge = hedgeDelay >= 0 && attempts.size() == 1;
+                long wait = canHedge ? Math.min(start + hedgeDelay, deadline) - now : deadline - now;
+                Future<String> completed = completionService.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                if (completed == null) {
+                    if (canHedge && System.nanoTime() < deadline) {
+                        // the duplicate request needs a free permit of the bulkhead, it doesn't wait for one
+                        if (bulkhead != null && !(hedgePermit = bulkhead.tryAcquire())) {
+                            hedgeDelay = -1;
+                            continue;
+                        }
+                        stats.hedges.increment();
+                        LOGGER.debug("Hedging tool {} after {} ms", toolName, TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                        attempts.add(completionService.submit(() -> mcpClient.executeTool(request)));
+                        pending++;
+                        continue;
+                    }
+                    break;
+                }
+                pending--;
+                try {
+                    String result = completed.get();
+                    latencyWindow.record(System.nanoTime() - start);
+                    if (attempts.size() > 1 && completed == attempts.get(1))
+                        stats.hedgeWins.increment();
+                    circuitBreaker.onSuccess();
+                    return result;
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+            if (hedgePermit)
+                bulkhead.release();
+        }
+
+        if (failure == null || isServerFailure(failure))
+            circuitBreaker.onFailure();
+        else
+            circuitBreaker.onIgnored();
+        if (failure == null) {
+            stats.timeouts.increment();
+            LOGGER.warn("Tool {} of server {} timed out after {} ms", toolName, serverName, timeout.toMillis());
+            return "Tool %s did not respond within %d ms: the %s service is slow or unavailable."
+                    .formatted(toolName, timeout.toMillis(), serverName);
+        }
+        stats.failures.increment();
+        LOGGER.warn("Tool {} of server {} failed: {}", toolName, serverName, failure.toString());
+        return "Tool %s failed: %s".formatted(toolName, failure.getMessage());
+    }
+
+    /**
+     * True when the failure tells the server is unhealthy: a transport error, a timeout or a 5xx status.
+     */
+    static boolean isServerFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof McpHttpStatusException statusException)
+                return statusException.statusCode() >= 500;
+            // the arguments of the model, not the server
+            if (cause instanceof JacksonException || cause instanceof IllegalArgumentException)
+                return false;
+            if (cause instanceof IOException || cause instanceof TimeoutException || cause instanceof McpSessionUnavailableException)
+                return true;
+        }
+        return false;
+    }
+
+    public Duration timeout(String toolName) {
+        return toolTimeouts.getOrDefault(toolName, defaultTimeout);
+    }
+
+    /**
+     * The longest tool timeout, which the MCP clients must not cut short.
+     */
+    public Duration maxTimeout() {
+        return toolTimeouts.values().stream().reduce(defaultTimeout, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+    }
+
+    /**
+     * Timeout of the HTTP requests of the MCP transports: the longest tool timeout, so a call abandoned by the executor
+     * doesn't keep its request open, but not less than a heartbeat of the session manager, which keeps the SSE streams
+     * of the idle sessions within their read timeout.
+     */
+    public Duration transportTimeout() {
+        Duration heartbeat = sessionManager.heartbeatPeriod();
+        return heartbeat.compareTo(maxTimeout()) > 0 ? heartbeat : maxTimeout();
+    }
+
+    public McpSessionManager sessionManager() {
+        return sessionManager;
+    }
+
+    public Map<String, Bulkhead> bulkheads() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+
+    public Map<String, CircuitBreaker> circuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    public Map<String, ToolCallStats> toolStats() {
+        return Collections.unmodifiableMap(toolStats);
+    }
+
+    private CircuitBreaker circuitBreaker(String serverName) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(serverName);
+        if (circuitBreaker != null)
+            return circuitBreaker;
+        CircuitBreaker created = new CircuitBreaker(breakerFailureRateThreshold, breakerWindowSize, breakerMinimumCalls, breakerOpenDuration);
+        circuitBreaker = circuitBreakers.putIfAbsent(serverName, created);
+        if (circuitBreaker != null)
+            return circuitBreaker;
+        listener.serverRegistered(serverName, created);
+        return created;
+    }
+
+    private Bulkhead bulkhead(String serverName) {
+        if (serverMaxConcurrentCalls <= 0)
+            return null;
+        Bulkhead bulkhead = bulkheads.get(serverName);
+        if (bulkhead != null)
+            return bulkhead;
+        // the calls wait for a permit within their own timeout
+        Bulkhead created = new Bulkhead("MCP server " + serverName, serverMaxConcurrentCalls, maxTimeout());
+        bulkhead = bulkheads.putIfAbsent(serverName, created);
+        if (bulkhead != null)
+            return bulkhead;
+        listener.bulkheadRegistered(serverName, created);
+        return created;
+    }
+
+    private ToolCallStats toolStats(String serverName, String toolName) {
+        ToolCallStats stats = toolStats.get(toolName);
+        if (stats != null)
+            return stats;
+        ToolCallStats created = new ToolCallStats();
+        stats = toolStats.putIfAbsent(toolName, created);
+        if (stats != null)
+            return stats;
+        listener.toolRegistered(serverName, toolName, created);
+        return created;
+    }
+
+    public static class Builder {
+        private Duration defaultTimeout = Duration.ofSeconds(30);
+        private final Map<String, Duration> toolTimeouts = new HashMap<>();
+        private final Set<String> hedgedTools = new HashSet<>();
+        private double hedgePercentile = 0.95;
+        private double breakerFailureRateThreshold = 0.5;
+        private int breakerWindowSize = 20;
+        private int breakerMinimumCalls = 10;
+        private Duration breakerOpenDuration = Duration.ofSeconds(30);
+        private Listener listener = new Listener() {
+        };
+        private McpSessionManager sessionManager;
+        private int serverMaxConcurrentCalls;
+        private ThreadFactory threadFactory;
+
+        public Builder defaultTimeout(Duration defaultTimeout) {
+            this.defaultTimeout = defaultTimeout;
+            return this;
+        }
+
+        public Builder toolTimeout(String toolName, Duration timeout) {
+            this.toolTimeouts.put(toolName, timeout);
+            return this;
+        }
+
+        /**
+         * Tools that are idempotent reads: they may be called twice for the same request.
+         */
+        public Builder hedgedTools(Set<String> toolNames) {
+            this.hedgedTools.addAll(toolNames);
+            return this;
+        }
+
+        public Builder hedgePercentile(double hedgePercentile) {
+            if (hedgePercentile <= 0 || hedgePercentile >= 1)
+                throw new IllegalArgumentException("hedgePercentile must be in ]0, 1[");
+            this.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        public Builder breakerFailureRateThreshold(double failureRateThreshold) {
+            this.breakerFailureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public Builder breakerWindowSize(int windowSize) {
+            this.breakerWindowSize = windowSize;
+            return this;
+        }
+
+        public Builder breakerMinimumCalls(int minimumCalls) {
+            this.breakerMinimumCalls = minimumCalls;
+            return this;
+        }
+
+        public Builder breakerOpenDuration(Duration openDuration) {
+            this.breakerOpenDuration = openDuration;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Maximum concurrent calls to each server, 0 for no limit.
+         */
+        public Builder serverMaxConcurrentCalls(int maxConcurrentCalls) {
+            if (maxConcurrentCalls < 0)
+                throw new IllegalArgumentException("maxConcurrentCalls must not be negative");
+            this.serverMaxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * Factory of the threads running the calls, daemon platform threads by default.
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        public Builder sessionManager(McpSessionManager sessionManager) {
+            this.sessionManager = sessionManager;
+            return this;
+        }
+
+        public McpToolCallExecutor build() {
+            // validates the circuit breaker settings once, instead of on the first call of each server
+            new CircuitBreaker(breakerFailureRateThreshold, breakerWindowSize, breakerMinimumCalls, breakerOpenDuration);
+            return new McpToolCallExecutor(this);
+        }
+    }
+}
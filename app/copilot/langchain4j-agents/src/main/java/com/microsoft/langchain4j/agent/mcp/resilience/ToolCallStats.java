@@ -0,0 +1,52 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the calls of a tool. A hedge is a duplicate request sent when the first one is slower than the hedge
+ * percentile, and a hedge win is a call answered by the duplicate request first.
+ */
+public class ToolCallStats {
+
+    final LongAdder calls = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder timeouts = new LongAdder();
+    final LongAdder rejections = new LongAdder();
+    final LongAdder throttled = new LongAdder();
+    final LongAdder hedges = new LongAdder();
+    final LongAdder hedgeWins = new LongAdder();
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    public long timeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Calls failed fast because the circuit breaker of the server is open.
+     */
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * Calls failed because the bulkhead of the server had no permit left within the timeout.
+     */
+    public long throttled() {
+        return throttled.sum();
+    }
+
+    public long hedges() {
+        return hedges.sum();
+    }
+
+    public long hedgeWins() {
+        return hedgeWins.sum();
+    }
+}
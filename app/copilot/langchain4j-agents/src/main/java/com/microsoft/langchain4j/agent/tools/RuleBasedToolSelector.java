@@ -0,0 +1,182 @@
+package com.microsoft.langchain4j.agent.tools;
+
+import com.microsoft.langchain4j.agent.ToolSelector;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.UserMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Selects the tools with rules on the conversation state:
+ * <ul>
+ *   <li>the core tools of the agent are always selected</li>
+ *   <li>other tools are selected when one of their keywords is in the last messages of the conversation</li>
+ *   <li>follow-up tools are selected once a given tool has been called</li>
+ *   <li>the tools already called in the conversation stay selected</li>
+ * </ul>
+ * Tools not named by any rule are always selected, so a new tool of an MCP server is never hidden. The selection of
+ * each set of tools is cached with the estimate of its schema tokens, and the tokens saved are counted, see
+ * {@link #tokensSaved()}.
+ */
+public class RuleBasedToolSelector implements ToolSelector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleBasedToolSelector.class);
+
+    // keywords are searched in the last user and assistant messages only
+    private static final int KEYWORD_MESSAGES = 4;
+
+    private record KeywordRule(List<String> keywords, Set<String> tools) {
+    }
+
+    private record Selection(List<ToolSpecification> tools, int tokens) {
+    }
+
+    private final String agentName;
+    private final Set<String> alwaysSelected;
+    private final List<KeywordRule> keywordRules;
+    private final Map<String, Set<String>> followUps;
+    private final Set<String> ruledTools = new HashSet<>();
+    private final Map<Set<String>, Selection> selections = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder tokensSaved = new LongAdder();
+    private volatile Selection all;
+
+    private RuleBasedToolSelector(Builder builder) {
+        this.agentName = builder.agentName;
+        this.alwaysSelected = Set.copyOf(builder.alwaysSelected);
+        this.keywordRules = List.copyOf(builder.keywordRules);
+        this.followUps = Map.copyOf(builder.followUps);
+        ruledTools.addAll(alwaysSelected);
+        keywordRules.forEach(rule -> ruledTools.addAll(rule.tools()));
+        followUps.values().forEach(ruledTools::addAll);
+    }
+
+    public static Builder builder(String agentName) {
+        return new Builder(agentName);
+    }
+
+    @Override
+    public List<ToolSpecification> select(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        Set<String> selected = new HashSet<>(alwaysSelected);
+        String recentText = recentText(messages);
+        for (KeywordRule rule : keywordRules) {
+            if (rule.keywords().stream().anyMatch(recentText::contains))
+                selected.addAll(rule.tools());
+        }
+        for (ChatMessage message : messages) {
+            if (message instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    selected.add(request.name());
+                    selected.addAll(followUps.getOrDefault(request.name(), Set.of()));
+                }
+            }
+        }
+        Set<String> key = new HashSet<>();
+        for (ToolSpecification toolSpecification : toolSpecifications) {
+            if (selected.contains(toolSpecification.name()) || !ruledTools.contains(toolSpecification.name()))
+                key.add(toolSpecification.name());
+        }
+
+        Selection allTools = all;
+        if (allTools == null || allTools.tools() != toolSpecifications && !allTools.tools().equals(toolSpecifications)) {
+            // the tools of the agent changed, e.g. the catalog of an MCP server: the cached selections are outdated
+            selections.clear();
+            all = allTools = new Selection(toolSpecifications, ToolSchemaTokens.estimate(toolSpecifications));
+        }
+        Selection selection = selections.computeIfAbsent(key, names -> {
+            List<ToolSpecification> tools = toolSpecifications.stream().filter(tool -> names.contains(tool.name())).toList();
+            return new Selection(tools, ToolSchemaTokens.estimate(tools));
+        });
+
+        calls.increment();
+        tokensSaved.add(allTools.tokens() - selection.tokens());
+        LOGGER.debug("{} selected {} of {} tools, {} of {} tool schema tokens: {}", agentName, selection.tools().size(), toolSpecifications.size(),
+                selection.tokens(), allTools.tokens(), selection.tools().stream().map(ToolSpecification::name).toList());
+        return selection.tools();
+    }
+
+    public String agentName() {
+        return agentName;
+    }
+
+    /**
+     * Number of model calls the tools were selected for.
+     */
+    public long calls() {
+        return calls.sum();
+    }
+
+    /**
+     * Estimate of the tool schema tokens not sent to the model, over all the calls.
+     */
+    public long tokensSaved() {
+        return tokensSaved.sum();
+    }
+
+    private static String recentText(List<ChatMessage> messages) {
+        StringBuilder text = new StringBuilder();
+        int count = 0;
+        for (int i = messages.size() - 1; i >= 0 && count < KEYWORD_MESSAGES; i--) {
+            ChatMessage message = messages.get(i);
+            if (message instanceof UserMessage userMessage) {
+                userMessage.contents().stream()
+                        .filter(TextContent.class::isInstance)
+                        .forEach(content -> text.append(((TextContent) content).text()).append('\n'));
+                count++;
+            } else if (message instanceof AiMessage aiMessage && aiMessage.text() != null) {
+                text.append(aiMessage.text()).append('\n');
+                count++;
+            }
+        }
+        return text.toString().toLowerCase(Locale.ROOT);
+    }
+
+    public static class Builder {
+        private final String agentName;
+        private final Set<String> alwaysSelected = new HashSet<>();
+        private final List<KeywordRule> keywordRules = new ArrayList<>();
+        private final Map<String, Set<String>> followUps = new HashMap<>();
+
+        private Builder(String agentName) {
+            this.agentName = agentName;
+        }
+
+        public Builder always(String... toolNames) {
+            alwaysSelected.addAll(List.of(toolNames));
+            return this;
+        }
+
+        /**
+         * Selects the tools when one of the keywords, in lower case, is in the last messages.
+         */
+        public Builder whenMentioned(List<String> keywords, String... toolNames) {
+            keywordRules.add(new KeywordRule(keywords.stream().map(keyword -> keyword.toLowerCase(Locale.ROOT)).toList(), Set.of(toolNames)));
+            return this;
+        }
+
+        /**
+         * Selects the follow-up tools once the tool has been called in the conversation.
+         */
+        public Builder after(String toolName, String... followUpToolNames) {
+            followUps.computeIfAbsent(toolName, name -> new HashSet<>()).addAll(List.of(followUpToolNames));
+            return this;
+        }
+
+        public RuleBasedToolSelector build() {
+            return new RuleBasedToolSelector(this);
+        }
+    }
+}
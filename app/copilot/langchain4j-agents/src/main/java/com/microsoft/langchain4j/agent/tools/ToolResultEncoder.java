@@ -0,0 +1,281 @@
+package com.microsoft.langchain4j.agent.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Post-processes the JSON results of the tools before they are added to the conversation, where they are sent again
+ * on every following model call:
+ * <ul>
+ *   <li>the fields excluded for the tool are removed, at any depth</li>
+ *   <li>the result is written in a compact indented notation instead of JSON, and arrays of flat objects as a table:
+ *   the field names once in the header, then one line of comma separated values per object</li>
+ * </ul>
+ * For example a list of transactions becomes:
+ * <pre>
+ * [2]{id,description,recipientName,amount}:
+ *   11,Payment of the bill 334398,acme,100.00
+ *   22,Payment of the bill 4613,contoso,200.00
+ * </pre>
+ * Results that are not JSON objects or arrays, like error messages, are returned unchanged.
+ */
+public class ToolResultEncoder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ToolResultEncoder.class);
+
+    // the fields excluded with this tool name are removed from the results of all the tools
+    public static final String ALL_TOOLS = "*";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String INDENT = "  ";
+
+    private final Map<String, Set<String>> excludedFields;
+    private final boolean tabular;
+
+    private ToolResultEncoder(Builder builder) {
+        Map<String, Set<String>> excludedFields = new HashMap<>();
+        builder.excludedFields.forEach((tool, fields) -> excludedFields.put(tool, Set.copyOf(fields)));
+        this.excludedFields = Map.copyOf(excludedFields);
+        this.tabular = builder.tabular;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String encode(String toolName, String result) {
+        if (result == null || result.isBlank())
+            return result;
+        char first = result.strip().charAt(0);
+        if (first != '{' && first != '[')
+            return result;
+
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(result);
+        } catch (JsonProcessingException e) {
+            return result;
+        }
+        Set<String> excluded = excludedFields(toolName);
+        if (!excluded.isEmpty())
+            exclude(node, excluded);
+
+        StringBuilder encoded = new StringBuilder(result.length());
+        if (node.isArray())
+            writeArray(encoded, "", (ArrayNode) node, 0);
+        else
+            writeObject(encoded, (ObjectNode) node, 0);
+        if (encoded.isEmpty())
+            return result;
+        // the trailing new line isn't needed
+        encoded.setLength(encoded.length() - 1);
+
+        LOGGER.debug("Result of {} encoded from {} to {} chars", toolName, result.length(), encoded.length());
+        return encoded.toString();
+    }
+
+    private Set<String> excludedFields(String toolName) {
+        Set<String> forTool = excludedFields.getOrDefault(toolName, Set.of());
+        Set<String> forAll = excludedFields.getOrDefault(ALL_TOOLS, Set.of());
+        if (forAll.isEmpty())
+            return forTool;
+        if (forTool.isEmpty())
+            return forAll;
+        Set<String> excluded = new HashSet<>(forTool);
+        excluded.addAll(forAll);
+        return excluded;
+    }
+
+    private static void exclude(JsonNode node, Set<String> fields) {
+        if (node.isObject())
+            ((ObjectNode) node).remove(fields);
+        for (JsonNode child : node)
+            exclude(child, fields);
+    }
+
+    private void writeObject(StringBuilder out, ObjectNode object, int depth) {
+        Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            writeField(out, field.getKey(), field.getValue(), depth);
+        }
+    }
+
+    private void writeField(StringBuilder out, String name, JsonNode value, int depth) {
+        if (value.isArray()) {
+            indent(out, depth);
+            writeArray(out, key(name), (ArrayNode) value, depth);
+        } else if (value.isObject()) {
+            indent(out, depth).append(key(name)).append(':');
+            if (value.isEmpty()) {
+                out.append(" {}\n");
+            } else {
+                out.append('\n');
+                writeObject(out, (ObjectNode) value, depth + 1);
+            }
+        } else {
+            indent(out, depth).append(key(name)).append(": ").append(scalar(value)).append('\n');
+        }
+    }
+
+    /**
+     * Writes the array header, name[size], then the values: inline for scalars, as table rows for flat objects and
+     * as a list of items otherwise.
+     */
+    private void writeArray(StringBuilder out, String name, ArrayNode array, int depth) {
+        out.append(name).append('[').append(array.size()).append(']');
+        if (array.isEmpty()) {
+            out.append(":\n");
+            return;
+        }
+        if (isScalars(array)) {
+            out.append(": ");
+            for (int i = 0; i < array.size(); i++)
+                out.append(i == 0 ? "" : ",").append(scalar(array.get(i)));
+            out.append('\n');
+            return;
+        }
+        Set<String> columns = tabular ? tableColumns(array) : null;
+        if (columns != null) {
+            out.append('{');
+            int column = 0;
+            for (String field : columns)
+                out.append(column++ == 0 ? "" : ",").append(key(field));
+            out.append("}:\n");
+            for (JsonNode row : array) {
+                indent(out, depth + 1);
+                column = 0;
+                for (String field : columns)
+                    out.append(column++ == 0 ? "" : ",").append(scalar(row.get(field)));
+                out.append('\n');
+            }
+            return;
+        }
+        out.append(":\n");
+        for (JsonNode item : array) {
+            if (item.isObject() && !item.isEmpty()) {
+                // the first field goes on the item line, the others are aligned with it
+                StringBuilder itemOut = new StringBuilder();
+                writeObject(itemOut, (ObjectNode) item, depth + 2);
+                indent(out, depth + 1).append("- ").append(itemOut, (depth + 2) * INDENT.length(), itemOut.length());
+            } else if (item.isArray()) {
+                indent(out, depth + 1).append("- ");
+                writeArray(out, "", (ArrayNode) item, depth + 2);
+            } else {
+                indent(out, depth + 1).append("- ").append(item.isObject() ? "{}" : scalar(item)).append('\n');
+            }
+        }
+    }
+
+    private static boolean isScalars(ArrayNode array) {
+        for (JsonNode item : array) {
+            if (item.isContainerNode())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the union of the fields of the objects, in order of appearance, or null when an item isn't an object
+     * or has a nested object or array.
+     */
+    private static Set<String> tableColumns(ArrayNode array) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (JsonNode item : array) {
+            if (!item.isObject())
+                return null;
+            Iterator<Map.Entry<String, JsonNode>> fields = item.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isContainerNode())
+                    return null;
+                columns.add(field.getKey());
+            }
+        }
+        return columns.isEmpty() ? null : columns;
+    }
+
+    private static StringBuilder indent(StringBuilder out, int depth) {
+        return out.append(INDENT.repeat(depth));
+    }
+
+    private static String key(String name) {
+        return needsQuotes(name) || name.chars().anyMatch(c -> c == ':' || c == '[' || c == '{') ? quote(name) : name;
+    }
+
+    /**
+     * Missing values are written as null and strings are quoted only when they could be confused with the notation:
+     * empty, with commas, quotes or new lines, or with leading or trailing spaces. Keys are quoted also when they have
+     * the characters of the array and field headers.
+     */
+    private static String scalar(JsonNode value) {
+        if (value == null || value.isNull())
+            return "null";
+        if (!value.isTextual())
+            return value.asText();
+        String text = value.textValue();
+        return needsQuotes(text) || text.equals("null") ? quote(text) : text;
+    }
+
+    private static boolean needsQuotes(String text) {
+        if (text.isEmpty() || Character.isWhitespace(text.charAt(0)) || Character.isWhitespace(text.charAt(text.length() - 1)))
+            return true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                return true;
+        }
+        return false;
+    }
+
+    private static String quote(String text) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Builder {
+        private final Map<String, Set<String>> excludedFields = new HashMap<>();
+        private boolean tabular = true;
+
+        /**
+         * Removes the fields from the results of the tool, or of all the tools with {@link #ALL_TOOLS}.
+         */
+        public Builder exclude(String toolName, String... fields) {
+            excludedFields.computeIfAbsent(toolName, tool -> new HashSet<>()).addAll(Arrays.asList(fields));
+            return this;
+        }
+
+        public Builder exclude(List<String> toolNames, String... fields) {
+            toolNames.forEach(toolName -> exclude(toolName, fields));
+            return this;
+        }
+
+        /**
+         * Writes the arrays of flat objects as tables, true by default.
+         */
+        public Builder tabular(boolean tabular) {
+            this.tabular = tabular;
+            return this;
+        }
+
+        public ToolResultEncoder build() {
+            return new ToolResultEncoder(this);
+        }
+    }
+}
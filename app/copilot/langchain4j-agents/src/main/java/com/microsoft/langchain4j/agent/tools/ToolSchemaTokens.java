@@ -0,0 +1,48 @@
+package com.microsoft.langchain4j.agent.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.azure.AzureOpenAiTokenizer;
+import dev.langchain4j.model.chat.request.json.JsonSchemaElementHelper;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the prompt tokens taken by the tool schemas, serialized as the function tools of the Azure OpenAI chat
+ * completions requests. The estimate of each tool is computed once.
+ */
+public final class ToolSchemaTokens {
+
+    private static final Tokenizer TOKENIZER = new AzureOpenAiTokenizer();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<ToolSpecification, Integer> TOKENS = new ConcurrentHashMap<>();
+
+    private ToolSchemaTokens() {
+    }
+
+    public static int estimate(List<ToolSpecification> toolSpecifications) {
+        int tokens = 0;
+        for (ToolSpecification toolSpecification : toolSpecifications)
+            tokens += TOKENS.computeIfAbsent(toolSpecification, ToolSchemaTokens::estimate);
+        return tokens;
+    }
+
+    private static int estimate(ToolSpecification toolSpecification) {
+        Map<String, Object> function = new LinkedHashMap<>();
+        function.put("name", toolSpecification.name());
+        function.put("description", toolSpecification.description());
+        if (toolSpecification.parameters() != null)
+            function.put("parameters", JsonSchemaElementHelper.toMap(toolSpecification.parameters()));
+        try {
+            return TOKENIZER.estimateTokenCountInText(OBJECT_MAPPER.writeValueAsString(Map.of("type", "function", "function", function)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
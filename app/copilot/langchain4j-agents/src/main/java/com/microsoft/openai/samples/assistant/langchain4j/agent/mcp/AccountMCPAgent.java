@@ -4,6 +4,8 @@ import com.microsoft.langchain4j.agent.AgentMetadata;
 import com.microsoft.langchain4j.agent.mcp.MCPProtocolType;
 import com.microsoft.langchain4j.agent.mcp.MCPServerMetadata;
 import com.microsoft.langchain4j.agent.mcp.MCPToolAgent;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import com.microsoft.langchain4j.agent.tools.ToolResultEncoder;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
@@ -18,12 +20,18 @@ public class AccountMCPAgent extends MCPToolAgent {
     private static final String ACCOUNT_AGENT_SYSTEM_MESSAGE = """
          you are a personal financial advisor who help the user to retrieve information about their bank accounts.
          Use html list or table to display the account information.
+         To answer questions about accounts, balances, payment methods or beneficiaries use getAccountOverview: it returns all of them in a single call.
+         To check whether a payee is a registered beneficiary use findBeneficiary: it returns only the matching beneficiary.
          Always use the below logged user details to retrieve account info:
          '{{loggedUserName}}'
         """;
 
     public AccountMCPAgent(ChatLanguageModel chatModel, String loggedUserName, String accountMCPServerUrl) {
-        super(chatModel, List.of(new MCPServerMetadata("account",  accountMCPServerUrl, MCPProtocolType.SSE)));
+        this(chatModel, loggedUserName, accountMCPServerUrl, null);
+    }
+
+    public AccountMCPAgent(ChatLanguageModel chatModel, String loggedUserName, String accountMCPServerUrl, McpToolCallExecutor toolCallExecutor) {
+        super(chatModel, List.of(new MCPServerMetadata("account",  accountMCPServerUrl, MCPProtocolType.SSE)), toolCallExecutor);
 
         if (loggedUserName == null || loggedUserName.isEmpty()) {
             throw new IllegalArgumentException("loggedUserName cannot be null or empty");
@@ -46,6 +54,11 @@ public class AccountMCPAgent extends MCPToolAgent {
         );
     }
 
+    @Override
+    protected ToolResultEncoder getToolResultEncoder() {
+        return BusinessToolResults.ENCODER;
+    }
+
     @Override
     protected String getSystemMessage() {
         return agentPrompt.text();
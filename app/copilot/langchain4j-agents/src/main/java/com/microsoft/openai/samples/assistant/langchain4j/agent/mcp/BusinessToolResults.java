@@ -0,0 +1,22 @@
+package com.microsoft.openai.samples.assistant.langchain4j.agent.mcp;
+
+import com.microsoft.langchain4j.agent.tools.ToolResultEncoder;
+
+import java.util.List;
+
+/**
+ * Encoder of the results of the business services tools, shared by the agents. It removes the fields the agents
+ * don't need to answer: the account id, which the agent already used to call the tool, the bank reference of the
+ * transactions and the user name, which is in the system message.
+ */
+final class BusinessToolResults {
+
+    static final ToolResultEncoder ENCODER = ToolResultEncoder.builder()
+            .exclude(List.of("getLastTransactions", "getTransactionsByRecipientName"), "accountId", "recipientBankReference")
+            .exclude("getTransactionsSummary", "accountId")
+            .exclude(List.of("getAccountOverview", "getAccountsByUserName", "getAccountDetails"), "userName")
+            .build();
+
+    private BusinessToolResults() {
+    }
+}
@@ -2,9 +2,13 @@ package com.microsoft.openai.samples.assistant.langchain4j.agent.mcp;
 
 import com.microsoft.langchain4j.agent.AgentExecutionException;
 import com.microsoft.langchain4j.agent.AgentMetadata;
+import com.microsoft.langchain4j.agent.ToolSelector;
 import com.microsoft.langchain4j.agent.mcp.MCPProtocolType;
 import com.microsoft.langchain4j.agent.mcp.MCPServerMetadata;
 import com.microsoft.langchain4j.agent.mcp.MCPToolAgent;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import com.microsoft.langchain4j.agent.tools.RuleBasedToolSelector;
+import com.microsoft.langchain4j.agent.tools.ToolResultEncoder;
 import com.microsoft.openai.samples.assistant.invoice.DocumentIntelligenceInvoiceScanHelper;
 import com.microsoft.openai.samples.assistant.langchain4j.tools.InvoiceScanTool;
 import dev.langchain4j.agent.tool.ToolSpecifications;
@@ -23,19 +27,34 @@ public class PaymentMCPAgent extends MCPToolAgent {
 
     private final Prompt agentPrompt;
 
+    // the payment flow tools are always sent, the lookups only when the conversation needs them
+    private final ToolSelector toolSelector = RuleBasedToolSelector.builder("PaymentAgent")
+            .always("scanInvoice", "isInvoicePaid", "getAccountOverview", "validatePayment", "processPayment")
+            .after("processPayment", "getPaymentStatus")
+            .whenMentioned(List.of("status", "receipt", "submitted", "payment id"), "getPaymentStatus")
+            .whenMentioned(List.of("history", "transaction", "last", "previous", "recent", "paid to"),
+                    "getLastTransactions", "getTransactionsByRecipientName", "resolvePayeeName")
+            .whenMentioned(List.of("spent", "spending", "summary", "how much"), "getTransactionsSummary")
+            .whenMentioned(List.of("beneficiar", "payee", "registered", "bank code"),
+                    "findBeneficiary", "resolveBeneficiaryName", "getRegisteredBeneficiary")
+            .whenMentioned(List.of("card", "payment method", "balance", "funds"),
+                    "getPaymentMethodDetails", "getAccountDetails", "getAccountsByUserName")
+            .build();
+
     private static final String PAYMENT_AGENT_SYSTEM_MESSAGE = """
         you are a personal financial advisor who help the user with their recurrent bill payments. The user may want to pay the bill uploading a photo of the bill, or it may start the payment checking transactions history for a specific payee.
         For the bill payment you need to know the: bill id or invoice number, payee name, the total amount.
         If you don't have enough information to pay the bill ask the user to provide the missing information.
         If the user submit a photo, always ask the user to confirm the extracted data from the photo.
-        Always check if the bill has been paid already based on payment history before asking to execute the bill payment.
+        Always check if the bill has been paid already based on payment history before asking to execute the bill payment. Use the invoice id to check it.
         Ask for the payment method to use based on the available methods on the user account.
-        if the user wants to pay using bank transfer, check if the payee is in account registered beneficiaries list. If not ask the user to provide the payee bank code.
-        Check if the payment method selected by the user has enough funds to pay the bill. Don't use the account balance to evaluate the funds.
+        Once the user has chosen the payment method, use validatePayment to check in a single call the payment method funds, the payee registered beneficiary and to retrieve accountId and paymentMethodId. Don't use the account balance to evaluate the funds.
+        If validatePayment reports issues, explain them to the user and ask only for the missing information, e.g. the payee bank code for a bank transfer to a not registered beneficiary.
         Before submitting the payment to the system ask the user confirmation providing the payment details.
         Include in the payment description the invoice id or bill id as following: payment for invoice 1527248.
-        When submitting payment always use the available functions to retrieve accountId, paymentMethodId.
-        If the payment succeeds provide the user with the payment confirmation. If not provide the user with the error message.
+        When submitting payment always use the accountId, paymentMethodId returned by validatePayment.
+        The payment submission returns a receipt with the payment id and status: use it as the payment confirmation, don't check the transactions history to confirm it. If the payment submission fails provide the user with the error message.
+        If the user asks about a submitted payment use the payment id to get the payment status.
         Use HTML list or table to display bill extracted data, payments, account or transaction details.
         Always use the below logged user details to retrieve account info:
         '{{loggedUserName}}'
@@ -77,9 +96,13 @@ public class PaymentMCPAgent extends MCPToolAgent {
         """;
 
     public PaymentMCPAgent(ChatLanguageModel chatModel, DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper, String loggedUserName, String transactionMCPServerURL, String accountMCPServerUrl, String paymentsMCPServerUrl) {
+        this(chatModel, documentIntelligenceInvoiceScanHelper, loggedUserName, transactionMCPServerURL, accountMCPServerUrl, paymentsMCPServerUrl, null);
+    }
+
+    public PaymentMCPAgent(ChatLanguageModel chatModel, DocumentIntelligenceInvoiceScanHelper documentIntelligenceInvoiceScanHelper, String loggedUserName, String transactionMCPServerURL, String accountMCPServerUrl, String paymentsMCPServerUrl, McpToolCallExecutor toolCallExecutor) {
         super(chatModel, List.of(new MCPServerMetadata("payment", paymentsMCPServerUrl, MCPProtocolType.SSE),
-                new MCPServerMetadata("transaction", transactionMCPServerURL, MCPProtocolType.SSE),
-                new MCPServerMetadata("account", accountMCPServerUrl, MCPProtocolType.SSE)));
+                new MCPServerMetadata("transaction-history", transactionMCPServerURL, MCPProtocolType.SSE),
+                new MCPServerMetadata("account", accountMCPServerUrl, MCPProtocolType.SSE)), toolCallExecutor);
 
         if (loggedUserName == null || loggedUserName.isEmpty()) {
             throw new IllegalArgumentException("loggedUserName cannot be null or empty");
@@ -109,6 +132,16 @@ public class PaymentMCPAgent extends MCPToolAgent {
         );
     }
 
+    @Override
+    protected ToolSelector getToolSelector() {
+        return toolSelector;
+    }
+
+    @Override
+    protected ToolResultEncoder getToolResultEncoder() {
+        return BusinessToolResults.ENCODER;
+    }
+
     @Override
     protected String getSystemMessage() {
         return agentPrompt.text();
@@ -1,9 +1,13 @@
 package com.microsoft.openai.samples.assistant.langchain4j.agent.mcp;
 
 import com.microsoft.langchain4j.agent.AgentMetadata;
+import com.microsoft.langchain4j.agent.ToolSelector;
 import com.microsoft.langchain4j.agent.mcp.MCPProtocolType;
 import com.microsoft.langchain4j.agent.mcp.MCPServerMetadata;
 import com.microsoft.langchain4j.agent.mcp.MCPToolAgent;
+import com.microsoft.langchain4j.agent.mcp.resilience.McpToolCallExecutor;
+import com.microsoft.langchain4j.agent.tools.RuleBasedToolSelector;
+import com.microsoft.langchain4j.agent.tools.ToolResultEncoder;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
@@ -15,10 +19,20 @@ public class TransactionHistoryMCPAgent extends MCPToolAgent {
 
     private final Prompt agentPrompt;
 
+    // the account tools are needed only to get the account id, unless the user asks about the account
+    private final ToolSelector toolSelector = RuleBasedToolSelector.builder("TransactionHistoryAgent")
+            .always("getLastTransactions", "getTransactionsByRecipientName", "getTransactionsSummary", "resolvePayeeName",
+                    "isInvoicePaid", "getAccountsByUserName")
+            .whenMentioned(List.of("card", "payment method", "balance", "beneficiar", "registered"),
+                    "getAccountOverview", "getAccountDetails", "getPaymentMethodDetails", "getRegisteredBeneficiary",
+                    "findBeneficiary", "resolveBeneficiaryName")
+            .build();
+
     private static final String TRANSACTION_HISTORY_AGENT_SYSTEM_MESSAGE = """
          you are a personal financial advisor who help the user with their recurrent bill payments. To search about the payments history you need to know the payee name and the account id.
         If the user doesn't provide the payee name, search the last 10 transactions order by date.
         If the user want to search last transactions for a specific payee, ask to provide the payee name.
+        If the user asks how much has been paid or received, use the transactions summary instead of adding up the single transactions.
         Use html list or table to display the transaction information.
         Always use the below logged user details to retrieve account info:
         '{{loggedUserName}}'
@@ -27,8 +41,12 @@ public class TransactionHistoryMCPAgent extends MCPToolAgent {
         """;
 
     public TransactionHistoryMCPAgent(ChatLanguageModel chatModel, String loggedUserName, String transactionMCPServerUrl, String accountMCPServerUrl) {
+        this(chatModel, loggedUserName, transactionMCPServerUrl, accountMCPServerUrl, null);
+    }
+
+    public TransactionHistoryMCPAgent(ChatLanguageModel chatModel, String loggedUserName, String transactionMCPServerUrl, String accountMCPServerUrl, McpToolCallExecutor toolCallExecutor) {
         super(chatModel, List.of(new MCPServerMetadata("transaction-history", transactionMCPServerUrl, MCPProtocolType.SSE),
-                                 new MCPServerMetadata("account", accountMCPServerUrl, MCPProtocolType.SSE)));
+                                 new MCPServerMetadata("account", accountMCPServerUrl, MCPProtocolType.SSE)), toolCallExecutor);
 
         if (loggedUserName == null || loggedUserName.isEmpty()) {
             throw new IllegalArgumentException("loggedUserName cannot be null or empty");
@@ -56,6 +74,16 @@ public class TransactionHistoryMCPAgent extends MCPToolAgent {
         );
     }
 
+    @Override
+    protected ToolSelector getToolSelector() {
+        return toolSelector;
+    }
+
+    @Override
+    protected ToolResultEncoder getToolResultEncoder() {
+        return BusinessToolResults.ENCODER;
+    }
+
     @Override
     protected String getSystemMessage() {
         return agentPrompt.text();
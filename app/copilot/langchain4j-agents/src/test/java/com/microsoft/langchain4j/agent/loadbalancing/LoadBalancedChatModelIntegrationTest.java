@@ -0,0 +1,261 @@
+package com.microsoft.langchain4j.agent.loadbalancing;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpResponse;
+import com.microsoft.langchain4j.agent.concurrency.Bulkhead;
+import com.microsoft.langchain4j.agent.mcp.resilience.CircuitBreaker;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Calls scripted deployments through the load balancer and checks that the calls fail over from a failing
+ * deployment, whose circuit breaker opens, that a throttled deployment is skipped until its retry-after without
+ * changing its breaker, that a call waits when all the deployments are throttled, that a 400 is neither retried nor
+ * counted as a failure, and that a slow call is hedged on another deployment only when the bulkhead has a free permit.
+ * Usage: LoadBalancedChatModelIntegrationTest
+ */
+public class LoadBalancedChatModelIntegrationTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder().messages(UserMessage.from("What is my balance?")).build();
+
+    public static void main(String[] args) throws Exception {
+        checkFailover();
+        checkThrottling();
+        checkNotRetriable();
+        checkHedging(2, true);
+        checkHedging(1, false);
+        System.out.println("LoadBalancedChatModelIntegrationTest passed");
+    }
+
+    /**
+     * A deployment failing with connection errors: the calls are retried on the other one, and once its breaker is
+     * open the failing deployment isn't called anymore.
+     */
+    private static void checkFailover() {
+        var down = new ScriptedModel("down", () -> {
+            throw new UncheckedIOException(new IOException("Connection refused"));
+        });
+        var up = new ScriptedModel("up", () -> null);
+        var model = builder().deployment("down", down, 1).deployment("up", up, 1).hedging(false).build();
+        for (int i = 0; i < 30; i++) {
+            String answer = model.chat(REQUEST).aiMessage().text();
+            if (!answer.equals("up"))
+                throw new IllegalStateException("Check failed: call not failed over, got " + answer);
+        }
+        ModelDeployment failing = model.deployments().get(0);
+        if (failing.circuitBreakerState() != CircuitBreaker.State.OPEN || failing.calls() > 10)
+            throw new IllegalStateException("Check failed: breaker %s after %d calls to the failing deployment"
+                    .formatted(failing.circuitBreakerState(), failing.calls()));
+    }
+
+    /**
+     * A 429 skips the deployment until its retry-after without opening its breaker, and a call waits for the first
+     * deployment to recover when all of them are throttled.
+     */
+    private static void checkThrottling() {
+        var throttled = new ScriptedModel("throttled", () -> status(429, "300"));
+        var available = new ScriptedModel("available", () -> null);
+        var model = builder().deployment("throttled", throttled, 1).deployment("available", available, 1).hedging(false).build();
+        for (int i = 0; i < 20; i++)
+            model.chat(REQUEST);
+        ModelDeployment deployment = model.deployments().get(0);
+        if (deployment.throttled() != 1 || deployment.circuitBreakerState() != CircuitBreaker.State.CLOSED)
+            throw new IllegalStateException("Check failed: throttled deployment called %d times, breaker %s"
+                    .formatted(deployment.throttled(), deployment.circuitBreakerState()));
+
+        // both deployments answer 429 once, then recover: the call waits for them
+        var first = new ScriptedModel("first", new ThrottledOnce());
+        var second = new ScriptedModel("second", new ThrottledOnce());
+        var allThrottled = builder().deployment("first", first, 1).deployment("second", second, 1).hedging(false).build();
+        long start = System.nanoTime();
+        allThrottled.chat(REQUEST);
+        if (Duration.ofNanos(System.nanoTime() - start).toMillis() < 100)
+            throw new IllegalStateException("Check failed: call didn't wait for the throttled deployments");
+    }
+
+    /**
+     * A 400 is caused by the request: it's thrown at once, without retry, and the breaker is unchanged.
+     */
+    private static void checkNotRetriable() {
+        var filtered = new ScriptedModel("filtered", () -> status(400, null));
+        var model = builder().deployment("filtered", filtered, 1).deployment("other", new ScriptedModel("other", () -> null), 1)
+                .hedging(false).build();
+        for (int i = 0; i < 20; i++) {
+            try {
+                callFirstDeployment(model);
+            } catch (HttpResponseException expected) {
+                // the content filter rejected the request
+            }
+        }
+        ModelDeployment deployment = model.deployments().get(0);
+        if (deployment.failures() != 0 || deployment.circuitBreakerState() != CircuitBreaker.State.CLOSED)
+            throw new IllegalStateException("Check failed: 400 counted as a failure, breaker " + deployment.circuitBreakerState());
+        if (model.deployments().get(1).calls() != 0)
+            throw new IllegalStateException("Check failed: 400 retried on another deployment");
+    }
+
+    /**
+     * Records the latencies of fast calls, then makes the deployments slow for the next call: it's hedged on the
+     * other deployment when the bulkhead has a second permit, and waits for the slow call otherwise.
+     */
+    private static void checkHedging(int maxConcurrentCalls, boolean hedged) {
+        var bulkhead = new Bulkhead("OpenAI", maxConcurrentCalls, Duration.ofSeconds(1));
+        var slow = new boolean[1];
+        var model = builder()
+                .deployment("first", new ScriptedModel("first", () -> slowWhen(slow)), 1)
+                .deployment("second", new ScriptedModel("second", () -> slowWhen(slow)), 1)
+                .hedgeBulkhead(bulkhead)
+                .build();
+        // enough latencies on both deployments for their hedge percentile
+        for (int i = 0; i < 200; i++)
+            callWithin(bulkhead, model);
+        slow[0] = true;
+        long hedgesBefore = model.deployments().stream().mapToLong(ModelDeployment::hedges).sum();
+        callWithin(bulkhead, model);
+        long hedges = model.deployments().stream().mapToLong(ModelDeployment::hedges).sum() - hedgesBefore;
+        if (hedged && hedges == 0)
+            throw new IllegalStateException("Check failed: slow call not hedged");
+        if (!hedged && hedges != 0)
+            throw new IllegalStateException("Check failed: call hedged without a free bulkhead permit");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (bulkhead.activeCalls() != 0 && System.currentTimeMillis() < deadline)
+            Thread.onSpinWait();
+        if (bulkhead.activeCalls() != 0)
+            throw new IllegalStateException("Check failed: %d bulkhead permits not released".formatted(bulkhead.activeCalls()));
+    }
+
+    private static void callWithin(Bulkhead bulkhead, LoadBalancedChatModel model) {
+        bulkhead.acquire();
+        try {
+            model.chat(REQUEST);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private static void callFirstDeployment(LoadBalancedChatModel model) {
+        // the load balancer picks the least loaded deployment, at random on ties
+        model.deployments().get(1).outstanding.set(1_000);
+        try {
+            model.chat(REQUEST);
+        } finally {
+            model.deployments().get(1).outstanding.set(0);
+        }
+    }
+
+    private static AiMessage slowWhen(boolean[] slow) {
+        if (slow[0]) {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return null;
+    }
+
+    private static LoadBalancedChatModel.Builder builder() {
+        return LoadBalancedChatModel.builder()
+                .maxAttempts(3)
+                .maxRetryWait(Duration.ofSeconds(2))
+                .circuitBreaker(0.5, 10, 5, Duration.ofSeconds(30));
+    }
+
+    private static AiMessage status(int statusCode, String retryAfterMillis) {
+        HttpHeaders headers = new HttpHeaders();
+        if (retryAfterMillis != null)
+            headers.set("retry-after-ms", retryAfterMillis);
+        throw new HttpResponseException("Status code " + statusCode, new StaticResponse(statusCode, headers));
+    }
+
+    private static class ThrottledOnce implements Supplier<AiMessage> {
+        private boolean throttled;
+
+        @Override
+        public synchronized AiMessage get() {
+            if (throttled)
+                return null;
+            throttled = true;
+            return status(429, "150");
+        }
+    }
+
+    /**
+     * Deployment answering with its name, unless the script throws or returns another answer.
+     */
+    private static class ScriptedModel implements ChatLanguageModel {
+        private final String name;
+        private final Supplier<AiMessage> script;
+
+        ScriptedModel(String name, Supplier<AiMessage> script) {
+            this.name = name;
+            this.script = script;
+        }
+
+        @Override
+        public ChatResponse doChat(ChatRequest request) {
+            AiMessage answer = script.get();
+            return ChatResponse.builder().aiMessage(answer != null ? answer : AiMessage.from(name)).build();
+        }
+    }
+
+    private static class StaticResponse extends HttpResponse {
+        private final int statusCode;
+        private final HttpHeaders headers;
+
+        StaticResponse(int statusCode, HttpHeaders headers) {
+            super(null);
+            this.statusCode = statusCode;
+            this.headers = headers;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        @Deprecated
+        public String getHeaderValue(String name) {
+            return headers.getValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody() {
+            return Flux.empty();
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray() {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<String> getBodyAsString() {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset) {
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.ResourceRef;
+import dev.langchain4j.mcp.client.ResourceResponse;
+import dev.langchain4j.mcp.client.ResourceTemplateRef;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Connects a managed client to a simulated MCP server and checks that a tool call whose session is unknown after a
+ * restart is sent again on a new session, that a call failing with a server error is neither retried nor replaces
+ * the session, that a call made while the server is down waits for the reconnection, retried with backoff, and that
+ * the heartbeats notify the new tools of the server.
+ * Usage: ManagedMcpClientIntegrationTest
+ */
+public class ManagedMcpClientIntegrationTest {
+
+    public static void main(String[] args) throws Exception {
+        var server = new Server();
+        var manager = McpSessionManager.builder()
+                .heartbeatInterval(Duration.ofMillis(500))
+                .heartbeatTimeout(Duration.ofSeconds(1))
+                .connectTimeout(Duration.ofSeconds(1))
+                .reconnectWait(Duration.ofSeconds(5))
+                .reconnectBackoff(Duration.ofMillis(10), Duration.ofMillis(50))
+                .build();
+        ManagedMcpClient client = manager.connect("account", server::newSession);
+        McpSessionStats stats = manager.sessionStats().get("account");
+        String first = client.executeTool(request("getAccountDetails"));
+        if (!first.equals("getAccountDetails on session 1"))
+            throw new IllegalStateException("Check failed: call on the first session, got " + first);
+
+        // the server restarts: the session is unknown, the call is sent again on a new session
+        server.restart();
+        String retried = client.executeTool(request("getAccountDetails"));
+        if (!retried.equals("getAccountDetails on session 2"))
+            throw new IllegalStateException("Check failed: call retried on a new session, got " + retried);
+        // the reconnection is counted after the waiting calls are signaled
+        await(() -> stats.reconnects() == 1, "reconnection counted");
+        if (stats.losses() != 1)
+            throw new IllegalStateException("Check failed: session replaced once, got %d losses".formatted(stats.losses()));
+
+        // a server error is not a lost session: the call fails and the session is kept
+        try {
+            client.executeTool(request("failingTool"));
+            throw new IllegalStateException("Check failed: server error not reported");
+        } catch (RuntimeException e) {
+            if (!(e.getCause() instanceof McpHttpStatusException status && status.statusCode() == 500))
+                throw new IllegalStateException("Check failed: server error reported, got " + e);
+        }
+        if (stats.losses() != 1)
+            throw new IllegalStateException("Check failed: session replaced after a server error");
+
+        // the server is down while it restarts: the call waits for the reconnection, retried until the server is up
+        server.down = true;
+        server.restart();
+        Thread restarted = new Thread(() -> {
+            sleep(200);
+            server.down = false;
+        });
+        restarted.start();
+        String waited = client.executeTool(request("getAccountDetails"));
+        if (!waited.startsWith("getAccountDetails on session "))
+            throw new IllegalStateException("Check failed: call made while the server was down, got " + waited);
+        if (stats.reconnectFailures() == 0)
+            throw new IllegalStateException("Check failed: no reconnection failed while the server was down");
+        restarted.join();
+
+        // a new version of the server lists a new tool: the heartbeats notify it
+        AtomicReference<List<ToolSpecification>> notified = new AtomicReference<>();
+        client.onToolsChanged(notified::set);
+        server.tools = List.of(tool("getAccountDetails"), tool("getAccountOverview"));
+        await(() -> notified.get() != null, "tools change notified by a heartbeat");
+        if (client.listTools().size() != 2)
+            throw new IllegalStateException("Check failed: new tool not listed, got " + client.listTools());
+
+        client.close();
+        if (stats.connected() != 0)
+            throw new IllegalStateException("Check failed: closed client still connected");
+        System.out.println("ManagedMcpClientIntegrationTest passed");
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                throw new IllegalStateException("Timed out waiting for " + description);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ToolExecutionRequest request(String toolName) {
+        return ToolExecutionRequest.builder().id("1").name(toolName).arguments("{}").build();
+    }
+
+    private static ToolSpecification tool(String name) {
+        return ToolSpecification.builder().name(name).description(name).build();
+    }
+
+    /**
+     * MCP server forgetting its sessions when it restarts, refusing the connections while it's down.
+     */
+    private static class Server {
+        volatile boolean down;
+        volatile int sessions;
+        volatile int generation;
+        volatile List<ToolSpecification> tools = List.of(tool("getAccountDetails"));
+
+        synchronized void restart() {
+            generation++;
+        }
+
+        synchronized McpClient newSession() {
+            checkUp();
+            return new Session(++sessions, generation);
+        }
+
+        void checkUp() {
+            if (down)
+                throw new RuntimeException(new ConnectException("Connection refused"));
+        }
+
+        private class Session implements McpClient {
+            private final int id;
+            private final int generation;
+
+            Session(int id, int generation) {
+                this.id = id;
+                this.generation = generation;
+            }
+
+            @Override
+            public List<ToolSpecification> listTools() {
+                checkSession();
+                return tools;
+            }
+
+            @Override
+            public String executeTool(ToolExecutionRequest request) {
+                checkSession();
+                if (request.name().equals("failingTool"))
+                    throw new RuntimeException(new McpHttpStatusException(500, null));
+                return request.name() + " on session " + id;
+            }
+
+            @Override
+            public List<ResourceRef> listResources() {
+                return List.of();
+            }
+
+            @Override
+            public List<ResourceTemplateRef> listResourceTemplates() {
+                return List.of();
+            }
+
+            @Override
+            public ResourceResponse readResource(String uri) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+
+            private void checkSession() {
+                checkUp();
+                if (generation != Server.this.generation)
+                    throw new RuntimeException(new McpHttpStatusException(404, null));
+            }
+        }
+    }
+}
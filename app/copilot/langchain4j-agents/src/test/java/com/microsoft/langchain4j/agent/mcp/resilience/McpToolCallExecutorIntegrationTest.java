@@ -0,0 +1,170 @@
+package com.microsoft.langchain4j.agent.mcp.resilience;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.ResourceRef;
+import dev.langchain4j.mcp.client.ResourceResponse;
+import dev.langchain4j.mcp.client.ResourceTemplateRef;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Calls a scripted MCP client through the executor and checks that the calls failing because of their arguments or
+ * with a 4xx status don't open the circuit breaker, that the transport errors, the 5xx statuses and the timeouts
+ * open it, that a half-open breaker closes on a successful probe, and that a slow read is hedged only when the
+ * bulkhead of the server has a free permit, all the permits being released afterwards.
+ * Usage: McpToolCallExecutorIntegrationTest
+ */
+public class McpToolCallExecutorIntegrationTest {
+
+    private static final String SERVER = "account";
+    private static final String TOOL = "getAccountDetails";
+
+    public static void main(String[] args) throws Exception {
+        // the model sends bad arguments: the server is healthy, the breaker stays closed
+        var executor = executor(Duration.ofSeconds(5), 0);
+        call(executor, 20, request -> {
+            throw new IllegalArgumentException("accountId must be a number");
+        });
+        call(executor, 20, request -> {
+            throw new RuntimeException(new McpHttpStatusException(400, null));
+        });
+        checkState(executor, CircuitBreaker.State.CLOSED, "after bad arguments and 4xx statuses");
+
+        // 5xx statuses and transport errors open it, and the calls are then rejected without reaching the server
+        call(executor, 5, request -> {
+            throw new RuntimeException(new McpHttpStatusException(503, null));
+        });
+        call(executor, 5, request -> {
+            throw new UncheckedIOException(new IOException("Connection reset"));
+        });
+        checkState(executor, CircuitBreaker.State.OPEN, "after 5xx statuses and transport errors");
+        AtomicInteger reached = new AtomicInteger();
+        String rejected = executor.execute(SERVER, client(request -> "" + reached.incrementAndGet()), request());
+        if (reached.get() != 0 || !rejected.contains("not available"))
+            throw new IllegalStateException("Check failed: call not rejected by the open breaker, got " + rejected);
+
+        // after the open duration a probe goes through, and closes the breaker when it succeeds
+        Thread.sleep(250);
+        String probe = executor.execute(SERVER, client(request -> "{\"id\":\"1010\"}"), request());
+        if (!probe.equals("{\"id\":\"1010\"}"))
+            throw new IllegalStateException("Check failed: probe not sent, got " + probe);
+        checkState(executor, CircuitBreaker.State.CLOSED, "after a successful probe");
+
+        // the timeouts open it
+        var slowExecutor = executor(Duration.ofMillis(50), 0);
+        call(slowExecutor, 10, request -> {
+            sleep(500);
+            return "late";
+        });
+        checkState(slowExecutor, CircuitBreaker.State.OPEN, "after timeouts");
+        if (slowExecutor.toolStats().get(TOOL).timeouts() != 10)
+            throw new IllegalStateException("Check failed: timeouts not counted, got " + slowExecutor.toolStats().get(TOOL).timeouts());
+
+        checkHedging(2, true);
+        checkHedging(1, false);
+
+        System.out.println("McpToolCallExecutorIntegrationTest passed");
+    }
+
+    /**
+     * Records the latencies of fast calls, then sends a call whose first request is slow: it's hedged when the
+     * bulkhead has a second permit, otherwise it waits for the slow request.
+     */
+    private static void checkHedging(int serverMaxConcurrentCalls, boolean hedged) {
+        var executor = executor(Duration.ofSeconds(5), serverMaxConcurrentCalls);
+        call(executor, 30, request -> "fast");
+        ToolCallStats stats = executor.toolStats().get(TOOL);
+        long hedgesBefore = stats.hedges();
+        long hedgeWinsBefore = stats.hedgeWins();
+        AtomicInteger requests = new AtomicInteger();
+        String result = executor.execute(SERVER, client(request -> {
+            if (requests.incrementAndGet() == 1)
+                sleep(300);
+            return "answer " + requests.get();
+        }), request());
+        long hedges = stats.hedges() - hedgesBefore;
+        if (hedged && (hedges != 1 || stats.hedgeWins() - hedgeWinsBefore != 1 || !result.equals("answer 2")))
+            throw new IllegalStateException("Check failed: slow call not hedged, got %s, %d hedges".formatted(result, hedges));
+        if (!hedged && (hedges != 0 || !result.equals("answer 1")))
+            throw new IllegalStateException("Check failed: call hedged without a free permit, got %s, %d hedges".formatted(result, hedges));
+        var bulkhead = executor.bulkheads().get(SERVER);
+        if (bulkhead.activeCalls() != 0)
+            throw new IllegalStateException("Check failed: %d bulkhead permits not released".formatted(bulkhead.activeCalls()));
+    }
+
+    private static McpToolCallExecutor executor(Duration timeout, int serverMaxConcurrentCalls) {
+        return McpToolCallExecutor.builder()
+                .defaultTimeout(timeout)
+                .hedgedTools(Set.of(TOOL))
+                .breakerWindowSize(10)
+                .breakerMinimumCalls(10)
+                .breakerOpenDuration(Duration.ofMillis(200))
+                .serverMaxConcurrentCalls(serverMaxConcurrentCalls)
+                .build();
+    }
+
+    private static void call(McpToolCallExecutor executor, int calls, Function<ToolExecutionRequest, String> tool) {
+        McpClient client = client(tool);
+        for (int i = 0; i < calls; i++)
+            executor.execute(SERVER, client, request());
+    }
+
+    private static void checkState(McpToolCallExecutor executor, CircuitBreaker.State expected, String description) {
+        CircuitBreaker.State state = executor.circuitBreakers().get(SERVER).state();
+        if (state != expected)
+            throw new IllegalStateException("Check failed: breaker %s %s, expected %s".formatted(state, description, expected));
+    }
+
+    private static ToolExecutionRequest request() {
+        return ToolExecutionRequest.builder().id("1").name(TOOL).arguments("{\"accountId\":\"1010\"}").build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static McpClient client(Function<ToolExecutionRequest, String> tool) {
+        return new McpClient() {
+            @Override
+            public List<ToolSpecification> listTools() {
+                return List.of();
+            }
+
+            @Override
+            public String executeTool(ToolExecutionRequest request) {
+                return tool.apply(request);
+            }
+
+            @Override
+            public List<ResourceRef> listResources() {
+                return List.of();
+            }
+
+            @Override
+            public List<ResourceTemplateRef> listResourceTemplates() {
+                return List.of();
+            }
+
+            @Override
+            public ResourceResponse readResource(String uri) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -114,14 +114,19 @@ const Chat = () => {
         const token = client ? await getToken(client) : undefined;
 
         try {
-            const messages: ResponseMessage[] = answers.flatMap(a => [
-                { content: a[0], role: "user", attachments: a[1]},
-                { content: a[2].choices[0].message.content, role: "assistant" }
-            ]);
+            const messages: ResponseMessage[] = [
+                ...answers.flatMap(a => [
+                    { content: a[0], role: "user", attachments: a[1]},
+                    { content: a[2].choices[0].message.content, role: "assistant" }
+                ]),
+                { content: questionContext.question, role: "user", attachments: questionContext.attachments }
+            ];
+            // ChatAppProtocol: Client must pass on any session state received from the server
+            const sessionState = answers.length ? answers[answers.length - 1][2].choices[0].session_state : null;
 
             const stream = streamAvailable && shouldStream;
-            const request: ChatAppRequest = {
-                messages: [...messages, { content: questionContext.question, role: "user", attachments: questionContext.attachments }],
+            const buildRequest = (history: ResponseMessage[], session_state: any): ChatAppRequest => ({
+                messages: history,
                 stream: stream,
                 context: {
                     overrides: {
@@ -138,11 +143,15 @@ const Chat = () => {
                     }
                 },
                 approach: approach,
-                // ChatAppProtocol: Client must pass on any session state received from the server
-                session_state: answers.length ? answers[answers.length - 1][2].choices[0].session_state : null
-            };
+                session_state: session_state
+            });
 
-            const response = await chatApi(request, token?.accessToken);
+            // the server keeps the history of the conversation in the session state: only the new turn is sent
+            let response = await chatApi(buildRequest(sessionState ? messages.slice(-1) : messages, sessionState), token?.accessToken);
+            if (response.status === 410) {
+                // the server doesn't know the conversation anymore, e.g. it expired: it's sent again in full
+                response = await chatApi(buildRequest(messages, null), token?.accessToken);
+            }
             if (!response.body) {
                 throw Error("No response body");
             }